@@ -288,8 +288,13 @@ public class Maxwell implements Runnable {
 			context.getConfig().getIgnoreMissingSchema(),
 			config.outputConfig,
 			config.bufferMemoryUsage,
+			config.bufferSpillCompression,
+			config.transactionStreaming,
+			config.producerBatchSize,
 			config.replicationReconnectionRetries,
-			config.binlogEventQueueSize
+			config.binlogEventQueueSize,
+			config.binlogEventQueueWaitStrategy,
+			config.binlogDecodeThreads
 		);
 
 		context.setReplicator(replicator);
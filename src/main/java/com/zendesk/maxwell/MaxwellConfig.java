@@ -15,6 +15,7 @@ import com.zendesk.maxwell.replication.BinlogPosition;
 import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.scripting.Scripting;
 import com.zendesk.maxwell.util.AbstractConfig;
+import com.zendesk.maxwell.util.RingBuffer;
 import com.zendesk.maxwell.util.MaxwellOptionParser;
 import joptsimple.OptionSet;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -150,10 +151,26 @@ public class MaxwellConfig extends AbstractConfig {
 	public String kafkaPartitionHash;
 
 	/**
-	 * "async" or "sync", describes bootstrapping behavior
+	 * number of kafka producer worker threads; rows are sharded between them by partition key
+	 */
+	public int kafkaProducerWorkers;
+
+	/**
+	 * "async", "sync", "watermark" or "none", describes bootstrapping behavior
 	 */
 	public String bootstrapperType;
 
+	/**
+	 * Bootstrap tables with a single integer primary key in ranges of this many rows,
+	 * recording progress so a restarted bootstrap resumes.  0 reads the table in one query.
+	 */
+	public long bootstrapChunkSize;
+
+	/**
+	 * How many connections to read bootstrap chunks on at once
+	 */
+	public int bootstrapThreads;
+
 	/**
 	 * size of queue for buffered producer
 	 */
@@ -308,10 +325,25 @@ public class MaxwellConfig extends AbstractConfig {
 	public String bigQueryDataset;
 
 	/**
-	 * {@link com.zendesk.maxwell.producer.MaxwellBigQueryProducer} table
+	 * {@link com.zendesk.maxwell.producer.MaxwellBigQueryProducer} table, may contain %{database} and %{table}
 	 */
 	public String bigQueryTable;
 
+	/**
+	 * {@link com.zendesk.maxwell.producer.MaxwellBigQueryProducer} most rows sent in one AppendRows request
+	 */
+	public int bigQueryBatchRows;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.MaxwellBigQueryProducer} most bytes of JSON sent in one AppendRows request
+	 */
+	public long bigQueryBatchBytes;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.MaxwellBigQueryProducer} number of per-table stream writers kept open
+	 */
+	public int bigQueryStreamWriters;
+
 
 	/**
 	 * Used in all producers deriving from {@link com.zendesk.maxwell.producer.AbstractAsyncProducer}.<br>
@@ -320,11 +352,43 @@ public class MaxwellConfig extends AbstractConfig {
 	 */
 	public Long producerAckTimeout;
 
+	/**
+	 * Most rows of one transaction handed to the producer in a single
+	 * {@link com.zendesk.maxwell.producer.AbstractProducer#pushBatch} call.  1 pushes row by row.
+	 */
+	public int producerBatchSize;
+
 	/**
 	 * output file path for the {@link com.zendesk.maxwell.producer.FileProducer}
 	 */
 	public String outputFile;
 
+	/**
+	 * {@link com.zendesk.maxwell.producer.FileProducer} fsync the output file before advancing the binlog position
+	 */
+	public boolean outputFileFsync;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.FileProducer} flush the output file at most this often, in ms.
+	 * 0 flushes on every transaction commit.
+	 */
+	public long outputFileFlushMs;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.FileProducer} rotate the output file once it's this big.  0 never rotates by size.
+	 */
+	public long outputFileRotateBytes;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.FileProducer} rotate the output file after this many ms.  0 never rotates by time.
+	 */
+	public long outputFileRotateMs;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.FileProducer} compression for rotated files: none, gzip or lz4
+	 */
+	public String outputFileCompression;
+
 	/**
 	 * Controls output features and formats
 	 */
@@ -479,12 +543,48 @@ public class MaxwellConfig extends AbstractConfig {
 	 */
 	public float bufferMemoryUsage;
 
+	/**
+	 * LZ4 compress transaction rows that overflow the buffer and spill to disk
+	 */
+	public boolean bufferSpillCompression;
+
+	/**
+	 * Output a transaction's rows as they're read, instead of buffering the
+	 * whole transaction until its COMMIT.  Only the last row carries the xid.
+	 */
+	public boolean transactionStreaming;
+
 	/**
 	 * How many schema "deltas" are kept live before a schema compaction is triggered.
 	 * @see com.zendesk.maxwell.schema.MysqlSchemaCompactor
 	 */
 	public Integer maxSchemaDeltas;
 
+	/**
+	 * Save full schemas (initial captures and compactions) as a single LZ4-compressed
+	 * blob in `schema_snapshots` instead of one row per database, table and column.
+	 * Schemas saved either way are always restored.
+	 * @see com.zendesk.maxwell.schema.SchemaSnapshot
+	 */
+	public boolean binarySchemaSnapshots;
+
+	/**
+	 * How many connections to capture the schema on at once.
+	 * @see com.zendesk.maxwell.schema.SchemaCapturer
+	 */
+	public int schemaCaptureThreads;
+
+	/**
+	 * How many databases to capture with each set of information_schema queries
+	 */
+	public int schemaCaptureDatabasesPerQuery;
+
+	/**
+	 * How many parsed DDL statements to keep for reuse, 0 to parse every statement.
+	 * @see com.zendesk.maxwell.schema.ddl.SchemaChangeCache
+	 */
+	public int ddlParseCacheSize;
+
 	/**
 	 * {@link com.zendesk.maxwell.producer.RabbitmqProducer} username
 	 */
@@ -619,6 +719,17 @@ public class MaxwellConfig extends AbstractConfig {
 	 */
 	public String redisType;
 
+	/**
+	 * {@link com.zendesk.maxwell.producer.MaxwellRedisProducer} number of commands to pipeline before syncing.
+	 * 0 or 1 sends each command and waits for its reply.
+	 */
+	public int redisPipelineSize;
+
+	/**
+	 * {@link com.zendesk.maxwell.producer.MaxwellRedisProducer} longest time, in ms, a pipelined command waits to be synced
+	 */
+	public long redisPipelineFlushMs;
+
 	/**
 	 * path to file containing javascript filtering functions
 	 */
@@ -650,6 +761,20 @@ public class MaxwellConfig extends AbstractConfig {
 	 */
 	public int binlogEventQueueSize;
 
+	/**
+	 * How the binlog event queue's reader and writer wait on each other.
+	 * One of "park" (default), "yield" or "spin"
+	 */
+	public RingBuffer.WaitStrategy binlogEventQueueWaitStrategy;
+
+	/**
+	 * Number of threads used to decode row events into {@link com.zendesk.maxwell.row.RowMap}s.
+	 * <p>
+	 *     0 (the default) decodes rows inline on the replicator thread.
+	 * </p>
+	 */
+	public int binlogDecodeThreads;
+
 	/**
 	 * Build a default configuration object.
 	 */
@@ -752,6 +877,14 @@ public class MaxwellConfig extends AbstractConfig {
 		parser.separator();
 		parser.accepts( "max_schemas", "Maximum schema-updates to keep before triggering a compaction operation.  Default: unlimited" )
 				.withRequiredArg();
+		parser.accepts( "binary_schema_snapshots", "save full schemas as one compressed blob instead of a row per column.  Default: false" )
+				.withOptionalArg().ofType(Boolean.class);
+		parser.accepts( "schema_capture_threads", "capture the schema on this many connections at once.  Default: 1" )
+				.withRequiredArg().ofType(Integer.class);
+		parser.accepts( "schema_capture_databases_per_query", "capture this many databases with each information_schema query.  Default: 1" )
+				.withRequiredArg().ofType(Integer.class);
+		parser.accepts( "ddl_parse_cache_size", "how many parsed DDL statements to keep for reuse, 0 to disable.  Default: 1000" )
+				.withRequiredArg().ofType(Integer.class);
 
 		parser.section( "output" );
 
@@ -822,8 +955,12 @@ public class MaxwellConfig extends AbstractConfig {
 
 		parser.separator();
 
-		parser.accepts( "bootstrapper", "bootstrapper type: async|sync|none. default: async" )
+		parser.accepts( "bootstrapper", "bootstrapper type: async|sync|watermark|none. default: async" )
 				.withRequiredArg();
+		parser.accepts( "bootstrap_chunk_size", "bootstrap tables with an integer primary key in resumable ranges of this many rows.  Default: 0 (one query)" )
+				.withRequiredArg().ofType(Long.class);
+		parser.accepts( "bootstrap_threads", "with bootstrap_chunk_size, read this many chunks at once.  Default: 1" )
+				.withRequiredArg().ofType(Integer.class);
 		parser.accepts( "init_position", "initial binlog position, given as BINLOG_FILE:POSITION[:HEARTBEAT]" )
 				.withRequiredArg();
 
@@ -841,8 +978,18 @@ public class MaxwellConfig extends AbstractConfig {
 				.withOptionalArg().ofType(Boolean.class);
 		parser.accepts( "buffer_memory_usage", "Percentage of JVM memory available for transaction buffer.  Floating point between 0 and 1." )
 				.withRequiredArg().ofType(Float.class);
+		parser.accepts( "buffer_spill_compression", "LZ4 compress rows that overflow the transaction buffer onto disk. default: false" )
+				.withOptionalArg().ofType(Boolean.class);
+		parser.accepts( "transaction_streaming", "output a transaction's rows before its COMMIT is read; only the final row carries the xid. default: false" )
+				.withOptionalArg().ofType(Boolean.class);
 		parser.accepts("binlog_event_queue_size", "Size of queue to buffer events parsed from binlog.")
 				.withOptionalArg().ofType(Integer.class);
+		parser.accepts("binlog_event_queue_wait_strategy", "How threads wait on the binlog event queue: park|yield|spin. default: park")
+				.withRequiredArg();
+		parser.accepts("binlog_decode_threads", "Number of threads to decode row events on. default: 0 (decode on the replicator thread)")
+				.withRequiredArg().ofType(Integer.class);
+		parser.accepts("lazy_column_decoding", "only convert a row's column values when they are used (filters, javascript, output). default: false")
+				.withOptionalArg().ofType(Boolean.class);
 
 		parser.section( "custom_producer" );
 		parser.accepts( "custom_producer.factory", "fully qualified custom producer factory class" )
@@ -852,6 +999,16 @@ public class MaxwellConfig extends AbstractConfig {
 
 		parser.accepts( "output_file", "output file for 'file' producer" )
 				.withRequiredArg();
+		parser.accepts( "output_file_fsync", "fsync the output file before advancing the binlog position. default: false" )
+				.withOptionalArg();
+		parser.accepts( "output_file_flush_ms", "flush the output file at most this often. default: 0 (flush on every commit)" )
+				.withRequiredArg().ofType(Long.class);
+		parser.accepts( "output_file_rotate_bytes", "rotate the output file once it reaches this size. default: 0 (never)" )
+				.withRequiredArg().ofType(Long.class);
+		parser.accepts( "output_file_rotate_ms", "rotate the output file after this many milliseconds. default: 0 (never)" )
+				.withRequiredArg().ofType(Long.class);
+		parser.accepts( "output_file_compression", "[none|gzip|lz4] compression for rotated output files. default: none" )
+				.withRequiredArg();
 
 		parser.section( "kafka" );
 
@@ -869,6 +1026,8 @@ public class MaxwellConfig extends AbstractConfig {
 				.withRequiredArg();
 		parser.accepts( "producer_ack_timeout", "producer message acknowledgement timeout in milliseconds" )
 				.withRequiredArg().ofType(Long.class);
+		parser.accepts( "producer_batch_size", "hand up to this many rows of a transaction to the producer at once. default: 1" )
+				.withRequiredArg().ofType(Integer.class);
 
 		parser.separator();
 
@@ -878,6 +1037,8 @@ public class MaxwellConfig extends AbstractConfig {
 				.withRequiredArg();
 		parser.accepts( "kafka_partition_hash", "default|murmur3, hash function for partitioning" )
 				.withRequiredArg();
+		parser.accepts( "kafka_producer_workers", "number of threads serializing and sending rows to kafka, sharded by partition key. with more than one, only per-key order is kept within a kafka partition. default: 1" )
+				.withRequiredArg().ofType(Integer.class);
 		parser.accepts( "dead_letter_topic", "write to this topic when unable to publish a row for known reasons (eg message is too big)" )
 				.withRequiredArg();
 
@@ -912,6 +1073,7 @@ public class MaxwellConfig extends AbstractConfig {
 		parser.addToSection("producer_partition_columns");
 		parser.addToSection("producer_partition_by_fallback");
 		parser.addToSection("producer_ack_timeout");
+		parser.addToSection("producer_batch_size");
 
 		parser.section( "nats" );
 
@@ -925,6 +1087,12 @@ public class MaxwellConfig extends AbstractConfig {
 				.withRequiredArg();
 		parser.accepts( "bigquery_table", "provide a google cloud platform table id associated with the bigquery table" )
 				.withRequiredArg();
+		parser.accepts( "bigquery_batch_rows", "most rows sent in one AppendRows request. default: 500" )
+				.withRequiredArg().ofType(Integer.class);
+		parser.accepts( "bigquery_batch_bytes", "most bytes sent in one AppendRows request. default: 5242880" )
+				.withRequiredArg().ofType(Long.class);
+		parser.accepts( "bigquery_stream_writers", "with an interpolated bigquery_table, how many per-table stream writers to keep open. default: 16" )
+				.withRequiredArg().ofType(Integer.class);
 
 		parser.section( "pubsub" );
 		parser.accepts( "pubsub_project_id", "provide a google cloud platform project id associated with the pubsub topic" )
@@ -987,6 +1155,8 @@ public class MaxwellConfig extends AbstractConfig {
 		parser.accepts( "redis_stream_json_key", "Redis Stream message field name for JSON message body" ).withRequiredArg();
 		parser.accepts("redis_sentinels", "List of Redis sentinels in format host1:port1,host2:port2,host3:port3. It can be used instead of redis_host and redis_port" ).withRequiredArg();
 		parser.accepts("redis_sentinel_master_name", "Redis sentinel master name. It is used with redis_sentinels" ).withRequiredArg();
+		parser.accepts( "redis_pipeline_size", "pipeline up to this many commands per round trip to Redis. default: 0 (no pipelining)" ).withRequiredArg().ofType(Integer.class);
+		parser.accepts( "redis_pipeline_flush_ms", "with redis_pipeline_size, sync a partial pipeline after this many milliseconds. default: 50" ).withRequiredArg().ofType(Long.class);
 
 		parser.section("monitoring");
 
@@ -1081,7 +1251,10 @@ public class MaxwellConfig extends AbstractConfig {
 		this.producerFactory    = fetchProducerFactory(options, properties);
 		this.producerType       = fetchStringOption("producer", options, properties, "stdout");
 		this.producerAckTimeout = fetchLongOption("producer_ack_timeout", options, properties, 0L);
+		this.producerBatchSize = fetchIntegerOption("producer_batch_size", options, properties, 1);
 		this.bootstrapperType   = fetchStringOption("bootstrapper", options, properties, "async");
+		this.bootstrapChunkSize = fetchLongOption("bootstrap_chunk_size", options, properties, 0L);
+		this.bootstrapThreads   = fetchIntegerOption("bootstrap_threads", options, properties, 1);
 		this.clientID           = fetchStringOption("client_id", options, properties, "maxwell");
 		this.replicaServerID    = fetchLongOption("replica_server_id", options, properties, 6379L);
 		this.javascriptFile         = fetchStringOption("javascript", options, properties, null);
@@ -1091,11 +1264,15 @@ public class MaxwellConfig extends AbstractConfig {
 		this.kafkaKeyFormat     	= fetchStringOption("kafka_key_format", options, properties, "hash");
 
 		this.kafkaPartitionHash 	= fetchStringOption("kafka_partition_hash", options, properties, "default");
+		this.kafkaProducerWorkers	= fetchIntegerOption("kafka_producer_workers", options, properties, 1);
 		this.ddlKafkaTopic 		    = fetchStringOption("ddl_kafka_topic", options, properties, this.kafkaTopic);
 
 		this.bigQueryProjectId		= fetchStringOption("bigquery_project_id", options, properties, null);
 		this.bigQueryDataset		= fetchStringOption("bigquery_dataset", options, properties, null);
 		this.bigQueryTable			= fetchStringOption("bigquery_table", options, properties, null);
+		this.bigQueryBatchRows		= fetchIntegerOption("bigquery_batch_rows", options, properties, 500);
+		this.bigQueryBatchBytes		= fetchLongOption("bigquery_batch_bytes", options, properties, 5L * 1024 * 1024);
+		this.bigQueryStreamWriters	= fetchIntegerOption("bigquery_stream_writers", options, properties, 16);
 
 		this.pubsubProjectId					= fetchStringOption("pubsub_project_id", options, properties, null);
 		this.pubsubTopic						= fetchStringOption("pubsub_topic", options, properties, "maxwell");
@@ -1145,6 +1322,9 @@ public class MaxwellConfig extends AbstractConfig {
 
 		this.redisType			= fetchStringOption("redis_type", options, properties, "pubsub");
 
+		this.redisPipelineSize		= fetchIntegerOption("redis_pipeline_size", options, properties, 0);
+		this.redisPipelineFlushMs	= fetchLongOption("redis_pipeline_flush_ms", options, properties, 50L);
+
 		String kafkaBootstrapServers = fetchStringOption("kafka.bootstrap.servers", options, properties, null);
 		if ( kafkaBootstrapServers != null )
 			this.kafkaProperties.setProperty("bootstrap.servers", kafkaBootstrapServers);
@@ -1183,6 +1363,11 @@ public class MaxwellConfig extends AbstractConfig {
 		this.snsSigningRegion = fetchStringOption("sns_signing_region", options, properties, null);
 
 		this.outputFile = fetchStringOption("output_file", options, properties, null);
+		this.outputFileFsync = fetchBooleanOption("output_file_fsync", options, properties, false);
+		this.outputFileFlushMs = fetchLongOption("output_file_flush_ms", options, properties, 0L);
+		this.outputFileRotateBytes = fetchLongOption("output_file_rotate_bytes", options, properties, 0L);
+		this.outputFileRotateMs = fetchLongOption("output_file_rotate_ms", options, properties, 0L);
+		this.outputFileCompression = fetchStringOption("output_file_compression", options, properties, "none");
 
 		this.metricsPrefix = fetchStringOption("metrics_prefix", options, properties, "MaxwellMetrics");
 		this.metricsReportingType = fetchStringOption("metrics_type", options, properties, null);
@@ -1222,7 +1407,13 @@ public class MaxwellConfig extends AbstractConfig {
 		this.ignoreProducerError = fetchBooleanOption("ignore_producer_error", options, properties, true);
 		this.recaptureSchema = fetchBooleanOption("recapture_schema", options, null, false);
 		this.bufferMemoryUsage = fetchFloatOption("buffer_memory_usage", options, properties, 0.25f);
+		this.bufferSpillCompression = fetchBooleanOption("buffer_spill_compression", options, properties, false);
+		this.transactionStreaming = fetchBooleanOption("transaction_streaming", options, properties, false);
 		this.maxSchemaDeltas = fetchIntegerOption("max_schemas", options, properties, null);
+		this.binarySchemaSnapshots = fetchBooleanOption("binary_schema_snapshots", options, properties, false);
+		this.schemaCaptureThreads = fetchIntegerOption("schema_capture_threads", options, properties, 1);
+		this.schemaCaptureDatabasesPerQuery = fetchIntegerOption("schema_capture_databases_per_query", options, properties, 1);
+		this.ddlParseCacheSize = fetchIntegerOption("ddl_parse_cache_size", options, properties, 1000);
 
 		outputConfig.includesBinlogPosition = fetchBooleanOption("output_binlog_position", options, properties, false);
 		outputConfig.includesGtidPosition = fetchBooleanOption("output_gtid_position", options, properties, false);
@@ -1250,6 +1441,14 @@ public class MaxwellConfig extends AbstractConfig {
 		this.replicationReconnectionRetries = fetchIntegerOption("replication_reconnection_retries", options, properties, 1);
 
 		this.binlogEventQueueSize = fetchIntegerOption("binlog_event_queue_size", options, properties, BinlogConnectorReplicator.BINLOG_QUEUE_SIZE);
+		String waitStrategy = fetchStringOption("binlog_event_queue_wait_strategy", options, properties, "park");
+		try {
+			this.binlogEventQueueWaitStrategy = RingBuffer.WaitStrategy.fromString(waitStrategy);
+		} catch ( IllegalArgumentException e ) {
+			usageForOptions("please specify --binlog_event_queue_wait_strategy=park|yield|spin", "binlog_event_queue_wait_strategy");
+		}
+		this.binlogDecodeThreads = fetchIntegerOption("binlog_decode_threads", options, properties, 0);
+		outputConfig.lazyColumnDecoding = fetchBooleanOption("lazy_column_decoding", options, properties, false);
 	}
 
 	private void setupEncryptionOptions(OptionSet options, Properties properties) {
@@ -1361,9 +1560,21 @@ public class MaxwellConfig extends AbstractConfig {
 			if ( !this.kafkaKeyFormat.equals("hash") && !this.kafkaKeyFormat.equals("array") )
 				usageForOptions("invalid kafka_key_format: " + this.kafkaKeyFormat, "kafka_key_format");
 
-		} else if ( this.producerType.equals("file")
-				&& this.outputFile == null) {
-			usageForOptions("please specify --output_file=FILE to use the file producer", "--producer", "--output_file");
+			if ( this.kafkaProducerWorkers < 1 )
+				usageForOptions("kafka_producer_workers must be at least 1", "kafka_producer_workers");
+
+		} else if ( this.producerType.equals("file") ) {
+			if ( this.outputFile == null )
+				usageForOptions("please specify --output_file=FILE to use the file producer", "--producer", "--output_file");
+
+			if ( this.outputFileFlushMs < 0 || this.outputFileRotateBytes < 0 || this.outputFileRotateMs < 0 )
+				usageForOptions("output_file_flush_ms, output_file_rotate_bytes and output_file_rotate_ms must be >= 0",
+					"output_file_flush_ms", "output_file_rotate_bytes", "output_file_rotate_ms");
+
+			if ( !this.outputFileCompression.equals("none")
+					&& !this.outputFileCompression.equals("gzip")
+					&& !this.outputFileCompression.equals("lz4") )
+				usageForOptions("invalid output_file_compression: " + this.outputFileCompression, "output_file_compression");
 		} else if ( this.producerType.equals("kinesis") && this.kinesisStream == null) {
 			usageForOptions("please specify a stream name for kinesis", "kinesis_stream");
 		} else if (this.producerType.equals("sqs") && this.sqsQueueUri == null) {
@@ -1398,6 +1609,13 @@ public class MaxwellConfig extends AbstractConfig {
 				usage("--pubsub_max_rpc_timeout must be > 0");
 			if (this.pubsubTotalTimeout.isNegative() || this.pubsubTotalTimeout.isZero())
 				usage("--pubsub_total_timeout must be > 0");
+		} else if (this.producerType.equals("bigquery")) {
+			if (this.bigQueryBatchRows <= 0)
+				usage("--bigquery_batch_rows must be > 0");
+			if (this.bigQueryBatchBytes <= 0L)
+				usage("--bigquery_batch_bytes must be > 0");
+			if (this.bigQueryStreamWriters <= 0)
+				usage("--bigquery_stream_writers must be > 0");
 		} else if (this.producerType.equals("redis")) {
 			if ( this.redisKey == null ) {
 				usage("please specify --redis_key=KEY");
@@ -1406,14 +1624,30 @@ public class MaxwellConfig extends AbstractConfig {
 			if ((this.redisSentinelMasterName != null && this.redisSentinels == null) || (this.redisSentinels != null && this.redisSentinelMasterName == null)) {
 				usageForOptions("please specify both (or none) of redis_sentinel_master_name and redis_sentinels");
 			}
+
+			if ( this.redisPipelineSize < 0 )
+				usage("--redis_pipeline_size must be >= 0");
+
+			if ( this.redisPipelineFlushMs <= 0 )
+				usage("--redis_pipeline_flush_ms must be > 0");
 		}
 
 		if ( !this.bootstrapperType.equals("async")
 				&& !this.bootstrapperType.equals("sync")
+				&& !this.bootstrapperType.equals("watermark")
 				&& !this.bootstrapperType.equals("none") ) {
-			usageForOptions("please specify --bootstrapper=async|sync|none", "--bootstrapper");
+			usageForOptions("please specify --bootstrapper=async|sync|watermark|none", "--bootstrapper");
 		}
 
+		if ( this.bootstrapChunkSize < 0 )
+			usage("--bootstrap_chunk_size must be >= 0");
+
+		if ( this.bootstrapperType.equals("watermark") && this.bootstrapChunkSize == 0 )
+			usageForOptions("--bootstrapper=watermark needs a --bootstrap_chunk_size", "--bootstrapper", "--bootstrap_chunk_size");
+
+		if ( this.bootstrapThreads < 1 )
+			usage("--bootstrap_threads must be at least 1");
+
 		if (this.maxwellMysql.sslMode == null) {
 			this.maxwellMysql.sslMode = SSLMode.DISABLED;
 		}
@@ -1449,6 +1683,13 @@ public class MaxwellConfig extends AbstractConfig {
 			this.replicationMysql.sslMode = this.maxwellMysql.sslMode;
 		}
 
+		// watermarks are written to the maxwell database and have to come back through the binlog we read
+		if ( this.bootstrapperType.equals("watermark")
+				&& !(Objects.equals(this.replicationMysql.host, this.maxwellMysql.host)
+					&& Objects.equals(this.replicationMysql.port, this.maxwellMysql.port)) ) {
+			usageForOptions("--bootstrapper=watermark can't be used with a separate replication_host", "--bootstrapper", "--replication");
+		}
+
 		if (gtidMode && masterRecovery) {
 			usageForOptions("There is no need to perform master_recovery under gtid_mode", "--gtid_mode");
 		}
@@ -1492,6 +1733,24 @@ public class MaxwellConfig extends AbstractConfig {
 		if (this.bufferMemoryUsage > 1f)
 			usage("--buffer_memory_usage must be <= 1.0");
 
+		if ( this.producerBatchSize < 1 )
+			usage("--producer_batch_size must be at least 1");
+
+		if ( this.transactionStreaming && ("transaction_id".equals(this.producerPartitionKey) || "transaction_id".equals(this.producerPartitionFallback)) )
+			usage("--transaction_streaming can't be used with producer_partition_by=transaction_id; streamed rows don't have one");
+
+		if (this.binlogDecodeThreads < 0)
+			usage("--binlog_decode_threads must be >= 0");
+
+		if (this.schemaCaptureThreads < 1)
+			usage("--schema_capture_threads must be at least 1");
+
+		if (this.schemaCaptureDatabasesPerQuery < 1)
+			usage("--schema_capture_databases_per_query must be at least 1");
+
+		if (this.ddlParseCacheSize < 0)
+			usage("--ddl_parse_cache_size must be >= 0");
+
 		if ( this.javascriptFile != null ) {
 			try {
 				this.scripting = new Scripting(this.javascriptFile);
@@ -610,6 +610,7 @@ public class MaxwellContext {
 			bootstrapper,
 			this.config.clientID,
 			this.config.bootstrapperType.equals("sync"),
+			this.config.bootstrapperType.equals("watermark"),
 			currentSchemaID
 		);
 
@@ -631,7 +632,8 @@ public class MaxwellContext {
 				this.getMaxwellConnectionPool(),
 				this.config.clientID,
 				this.getServerID(),
-				this.getCaseSensitivity()
+				this.getCaseSensitivity(),
+				this.config.binarySchemaSnapshots
 		);
 
 		this.startTask(compactor, "maxwell-schema-compactor");
@@ -0,0 +1,39 @@
+package com.zendesk.maxwell.bootstrap;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One primary-key range of a chunked bootstrap, and how far into it we've got.
+ * Saved in `maxwell.bootstrap_chunks` so a restarted bootstrap picks up where it left off.
+ */
+class BootstrapChunk {
+	final int index;
+	final long lowerBound; // inclusive
+	final long upperBound; // inclusive
+
+	// the last primary key value the producer has acknowledged (with all before it), null before the first row
+	Long highWaterMark;
+	long insertedRows;
+	boolean complete;
+
+	BootstrapChunk(int index, long lowerBound, long upperBound) {
+		this.index = index;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	static BootstrapChunk valueOf(ResultSet rs) throws SQLException {
+		BootstrapChunk chunk = new BootstrapChunk(rs.getInt("chunk"), rs.getLong("lower_bound"), rs.getLong("upper_bound"));
+		chunk.highWaterMark = rs.getLong("high_water_mark");
+		if ( rs.wasNull() )
+			chunk.highWaterMark = null;
+		chunk.insertedRows = rs.getLong("inserted_rows");
+		chunk.complete = rs.getBoolean("is_complete");
+		return chunk;
+	}
+
+	public String logString() {
+		return String.format("chunk %d [%d, %d]", index, lowerBound, upperBound);
+	}
+}
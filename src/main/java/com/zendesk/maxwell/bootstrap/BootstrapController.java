@@ -28,6 +28,7 @@ public class BootstrapController extends RunLoopProcess  {
 	private final AbstractProducer producer;
 	private final String clientID;
 	private final boolean syncMode;
+	private final boolean watermarkMode;
 	private Long currentSchemaID;
 
 	/**
@@ -37,6 +38,7 @@ public class BootstrapController extends RunLoopProcess  {
 	 * @param bootstrapper the "actor" that actually does work
 	 * @param clientID current client ID
 	 * @param syncMode whether to stop replication while we bootstrap
+	 * @param watermarkMode whether to interleave bootstrap chunks with replication, see {@link WatermarkWindow}
 	 * @param currentSchemaID initial value for schema_id
 	 */
 	public BootstrapController(
@@ -45,6 +47,7 @@ public class BootstrapController extends RunLoopProcess  {
 		SynchronousBootstrapper bootstrapper,
 		String clientID,
 		boolean syncMode,
+		boolean watermarkMode,
 		Long currentSchemaID
 	) {
 		this.maxwellConnectionPool = maxwellConnectionPool;
@@ -52,6 +55,7 @@ public class BootstrapController extends RunLoopProcess  {
 		this.bootstrapper = bootstrapper;
 		this.clientID = clientID;
 		this.syncMode = syncMode;
+		this.watermarkMode = watermarkMode;
 		this.currentSchemaID = currentSchemaID;
 	}
 
@@ -64,6 +68,10 @@ public class BootstrapController extends RunLoopProcess  {
 	private BootstrapTask activeTask;
 	private RowMapBuffer skippedRows = new RowMapBuffer(MAX_TX_ELEMENTS);
 
+	// watermark mode: rows of the active task's table are passed along, not buffered
+	private boolean streamingActiveTask;
+	private WatermarkWindow window;
+
 	@Override
 	protected void work() throws Exception {
 		try {
@@ -77,24 +85,29 @@ public class BootstrapController extends RunLoopProcess  {
 	private void doWork() throws Exception {
 		List<BootstrapTask> tasks = getIncompleteTasks();
 		synchronized(bootstrapMutex) {
-			for ( BootstrapTask task : tasks ) {
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("starting bootstrap task: {}", task.logString());
-				}
-				synchronized(completionMutex) {
-					activeTask = task;
-				}
+			for ( BootstrapTask task : tasks )
+				runTask(task);
+		}
 
-				bootstrapper.startBootstrap(task, producer, getCurrentSchemaID());
+		Thread.sleep(1000);
+	}
 
-				synchronized(completionMutex) {
-					pushSkippedRows();
-					activeTask = null;
-				}
-			}
+	void runTask(BootstrapTask task) throws Exception {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("starting bootstrap task: {}", task.logString());
+		}
+		synchronized(completionMutex) {
+			activeTask = task;
 		}
 
-		Thread.sleep(1000);
+		bootstrapper.startBootstrap(task, producer, getCurrentSchemaID(), watermarkMode ? this : null);
+
+		synchronized(completionMutex) {
+			pushSkippedRows();
+			activeTask = null;
+			streamingActiveTask = false;
+			window = null;
+		}
 	}
 
 	private synchronized Long getCurrentSchemaID() {
@@ -149,6 +162,12 @@ public class BootstrapController extends RunLoopProcess  {
 
 				// async mode with an active task
 				if (activeTask.matches(row)) {
+					if ( streamingActiveTask ) {
+						if ( window != null )
+							window.rowChanged(row);
+						return false;
+					}
+
 					skippedRows.add(row);
 					return true;
 				} else
@@ -157,6 +176,64 @@ public class BootstrapController extends RunLoopProcess  {
 		}
 	}
 
+	/**
+	 * Called by the bootstrapper once it's going to snapshot the active table
+	 * in watermark windows: send what's been buffered so far, and let the
+	 * table's rows through from now on.
+	 * @throws Exception if the buffered rows can't be sent
+	 */
+	void streamActiveTask() throws Exception {
+		synchronized(completionMutex) {
+			pushSkippedRows();
+			streamingActiveTask = true;
+		}
+	}
+
+	void openWindow(WatermarkWindow window) {
+		synchronized(completionMutex) {
+			this.window = window;
+		}
+	}
+
+	void clearWindow(WatermarkWindow window) {
+		synchronized(completionMutex) {
+			if ( this.window == window )
+				this.window = null;
+		}
+	}
+
+	/**
+	 * Handle a row of `maxwell.bootstrap_watermarks`.
+	 *
+	 * A low watermark opens the current window; at its high watermark the
+	 * chunk's remaining rows are sent, in their place in the binlog.
+	 * @param row a row written to the watermarks table
+	 * @throws Exception if the chunk's rows can't be sent
+	 */
+	public void processWatermark(RowMap row) throws Exception {
+		WatermarkWindow closing;
+		List<RowMap> rows;
+
+		synchronized(completionMutex) {
+			if ( window == null )
+				return;
+
+			if ( window.token.equals(row.getData("high_watermark")) ) {
+				closing = window;
+				rows = window.highWatermark();
+				window = null;
+			} else {
+				if ( window.token.equals(row.getData("low_watermark")) )
+					window.lowWatermark();
+				return;
+			}
+		}
+
+		for ( RowMap r : rows )
+			ChunkProgress.push(producer, r);
+		closing.close();
+	}
+
 	private void pushSkippedRows() throws Exception {
 		skippedRows.flushToDisk();
 		while ( skippedRows.size() > 0 ) {
@@ -0,0 +1,68 @@
+package com.zendesk.maxwell.bootstrap;
+
+import com.zendesk.maxwell.producer.AbstractProducer;
+import com.zendesk.maxwell.row.RowMap;
+
+import java.util.ArrayDeque;
+
+/*
+   how far into a chunk the producer has got.  Rows are sent in key order but
+   may be acknowledged in any order, so the high-water mark only moves past a
+   row once it and every row before it are acknowledged: a restart never
+   resumes past a row the producer might not have delivered.
+ */
+class ChunkProgress {
+	private static class SentRow {
+		final long key;
+		boolean acknowledged;
+
+		SentRow(long key) {
+			this.key = key;
+		}
+	}
+
+	private final ArrayDeque<SentRow> unacknowledged = new ArrayDeque<>();
+	private Long highWaterMark;
+	private long insertedRows;
+
+	ChunkProgress(BootstrapChunk chunk) {
+		this.highWaterMark = chunk.highWaterMark;
+		this.insertedRows = chunk.insertedRows;
+	}
+
+	/* follow a row of the chunk through the producer; rows are tracked in key order */
+	synchronized void track(long key, RowMap row) {
+		SentRow sent = new SentRow(key);
+		unacknowledged.add(sent);
+		row.setAcknowledgeCallback(() -> acknowledge(sent));
+	}
+
+	/* a producer that doesn't acknowledge rows has delivered one once push() returns */
+	static void push(AbstractProducer producer, RowMap row) throws Exception {
+		producer.push(row);
+		if ( !producer.acknowledgesRows() )
+			row.acknowledge();
+	}
+
+	private synchronized void acknowledge(SentRow sent) {
+		sent.acknowledged = true;
+		while ( !unacknowledged.isEmpty() && unacknowledged.peek().acknowledged ) {
+			highWaterMark = unacknowledged.poll().key;
+			insertedRows++;
+		}
+
+		if ( unacknowledged.isEmpty() )
+			notifyAll();
+	}
+
+	/* copy the acknowledged progress into the chunk, to be saved */
+	synchronized void applyTo(BootstrapChunk chunk) {
+		chunk.highWaterMark = highWaterMark;
+		chunk.insertedRows = insertedRows;
+	}
+
+	synchronized void awaitAcknowledged() throws InterruptedException {
+		while ( !unacknowledged.isEmpty() )
+			wait();
+	}
+}
@@ -1,30 +1,47 @@
 package com.zendesk.maxwell.bootstrap;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.zendesk.maxwell.CaseSensitivity;
 import com.zendesk.maxwell.MaxwellMysqlStatus;
 import com.zendesk.maxwell.errors.DuplicateProcessException;
 import com.zendesk.maxwell.producer.MaxwellOutputConfig;
 import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.producer.AbstractProducer;
 import com.zendesk.maxwell.row.RowMap;
 import com.zendesk.maxwell.schema.Database;
 import com.zendesk.maxwell.schema.Schema;
 import com.zendesk.maxwell.schema.SchemaCapturer;
 import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.BigIntColumnDef;
 import com.zendesk.maxwell.schema.columndef.ColumnDef;
 import com.zendesk.maxwell.schema.columndef.ColumnDefCastException;
 import com.zendesk.maxwell.schema.columndef.DateColumnDef;
+import com.zendesk.maxwell.schema.columndef.IntColumnDef;
 import com.zendesk.maxwell.schema.columndef.TimeColumnDef;
 import com.zendesk.maxwell.scripting.Scripting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.net.URISyntaxException;
 import java.sql.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Does the bulk of the actual bootstrapping work
@@ -42,8 +59,28 @@ public class SynchronousBootstrapper {
 
 	private long lastInsertedRowsUpdateTimeMillis = 0;
 
+	private final long chunkSize;
+	private final int chunkThreads;
+	// chunks are read concurrently; rows go to the producer (and scripting) one at a time
+	private final Object pushLock = new Object();
+	private final AtomicInteger pendingChunks = new AtomicInteger();
+	private final Counter completedChunks;
+	private final Timer chunkTime;
+	private final Meter chunkRows;
+	private final Counter supersededRows;
+
 	public SynchronousBootstrapper(MaxwellContext context) {
 		this.context = context;
+		this.chunkSize = context.getConfig().bootstrapChunkSize;
+		this.chunkThreads = context.getConfig().bootstrapThreads;
+
+		Metrics metrics = context.getMetrics();
+		MetricRegistry registry = metrics.getRegistry();
+		this.completedChunks = registry.counter(metrics.metricName("bootstrap", "chunks", "completed"));
+		this.chunkTime = registry.timer(metrics.metricName("bootstrap", "chunk", "time"));
+		this.chunkRows = registry.meter(metrics.metricName("bootstrap", "chunk", "rows"));
+		this.supersededRows = registry.counter(metrics.metricName("bootstrap", "chunk", "rows", "superseded"));
+		registry.gauge(metrics.metricName("bootstrap", "chunks", "pending"), () -> (Gauge<Integer>) pendingChunks::get);
 	}
 
 
@@ -56,11 +93,25 @@ public class SynchronousBootstrapper {
 	 * @throws Exception
 	 */
 	public void startBootstrap(BootstrapTask task, AbstractProducer producer, Long currentSchemaID) throws Exception {
+		startBootstrap(task, producer, currentSchemaID, null);
+	}
+
+	/**
+	 * Orchestrates the bootstrap process, in watermark windows if given a controller.
+	 *
+	 * @param task            the bootstrap task
+	 * @param producer        a producer to push rows to
+	 * @param currentSchemaID the current schema id
+	 * @param controller      with --bootstrapper=watermark, the controller that sees the watermarks go by; otherwise null
+	 * @throws Exception
+	 */
+	public void startBootstrap(BootstrapTask task, AbstractProducer producer, Long currentSchemaID, BootstrapController controller) throws Exception {
 		try {
-			performBootstrap(task, producer, currentSchemaID);
+			performBootstrap(task, producer, currentSchemaID, controller);
 		} catch ( BootstrapAbortException e ) {
 			LOGGER.error("Bootstrap (id={}) aborted: {}", task.id, e.getMessage());
 			setBootstrapRowToCompleted(0, task.id);
+			deleteSavedProgress(task.id);
 			return;
 		}
 		completeBootstrap(task, producer);
@@ -106,19 +157,36 @@ public class SynchronousBootstrapper {
 	 * @throws Exception
 	 */
 	public void performBootstrap(BootstrapTask task, AbstractProducer producer, Long currentSchemaID) throws Exception {
+		performBootstrap(task, producer, currentSchemaID, null);
+	}
+
+	private void performBootstrap(BootstrapTask task, AbstractProducer producer, Long currentSchemaID, BootstrapController controller) throws Exception {
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("bootstrapping requested for {}", task.logString());
 		}
 
 		Table table = getTableForTask(task);
 
+		if ( chunkSize > 0 ) {
+			String chunkColumn = getChunkColumn(table);
+			if ( chunkColumn != null ) {
+				boolean done = controller != null
+					? performWatermarkBootstrap(task, table, chunkColumn, producer, currentSchemaID, controller)
+					: performChunkedBootstrap(task, table, chunkColumn, producer, currentSchemaID);
+				if ( done )
+					return;
+			} else {
+				LOGGER.info("{} has no single integer primary key, bootstrapping it in one piece", task.logString());
+			}
+		}
+
 		producer.push(bootstrapStartRowMap(task, table));
 		LOGGER.info(String.format("bootstrapping started for %s.%s", task.database, task.table));
 
 		try ( Connection streamingConnection = getStreamingConnection(task.database)) {
 			setBootstrapRowToStarted(task.id);
 			ResultSet resultSet = getAllRows(task.database, task.table, table, task.whereClause, streamingConnection);
-			int insertedRows = 0;
+			long insertedRows = 0;
 			lastInsertedRowsUpdateTimeMillis = 0; // ensure updateInsertedRowsColumn is called at least once
 			while ( resultSet.next() ) {
 				RowMap row = bootstrapEventRowMap("bootstrap-insert", table.database, table.name, table.getPKList(), task.comment);
@@ -143,13 +211,506 @@ public class SynchronousBootstrapper {
 		}
 	}
 
-	private void updateInsertedRowsColumn(int insertedRows, Long id) throws SQLException, NoSuchElementException, DuplicateProcessException {
+	/*
+	   chunked bootstrap: split the table into ranges of its (integer) primary key,
+	   `bootstrap_chunk_size` rows each, and read them on `bootstrap_threads`
+	   connections at once.  Rows are in
+	   primary key order within a chunk, but chunks interleave.
+
+	   each chunk's high-water mark -- the last key the producer has acknowledged,
+	   along with every key before it; see ChunkProgress -- is saved in
+	   `bootstrap_chunks`, once a second and when the chunk finishes.  After a
+	   restart, finished chunks are skipped and the rest resume past their mark;
+	   rows sent past the saved mark are sent again.
+
+	   returns false if the table can't be chunked after all.
+	 */
+	private boolean performChunkedBootstrap(BootstrapTask task, Table table, String chunkColumn, AbstractProducer producer, Long currentSchemaID) throws Exception {
+		try ( ChunkPlan plan = startChunks(task, table, chunkColumn, producer, null) ) {
+			if ( plan == null )
+				return false;
+
+			return performChunkedBootstrap(task, table, chunkColumn, plan, producer, currentSchemaID);
+		}
+	}
+
+	private boolean performChunkedBootstrap(BootstrapTask task, Table table, String chunkColumn, ChunkPlan plan, AbstractProducer producer, Long currentSchemaID) throws Exception {
+		AtomicLong insertedRows = new AtomicLong(plan.savedRows);
+		int nThreads = Math.max(1, chunkThreads);
+		AtomicBoolean failed = new AtomicBoolean();
+		AtomicInteger threadCounter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads, r -> {
+			Thread t = new Thread(r, "maxwell-bootstrap-" + threadCounter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		lastInsertedRowsUpdateTimeMillis = 0;
+		try {
+			List<Future<Void>> workers = new ArrayList<>();
+			for ( int i = 0; i < nThreads; i++ ) {
+				workers.add(executor.submit(() -> {
+					try ( Connection cx = getStreamingConnection(task.database) ) {
+						BootstrapChunk chunk;
+						while ( !failed.get() && (chunk = plan.next()) != null ) {
+							bootstrapChunk(task, table, chunkColumn, chunk, cx, producer, currentSchemaID, insertedRows, failed);
+							pendingChunks.decrementAndGet();
+						}
+					} catch ( Exception e ) {
+						// stop the other workers at their next row
+						failed.set(true);
+						throw e;
+					}
+					return null;
+				}));
+			}
+
+			for ( Future<Void> worker : workers )
+				worker.get();
+		} catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof NoSuchElementException ) {
+				LOGGER.info("bootstrapping aborted for " + task.logString());
+				deleteSavedProgress(task.id);
+				return true;
+			}
+			if ( e.getCause() instanceof Exception )
+				throw (Exception) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+			pendingChunks.set(0);
+		}
+
+		try {
+			setBootstrapRowToCompleted(insertedRows.get(), task.id);
+		} catch ( NoSuchElementException e ) {
+			LOGGER.info("bootstrapping aborted for " + task.logString());
+		}
+		deleteChunks(task.id);
+		return true;
+	}
+
+	/*
+	   the table's chunks, planned as they're needed; see ChunkPlan.  The first
+	   time, the bootstrap is started here; after a restart, the chunks saved in
+	   `bootstrap_chunks` come first.  Null if the table can't be chunked after all.
+	 */
+	private ChunkPlan startChunks(BootstrapTask task, Table table, String chunkColumn, AbstractProducer producer, BootstrapController controller) throws Exception {
+		List<BootstrapChunk> savedChunks = getSavedChunks(task.id);
+		Connection cx = getConnection(task.database);
+		ChunkPlan plan;
+		try {
+			plan = planChunks(task, chunkColumn, savedChunks, cx);
+		} catch ( Exception e ) {
+			cx.close();
+			throw e;
+		}
+
+		if ( plan == null ) {
+			cx.close();
+			LOGGER.info("{}: primary key is out of range for chunking, bootstrapping it in one piece", task.logString());
+			return null;
+		}
+
+		if ( controller != null )
+			controller.streamActiveTask();
+
+		if ( savedChunks.isEmpty() ) {
+			producer.push(bootstrapStartRowMap(task, table));
+			LOGGER.info("bootstrapping started for {}.{} in chunks of {} rows", task.database, task.table, chunkSize);
+			setBootstrapRowToStarted(task.id);
+		} else {
+			LOGGER.info("resuming bootstrap of {}.{} from {} saved chunks", task.database, task.table, savedChunks.size());
+		}
+		return plan;
+	}
+
+	/*
+	   watermark bootstrap: the chunks are read one at a time, each between a
+	   low and a high watermark written to `bootstrap_watermarks`, while live rows
+	   of the table carry on through the replicator.  The replicator drops the
+	   chunk's rows that changed between the watermarks and sends the rest when it
+	   reads the high watermark; see WatermarkWindow.
+
+	   a chunk is held in memory until then.  Chunks are saved as finished once
+	   the producer has acknowledged their rows, so a restart re-reads at most
+	   the chunk in flight.
+	 */
+	private boolean performWatermarkBootstrap(BootstrapTask task, Table table, String chunkColumn, AbstractProducer producer,
+											  Long currentSchemaID, BootstrapController controller) throws Exception {
+		try ( ChunkPlan plan = startChunks(task, table, chunkColumn, producer, controller) ) {
+			if ( plan == null )
+				return false;
+
+			performWatermarkBootstrap(task, table, chunkColumn, plan, currentSchemaID, controller);
+			return true;
+		}
+	}
+
+	private void performWatermarkBootstrap(BootstrapTask task, Table table, String chunkColumn, ChunkPlan plan,
+										   Long currentSchemaID, BootstrapController controller) throws Exception {
+		long insertedRows = plan.savedRows;
+		lastInsertedRowsUpdateTimeMillis = 0;
+		try ( Connection cx = getStreamingConnection(task.database) ) {
+			BootstrapChunk chunk;
+			while ( (chunk = plan.next()) != null ) {
+				WatermarkWindow window = new WatermarkWindow(chunk, chunkColumn);
+				try ( Timer.Context timer = chunkTime.time() ) {
+					controller.openWindow(window);
+					readWindow(task, table, window, cx, currentSchemaID);
+					window.awaitClose();
+				} finally {
+					controller.clearWindow(window);
+				}
+				window.progress.awaitAcknowledged();
+
+				chunk.insertedRows = window.getSent();
+				chunk.highWaterMark = chunk.upperBound;
+				chunk.complete = true;
+				updateChunk(task.id, chunk);
+
+				insertedRows += chunk.insertedRows;
+				chunkRows.mark(chunk.insertedRows);
+				supersededRows.inc(window.getSuperseded());
+				completedChunks.inc();
+				pendingChunks.decrementAndGet();
+				LOGGER.debug("bootstrapped {} of {}: {} rows, {} superseded by replication",
+					chunk.logString(), task.logString(), chunk.insertedRows, window.getSuperseded());
+
+				updateInsertedRowsColumn(insertedRows, task.id);
+			}
+
+			setBootstrapRowToCompleted(insertedRows, task.id);
+			deleteSavedProgress(task.id);
+		} catch ( NoSuchElementException e ) {
+			LOGGER.info("bootstrapping aborted for " + task.logString());
+			deleteSavedProgress(task.id);
+		} finally {
+			pendingChunks.set(0);
+		}
+	}
+
+	/* low watermark, the chunk's rows into the window, high watermark */
+	private void readWindow(BootstrapTask task, Table table, WatermarkWindow window, Connection cx, Long currentSchemaID) throws Exception {
+		writeWatermark(task.id, window.token, false);
+
+		int keyIndex = table.findColumnIndex(window.keyColumn) + 1;
+		try ( PreparedStatement statement = getChunkRows(task, window.keyColumn, window.chunk, cx);
+			  ResultSet resultSet = statement.executeQuery() ) {
+			while ( resultSet.next() ) {
+				RowMap row = bootstrapEventRowMap("bootstrap-insert", table.database, table.name, table.getPKList(), task.comment);
+				setRowValues(row, resultSet, table);
+				row.setSchemaId(currentSchemaID);
+
+				Scripting scripting = context.getConfig().scripting;
+				if ( scripting != null )
+					scripting.invoke(row);
+
+				window.add(resultSet.getLong(keyIndex), row);
+			}
+		}
+
+		writeWatermark(task.id, window.token, true);
+	}
+
+	private void writeWatermark(Long id, String token, boolean high) throws SQLException, DuplicateProcessException {
+		this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
+			String sql = high
+				? "update `bootstrap_watermarks` set high_watermark = ? where bootstrap_id = ?"
+				: "insert into `bootstrap_watermarks` (low_watermark, bootstrap_id) values (?, ?) "
+					+ "on duplicate key update low_watermark = values(low_watermark), high_watermark = NULL";
+			try ( PreparedStatement s = connection.prepareStatement(sql) ) {
+				s.setString(1, token);
+				s.setLong(2, id);
+				s.executeUpdate();
+			}
+		});
+	}
+
+	private void deleteWatermark(Long id) throws SQLException, DuplicateProcessException {
+		this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
+			try ( PreparedStatement s = connection.prepareStatement("delete from `bootstrap_watermarks` where bootstrap_id = ?") ) {
+				s.setLong(1, id);
+				s.executeUpdate();
+			}
+		});
+	}
+
+	private void bootstrapChunk(BootstrapTask task, Table table, String chunkColumn, BootstrapChunk chunk, Connection cx,
+								AbstractProducer producer, Long currentSchemaID, AtomicLong insertedRows, AtomicBoolean failed) throws Exception {
+		LOGGER.debug("bootstrapping {} of {}", chunk.logString(), task.logString());
+		int keyIndex = table.findColumnIndex(chunkColumn) + 1;
+		long lastChunkUpdateMillis = System.currentTimeMillis();
+		ChunkProgress progress = new ChunkProgress(chunk);
+
+		try ( Timer.Context timer = chunkTime.time();
+			  PreparedStatement statement = getChunkRows(task, chunkColumn, chunk, cx);
+			  ResultSet resultSet = statement.executeQuery() ) {
+			while ( resultSet.next() ) {
+				if ( failed.get() )
+					return;
+
+				RowMap row = bootstrapEventRowMap("bootstrap-insert", table.database, table.name, table.getPKList(), task.comment);
+				setRowValues(row, resultSet, table);
+				row.setSchemaId(currentSchemaID);
+				progress.track(resultSet.getLong(keyIndex), row);
+
+				synchronized(pushLock) {
+					Scripting scripting = context.getConfig().scripting;
+					if ( scripting != null )
+						scripting.invoke(row);
+
+					if ( LOGGER.isDebugEnabled() )
+						LOGGER.debug("bootstrapping row : {}", row.toJSON());
+
+					ChunkProgress.push(producer, row);
+				}
+
+				chunkRows.mark();
+
+				long totalRows = insertedRows.incrementAndGet();
+				long now = System.currentTimeMillis();
+				if ( now - lastChunkUpdateMillis > INSERTED_ROWS_UPDATE_PERIOD_MILLIS ) {
+					progress.applyTo(chunk);
+					updateChunk(task.id, chunk);
+					lastChunkUpdateMillis = now;
+				}
+
+				synchronized(this) {
+					updateInsertedRowsColumn(totalRows, task.id);
+				}
+			}
+		}
+
+		progress.awaitAcknowledged();
+		progress.applyTo(chunk);
+		chunk.complete = true;
+		updateChunk(task.id, chunk);
+		completedChunks.inc();
+		LOGGER.debug("bootstrapped {} of {}: {} rows", chunk.logString(), task.logString(), chunk.insertedRows);
+	}
+
+	/* the primary key column to chunk on, or null if it's not a single integer column */
+	private String getChunkColumn(Table table) {
+		List<String> pks = table.getPKList();
+		if ( pks.size() != 1 )
+			return null;
+
+		ColumnDef pk = table.findColumn(pks.get(0));
+		if ( pk instanceof IntColumnDef || pk instanceof BigIntColumnDef )
+			return pk.getName();
+		else
+			return null;
+	}
+
+	/* plans the chunks of [min(pk), max(pk)], after any saved ones; null if the keys don't fit a long */
+	private ChunkPlan planChunks(BootstrapTask task, String chunkColumn, List<BootstrapChunk> savedChunks, Connection connection) throws SQLException, BootstrapAbortException {
+		String sql = String.format("select min(`%s`), max(`%s`) from `%s`.`%s`", chunkColumn, chunkColumn, task.database, task.table);
+		if ( task.whereClause != null && !task.whereClause.equals("") )
+			sql += String.format(" where %s", task.whereClause);
+
+		try ( Statement s = connection.createStatement();
+			  ResultSet rs = s.executeQuery(sql) ) {
+			rs.next();
+			BigDecimal min = rs.getBigDecimal(1);
+			BigDecimal max = rs.getBigDecimal(2);
+			if ( min == null || max == null )
+				return new ChunkPlan(task, chunkColumn, savedChunks, connection, 0L, -1L); // no rows
+
+			if ( max.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0 ) {
+				if ( savedChunks.isEmpty() )
+					return null;
+
+				// keys out of range since the chunks were saved; chunking can't reach those rows
+				throw new BootstrapAbortException(String.format(
+					"%s has primary key values past %d since it was chunked; rerun the bootstrap to read it in one piece",
+					task.logString(), Long.MAX_VALUE
+				));
+			}
+
+			return new ChunkPlan(task, chunkColumn, savedChunks, connection, min.longValue(), max.longValue());
+		}
+	}
+
+	/*
+	   the chunks of a table, planned one at a time as they're asked for: each
+	   starts past the last one and takes the next `bootstrap_chunk_size` keys,
+	   found by walking the primary key.  So there's never a chunk without rows,
+	   however sparse the keys are.
+
+	   chunks are saved to `bootstrap_chunks` as they're planned.  After a
+	   restart the unfinished saved chunks are handed out first, then planning
+	   carries on past the last saved one.
+	 */
+	private class ChunkPlan implements AutoCloseable {
+		private final BootstrapTask task;
+		private final String chunkColumn;
+		private final Connection connection;
+		private final ArrayDeque<BootstrapChunk> savedChunks = new ArrayDeque<>();
+		private final long maxKey;
+		final long savedRows;
+
+		private long nextLowerBound;
+		private int nextIndex;
+		private boolean planned;
+
+		ChunkPlan(BootstrapTask task, String chunkColumn, List<BootstrapChunk> saved, Connection connection, long minKey, long maxKey) {
+			this.task = task;
+			this.chunkColumn = chunkColumn;
+			this.connection = connection;
+			this.maxKey = maxKey;
+
+			long rows = 0;
+			for ( BootstrapChunk chunk : saved ) {
+				rows += chunk.insertedRows;
+				if ( !chunk.complete )
+					savedChunks.add(chunk);
+			}
+			this.savedRows = rows;
+			pendingChunks.set(savedChunks.size());
+
+			if ( saved.isEmpty() ) {
+				this.nextLowerBound = minKey;
+				this.nextIndex = 0;
+				this.planned = minKey > maxKey;
+			} else {
+				BootstrapChunk last = saved.get(saved.size() - 1);
+				this.nextIndex = last.index + 1;
+				this.planned = last.upperBound >= maxKey;
+				if ( !planned )
+					this.nextLowerBound = last.upperBound + 1;
+			}
+		}
+
+		/* the next chunk to read, or null once they're all handed out */
+		synchronized BootstrapChunk next() throws SQLException, DuplicateProcessException {
+			BootstrapChunk chunk = savedChunks.poll();
+			if ( chunk != null || planned )
+				return chunk;
+
+			long upperBound = findUpperBound();
+			chunk = new BootstrapChunk(nextIndex++, nextLowerBound, upperBound);
+			saveChunk(task.id, chunk);
+			pendingChunks.incrementAndGet();
+
+			if ( upperBound >= maxKey )
+				planned = true;
+			else
+				nextLowerBound = upperBound + 1;
+			return chunk;
+		}
+
+		/* the key `bootstrap_chunk_size` rows on from nextLowerBound, or the last key */
+		private long findUpperBound() throws SQLException {
+			String sql = String.format("select `%s` from `%s`.`%s` where `%s` >= ? and `%s` <= ?",
+				chunkColumn, task.database, task.table, chunkColumn, chunkColumn);
+
+			if ( task.whereClause != null && !task.whereClause.equals("") )
+				sql += String.format(" and (%s)", task.whereClause);
+
+			sql += String.format(" order by `%s` limit 1 offset ?", chunkColumn);
+
+			try ( PreparedStatement s = connection.prepareStatement(sql) ) {
+				s.setLong(1, nextLowerBound);
+				s.setLong(2, maxKey);
+				s.setLong(3, chunkSize - 1);
+				try ( ResultSet rs = s.executeQuery() ) {
+					if ( rs.next() )
+						return rs.getBigDecimal(1).longValue();
+				}
+			}
+			return maxKey;
+		}
+
+		@Override
+		public void close() throws SQLException {
+			connection.close();
+		}
+	}
+
+	private PreparedStatement getChunkRows(BootstrapTask task, String chunkColumn, BootstrapChunk chunk, Connection connection) throws SQLException {
+		String sql = String.format("select * from `%s`.`%s` where `%s` %s ? and `%s` <= ?",
+			task.database, task.table,
+			chunkColumn, chunk.highWaterMark == null ? ">=" : ">",
+			chunkColumn);
+
+		if ( task.whereClause != null && !task.whereClause.equals("") )
+			sql += String.format(" and (%s)", task.whereClause);
+
+		sql += String.format(" order by `%s`", chunkColumn);
+
+		PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		statement.setFetchSize(Integer.MIN_VALUE);
+		statement.setLong(1, chunk.highWaterMark == null ? chunk.lowerBound : chunk.highWaterMark);
+		statement.setLong(2, chunk.upperBound);
+		return statement;
+	}
+
+	private List<BootstrapChunk> getSavedChunks(Long id) throws SQLException {
+		List<BootstrapChunk> chunks = new ArrayList<>();
+		try ( Connection cx = context.getMaxwellConnectionPool().getConnection();
+			  PreparedStatement s = cx.prepareStatement("select * from `bootstrap_chunks` where bootstrap_id = ? order by chunk") ) {
+			s.setLong(1, id);
+			try ( ResultSet rs = s.executeQuery() ) {
+				while ( rs.next() )
+					chunks.add(BootstrapChunk.valueOf(rs));
+			}
+		}
+		return chunks;
+	}
+
+	private void saveChunk(Long id, BootstrapChunk chunk) throws SQLException, DuplicateProcessException {
+		this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
+			String sql = "insert into `bootstrap_chunks` (bootstrap_id, chunk, lower_bound, upper_bound) values (?, ?, ?, ?)";
+			try ( PreparedStatement s = connection.prepareStatement(sql) ) {
+				s.setLong(1, id);
+				s.setInt(2, chunk.index);
+				s.setLong(3, chunk.lowerBound);
+				s.setLong(4, chunk.upperBound);
+				s.executeUpdate();
+			}
+		});
+	}
+
+	private void updateChunk(Long id, BootstrapChunk chunk) throws SQLException, DuplicateProcessException {
+		this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
+			String sql = "update `bootstrap_chunks` set high_water_mark = ?, inserted_rows = ?, is_complete = ? where bootstrap_id = ? and chunk = ?";
+			try ( PreparedStatement s = connection.prepareStatement(sql) ) {
+				if ( chunk.highWaterMark == null )
+					s.setNull(1, Types.BIGINT);
+				else
+					s.setLong(1, chunk.highWaterMark);
+				s.setLong(2, chunk.insertedRows);
+				s.setBoolean(3, chunk.complete);
+				s.setLong(4, id);
+				s.setInt(5, chunk.index);
+				s.executeUpdate();
+			}
+		});
+	}
+
+	/* a chunked bootstrap's chunks and watermark, once it's finished or aborted */
+	private void deleteSavedProgress(Long id) throws SQLException, DuplicateProcessException {
+		deleteChunks(id);
+		deleteWatermark(id);
+	}
+
+	private void deleteChunks(Long id) throws SQLException, DuplicateProcessException {
+		this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
+			try ( PreparedStatement s = connection.prepareStatement("delete from `bootstrap_chunks` where bootstrap_id = ?") ) {
+				s.setLong(1, id);
+				s.executeUpdate();
+			}
+		});
+	}
+
+	private void updateInsertedRowsColumn(long insertedRows, Long id) throws SQLException, NoSuchElementException, DuplicateProcessException {
 		long now = System.currentTimeMillis();
 		if (now - lastInsertedRowsUpdateTimeMillis > INSERTED_ROWS_UPDATE_PERIOD_MILLIS) {
 			this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
 				String sql = "update `bootstrap` set inserted_rows = ? where id = ?";
 				PreparedStatement preparedStatement = connection.prepareStatement(sql);
-				preparedStatement.setInt(1, insertedRows);
+				preparedStatement.setLong(1, insertedRows);
 				preparedStatement.setLong(2, id);
 				if (preparedStatement.executeUpdate() == 0) {
 					throw new NoSuchElementException();
@@ -235,10 +796,10 @@ public class SynchronousBootstrapper {
 	}
 
 	private final String completeBootstrapSQL = "update `bootstrap` set is_complete=1, inserted_rows=?, completed_at=NOW() where id=?";
-	private void setBootstrapRowToCompleted(int insertedRows, Long id) throws SQLException, NoSuchElementException, DuplicateProcessException {
+	private void setBootstrapRowToCompleted(long insertedRows, Long id) throws SQLException, NoSuchElementException, DuplicateProcessException {
 		this.context.getMaxwellConnectionPool().withSQLRetry(1, (connection) -> {
 			PreparedStatement preparedStatement = connection.prepareStatement(completeBootstrapSQL);
-			preparedStatement.setInt(1, insertedRows);
+			preparedStatement.setLong(1, insertedRows);
 			preparedStatement.setLong(2, id);
 			if (preparedStatement.executeUpdate() == 0) {
 				throw new NoSuchElementException();
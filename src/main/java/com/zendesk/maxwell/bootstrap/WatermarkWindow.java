@@ -0,0 +1,100 @@
+package com.zendesk.maxwell.bootstrap;
+
+import com.zendesk.maxwell.row.RowMap;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+/*
+   one chunk of a watermark bootstrap, between its low and high watermark.
+
+   the bootstrapper writes the low watermark, reads the chunk into here and
+   writes the high watermark.  Meanwhile the replicator notes the key of every
+   live row of the table it sees once the low watermark has gone by; those rows
+   are newer than (or as new as) what the chunk read, so when the high
+   watermark comes along the chunk's copies of them are dropped and the rest
+   are sent.  The chunk is done once the producer has acknowledged them.
+ */
+class WatermarkWindow {
+	// written to `bootstrap_watermarks`, so watermarks of an earlier run aren't mistaken for ours
+	final String token = UUID.randomUUID().toString();
+	final BootstrapChunk chunk;
+	final String keyColumn;
+	final ChunkProgress progress;
+
+	private final LinkedHashMap<Long, RowMap> rows = new LinkedHashMap<>();
+	private final Set<Long> changedKeys = new HashSet<>();
+	private final CountDownLatch closed = new CountDownLatch(1);
+	private boolean open;
+	private int superseded;
+	private int sent;
+
+	WatermarkWindow(BootstrapChunk chunk, String keyColumn) {
+		this.chunk = chunk;
+		this.keyColumn = keyColumn;
+		this.progress = new ChunkProgress(chunk);
+	}
+
+	/* from the bootstrapper: a row read between the watermarks */
+	synchronized void add(long key, RowMap row) {
+		rows.put(key, row);
+	}
+
+	/* from the replicator */
+	synchronized void lowWatermark() {
+		open = true;
+	}
+
+	/* from the replicator: a live row of the table */
+	synchronized void rowChanged(RowMap row) {
+		if ( !open )
+			return;
+
+		noteKey(row.getData(keyColumn));
+		noteKey(row.getOldData(keyColumn)); // the key itself was updated
+	}
+
+	private void noteKey(Object value) {
+		if ( !(value instanceof Number) )
+			return;
+
+		long key = ((Number) value).longValue();
+		if ( key >= chunk.lowerBound && key <= chunk.upperBound )
+			changedKeys.add(key);
+	}
+
+	/* from the replicator: the rows of the chunk that weren't changed while it was read */
+	synchronized List<RowMap> highWatermark() {
+		for ( Long key : changedKeys ) {
+			if ( rows.remove(key) != null )
+				superseded++;
+		}
+		changedKeys.clear();
+		sent = rows.size();
+		for ( Map.Entry<Long, RowMap> e : rows.entrySet() )
+			progress.track(e.getKey(), e.getValue());
+		return new ArrayList<>(rows.values());
+	}
+
+	synchronized int getSuperseded() {
+		return superseded;
+	}
+
+	synchronized int getSent() {
+		return sent;
+	}
+
+	void close() {
+		closed.countDown();
+	}
+
+	void awaitClose() throws InterruptedException {
+		closed.await();
+	}
+}
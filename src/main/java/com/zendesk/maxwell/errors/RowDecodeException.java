@@ -0,0 +1,17 @@
+package com.zendesk.maxwell.errors;
+
+import com.zendesk.maxwell.schema.columndef.ColumnDefCastException;
+
+public class RowDecodeException extends RuntimeException {
+	public RowDecodeException(String database, String table, ColumnDefCastException cause) {
+		super(String.format(
+			"Unable to cast %s (%s) into column %s.%s.%s (type '%s')",
+			cause.givenValue,
+			cause.givenValue == null ? null : cause.givenValue.getClass().getName(),
+			database,
+			table,
+			cause.def.getName(),
+			cause.def.getType()
+		), cause);
+	}
+}
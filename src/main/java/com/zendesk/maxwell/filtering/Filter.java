@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class Filter {
@@ -13,6 +14,10 @@ public class Filter {
 	private final List<FilterPattern> patterns;
 	private String maxwellDB;
 
+	// database -> table -> decision; thrown away whenever the rules change
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, FilterDecision>> decisions = new ConcurrentHashMap<>();
+	private volatile int generation = 0;
+
 	public Filter() {
 		this.patterns = new ArrayList<>();
 		this.maxwellDB = "maxwell";
@@ -39,11 +44,17 @@ public class Filter {
 		List<FilterPattern> parsedFilter = new FilterParser(filterString).parse();
 		this.patterns.clear();
 		this.patterns.addAll(parsedFilter);
+		rulesChanged();
+	}
+
+	private void rulesChanged() {
+		this.generation++;
+		this.decisions.clear();
 	}
 
 	public boolean isSystemWhitelisted(String database, String table) {
 		return isMaxwellDB(database)
-			&& ("bootstrap".equals(table) || "heartbeats".equals(table));
+			&& ("bootstrap".equals(table) || "heartbeats".equals(table) || "bootstrap_watermarks".equals(table));
 	}
 
 	public boolean isMaxwellDB(String database) {
@@ -52,6 +63,7 @@ public class Filter {
 
 	public void addRule(String filterString) throws InvalidFilterException {
 		this.patterns.addAll(new FilterParser(filterString).parse());
+		rulesChanged();
 	}
 
 	public List<FilterPattern> getRules() {
@@ -59,48 +71,64 @@ public class Filter {
 	}
 
 
-	public boolean includes(String database, String table) {
-		FilterResult match = new FilterResult();
+	/**
+	 * Work out the filter's decision for a table, running every rule.
+	 * Callers that ask about a table repeatedly want {@link #decisionFor}.
+	 */
+	public FilterDecision resolve(String database, String table) {
+		return new FilterDecision(this, patterns, generation, database, table);
+	}
+
+	/**
+	 * The filter's decision for a table, resolved once and kept until the rules change.
+	 */
+	public FilterDecision decisionFor(String database, String table) {
+		if ( database == null || table == null )
+			return resolve(database, table);
 
-		for ( FilterPattern p : patterns )
-			p.match(database, table, match);
+		ConcurrentHashMap<String, FilterDecision> tables = decisions.get(database);
+		if ( tables == null )
+			tables = decisions.computeIfAbsent(database, k -> new ConcurrentHashMap<>());
 
-		return match.include;
+		FilterDecision decision = tables.get(table);
+		if ( decision == null || !isCurrent(decision) ) {
+			decision = resolve(database, table);
+			tables.put(table, decision);
+		}
+		return decision;
 	}
 
-	public boolean includes(String database, String table, Map<String, Object> values) {
-		FilterResult match = new FilterResult();
+	/**
+	 * Was this decision made under the current rules?
+	 */
+	public boolean isCurrent(FilterDecision decision) {
+		return decision.generation == this.generation;
+	}
 
-		for ( FilterPattern p : patterns )
-			p.matchValue(database, table, values, match);
+	public boolean includes(String database, String table) {
+		return decisionFor(database, table).includes();
+	}
 
-		return match.include;
+	public boolean includes(String database, String table, Map<String, Object> values) {
+		return decisionFor(database, table).includes(values);
 	}
 
 	public boolean couldIncludeFromColumnFilters(String database, String table, Set<String> columns) {
-		for ( FilterPattern p : patterns ) {
-			if ( p.couldIncludeColumn(database, table, columns) )
-				return true;
-		}
-		return false;
+		return decisionFor(database, table).couldIncludeFromColumnFilters(columns);
 	}
 
+	/**
+	 * Can we be certain that no row from this table will ever be output?
+	 *
+	 * This is answered before we know the table's columns, so any column
+	 * filter that might apply to the table counts as a possible include.
+	 */
+	public boolean excludesAllRows(String database, String table) {
+		return decisionFor(database, table).excludesAllRows();
+	}
 
 	public boolean isTableBlacklisted(String database, String table) {
-		if ( isSystemBlacklisted(database, table) )
-			return true;
-
-		if ( isMaxwellDB(database) )
-			return false;
-
-		FilterResult match = new FilterResult();
-
-		for ( FilterPattern p : patterns ) {
-			if ( p.getType() == FilterPatternType.BLACKLIST )
-				p.match(database, table, match);
-		}
-
-		return !match.include;
+		return decisionFor(database, table).isTableBlacklisted();
 	}
 
 	public boolean isDatabaseBlacklisted(String database) {
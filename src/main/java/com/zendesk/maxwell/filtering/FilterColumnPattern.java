@@ -32,8 +32,14 @@ public class FilterColumnPattern extends FilterPattern {
 
 	@Override
 	public void matchValue(String database, String table, Map<String, Object> data, FilterResult match) {
+		if ( appliesTo(database, table) )
+			matchValue(data, match);
+	}
+
+	/* as above, for a table this pattern is already known to apply to */
+	void matchValue(Map<String, Object> data, FilterResult match) {
 		boolean applyFilter = false;
-		if ( appliesTo(database, table) && data.containsKey(columnName) ) {
+		if ( data.containsKey(columnName) ) {
 			Object value = data.get(columnName);
 
 			if ( columnPatternIsNull ) {
@@ -55,6 +61,10 @@ public class FilterColumnPattern extends FilterPattern {
 			match.include = (this.type == FilterPatternType.INCLUDE);
 	}
 
+	public String getColumnName() {
+		return columnName;
+	}
+
 	@Override
 	public boolean couldIncludeColumn(String database, String table, Set<String> columns) {
 		return type == FilterPatternType.INCLUDE
@@ -0,0 +1,128 @@
+package com.zendesk.maxwell.filtering;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a {@link Filter} has to say about one table, worked out once.
+ *
+ * The database and table regexes of every rule are run when the decision is
+ * made; afterwards only the column-value rules that could still change the
+ * outcome for this table are evaluated, once per row.
+ */
+public class FilterDecision {
+	final int generation;
+	private final boolean systemBlacklisted;
+	private final boolean systemWhitelisted;
+	private final boolean tableBlacklisted;
+	private final boolean includes;
+	private final boolean excludesAllRows;
+
+	// the column-value rules after the last table rule that applies
+	private final FilterColumnPattern[] valueRules;
+	private final Set<String> includeColumns;
+
+	FilterDecision(Filter filter, List<FilterPattern> patterns, int generation, String database, String table) {
+		this.generation = generation;
+		this.systemBlacklisted = Filter.isSystemBlacklisted(database, table);
+		this.systemWhitelisted = filter.isSystemWhitelisted(database, table);
+
+		FilterResult tableMatch = new FilterResult();
+		boolean blacklistMatch = false;
+		List<FilterColumnPattern> rules = new ArrayList<>();
+		Set<String> columns = new HashSet<>();
+		boolean anyIncludeColumnRule = false;
+
+		for ( FilterPattern p : patterns ) {
+			if ( !p.appliesTo(database, table) )
+				continue;
+
+			if ( p instanceof FilterColumnPattern ) {
+				FilterColumnPattern cp = (FilterColumnPattern) p;
+				rules.add(cp);
+				if ( cp.getType() == FilterPatternType.INCLUDE ) {
+					columns.add(cp.getColumnName());
+					anyIncludeColumnRule = true;
+				}
+			} else {
+				tableMatch.include = (p.getType() == FilterPatternType.INCLUDE);
+				if ( p.getType() == FilterPatternType.BLACKLIST )
+					blacklistMatch = true;
+
+				// a table rule overrides whatever column rules came before it
+				rules.clear();
+			}
+		}
+
+		this.includes = tableMatch.include;
+		this.tableBlacklisted = systemBlacklisted || (!filter.isMaxwellDB(database) && blacklistMatch);
+		this.valueRules = rules.toArray(new FilterColumnPattern[0]);
+		this.includeColumns = columns;
+		this.excludesAllRows = systemBlacklisted
+			|| (!systemWhitelisted && (tableBlacklisted || (!includes && !anyIncludeColumnRule)));
+	}
+
+	public boolean isSystemBlacklisted() {
+		return systemBlacklisted;
+	}
+
+	public boolean isSystemWhitelisted() {
+		return systemWhitelisted;
+	}
+
+	/**
+	 * @see Filter#isTableBlacklisted(String, String)
+	 */
+	public boolean isTableBlacklisted() {
+		return tableBlacklisted;
+	}
+
+	/**
+	 * @see Filter#includes(String, String)
+	 */
+	public boolean includes() {
+		return includes;
+	}
+
+	/**
+	 * @see Filter#includes(String, String, Map)
+	 */
+	public boolean includes(Map<String, Object> values) {
+		if ( valueRules.length == 0 )
+			return includes;
+
+		FilterResult match = new FilterResult();
+		match.include = includes;
+		for ( FilterColumnPattern p : valueRules )
+			p.matchValue(values, match);
+		return match.include;
+	}
+
+	/**
+	 * Could a row's values change {@link #includes()}?  If not, rows needn't be looked at.
+	 */
+	public boolean hasValueRules() {
+		return valueRules.length > 0;
+	}
+
+	/**
+	 * @see Filter#couldIncludeFromColumnFilters(String, String, Set)
+	 */
+	public boolean couldIncludeFromColumnFilters(Set<String> columns) {
+		for ( String c : includeColumns ) {
+			if ( columns.contains(c) )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @see Filter#excludesAllRows(String, String)
+	 */
+	public boolean excludesAllRows() {
+		return excludesAllRows;
+	}
+}
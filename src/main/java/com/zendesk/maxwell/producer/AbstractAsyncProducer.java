@@ -7,31 +7,49 @@ import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowMap;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractAsyncProducer extends AbstractProducer {
+	// rows of a batch tracked before sending them; keeps a big batch from
+	// taking every inflight slot before any of it goes out.
+	private static final int MAX_TRACKED_BATCH = 1000;
 
 	public class CallbackCompleter {
 		private InflightMessageList inflightMessages;
 		private final MaxwellContext context;
 		private final int metricsAgeSloMs;
-		private final Position position;
-		private final boolean isTXCommit;
+		private final InflightMessageList.InflightMessage inflightMessage;
 		private final long messageID;
+		private RowMap row; // acknowledged on completion; set when the row is tracked
 
+		/**
+		 * For producers that didn't keep the entry {@link InflightMessageList#addMessage} returned;
+		 * the entry is looked up by position instead.
+		 */
 		public CallbackCompleter(InflightMessageList inflightMessages, Position position, boolean isTXCommit, MaxwellContext context, long messageID) {
+			this(inflightMessages, isTXCommit ? inflightMessages.findMessage(position) : null, context, messageID);
+		}
+
+		/**
+		 * @param inflightMessage the message's entry in the inflight list, or null if it isn't tracked (non-commit rows)
+		 */
+		public CallbackCompleter(InflightMessageList inflightMessages, InflightMessageList.InflightMessage inflightMessage, MaxwellContext context, long messageID) {
 			this.inflightMessages = inflightMessages;
 			this.context = context;
 			this.metricsAgeSloMs = context.getConfig().metricsAgeSlo * 1000;
-			this.position = position;
-			this.isTXCommit = isTXCommit;
+			this.inflightMessage = inflightMessage;
 			this.messageID = messageID;
 		}
 
 		public void markCompleted() {
 			inflightMessages.freeSlot(messageID);
-			if(isTXCommit) {
-				InflightMessageList.InflightMessage message = inflightMessages.completeMessage(position);
+			if ( row != null )
+				row.acknowledge();
+
+			if(inflightMessage != null) {
+				InflightMessageList.InflightMessage message = inflightMessages.completeMessage(inflightMessage);
 
 				if (message != null) {
 					context.setPosition(message.position);
@@ -49,13 +67,30 @@ public abstract class AbstractAsyncProducer extends AbstractProducer {
 		}
 	}
 
-	private InflightMessageList inflightMessages;
+	private final InflightMessageList inflightMessages;
+	private final boolean trackEveryRow;
 
 	public AbstractAsyncProducer(MaxwellContext context) {
+		this(context, new InflightMessageList(context), false);
+		registerInflightGauge(context, inflightMessages);
+	}
+
+	/**
+	 * For a producer split over several instances, sharing one inflight list
+	 * so that the binlog position only moves once all of them are done with
+	 * everything before it.
+	 *
+	 * @param trackEveryRow hold the position back for non-commit rows too;
+	 *                      needed when rows of one transaction may be sent by different instances
+	 */
+	protected AbstractAsyncProducer(MaxwellContext context, InflightMessageList inflightMessages, boolean trackEveryRow) {
 		super(context);
 
-		this.inflightMessages = new InflightMessageList(context);
+		this.inflightMessages = inflightMessages;
+		this.trackEveryRow = trackEveryRow;
+	}
 
+	static void registerInflightGauge(MaxwellContext context, InflightMessageList inflightMessages) {
 		Metrics metrics = context.getMetrics();
 		String gaugeName = metrics.metricName("inflightmessages", "count");
 		metrics.register(gaugeName, (Gauge<Long>) () -> (long) inflightMessages.size());
@@ -63,32 +98,85 @@ public abstract class AbstractAsyncProducer extends AbstractProducer {
 
 	public abstract void sendAsync(RowMap r, CallbackCompleter cc) throws Exception;
 
+	/**
+	 * Send rows that were tracked together, each with its completer.
+	 * By default, sendAsync() for each.
+	 */
+	public void sendAsyncBatch(List<RowMap> rows, List<CallbackCompleter> completers) throws Exception {
+		for ( int i = 0; i < rows.size(); i++ )
+			sendAsync(rows.get(i), completers.get(i));
+	}
+
 	@Override
 	public final void push(RowMap r) throws Exception {
+		CallbackCompleter cc = track(r);
+		if ( cc != null )
+			sendAsync(r, cc);
+	}
+
+	@Override
+	public final void pushBatch(List<RowMap> rows) throws Exception {
+		List<RowMap> toSend = new ArrayList<>(Math.min(rows.size(), MAX_TRACKED_BATCH));
+		List<CallbackCompleter> completers = new ArrayList<>(Math.min(rows.size(), MAX_TRACKED_BATCH));
+
+		for ( RowMap r : rows ) {
+			CallbackCompleter cc = track(r);
+			if ( cc == null )
+				continue;
+
+			toSend.add(r);
+			completers.add(cc);
+			if ( toSend.size() >= MAX_TRACKED_BATCH ) {
+				sendAsyncBatch(toSend, completers);
+				toSend = new ArrayList<>(MAX_TRACKED_BATCH);
+				completers = new ArrayList<>(MAX_TRACKED_BATCH);
+			}
+		}
+
+		if ( !toSend.isEmpty() )
+			sendAsyncBatch(toSend, completers);
+	}
+
+	/**
+	 * Enter a row into the inflight list, waiting for room if need be.
+	 * Rows must be tracked in binlog order, from a single thread.
+	 *
+	 * @return the completer to send the row with, or null if the row isn't output
+	 */
+	CallbackCompleter track(RowMap r) throws InterruptedException {
 		Position position = r.getNextPosition();
 		// Rows that do not get sent to the prodcuer will be automatically marked as complete.
 		if(!r.shouldOutput(outputConfig)) {
 			if ( position != null ) {
-				inflightMessages.addMessage(position, r.getTimestampMillis(), 0L);
+				InflightMessageList.InflightMessage m = inflightMessages.addMessage(position, r.getTimestampMillis(), 0L);
 
-				InflightMessageList.InflightMessage completed = inflightMessages.completeMessage(position);
+				InflightMessageList.InflightMessage completed = inflightMessages.completeMessage(m);
 				if (completed != null) {
 					context.setPosition(completed.position);
 				}
 			}
-			return;
+			r.acknowledge();
+			return null;
 		}
 
 		// back-pressure from slow producers
 
 		long messageID = inflightMessages.waitForSlot();
 
+		InflightMessageList.InflightMessage inflightMessage = null;
 		if(r.isTXCommit()) {
-			inflightMessages.addMessage(position, r.getTimestampMillis(), messageID);
+			inflightMessage = inflightMessages.addMessage(position, r.getTimestampMillis(), messageID);
+		} else if ( trackEveryRow ) {
+			inflightMessage = inflightMessages.addMessage(null, r.getTimestampMillis(), messageID);
 		}
 
-		CallbackCompleter cc = new CallbackCompleter(inflightMessages, position, r.isTXCommit(), context, messageID);
+		CallbackCompleter cc = new CallbackCompleter(inflightMessages, inflightMessage, context, messageID);
+		cc.row = r;
+		return cc;
+	}
 
-		sendAsync(r, cc);
+	@Override
+	public boolean acknowledgesRows() {
+		return true;
 	}
 }
@@ -10,6 +10,8 @@ import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.row.RowMap;
 import com.zendesk.maxwell.util.StoppableTask;
 
+import java.util.List;
+
 public abstract class AbstractProducer {
 	protected final MaxwellContext context;
 	protected final MaxwellOutputConfig outputConfig;
@@ -20,6 +22,7 @@ public abstract class AbstractProducer {
 	protected final Timer messagePublishTimer;
 	protected final Timer messageLatencyTimer;
 	protected final Counter messageLatencySloViolationCount;
+	protected final Counter serializationCacheHitCount;
 
 	public AbstractProducer(MaxwellContext context) {
 		this.context = context;
@@ -35,10 +38,48 @@ public abstract class AbstractProducer {
 		this.messagePublishTimer = metricRegistry.timer(metrics.metricName("message", "publish", "time"));
 		this.messageLatencyTimer = metricRegistry.timer(metrics.metricName("message", "publish", "age"));
 		this.messageLatencySloViolationCount = metricRegistry.counter(metrics.metricName("message", "publish", "age", "slo_violation"));
+		this.serializationCacheHitCount = metricRegistry.counter(metrics.metricName("message", "serialize", "cache", "hits"));
+	}
+
+	/**
+	 * Serialize a row with this producer's output config.  A row that's already
+	 * been serialized with it (say, by an earlier attempt) isn't encoded again.
+	 */
+	protected String serialize(RowMap r) throws Exception {
+		if ( r.isSerializedFor(outputConfig) )
+			serializationCacheHitCount.inc();
+		return r.toJSON(outputConfig);
+	}
+
+	/**
+	 * Like {@link #serialize(RowMap)}, as UTF-8 bytes.
+	 */
+	protected byte[] serializeBytes(RowMap r) throws Exception {
+		if ( r.isSerializedFor(outputConfig) )
+			serializationCacheHitCount.inc();
+		return r.toJSONBytes(outputConfig);
 	}
 
 	abstract public void push(RowMap r) throws Exception;
 
+	/**
+	 * Push several rows, in binlog order.  The replicator hands over a
+	 * transaction's rows (or a chunk of a large one) this way, so that
+	 * producers able to send rows together can.  By default, push() for each.
+	 */
+	public void pushBatch(List<RowMap> rows) throws Exception {
+		for ( RowMap r : rows )
+			push(r);
+	}
+
+	/**
+	 * Whether this producer calls {@link RowMap#acknowledge()} on each row once
+	 * it's delivered.  If not, a row counts as delivered once push() returns.
+	 */
+	public boolean acknowledgesRows() {
+		return false;
+	}
+
 	public StoppableTask getStoppableTask() {
 		return null;
 	}
@@ -1,37 +1,282 @@
 package com.zendesk.maxwell.producer;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 
+import com.zendesk.maxwell.MaxwellConfig;
 import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowMap;
+import com.zendesk.maxwell.util.StoppableTask;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+   appends rows as lines of JSON through a buffered FileChannel.
+
+   The buffer is written out when a transaction commits or, with
+   output_file_flush_ms, at most that often.  The binlog position only
+   advances once everything before it has been written (and, with
+   output_file_fsync, forced to disk).
+
+   With output_file_rotate_bytes / output_file_rotate_ms, the file is
+   rotated between transactions: it's renamed to FILE.<timestamp> and a
+   fresh FILE is started.  Rotated files may be compressed in the
+   background.
+ */
+public class FileProducer extends AbstractProducer implements StoppableTask {
+	static final Logger LOGGER = LoggerFactory.getLogger(FileProducer.class);
+	private static final int BUFFER_SIZE = 1024 * 1024;
+	private static final byte NEWLINE = '\n';
 
-public class FileProducer extends AbstractProducer {
 	private final File file;
-	private final FileWriter fileWriter;
+	private final boolean fsync;
+	private final long flushIntervalMS;
+	private final long rotateBytes;
+	private final long rotateIntervalMS;
+	private final String compression;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private FileChannel channel;
+	private long fileOpenedAt;
+	private long lastFlushAt;
+	private boolean inTransaction = false;
+	private Position unflushedPosition;
+	// rows waiting on a flush to be acknowledged (bootstrap rows; others go by position)
+	private final List<RowMap> unacknowledged = new ArrayList<>();
+
+	private ScheduledExecutorService flusher;
+	private ExecutorService compressor;
 
 	public FileProducer(MaxwellContext context, String filename) throws IOException {
 		super(context);
+		MaxwellConfig config = context.getConfig();
 		this.file = new File(filename);
-		this.fileWriter = new FileWriter(this.file, true);
+		this.fsync = config.outputFileFsync;
+		this.flushIntervalMS = config.outputFileFlushMs;
+		this.rotateBytes = config.outputFileRotateBytes;
+		this.rotateIntervalMS = config.outputFileRotateMs;
+		this.compression = config.outputFileCompression == null ? "none" : config.outputFileCompression;
+
+		open();
+		this.lastFlushAt = System.currentTimeMillis();
+
+		// picks up a quiet tail: rows waiting on the flush interval, or a file due to rotate
+		long interval = Math.min(
+			flushIntervalMS > 0 ? flushIntervalMS : Long.MAX_VALUE,
+			rotateIntervalMS > 0 ? rotateIntervalMS : Long.MAX_VALUE
+		);
+		if ( interval != Long.MAX_VALUE ) {
+			this.flusher = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "maxwell-file-flusher"));
+			interval = Math.max(1L, interval / 2);
+			this.flusher.scheduleWithFixedDelay(this::flushIfDue, interval, interval, TimeUnit.MILLISECONDS);
+		}
+
+		if ( !compression.equals("none") )
+			this.compressor = Executors.newSingleThreadExecutor(r -> daemon(r, "maxwell-file-compressor"));
+	}
+
+	private static Thread daemon(Runnable r, String name) {
+		Thread t = new Thread(r, name);
+		t.setDaemon(true);
+		return t;
+	}
+
+	private void open() throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.fileOpenedAt = System.currentTimeMillis();
+	}
+
+	@Override
+	public boolean acknowledgesRows() {
+		return true;
 	}
 
 	@Override
 	public void push(RowMap r) throws Exception {
-		if ( !r.shouldOutput(outputConfig) ) {
-			context.setPosition(r);
-			return;
+		pushBatch(Collections.singletonList(r));
+	}
+
+	@Override
+	public synchronized void pushBatch(List<RowMap> rows) throws Exception {
+		for ( RowMap r : rows ) {
+			if ( r.shouldOutput(outputConfig) ) {
+				write(serializeBytes(r));
+				inTransaction = true;
+				if ( r.hasAcknowledgeCallback() )
+					unacknowledged.add(r);
+			} else {
+				r.acknowledge();
+			}
+
+			if ( r.isTXCommit() ) {
+				unflushedPosition = r.getNextPosition();
+				inTransaction = false;
+			}
+		}
+
+		boolean unflushed = unflushedPosition != null || !unacknowledged.isEmpty();
+		if ( unflushed && System.currentTimeMillis() - lastFlushAt >= flushIntervalMS )
+			flush();
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		if ( bytes.length + 1 > buffer.remaining() )
+			drain();
+
+		if ( bytes.length + 1 > buffer.capacity() ) {
+			writeFully(ByteBuffer.wrap(bytes));
+			writeFully(ByteBuffer.wrap(new byte[] { NEWLINE }));
+		} else {
+			buffer.put(bytes);
+			buffer.put(NEWLINE);
 		}
+	}
+
+	private void writeFully(ByteBuffer b) throws IOException {
+		while ( b.hasRemaining() )
+			channel.write(b);
+	}
 
-		String output = r.toJSON(outputConfig);
+	private void drain() throws IOException {
+		buffer.flip();
+		writeFully(buffer);
+		buffer.clear();
+	}
+
+	private void flush() throws IOException {
+		drain();
+		if ( fsync )
+			channel.force(false);
+		lastFlushAt = System.currentTimeMillis();
 
-		if ( output != null ) {
-			this.fileWriter.write(r.toJSON(outputConfig));
-			this.fileWriter.write('\n');
-			this.fileWriter.flush();
+		if ( unflushedPosition != null ) {
+			context.setPosition(unflushedPosition);
+			unflushedPosition = null;
 		}
 
-		context.setPosition(r);
+		for ( RowMap r : unacknowledged )
+			r.acknowledge();
+		unacknowledged.clear();
+
+		if ( !inTransaction && shouldRotate() )
+			rotate();
+	}
+
+	private synchronized void flushIfDue() {
+		try {
+			boolean unflushed = unflushedPosition != null || !unacknowledged.isEmpty() || buffer.position() > 0;
+			if ( unflushed && System.currentTimeMillis() - lastFlushAt >= flushIntervalMS )
+				flush();
+			else if ( !unflushed && !inTransaction && shouldRotate() )
+				rotate();
+		} catch ( IOException e ) {
+			context.terminate(e);
+		}
+	}
+
+	private boolean shouldRotate() throws IOException {
+		if ( rotateBytes > 0 && channel.size() >= rotateBytes )
+			return true;
+
+		return rotateIntervalMS > 0
+			&& System.currentTimeMillis() - fileOpenedAt >= rotateIntervalMS
+			&& channel.size() > 0;
+	}
+
+	private void rotate() throws IOException {
+		channel.close();
+
+		String timestamp = new SimpleDateFormat("yyyyMMdd'T'HHmmss.SSS").format(new Date());
+		File rotated = new File(file.getPath() + "." + timestamp);
+		for ( int i = 1; rotated.exists(); i++ )
+			rotated = new File(file.getPath() + "." + timestamp + "-" + i);
+
+		Files.move(file.toPath(), rotated.toPath());
+		LOGGER.info("rotated " + file + " to " + rotated);
+		open();
+
+		if ( compressor != null ) {
+			final File segment = rotated;
+			compressor.submit(() -> compress(segment));
+		}
+	}
+
+	private void compress(File segment) {
+		String suffix = compression.equals("gzip") ? ".gz" : ".lz4";
+		File compressed = new File(segment.getPath() + suffix);
+		File partial = new File(compressed.getPath() + ".tmp");
+
+		try {
+			try ( OutputStream out = compressedStream(new FileOutputStream(partial)) ) {
+				Files.copy(segment.toPath(), out);
+			}
+			Files.move(partial.toPath(), compressed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			Files.delete(segment.toPath());
+		} catch ( IOException e ) {
+			// leave the uncompressed file in place
+			LOGGER.error("failed to compress " + segment, e);
+			partial.delete();
+		}
+	}
+
+	private OutputStream compressedStream(OutputStream out) throws IOException {
+		if ( compression.equals("gzip") )
+			return new GZIPOutputStream(out, 64 * 1024);
+		else
+			return new LZ4FrameOutputStream(out);
+	}
+
+	@Override
+	public void requestStop() throws Exception {
+		if ( flusher != null )
+			flusher.shutdown();
+
+		synchronized (this) {
+			if ( channel.isOpen() ) {
+				flush();
+				channel.close();
+			}
+		}
+
+		if ( compressor != null )
+			compressor.shutdown();
+	}
+
+	@Override
+	public void awaitStop(Long timeout) throws TimeoutException {
+		if ( compressor == null )
+			return;
+
+		try {
+			if ( !compressor.awaitTermination(timeout, TimeUnit.MILLISECONDS) )
+				throw new TimeoutException("timed out waiting on output file compression");
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public StoppableTask getStoppableTask() {
+		return this;
 	}
 }
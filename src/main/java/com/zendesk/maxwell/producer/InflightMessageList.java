@@ -3,31 +3,45 @@ package com.zendesk.maxwell.producer;
    network, that may complete in any order.  Allows for only bumping
    the binlog position upon completion of the oldest outstanding item.
 
-   Assumes .addInflight(position) will be call monotonically.
+   Assumes .addMessage(position) will be called monotonically, from
+   a single thread.  Completion may come from any number of threads.
+
+   Each message gets a sequence number and lives in a ring at
+   (sequence & mask).  Completing a message sets its flag, then tries
+   to CAS the low watermark -- the sequence of the oldest message not
+   yet passed -- forward over every completed message at the head.
+   A completer that loses the race leaves the advancing to whoever won;
+   because the flag is written before the watermark is read, one of
+   them always sees the other's work.
+
+   A message added without a position holds the watermark back, but
+   is never reported as the position to complete up to.
    */
 
 import com.zendesk.maxwell.MaxwellContext;
 import com.zendesk.maxwell.replication.Position;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class InflightMessageList {
-	class InflightMessage {
+	public class InflightMessage {
 		public final Position position;
-		public boolean isComplete;
+		public volatile boolean isComplete;
 		public final long messageID;
 		public final long sendTimeMS;
 		public final long eventTimeMS;
-		private Long blockedHeadTimeMS;
+		final long sequence;
+		private volatile long blockedHeadTimeMS = 0L;
 
-		InflightMessage(Position p, long eventTimeMS, long messageID) {
+		InflightMessage(Position p, long eventTimeMS, long messageID, long sequence) {
 			this.position = p;
 			this.isComplete = false;
 			this.sendTimeMS = System.currentTimeMillis();
 			this.eventTimeMS = eventTimeMS;
 			this.messageID = messageID;
+			this.sequence = sequence;
 		}
 
 		long timeSinceSendMS() {
@@ -36,12 +50,12 @@ public class InflightMessageList {
 
 
 		private void markBlockedHead() {
-			if ( this.blockedHeadTimeMS == null )
+			if ( this.blockedHeadTimeMS == 0L )
 				this.blockedHeadTimeMS = System.currentTimeMillis();
 		}
 
 		private long timeAsBlockedHead() {
-			if ( this.blockedHeadTimeMS == null )
+			if ( this.blockedHeadTimeMS == 0L )
 				return 0L;
 			else
 				return System.currentTimeMillis() - this.blockedHeadTimeMS;
@@ -51,15 +65,21 @@ public class InflightMessageList {
 
 	// number of total messages we allow to be outstanding at once
 	private static final int DEFAULT_CAPACITY = 10000;
+	private static final int MIN_RING_SIZE = 16;
 
 	// how long before we consider the head of the queue stuck
 	private final long producerAckTimeoutMS;
 
-	private final LinkedHashMap<Position, InflightMessage> linkedMap;
 	private final MaxwellContext context;
 	private final Semaphore semaphore;
 	private long messageCount = 0;
 
+	// only the adding thread writes slots, or swaps in a bigger ring.
+	private volatile AtomicReferenceArray<InflightMessage> ring;
+	// every message below this sequence is complete and passed
+	private final AtomicLong lowWatermark = new AtomicLong(0L);
+	private volatile long nextSequence = 0L;
+
 	public InflightMessageList(MaxwellContext context) {
 		this(context, DEFAULT_CAPACITY);
 	}
@@ -67,8 +87,15 @@ public class InflightMessageList {
 	public InflightMessageList(MaxwellContext context, int capacity) {
 		this.context = context;
 		this.producerAckTimeoutMS = context.getConfig().producerAckTimeout;
-		this.linkedMap = new LinkedHashMap<>();
 		this.semaphore = new Semaphore(capacity);
+		this.ring = new AtomicReferenceArray<>(ringSizeFor(capacity));
+	}
+
+	private static int ringSizeFor(int capacity) {
+		int size = MIN_RING_SIZE;
+		while ( size < capacity )
+			size <<= 1;
+		return size;
 	}
 
 	public long waitForSlot() throws InterruptedException {
@@ -76,12 +103,18 @@ public class InflightMessageList {
 		return ++this.messageCount;
 	}
 
-	private synchronized InflightMessage head() {
-		Iterator<InflightMessage> it = iterator();
-		if ( it.hasNext() )
-			return it.next();
-		else
+	private InflightMessage head() {
+		return messageAt(lowWatermark.get());
+	}
+
+	private InflightMessage messageAt(long sequence) {
+		AtomicReferenceArray<InflightMessage> r = this.ring;
+		InflightMessage m = r.get((int) (sequence & (r.length() - 1)));
+
+		// slots are reused as the ring wraps, and may hold stale copies after it grows
+		if ( m == null || m.sequence != sequence )
 			return null;
+		return m;
 	}
 
 	private void checkStuckHead(long messageID) {
@@ -114,39 +147,71 @@ public class InflightMessageList {
 		checkStuckHead(messageID);
 	}
 
-	public synchronized void addMessage(Position p, long eventTimestampMillis, long messageID) throws InterruptedException {
-		InflightMessage m = new InflightMessage(p, eventTimestampMillis, messageID);
-		this.linkedMap.put(p, m);
+	public InflightMessage addMessage(Position p, long eventTimestampMillis, long messageID) throws InterruptedException {
+		long sequence = this.nextSequence;
+		AtomicReferenceArray<InflightMessage> r = this.ring;
+
+		// completed messages behind a stuck head hold on to their slots
+		// after freeSlot(), so the ring may need more room than the semaphore allows.
+		if ( sequence - lowWatermark.get() >= r.length() )
+			r = grow(r, sequence);
+
+		InflightMessage m = new InflightMessage(p, eventTimestampMillis, messageID, sequence);
+		r.set((int) (sequence & (r.length() - 1)), m);
+		this.nextSequence = sequence + 1;
+		return m;
 	}
 
-	/* returns the position that stuff is complete up to, or null if there were no changes */
-	public synchronized InflightMessage completeMessage(Position p) {
-		InflightMessage m = this.linkedMap.get(p);
-		assert(m != null);
+	private AtomicReferenceArray<InflightMessage> grow(AtomicReferenceArray<InflightMessage> r, long sequence) {
+		AtomicReferenceArray<InflightMessage> bigger = new AtomicReferenceArray<>(r.length() << 1);
+		for ( long s = lowWatermark.get(); s < sequence; s++ ) {
+			InflightMessage m = r.get((int) (s & (r.length() - 1)));
+			bigger.set((int) (s & (bigger.length() - 1)), m);
+		}
+		this.ring = bigger;
+		return bigger;
+	}
 
+	/* returns the newest message this call moved the watermark past, or null if there were no changes */
+	public InflightMessage completeMessage(InflightMessage m) {
 		m.isComplete = true;
 
 		InflightMessage completeUntil = null;
-		Iterator<InflightMessage> iterator = iterator();
-
-		while ( iterator.hasNext() ) {
-			InflightMessage msg = iterator.next();
-			if ( !msg.isComplete ) {
+		while ( true ) {
+			long sequence = lowWatermark.get();
+			InflightMessage head = messageAt(sequence);
+			if ( head == null || !head.isComplete )
 				break;
-			}
 
-			completeUntil = msg;
-			iterator.remove();
+			if ( lowWatermark.compareAndSet(sequence, sequence + 1) && head.position != null )
+				completeUntil = head;
 		}
 
 		return completeUntil;
 	}
 
-	public int size() {
-		return linkedMap.size();
+	/* as above, for a caller that didn't hold on to the message.  O(inflight) */
+	public InflightMessage completeMessage(Position p) {
+		InflightMessage m = findMessage(p);
+		if ( m == null ) {
+			assert(false);
+			return null;
+		}
+		return completeMessage(m);
 	}
 
-	private Iterator<InflightMessage> iterator() {
-		return this.linkedMap.values().iterator();
+	/* the oldest incomplete message at this position, or null.  O(inflight) */
+	InflightMessage findMessage(Position p) {
+		for ( long s = lowWatermark.get(); s < nextSequence; s++ ) {
+			InflightMessage m = messageAt(s);
+			if ( m != null && !m.isComplete && p.equals(m.position) )
+				return m;
+		}
+		return null;
+	}
+
+	public int size() {
+		long low = lowWatermark.get();
+		return (int) (nextSequence - low);
 	}
 }
@@ -10,18 +10,28 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class KafkaProducerDiagnostic implements MaxwellDiagnostic {
 
-	private final MaxwellKafkaProducerWorker producer;
+	private final List<MaxwellKafkaProducerWorker> producers;
 	private final MaxwellConfig config;
 	private final PositionStoreThread positionStoreThread;
 
 	public KafkaProducerDiagnostic(MaxwellKafkaProducerWorker producer, MaxwellConfig config, PositionStoreThread positionStoreThread) {
-		this.producer = producer;
+		this(Collections.singletonList(producer), config, positionStoreThread);
+	}
+
+	/**
+	 * Checks every worker of a sharded producer; the result is the slowest
+	 * worker's latency, or the first failure.
+	 */
+	public KafkaProducerDiagnostic(List<MaxwellKafkaProducerWorker> producers, MaxwellConfig config, PositionStoreThread positionStoreThread) {
+		this.producers = producers;
 		this.config = config;
 		this.positionStoreThread = positionStoreThread;
 	}
@@ -47,12 +57,21 @@ public class KafkaProducerDiagnostic implements MaxwellDiagnostic {
 	}
 
 	public CompletableFuture<Long> getLatency() {
+		CompletableFuture<Long> latency = null;
+		for ( MaxwellKafkaProducerWorker producer : producers ) {
+			CompletableFuture<Long> workerLatency = getLatency(producer);
+			latency = latency == null ? workerLatency : latency.thenCombine(workerLatency, Math::max);
+		}
+		return latency;
+	}
+
+	private CompletableFuture<Long> getLatency(MaxwellKafkaProducerWorker producer) {
 		DiagnosticCallback callback = new DiagnosticCallback();
 		try {
 			RowMap rowMap = new RowMap("insert", config.databaseName, "dummy", System.currentTimeMillis(),
 					new ArrayList<>(), positionStoreThread.getPosition());
 			rowMap.setTXCommit();
-			ProducerRecord<String, String> record = producer.makeProducerRecord(rowMap);
+			ProducerRecord<String, byte[]> record = producer.makeProducerRecord(rowMap);
 			producer.sendAsync(record, callback);
 		} catch (Exception e) {
 			callback.latency.completeExceptionally(e);
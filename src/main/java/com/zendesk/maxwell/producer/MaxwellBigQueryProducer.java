@@ -14,20 +14,27 @@ import com.google.cloud.bigquery.storage.v1.Exceptions.StorageException;
 import com.google.cloud.bigquery.storage.v1.JsonStreamWriter;
 import com.google.cloud.bigquery.storage.v1.TableName;
 import com.google.cloud.bigquery.storage.v1.TableSchema;
+import com.google.common.base.Utf8;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.Descriptors.DescriptorValidationException;
 import com.zendesk.maxwell.MaxwellContext;
-import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowMap;
 import com.zendesk.maxwell.schema.BqToBqStorageSchemaConverter;
 import com.zendesk.maxwell.util.StoppableTask;
 import com.zendesk.maxwell.util.StoppableTaskState;
+import com.zendesk.maxwell.util.TopicInterpolator;
 
 import io.grpc.Status;
 import io.grpc.Status.Code;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeoutException;
@@ -44,8 +51,6 @@ class BigQueryCallback implements ApiFutureCallback<AppendRowsResponse> {
   public final Logger LOGGER = LoggerFactory.getLogger(BigQueryCallback.class);
 
   private final MaxwellBigQueryProducerWorker parent;
-  private final AbstractAsyncProducer.CallbackCompleter cc;
-  private final Position position;
   private MaxwellContext context;
   AppendContext appendContext;
 
@@ -60,15 +65,11 @@ class BigQueryCallback implements ApiFutureCallback<AppendRowsResponse> {
 
   public BigQueryCallback(MaxwellBigQueryProducerWorker parent,
       AppendContext appendContext,
-      AbstractAsyncProducer.CallbackCompleter cc,
-      Position position,
       Counter producedMessageCount, Counter failedMessageCount,
       Meter succeededMessageMeter, Meter failedMessageMeter,
       MaxwellContext context) {
     this.parent = parent;
     this.appendContext = appendContext;
-    this.cc = cc;
-    this.position = position;
     this.succeededMessageCount = producedMessageCount;
     this.failedMessageCount = failedMessageCount;
     this.succeededMessageMeter = succeededMessageMeter;
@@ -76,29 +77,37 @@ class BigQueryCallback implements ApiFutureCallback<AppendRowsResponse> {
     this.context = context;
   }
 
+  private Position lastPosition() {
+    return appendContext.rows.get(appendContext.rows.size() - 1).getNextPosition();
+  }
+
+  private void markAllCompleted() {
+    for (AbstractAsyncProducer.CallbackCompleter cc : appendContext.completers) {
+      cc.markCompleted();
+    }
+  }
+
   @Override
   public void onSuccess(AppendRowsResponse response) {
-    this.succeededMessageCount.inc();
-    this.succeededMessageMeter.mark();
+    int n = appendContext.rows.size();
+    this.succeededMessageCount.inc(n);
+    this.succeededMessageMeter.mark(n);
 
     if (LOGGER.isDebugEnabled()) {
-      try {
-        LOGGER.debug("-> {}\n" +
-            " {}\n",
-            this.appendContext.r.toJSON(), this.position);
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
+      LOGGER.debug("-> {} rows to {}\n" +
+          " {}\n",
+          n, appendContext.table, lastPosition());
     }
-    cc.markCompleted();
+    markAllCompleted();
   }
 
   @Override
   public void onFailure(Throwable t) {
-    this.failedMessageCount.inc();
-    this.failedMessageMeter.mark();
+    int n = appendContext.rows.size();
+    this.failedMessageCount.inc(n);
+    this.failedMessageMeter.mark(n);
 
-    LOGGER.error(t.getClass().getSimpleName() + " @ " + position);
+    LOGGER.error(t.getClass().getSimpleName() + " @ " + lastPosition() + " (" + n + " rows to " + appendContext.table + ")");
     LOGGER.error(t.getLocalizedMessage());
 
     Status status = Status.fromThrowable(t);
@@ -106,7 +115,7 @@ class BigQueryCallback implements ApiFutureCallback<AppendRowsResponse> {
         && RETRIABLE_ERROR_CODES.contains(status.getCode())) {
       appendContext.retryCount++;
       try {
-        this.parent.sendAsync(appendContext.r, this.cc);
+        this.parent.append(appendContext);
         return;
       } catch (Exception e) {
         System.out.format("Failed to retry append: %s\n", e);
@@ -121,7 +130,7 @@ class BigQueryCallback implements ApiFutureCallback<AppendRowsResponse> {
         return;
       }
     }
-    cc.markCompleted();
+    markAllCompleted();
   }
 }
 
@@ -134,13 +143,13 @@ public class MaxwellBigQueryProducer extends AbstractProducer {
       String bigQueryDataset, String bigQueryTable)
       throws IOException {
     super(context);
-    this.queue = new ArrayBlockingQueue<>(100);
+    // room for a whole batch to gather while the last one is sent
+    this.queue = new ArrayBlockingQueue<>(Math.max(100, context.getConfig().bigQueryBatchRows));
     this.worker = new MaxwellBigQueryProducerWorker(context, this.queue, bigQueryProjectId, bigQueryDataset,
         bigQueryTable);
 
-    TableName table = TableName.of(bigQueryProjectId, bigQueryDataset, bigQueryTable);
     try {
-      this.worker.initialize(table);
+      this.worker.initialize();
     } catch (DescriptorValidationException e) {
       e.printStackTrace();
     } catch (InterruptedException e) {
@@ -156,17 +165,27 @@ public class MaxwellBigQueryProducer extends AbstractProducer {
   public void push(RowMap r) throws Exception {
     this.queue.put(r);
   }
+
+  @Override
+  public boolean acknowledgesRows() {
+    return true; // by the worker
+  }
 }
 
+/* one AppendRows request: rows bound for one table, and their completers */
 class AppendContext {
-  JSONArray data;
+  final String table;
+  final JSONArray data;
+  final List<RowMap> rows;
+  final List<AbstractAsyncProducer.CallbackCompleter> completers;
   int retryCount = 0;
-  RowMap r = null;
 
-  AppendContext(JSONArray data, int retryCount, RowMap r) {
+  AppendContext(String table, JSONArray data, List<RowMap> rows,
+      List<AbstractAsyncProducer.CallbackCompleter> completers) {
+    this.table = table;
     this.data = data;
-    this.retryCount = retryCount;
-    this.r = r;
+    this.rows = rows;
+    this.completers = completers;
   }
 }
 
@@ -180,15 +199,44 @@ class MaxwellBigQueryProducerWorker extends AbstractAsyncProducer implements Run
 
   @GuardedBy("lock")
   private RuntimeException error = null;
-  private JsonStreamWriter streamWriter;
+
+  private final String projectId;
+  private final String dataset;
+  private final String tableTemplate;
+  private final TopicInterpolator tableInterpolator;
+  private final int batchRows;
+  private final long batchBytes;
+  private final int maxStreamWriters;
+  private BigQuery bigquery;
+
+  // least recently used writers are closed once there are more than maxStreamWriters
+  @GuardedBy("streamWriters")
+  private final LinkedHashMap<String, JsonStreamWriter> streamWriters;
 
   public MaxwellBigQueryProducerWorker(MaxwellContext context,
       ArrayBlockingQueue<RowMap> queue, String bigQueryProjectId,
       String bigQueryDataset, String bigQueryTable) throws IOException {
     super(context);
     this.queue = queue;
-    Metrics metrics = context.getMetrics();
     this.taskState = new StoppableTaskState("MaxwellBigQueryProducerWorker");
+    this.projectId = bigQueryProjectId;
+    this.dataset = bigQueryDataset;
+    this.tableTemplate = bigQueryTable;
+    this.tableInterpolator = new TopicInterpolator(bigQueryTable);
+    this.batchRows = context.getConfig().bigQueryBatchRows;
+    this.batchBytes = context.getConfig().bigQueryBatchBytes;
+    this.maxStreamWriters = context.getConfig().bigQueryStreamWriters;
+    this.streamWriters = new LinkedHashMap<String, JsonStreamWriter>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, JsonStreamWriter> eldest) {
+        if (size() <= maxStreamWriters) {
+          return false;
+        }
+        LOGGER.debug("closing stream writer for {}", eldest.getKey());
+        eldest.getValue().close();
+        return true;
+      }
+    };
   }
 
   public Object getLock() {
@@ -213,20 +261,41 @@ class MaxwellBigQueryProducerWorker extends AbstractAsyncProducer implements Run
     record.put("old", old);
   }
 
-  public void initialize(TableName tName)
+  public void initialize()
       throws DescriptorValidationException, IOException, InterruptedException {
+    bigquery = BigQueryOptions.newBuilder().setProjectId(projectId).build().getService();
 
-    BigQuery bigquery = BigQueryOptions.newBuilder().setProjectId(tName.getProject()).build().getService();
-    Table table = bigquery.getTable(tName.getDataset(), tName.getTable());
-    Schema schema = table.getDefinition().getSchema();
-    TableSchema tableSchema = BqToBqStorageSchemaConverter.convertTableSchema(schema);
-    streamWriter = JsonStreamWriter.newBuilder(tName.toString(), tableSchema).build();
+    // a single table is opened up front, so a missing table fails at startup
+    if (!tableTemplate.contains("%{")) {
+      streamWriterFor(tableTemplate);
+    }
+  }
+
+  JsonStreamWriter streamWriterFor(String table)
+      throws DescriptorValidationException, IOException, InterruptedException {
+    synchronized (streamWriters) {
+      JsonStreamWriter writer = streamWriters.get(table);
+      if (writer == null) {
+        TableName tName = TableName.of(projectId, dataset, table);
+        Table bqTable = bigquery.getTable(tName.getDataset(), tName.getTable());
+        Schema schema = bqTable.getDefinition().getSchema();
+        TableSchema tableSchema = BqToBqStorageSchemaConverter.convertTableSchema(schema);
+        writer = JsonStreamWriter.newBuilder(tName.toString(), tableSchema).build();
+        streamWriters.put(table, writer);
+      }
+      return writer;
+    }
   }
 
   @Override
   public void requestStop() throws Exception {
     taskState.requestStop();
-    streamWriter.close();
+    synchronized (streamWriters) {
+      for (JsonStreamWriter writer : streamWriters.values()) {
+        writer.close();
+      }
+      streamWriters.clear();
+    }
     synchronized (this.lock) {
       if (this.error != null) {
         throw this.error;
@@ -242,14 +311,18 @@ class MaxwellBigQueryProducerWorker extends AbstractAsyncProducer implements Run
   @Override
   public void run() {
     this.thread = Thread.currentThread();
+    List<RowMap> batch = new ArrayList<>(batchRows);
     while (true) {
       try {
-        RowMap row = queue.take();
+        batch.add(queue.take());
         if (!taskState.isRunning()) {
           taskState.stopped();
           return;
         }
-        this.push(row);
+        // whatever else has queued up meanwhile goes along
+        queue.drainTo(batch, batchRows - 1);
+        this.pushBatch(batch);
+        batch.clear();
       } catch (Exception e) {
         taskState.stopped();
         context.terminate(e);
@@ -258,25 +331,75 @@ class MaxwellBigQueryProducerWorker extends AbstractAsyncProducer implements Run
     }
   }
 
-  @Override
-  public void sendAsync(RowMap r, CallbackCompleter cc) throws Exception {
+  private void checkError() {
     synchronized (this.lock) {
       if (this.error != null) {
         throw this.error;
       }
     }
-    JSONArray jsonArr = new JSONArray();
-    JSONObject record = new JSONObject(r.toJSON(outputConfig));
+  }
+
+  private JSONObject toRecord(String json) {
+    JSONObject record = new JSONObject(json);
     //convert json and array fields to String
     covertJSONObjectFieldsToString(record);
-    jsonArr.put(record);
-    AppendContext appendContext = new AppendContext(jsonArr, 0, r);
+    return record;
+  }
 
-    ApiFuture<AppendRowsResponse> future = streamWriter.append(appendContext.data);
+  @Override
+  public void sendAsync(RowMap r, CallbackCompleter cc) throws Exception {
+    sendAsyncBatch(Collections.singletonList(r), Collections.singletonList(cc));
+  }
+
+  /*
+     rows are grouped by destination table, keeping binlog order within
+     each table, and sent as AppendRows requests of at most batchRows rows
+     and batchBytes of UTF-8 encoded JSON.
+   */
+  @Override
+  public void sendAsyncBatch(List<RowMap> rows, List<CallbackCompleter> completers) throws Exception {
+    checkError();
+
+    Map<String, AppendContext> pending = new LinkedHashMap<>();
+    Map<String, Long> pendingBytes = new HashMap<>();
+
+    for (int i = 0; i < rows.size(); i++) {
+      RowMap r = rows.get(i);
+      String table = tableInterpolator.generateFromRowMapAndCleanUpIllegalCharacters(r);
+      String json = serialize(r);
+      JSONObject record = toRecord(json);
+      long bytes = Utf8.encodedLength(json);
+
+      AppendContext appendContext = pending.get(table);
+      if (appendContext != null
+          && (appendContext.rows.size() >= batchRows || pendingBytes.get(table) + bytes > batchBytes)) {
+        append(appendContext);
+        appendContext = null;
+      }
+
+      if (appendContext == null) {
+        appendContext = new AppendContext(table, new JSONArray(), new ArrayList<>(), new ArrayList<>());
+        pending.put(table, appendContext);
+        pendingBytes.put(table, 0L);
+      }
+
+      appendContext.data.put(record);
+      appendContext.rows.add(r);
+      appendContext.completers.add(completers.get(i));
+      pendingBytes.put(table, pendingBytes.get(table) + bytes);
+    }
+
+    for (AppendContext appendContext : pending.values()) {
+      append(appendContext);
+    }
+  }
+
+  void append(AppendContext appendContext) throws Exception {
+    ApiFuture<AppendRowsResponse> future = streamWriterFor(appendContext.table).append(appendContext.data);
     ApiFutures.addCallback(
-        future, new BigQueryCallback(this, appendContext, cc, r.getNextPosition(),
+        future, new BigQueryCallback(this, appendContext,
             this.succeededMessageCount, this.failedMessageCount, this.succeededMessageMeter, this.failedMessageMeter,
             this.context),
         MoreExecutors.directExecutor());
   }
-}
\ No newline at end of file
+}
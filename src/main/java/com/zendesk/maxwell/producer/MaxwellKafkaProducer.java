@@ -16,10 +16,14 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.kafka.clients.producer.*;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -106,50 +110,110 @@ class KafkaCallback implements Callback {
 	}
 }
 
+/*
+   rows are handed to one or more worker threads, which serialize and send
+   them.  With more than one worker, each row goes to the worker owning its
+   partition key's hash, so rows with the same key stay in order.  Only
+   per-key order is kept, though: rows with different keys that hash to the
+   same kafka partition may be owned by different workers, and reach that
+   partition out of binlog order.
+
+   rows are entered into one shared inflight list here, in binlog order,
+   before being queued -- and with several workers every row is tracked,
+   not just commits, as the rows of one transaction may go out through
+   different workers.
+ */
 public class MaxwellKafkaProducer extends AbstractProducer {
-	private final ArrayBlockingQueue<RowMap> queue;
-	private final MaxwellKafkaProducerWorker worker;
+	private static final int WORKER_QUEUE_SIZE = 100;
+
+	private final List<MaxwellKafkaProducerWorker> workers;
+	private final StoppableTask stoppableTask;
 
 	public MaxwellKafkaProducer(MaxwellContext context, Properties kafkaProperties, String kafkaTopic) {
+		this(context, kafkaTopic, new KafkaProducer<String, byte[]>(kafkaProperties, new StringSerializer(), new ByteArraySerializer()));
+	}
+
+	public MaxwellKafkaProducer(MaxwellContext context, String kafkaTopic, Producer<String, byte[]> kafka) {
 		super(context);
-		this.queue = new ArrayBlockingQueue<>(100);
-		this.worker = new MaxwellKafkaProducerWorker(context, kafkaProperties, kafkaTopic, this.queue);
-		Thread thread = new Thread(this.worker, "maxwell-kafka-worker");
-		thread.setDaemon(true);
-		thread.start();
+
+		int nWorkers = context.getConfig().kafkaProducerWorkers;
+		InflightMessageList inflightMessages = new InflightMessageList(context);
+		AbstractAsyncProducer.registerInflightGauge(context, inflightMessages);
+
+		this.workers = new ArrayList<>(nWorkers);
+		for ( int i = 0; i < nWorkers; i++ ) {
+			MaxwellKafkaProducerWorker worker = new MaxwellKafkaProducerWorker(
+				context, kafkaTopic, new ArrayBlockingQueue<>(WORKER_QUEUE_SIZE), kafka, inflightMessages, nWorkers > 1
+			);
+			Thread thread = new Thread(worker, nWorkers == 1 ? "maxwell-kafka-worker" : "maxwell-kafka-worker-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			workers.add(worker);
+		}
+
+		// the workers share the kafka producer, so it's closed here once they've all stopped
+		this.stoppableTask = new StoppableTask() {
+			@Override
+			public void requestStop() {
+				for ( MaxwellKafkaProducerWorker w : workers )
+					w.requestStop();
+			}
+
+			@Override
+			public void awaitStop(Long timeout) throws TimeoutException {
+				try {
+					for ( MaxwellKafkaProducerWorker w : workers )
+						w.awaitStop(timeout);
+				} finally {
+					kafka.close();
+				}
+			}
+		};
 	}
 
 	@Override
 	public void push(RowMap r) throws Exception {
-		this.queue.put(r);
+		MaxwellKafkaProducerWorker worker = workers.get(0);
+
+		// rows that aren't output are completed as soon as they're tracked; any worker will do.
+		if ( workers.size() > 1 && r.shouldOutput(outputConfig) )
+			worker = workers.get(worker.shardFor(r, workers.size()));
+
+		worker.enqueue(r);
+	}
+
+	@Override
+	public boolean acknowledgesRows() {
+		return true; // by the workers
 	}
 
 	@Override
 	public StoppableTask getStoppableTask() {
-		return this.worker;
+		return this.stoppableTask;
 	}
 
 	@Override
 	public KafkaProducerDiagnostic getDiagnostic() {
-		return new KafkaProducerDiagnostic(worker, context.getConfig(), context.getPositionStoreThread());
+		return new KafkaProducerDiagnostic(workers, context.getConfig(), context.getPositionStoreThread());
 	}
 }
 
 class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnable, StoppableTask {
 	static final Logger LOGGER = LoggerFactory.getLogger(MaxwellKafkaProducer.class);
 
-	private final Producer<String, String> kafka;
+	private final Producer<String, byte[]> kafka;
 	private final String topic;
 	private final String ddlTopic;
 	private final MaxwellKafkaPartitioner partitioner;
 	private final MaxwellKafkaPartitioner ddlPartitioner;
 	private final KeyFormat keyFormat;
-	private final ArrayBlockingQueue<RowMap> queue;
+	private final ArrayBlockingQueue<Pair<RowMap, CallbackCompleter>> queue;
 	private Thread thread;
 	private StoppableTaskState taskState;
 	private String deadLetterTopic;
-	private final ConcurrentLinkedQueue<Pair<ProducerRecord<String, String>, KafkaCallback>> deadLetterQueue;
+	private final ConcurrentLinkedQueue<Pair<ProducerRecord<String, byte[]>, KafkaCallback>> deadLetterQueue;
 	private final TopicInterpolator topicInterpolator;
+	private final boolean closesProducer;
 
 	public static MaxwellKafkaPartitioner makeDDLPartitioner(String partitionHashFunc, String partitionKey) {
 		if (partitionKey.equals("table")) {
@@ -159,9 +223,25 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 		}
 	}
 
-	public MaxwellKafkaProducerWorker(MaxwellContext context, String kafkaTopic, ArrayBlockingQueue<RowMap> queue,
-									  Producer<String, String> producer) {
-		super(context);
+	public MaxwellKafkaProducerWorker(MaxwellContext context, String kafkaTopic, ArrayBlockingQueue<Pair<RowMap, CallbackCompleter>> queue,
+									  Producer<String, byte[]> producer) {
+		this(context, kafkaTopic, queue, producer, new InflightMessageList(context), false, true);
+	}
+
+	/**
+	 * One of several workers sharing the inflight list and the kafka producer;
+	 * the worker leaves closing the producer to its owner.
+	 */
+	public MaxwellKafkaProducerWorker(MaxwellContext context, String kafkaTopic, ArrayBlockingQueue<Pair<RowMap, CallbackCompleter>> queue,
+									  Producer<String, byte[]> producer, InflightMessageList inflightMessages, boolean trackEveryRow) {
+		this(context, kafkaTopic, queue, producer, inflightMessages, trackEveryRow, false);
+	}
+
+	private MaxwellKafkaProducerWorker(MaxwellContext context, String kafkaTopic, ArrayBlockingQueue<Pair<RowMap, CallbackCompleter>> queue,
+									   Producer<String, byte[]> producer, InflightMessageList inflightMessages, boolean trackEveryRow,
+									   boolean closesProducer) {
+		super(context, inflightMessages, trackEveryRow);
+		this.closesProducer = closesProducer;
 
 		if (kafkaTopic == null) {
 			this.topic = "maxwell";
@@ -193,9 +273,9 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 	}
 
 	public MaxwellKafkaProducerWorker(MaxwellContext context, Properties kafkaProperties, String kafkaTopic,
-									  ArrayBlockingQueue<RowMap> queue) {
+									  ArrayBlockingQueue<Pair<RowMap, CallbackCompleter>> queue) {
 		this(context, kafkaTopic, queue,
-				new KafkaProducer<String, String>(kafkaProperties, new StringSerializer(), new StringSerializer()));
+				new KafkaProducer<String, byte[]>(kafkaProperties, new StringSerializer(), new ByteArraySerializer()));
 	}
 
 	@Override
@@ -204,12 +284,12 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 		while (true) {
 			try {
 				drainDeadLetterQueue();
-				RowMap row = queue.take();
+				Pair<RowMap, CallbackCompleter> pair = queue.take();
 				if (!taskState.isRunning()) {
 					taskState.stopped();
 					return;
 				}
-				this.push(row);
+				this.sendAsync(pair.getLeft(), pair.getRight());
 			} catch (Exception e) {
 				taskState.stopped();
 				context.terminate(e);
@@ -218,8 +298,29 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 		}
 	}
 
+	/**
+	 * Track a row in the inflight list and queue it for this worker's thread.
+	 * Called from the replication thread.
+	 */
+	void enqueue(RowMap r) throws InterruptedException {
+		CallbackCompleter cc = track(r);
+		if ( cc != null )
+			queue.put(Pair.of(r, cc));
+	}
+
+	/**
+	 * Which of nShards workers the row belongs to; rows that land in
+	 * the same kafka partition for the same key land on the same worker.
+	 */
+	int shardFor(RowMap r, int nShards) {
+		if (r instanceof DDLMap)
+			return this.ddlPartitioner.kafkaPartition(r, nShards);
+		else
+			return this.partitioner.kafkaPartition(r, nShards);
+	}
+
 	void drainDeadLetterQueue() {
-		Pair<ProducerRecord<String, String>, KafkaCallback> pair;
+		Pair<ProducerRecord<String, byte[]>, KafkaCallback> pair;
 		while ((pair = deadLetterQueue.poll()) != null) {
 			sendAsync(pair.getLeft(), pair.getRight());
 		}
@@ -236,10 +337,10 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 
 	@Override
 	public void sendAsync(RowMap r, AbstractAsyncProducer.CallbackCompleter cc) throws Exception {
-		ProducerRecord<String, String> record = makeProducerRecord(r);
+		ProducerRecord<String, byte[]> record = makeProducerRecord(r);
 
 		/* if debug logging isn't enabled, release the reference to `value`, which can ease memory pressure somewhat */
-		String value = KafkaCallback.LOGGER.isDebugEnabled() ? record.value() : null;
+		String value = KafkaCallback.LOGGER.isDebugEnabled() ? new String(record.value(), StandardCharsets.UTF_8) : null;
 
 		KafkaCallback callback = new KafkaCallback(cc, r.getNextPosition(), r.getRowIdentity(), value,
 				this.succeededMessageCount, this.failedMessageCount, this.succeededMessageMeter, this.failedMessageMeter,
@@ -253,21 +354,21 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 		// So enqueue a message for the worker thread to pick up.
 		LOGGER.info("publishing fallback record to " + topic + ": " + fallbackRecord);
 		try {
-			ProducerRecord<String, String> record = makeFallbackRecord(topic, fallbackRecord, reason);
+			ProducerRecord<String, byte[]> record = makeFallbackRecord(topic, fallbackRecord, reason);
 			deadLetterQueue.add(Pair.of(record, callback));
 		} catch (Exception fallbackEx) {
 			callback.onCompletion(md, fallbackEx);
 		}
 	}
 
-	void sendAsync(ProducerRecord<String, String> record, Callback callback) {
+	void sendAsync(ProducerRecord<String, byte[]> record, Callback callback) {
 		kafka.send(record, callback);
 	}
 
-	ProducerRecord<String, String> makeProducerRecord(final RowMap r) throws Exception {
+	ProducerRecord<String, byte[]> makeProducerRecord(final RowMap r) throws Exception {
 		String key = r.pkToJson(keyFormat);
-		String value = r.toJSON(outputConfig);
-		ProducerRecord<String, String> record;
+		byte[] value = serializeBytes(r);
+		ProducerRecord<String, byte[]> record;
 		if (r instanceof DDLMap) {
 			record = new ProducerRecord<>(this.ddlTopic, this.ddlPartitioner.kafkaPartition(r, getNumPartitions(this.ddlTopic)), key, value);
 		} else {
@@ -285,9 +386,9 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 		return record;
 	}
 
-	ProducerRecord<String, String> makeFallbackRecord(String fallbackTopic, final RowIdentity pk, Exception reason) throws Exception {
+	ProducerRecord<String, byte[]> makeFallbackRecord(String fallbackTopic, final RowIdentity pk, Exception reason) throws Exception {
 		String key = pk.toKeyJson(keyFormat);
-		String value = pk.toFallbackValueWithReason(reason.getClass().getSimpleName());
+		byte[] value = pk.toFallbackValueWithReason(reason.getClass().getSimpleName()).getBytes(StandardCharsets.UTF_8);
 		String topic = new TopicInterpolator(fallbackTopic).generateFromRowIdentity(pk) ;
 		return new ProducerRecord<>(topic, key, value);
 	}
@@ -296,7 +397,8 @@ class MaxwellKafkaProducerWorker extends AbstractAsyncProducer implements Runnab
 	public void requestStop() {
 		taskState.requestStop();
 		// TODO: set a timeout once we drop support for kafka 0.8
-		kafka.close();
+		if ( closesProducer )
+			kafka.close();
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package com.zendesk.maxwell.producer;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -124,15 +125,13 @@ public class MaxwellKinesisProducer extends AbstractAsyncProducer {
 	@Override
 	public void sendAsync(RowMap r, AbstractAsyncProducer.CallbackCompleter cc) throws Exception {
 		String key = this.partitioner.getKinesisKey(r);
-		String value = r.toJSON(outputConfig);
-		int vsize = value.length();
+		byte[] bytes = serializeBytes(r);
+		int vsize = bytes.length;
 
-		ByteBuffer encodedValue = ByteBuffer.wrap(value.getBytes("UTF-8"));
+		ByteBuffer encodedValue = ByteBuffer.wrap(bytes);
 
-		// release the reference to ease memory pressure
-		if(!KinesisCallback.logger.isDebugEnabled()) {
-			value = null;
-		}
+		// only keep a String copy around for debug logging
+		String value = KinesisCallback.logger.isDebugEnabled() ? new String(bytes, StandardCharsets.UTF_8) : null;
 
 		FutureCallback<UserRecordResult> callback = new KinesisCallback(cc, r.getNextPosition(), key, value,
 				this.succeededMessageCount, this.failedMessageCount, this.succeededMessageMeter, this.failedMessageMeter, this.context);
@@ -25,6 +25,7 @@ public class MaxwellOutputConfig {
 	public boolean zeroDatesAsNull;
 	public String namingStrategy;
 	public int rowQueryMaxLength;
+	public boolean lazyColumnDecoding;
 	
 	public MaxwellOutputConfig() {
 		this.includesBinlogPosition = false;
@@ -45,6 +46,7 @@ public class MaxwellOutputConfig {
 		this.secretKey = null;
 		this.namingStrategy = null;
 		this.rowQueryMaxLength = 0;
+		this.lazyColumnDecoding = false;
 	}
 
 	public boolean encryptionEnabled() {
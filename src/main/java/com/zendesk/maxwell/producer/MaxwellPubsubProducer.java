@@ -16,6 +16,7 @@ import com.google.cloud.pubsub.v1.Publisher;
 import com.google.cloud.pubsub.v1.Publisher.Builder;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import com.google.pubsub.v1.ProjectTopicName;
 import com.google.pubsub.v1.PubsubMessage;
 import com.zendesk.maxwell.MaxwellContext;
@@ -34,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.TimeoutException;
 
@@ -123,6 +125,11 @@ public class MaxwellPubsubProducer extends AbstractProducer {
     this.queue.put(r);
   }
 
+  @Override
+  public boolean acknowledgesRows() {
+    return true; // by the worker
+  }
+
   @Override
   public StoppableTask getStoppableTask() {
     return this.worker;
@@ -233,8 +240,10 @@ class MaxwellPubsubProducerWorker
   @Override
   public void sendAsync(RowMap r, AbstractAsyncProducer.CallbackCompleter cc)
       throws Exception {
-    String message = r.toJSON(outputConfig);
-    ByteString data = ByteString.copyFromUtf8(message);
+    byte[] bytes = serializeBytes(r);
+    // the array is ours alone, no need for protobuf to copy it
+    ByteString data = UnsafeByteOperations.unsafeWrap(bytes);
+    String message = PubsubCallback.LOGGER.isDebugEnabled() ? new String(bytes, StandardCharsets.UTF_8) : null;
     PubsubMessage.Builder pubsubMessageBuilder = PubsubMessage.newBuilder().setData(data);
     if (this.messageOrderingKeyInterpolator != null) {
       String orderingKey = this.messageOrderingKeyInterpolator.generateFromRowMapAndCleanUpIllegalCharacters(r);
@@ -1,6 +1,10 @@
 package com.zendesk.maxwell.producer;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.Metrics;
+import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowMap;
 import com.zendesk.maxwell.util.TopicInterpolator;
 import com.zendesk.maxwell.util.StoppableTask;
@@ -11,15 +15,31 @@ import redis.clients.jedis.JedisPoolAbstract;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisSentinelPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Protocol;
 import redis.clients.jedis.StreamEntryID;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/*
+   with redis_pipeline_size > 1, commands are written down a single
+   pipelined connection without waiting on replies, and synced once
+   that many are outstanding or redis_pipeline_flush_ms after the first
+   of them.  The binlog position only moves once a sync returns.  If the
+   connection drops, the outstanding commands are replayed on a new one;
+   if that fails too, the sync fails and the position stays put.
+ */
 public class MaxwellRedisProducer extends AbstractProducer implements StoppableTask {
 	private static final Logger logger = LoggerFactory.getLogger(MaxwellRedisProducer.class);
 	private final String channel;
@@ -28,6 +48,29 @@ public class MaxwellRedisProducer extends AbstractProducer implements StoppableT
 
 	private static JedisPoolAbstract jedisPool;
 
+	private static class PipelinedCommand {
+		final String channel;
+		final String message;
+		final RowMap row;
+
+		PipelinedCommand(String channel, String message, RowMap row) {
+			this.channel = channel;
+			this.message = message;
+			this.row = row;
+		}
+	}
+
+	private final int pipelineSize;
+	private final long pipelineFlushMS;
+	private final List<PipelinedCommand> pipelined = new ArrayList<>();
+	private Jedis pipelineJedis;
+	private Pipeline pipeline;
+	private Position pipelinedPosition;
+	private long firstPipelinedAt;
+	private ScheduledExecutorService pipelineFlusher;
+	private Histogram pipelineBatchSize;
+	private Timer pipelineSyncTimer;
+
 	@Deprecated
 	public MaxwellRedisProducer(MaxwellContext context, String redisPubChannel, String redisListKey, String redisType) {
 		this(context);
@@ -58,6 +101,32 @@ public class MaxwellRedisProducer extends AbstractProducer implements StoppableT
 				context.getConfig().redisAuth, //even if not present jedispool will handle a null value
 				context.getConfig().redisDatabase); //even if not present jedispool will handle a null value
 		}
+
+		this.pipelineSize = context.getConfig().redisPipelineSize;
+		this.pipelineFlushMS = context.getConfig().redisPipelineFlushMs;
+		if (isPipelined()) {
+			Metrics metrics = context.getMetrics();
+			this.pipelineBatchSize = metrics.getRegistry().histogram(metrics.metricName("redis", "pipeline", "batch", "size"));
+			this.pipelineSyncTimer = metrics.getRegistry().timer(metrics.metricName("redis", "pipeline", "sync", "time"));
+
+			this.pipelineFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "maxwell-redis-pipeline-flusher");
+				t.setDaemon(true);
+				return t;
+			});
+			long interval = Math.max(1L, pipelineFlushMS / 2);
+			this.pipelineFlusher.scheduleWithFixedDelay(this::flushIfDue, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private boolean isPipelined() {
+		return pipelineSize > 1;
+	}
+
+	@Override
+	public boolean acknowledgesRows() {
+		// without pipelining, a row is sent by the time push() returns
+		return isPipelined();
 	}
 
 	private Set<String> getRedisSentinels(String redisSentinels) {
@@ -80,46 +149,34 @@ public class MaxwellRedisProducer extends AbstractProducer implements StoppableT
 		return jedisPool.getResource();
 	}
 
-	private void sendToRedis(RowMap msg) throws Exception {
+	private void sendToRedis(Jedis jedis, RowMap msg) throws Exception {
 
-		String messageStr = msg.toJSON(outputConfig);
+		String messageStr = serialize(msg);
 		String channel = this.topicInterpolator.generateFromRowMap(msg);
 
-		try (Jedis jedis = this.getJedisResource()) {
-
-			switch (redisType) {
-				case "lpush":
-					jedis.lpush(channel, messageStr);
-					break;
-				case "rpush":
-					jedis.rpush(channel, messageStr);
-					break;
-				case "xadd":
-					Map<String, String> message = new HashMap<>();
-
-					String jsonKey = this.context.getConfig().redisStreamJsonKey;
-
-					if (jsonKey == null) {
-						// TODO dot notated map impl in RowMap.toJson
-						throw new IllegalArgumentException("Stream requires key name for serialized JSON value");
-					}
-					else {
-						message.put(jsonKey, messageStr);
-					}
+		switch (redisType) {
+			case "lpush":
+				jedis.lpush(channel, messageStr);
+				break;
+			case "rpush":
+				jedis.rpush(channel, messageStr);
+				break;
+			case "xadd":
+				// TODO dot notated map impl in RowMap.toJson
+				Map<String, String> message = streamMessage(messageStr);
 
-					// TODO timestamp resolution coercion
-					// 			Seconds or milliseconds, never mixing precision
-					//      	DML events will natively emit millisecond precision timestamps
-					//      	CDC events will natively emit second precision timestamp
-					// TODO configuration option for if we want the msg timestamp to become the message ID
-					//			Requires completion of previous TODO
-					jedis.xadd(channel, StreamEntryID.NEW_ENTRY, message);
-					break;
-				case "pubsub":
-				default:
-					jedis.publish(channel, messageStr);
-					break;
-			}
+				// TODO timestamp resolution coercion
+				// 			Seconds or milliseconds, never mixing precision
+				//      	DML events will natively emit millisecond precision timestamps
+				//      	CDC events will natively emit second precision timestamp
+				// TODO configuration option for if we want the msg timestamp to become the message ID
+				//			Requires completion of previous TODO
+				jedis.xadd(channel, StreamEntryID.NEW_ENTRY, message);
+				break;
+			case "pubsub":
+			default:
+				jedis.publish(channel, messageStr);
+				break;
 		}
 
 		if (logger.isDebugEnabled()) {
@@ -141,49 +198,242 @@ public class MaxwellRedisProducer extends AbstractProducer implements StoppableT
 		}
 	}
 
-	@Override
-	public void push(RowMap r) throws Exception {
-		if ( !r.shouldOutput(outputConfig) ) {
-			context.setPosition(r.getNextPosition());
-			return;
+	private Map<String, String> streamMessage(String messageStr) {
+		String jsonKey = this.context.getConfig().redisStreamJsonKey;
+
+		if (jsonKey == null) {
+			throw new IllegalArgumentException("Stream requires key name for serialized JSON value");
 		}
 
-		boolean sentToRedis = false;
+		Map<String, String> message = new HashMap<>();
+		message.put(jsonKey, messageStr);
+		return message;
+	}
 
-		for (int cxErrors = 0; cxErrors < 2; cxErrors++) {
-			try {
-				this.sendToRedis(r);
-				sentToRedis = true;
+	private void appendToPipeline(PipelinedCommand c) {
+		switch (redisType) {
+			case "lpush":
+				pipeline.lpush(c.channel, c.message);
+				break;
+			case "rpush":
+				pipeline.rpush(c.channel, c.message);
+				break;
+			case "xadd":
+				pipeline.xadd(c.channel, StreamEntryID.NEW_ENTRY, streamMessage(c.message));
+				break;
+			case "pubsub":
+			default:
+				pipeline.publish(c.channel, c.message);
 				break;
+		}
+	}
+
+	private void openPipeline() {
+		pipelineJedis = this.getJedisResource();
+		pipeline = pipelineJedis.pipelined();
+		for (PipelinedCommand c : pipelined)
+			appendToPipeline(c);
+	}
+
+	private void closePipeline() {
+		if (pipelineJedis != null) {
+			try {
+				pipelineJedis.close();
 			} catch (Exception e) {
-				if (e instanceof JedisConnectionException) {
-					logger.warn("lost connection to server, will try again with another connection from pool", e);
-				} else {
+				logger.debug("error closing broken redis connection", e);
+			}
+		}
+		pipelineJedis = null;
+		pipeline = null;
+	}
 
-					logger.error("Exception during put", e);
+	private synchronized void pipelineRows(List<RowMap> rows) throws Exception {
+		for (RowMap r : rows) {
+			if ( !r.shouldOutput(outputConfig) ) {
+				if (pipelined.isEmpty())
+					context.setPosition(r.getNextPosition());
+				else
+					pipelinedPosition = r.getNextPosition();
+				r.acknowledge();
+				continue;
+			}
 
-					if (!context.getConfig().ignoreProducerError) {
-						throw new RuntimeException(e);
-					}
-				}
+			PipelinedCommand c = new PipelinedCommand(this.topicInterpolator.generateFromRowMap(r), serialize(r), r);
+			if (pipelined.isEmpty())
+				firstPipelinedAt = System.currentTimeMillis();
+			pipelined.add(c);
+
+			try {
+				if (pipeline == null)
+					openPipeline();
+				else
+					appendToPipeline(c);
+			} catch (JedisConnectionException e) {
+				// replayed on a new connection at sync
+				logger.warn("lost connection to server while pipelining, will replay on another connection from pool", e);
+				closePipeline();
 			}
+
+			if (r.isTXCommit())
+				pipelinedPosition = r.getNextPosition();
+
+			if (pipelined.size() >= pipelineSize)
+				syncPipeline();
 		}
+	}
 
-		if (sentToRedis) {
-			this.succeededMessageCount.inc();
-			this.succeededMessageMeter.mark();
-		} else {
-			this.failedMessageCount.inc();
-			this.failedMessageMeter.mark();
+	private synchronized void flushIfDue() {
+		if (pipelined.isEmpty() || System.currentTimeMillis() - firstPipelinedAt < pipelineFlushMS)
+			return;
+
+		try {
+			syncPipeline();
+		} catch (Exception e) {
+			context.terminate(e);
+		}
+	}
+
+	private synchronized void syncPipeline() {
+		if (pipelined.isEmpty())
+			return;
+
+		List<Object> replies = null;
+		Timer.Context time = pipelineSyncTimer.time();
+		for (int cxErrors = 0; cxErrors < 2 && replies == null; cxErrors++) {
+			try {
+				if (pipeline == null)
+					openPipeline();
+				replies = pipeline.syncAndReturnAll();
+			} catch (JedisConnectionException e) {
+				logger.warn("lost connection to server, will replay pipeline with another connection from pool", e);
+				closePipeline();
+			}
 		}
+		time.stop();
+		pipelineBatchSize.update(pipelined.size());
 
-		if (r.isTXCommit()) {
-			context.setPosition(r.getNextPosition());
+		if (replies == null) {
+			// nothing was confirmed, so the position stays where it was
+			if (!context.getConfig().ignoreProducerError)
+				throw new RuntimeException("lost connection to redis syncing " + pipelined.size() + " pipelined commands");
+
+			logger.error("lost connection to redis, dropping {} pipelined commands", pipelined.size());
+			this.failedMessageCount.inc(pipelined.size());
+			this.failedMessageMeter.mark(pipelined.size());
+			acknowledgePipelined();
+			return;
+		}
+
+		int failed = 0;
+		for (Object reply : replies) {
+			if (reply instanceof JedisDataException) {
+				logger.error("Exception during put", (JedisDataException) reply);
+				failed++;
+			}
+		}
+
+		if (failed > 0 && !context.getConfig().ignoreProducerError) {
+			throw new RuntimeException("redis rejected " + failed + " of " + pipelined.size() + " pipelined commands");
+		}
+
+		this.succeededMessageCount.inc(pipelined.size() - failed);
+		this.succeededMessageMeter.mark(pipelined.size() - failed);
+		this.failedMessageCount.inc(failed);
+		this.failedMessageMeter.mark(failed);
+
+		if (logger.isDebugEnabled())
+			logger.debug("->  synced {} pipelined commands", pipelined.size());
+
+		acknowledgePipelined();
+		if (pipelinedPosition != null) {
+			context.setPosition(pipelinedPosition);
+			pipelinedPosition = null;
+		}
+	}
+
+	private void acknowledgePipelined() {
+		for (PipelinedCommand c : pipelined)
+			c.row.acknowledge();
+		pipelined.clear();
+	}
+
+	@Override
+	public void push(RowMap r) throws Exception {
+		pushBatch(Collections.singletonList(r));
+	}
+
+	@Override
+	public void pushBatch(List<RowMap> rows) throws Exception {
+		if (isPipelined()) {
+			pipelineRows(rows);
+			return;
+		}
+
+		// one connection for the whole batch, instead of a trip to the pool per row
+		Jedis jedis = null;
+
+		try {
+			for (RowMap r : rows) {
+				if ( !r.shouldOutput(outputConfig) ) {
+					context.setPosition(r.getNextPosition());
+					continue;
+				}
+
+				boolean sentToRedis = false;
+
+				for (int cxErrors = 0; cxErrors < 2; cxErrors++) {
+					try {
+						if (jedis == null)
+							jedis = this.getJedisResource();
+
+						this.sendToRedis(jedis, r);
+						sentToRedis = true;
+						break;
+					} catch (Exception e) {
+						if (e instanceof JedisConnectionException) {
+							logger.warn("lost connection to server, will try again with another connection from pool", e);
+							if (jedis != null) {
+								jedis.close();
+								jedis = null;
+							}
+						} else {
+
+							logger.error("Exception during put", e);
+
+							if (!context.getConfig().ignoreProducerError) {
+								throw new RuntimeException(e);
+							}
+						}
+					}
+				}
+
+				if (sentToRedis) {
+					this.succeededMessageCount.inc();
+					this.succeededMessageMeter.mark();
+				} else {
+					this.failedMessageCount.inc();
+					this.failedMessageMeter.mark();
+				}
+
+				if (r.isTXCommit()) {
+					context.setPosition(r.getNextPosition());
+				}
+			}
+		} finally {
+			if (jedis != null)
+				jedis.close();
 		}
 	}
 
 	@Override
 	public void requestStop() {
+		if (isPipelined()) {
+			pipelineFlusher.shutdown();
+			synchronized (this) {
+				syncPipeline();
+				closePipeline();
+			}
+		}
 		jedisPool.close();
 	}
 
@@ -6,27 +6,36 @@ import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sns.AmazonSNSAsync;
 import com.amazonaws.services.sns.AmazonSNSAsyncClientBuilder;
+import com.amazonaws.services.sns.model.AmazonSNSException;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
 import com.amazonaws.services.sns.model.MessageAttributeValue;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
+import com.amazonaws.services.sns.model.PublishBatchResultEntry;
 import com.amazonaws.services.sns.model.PublishRequest;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.zendesk.maxwell.MaxwellContext;
 import com.zendesk.maxwell.producer.partitioners.MaxwellSNSPartitioner;
 import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowMap;
+import com.zendesk.maxwell.util.StoppableTask;
+import com.google.common.base.Utf8;
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class MaxwellSNSProducer extends AbstractAsyncProducer {
-
 	private AmazonSNSAsync client;
 	private String topic;
 	private String[] stringFelds = {"database", "table"};
 	private String[] numberFields = {"ts", "xid"};
 	private MaxwellSNSPartitioner partitioner;
+	private final MessageBatcher<PublishBatchRequestEntry, PublishResult> batcher;
 
 	public MaxwellSNSProducer(MaxwellContext context, String topic, String serviceEndpoint, String signingRegion) {
 		super(context);
@@ -46,17 +55,61 @@ public class MaxwellSNSProducer extends AbstractAsyncProducer {
 		String partitionColumns = context.getConfig().producerPartitionColumns;
 		String partitionFallback = context.getConfig().producerPartitionFallback;
 		this.partitioner = new MaxwellSNSPartitioner(partitionKey, partitionColumns, partitionFallback);
+		this.batcher = new MessageBatcher<>(context, "maxwell-sns-flusher", this::sendBatch);
 	}
 
 	public void setClient(AmazonSNSAsync client) {
 		this.client = client;
 	}
 
+	/*
+	   rows go out in PublishBatch requests; on a FIFO topic, each entry
+	   carries its row's message group.
+	 */
 	@Override
 	public void sendAsync(RowMap r, CallbackCompleter cc) throws Exception {
-		String value = r.toJSON(outputConfig);
-		// Publish a message to an Amazon SNS topic.
-		final PublishRequest publishRequest = new PublishRequest(topic, value);
+		String value = serialize(r);
+		Map<String, MessageAttributeValue> attributes = messageAttributes(r);
+		String groupId = topic.endsWith(".fifo") ? this.partitioner.getSNSKey(r) : null;
+
+		batcher.add(
+			id -> new PublishBatchRequestEntry()
+				.withId(id)
+				.withMessage(value)
+				.withMessageAttributes(attributes)
+				.withMessageGroupId(groupId),
+			Utf8.encodedLength(value) + attributesSize(attributes),
+			callbackFor(r, cc, value)
+		);
+	}
+
+	private void sendBatch(List<PublishBatchRequestEntry> entries, List<AsyncHandler<?, PublishResult>> callbacks) {
+		PublishBatchRequest batchRequest = new PublishBatchRequest()
+			.withTopicArn(topic)
+			.withPublishBatchRequestEntries(entries);
+		client.publishBatchAsync(batchRequest, new SNSBatchCallback(callbacks));
+	}
+
+	@Override
+	public StoppableTask getStoppableTask() {
+		return batcher;
+	}
+
+	private SNSCallback callbackFor(RowMap r, CallbackCompleter cc, String value) {
+		return new SNSCallback(cc, r.getNextPosition(), value,
+			r.getDatabase(), r.getTable(), r.getRowIdentity().toConcatString(), r.getApproximateSize(), context);
+	}
+
+	private static int attributesSize(Map<String, MessageAttributeValue> attributes) {
+		int size = 0;
+		for ( Map.Entry<String, MessageAttributeValue> e : attributes.entrySet() ) {
+			size += e.getKey().length() + e.getValue().getDataType().length();
+			size += Utf8.encodedLength(e.getValue().getStringValue());
+		}
+		return size;
+	}
+
+	private Map<String, MessageAttributeValue> messageAttributes(RowMap r) {
 		Map<String, MessageAttributeValue> messageAttributes = new HashMap<>();
 
 		final String configuredAttributes = context.getConfig().snsAttrs;
@@ -78,18 +131,29 @@ public class MaxwellSNSProducer extends AbstractAsyncProducer {
 				}
 			}
 		}
+		return messageAttributes;
+	}
+}
 
-		if ( topic.endsWith(".fifo")) {
-			String key = this.partitioner.getSNSKey(r);
-			publishRequest.setMessageGroupId(key);
+class SNSBatchCallback extends MessageBatcher.BatchCallback<PublishBatchRequest, PublishBatchResult, PublishResult> {
+	public SNSBatchCallback(List<AsyncHandler<?, PublishResult>> callbacks) {
+		super(callbacks);
+	}
+
+	@Override
+	public void onSuccess(PublishBatchRequest request, PublishBatchResult result) {
+		for ( PublishBatchResultEntry entry : result.getSuccessful() ) {
+			succeeded(entry.getId(), new PublishResult()
+				.withMessageId(entry.getMessageId())
+				.withSequenceNumber(entry.getSequenceNumber()));
 		}
-		publishRequest.setMessageAttributes(messageAttributes);
 
-		SNSCallback callback = new SNSCallback(cc, r.getNextPosition(), value,
-			r.getDatabase(), r.getTable(), r.getRowIdentity().toConcatString(), r.getApproximateSize(), context);
-		client.publishAsync(publishRequest, callback);
+		for ( BatchResultErrorEntry entry : result.getFailed() ) {
+			AmazonSNSException e = new AmazonSNSException(entry.getMessage());
+			e.setErrorCode(entry.getCode());
+			failed(entry.getId(), e);
+		}
 	}
-
 }
 
 class SNSCallback implements AsyncHandler<PublishRequest, PublishResult> {
@@ -7,18 +7,28 @@ import org.slf4j.LoggerFactory;
 import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
 import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder;
+import com.amazonaws.services.sqs.model.AmazonSQSException;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.zendesk.maxwell.MaxwellContext;
 import com.zendesk.maxwell.producer.partitioners.MaxwellSQSPartitioner;
 import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowMap;
+import com.zendesk.maxwell.util.StoppableTask;
+import com.google.common.base.Utf8;
 
-public class MaxwellSQSProducer extends AbstractAsyncProducer {
+import java.util.List;
 
+public class MaxwellSQSProducer extends AbstractAsyncProducer {
 	private AmazonSQSAsync client;
 	private String queueUri;
 	private MaxwellSQSPartitioner partitioner;
+	private final MessageBatcher<SendMessageBatchRequestEntry, SendMessageResult> batcher;
 
 	public MaxwellSQSProducer(MaxwellContext context, String queueUri, String serviceEndpoint, String signingRegion) {
 		super(context);
@@ -30,20 +40,56 @@ public class MaxwellSQSProducer extends AbstractAsyncProducer {
 		String partitionColumns = context.getConfig().producerPartitionColumns;
 		String partitionFallback = context.getConfig().producerPartitionFallback;
 		this.partitioner = new MaxwellSQSPartitioner(partitionKey, partitionColumns, partitionFallback);
+		this.batcher = new MessageBatcher<>(context, "maxwell-sqs-flusher", this::sendBatch);
 	}
 
+	public void setClient(AmazonSQSAsync client) {
+		this.client = client;
+	}
+
+	/* rows go out in SendMessageBatch requests; on a FIFO queue, each entry carries its row's message group */
 	@Override
 	public void sendAsync(RowMap r, CallbackCompleter cc) throws Exception {
-		String value = r.toJSON(outputConfig);
-		SendMessageRequest messageRequest = new SendMessageRequest(queueUri, value);
-		if ( queueUri.endsWith(".fifo")) {
-			String key = this.partitioner.getSQSKey(r);
-			messageRequest.setMessageGroupId(key);
-		}
-		SQSCallback callback = new SQSCallback(cc, r.getNextPosition(), value, context);
-		client.sendMessageAsync(messageRequest, callback);
+		String value = serialize(r);
+		String groupId = queueUri.endsWith(".fifo") ? this.partitioner.getSQSKey(r) : null;
+
+		batcher.add(
+			id -> new SendMessageBatchRequestEntry(id, value).withMessageGroupId(groupId),
+			Utf8.encodedLength(value),
+			new SQSCallback(cc, r.getNextPosition(), value, context)
+		);
+	}
+
+	private void sendBatch(List<SendMessageBatchRequestEntry> entries, List<AsyncHandler<?, SendMessageResult>> callbacks) {
+		SendMessageBatchRequest batchRequest = new SendMessageBatchRequest(queueUri, entries);
+		client.sendMessageBatchAsync(batchRequest, new SQSBatchCallback(callbacks));
 	}
 
+	@Override
+	public StoppableTask getStoppableTask() {
+		return batcher;
+	}
+}
+
+class SQSBatchCallback extends MessageBatcher.BatchCallback<SendMessageBatchRequest, SendMessageBatchResult, SendMessageResult> {
+	public SQSBatchCallback(List<AsyncHandler<?, SendMessageResult>> callbacks) {
+		super(callbacks);
+	}
+
+	@Override
+	public void onSuccess(SendMessageBatchRequest request, SendMessageBatchResult result) {
+		for ( SendMessageBatchResultEntry entry : result.getSuccessful() ) {
+			succeeded(entry.getId(), new SendMessageResult()
+				.withMessageId(entry.getMessageId())
+				.withSequenceNumber(entry.getSequenceNumber()));
+		}
+
+		for ( BatchResultErrorEntry entry : result.getFailed() ) {
+			AmazonSQSException e = new AmazonSQSException(entry.getMessage());
+			e.setErrorCode(entry.getCode());
+			failed(entry.getId(), e);
+		}
+	}
 }
 
 class SQSCallback implements AsyncHandler<SendMessageRequest, SendMessageResult> {
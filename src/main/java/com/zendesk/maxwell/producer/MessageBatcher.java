@@ -0,0 +1,132 @@
+package com.zendesk.maxwell.producer;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.util.StoppableTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+   batches for the SQS and SNS producers: SendMessageBatch and PublishBatch
+   both take up to 10 entries, with 256KB of messages between them.  Rows are
+   added as they're pushed, and a batch goes out once it's full or its first
+   row has waited LINGER_MS; a flusher thread picks up a quiet tail.
+   Entries keep binlog order within a batch.
+
+   entry ids are the entry's index in its batch, and so into its callbacks.
+ */
+class MessageBatcher<E, R> implements StoppableTask {
+	static final int MAX_ENTRIES = 10;
+	static final int MAX_BYTES = 256 * 1024;
+	static final long LINGER_MS = 50;
+
+	interface Sender<E, R> {
+		void send(List<E> entries, List<AsyncHandler<?, R>> callbacks) throws Exception;
+	}
+
+	private final MaxwellContext context;
+	private final Sender<E, R> sender;
+	private final ScheduledExecutorService flusher;
+
+	private List<E> entries = new ArrayList<>(MAX_ENTRIES);
+	private List<AsyncHandler<?, R>> callbacks = new ArrayList<>(MAX_ENTRIES);
+	private int batchBytes;
+	private long firstAddedAt;
+
+	MessageBatcher(MaxwellContext context, String name, Sender<E, R> sender) {
+		this.context = context;
+		this.sender = sender;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Add a row to the batch.
+	 *
+	 * @param entry builds the row's entry, given its id
+	 * @param bytes the size the entry counts for against MAX_BYTES
+	 * @param callback completes the row once its entry is sent
+	 */
+	synchronized void add(Function<String, E> entry, int bytes, AsyncHandler<?, R> callback) throws Exception {
+		if ( !entries.isEmpty() && batchBytes + bytes > MAX_BYTES )
+			flush();
+
+		if ( entries.isEmpty() ) {
+			firstAddedAt = System.currentTimeMillis();
+			if ( !flusher.isShutdown() )
+				flusher.schedule(this::flushIfDue, LINGER_MS, TimeUnit.MILLISECONDS);
+		}
+
+		entries.add(entry.apply(Integer.toString(entries.size())));
+		callbacks.add(callback);
+		batchBytes += bytes;
+
+		if ( entries.size() >= MAX_ENTRIES )
+			flush();
+	}
+
+	synchronized void flush() throws Exception {
+		if ( entries.isEmpty() )
+			return;
+
+		List<E> batch = entries;
+		List<AsyncHandler<?, R>> batchCallbacks = callbacks;
+		entries = new ArrayList<>(MAX_ENTRIES);
+		callbacks = new ArrayList<>(MAX_ENTRIES);
+		batchBytes = 0;
+
+		sender.send(batch, batchCallbacks);
+	}
+
+	private synchronized void flushIfDue() {
+		if ( entries.isEmpty() || System.currentTimeMillis() - firstAddedAt < LINGER_MS )
+			return;
+
+		try {
+			flush();
+		} catch ( Exception e ) {
+			context.terminate(e);
+		}
+	}
+
+	@Override
+	public void requestStop() throws Exception {
+		flusher.shutdown();
+		flush();
+	}
+
+	@Override
+	public void awaitStop(Long timeout) { }
+
+	/* fans a batch result out to the callbacks of its entries, failing just the entries that failed */
+	static abstract class BatchCallback<Q extends AmazonWebServiceRequest, S, R> implements AsyncHandler<Q, S> {
+		private final List<AsyncHandler<?, R>> callbacks;
+
+		BatchCallback(List<AsyncHandler<?, R>> callbacks) {
+			this.callbacks = callbacks;
+		}
+
+		@Override
+		public void onError(Exception t) {
+			for ( AsyncHandler<?, R> callback : callbacks )
+				callback.onError(t);
+		}
+
+		protected void succeeded(String id, R result) {
+			callbacks.get(Integer.parseInt(id)).onSuccess(null, result);
+		}
+
+		protected void failed(String id, Exception e) {
+			callbacks.get(Integer.parseInt(id)).onError(e);
+		}
+	}
+}
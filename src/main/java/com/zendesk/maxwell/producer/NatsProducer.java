@@ -43,11 +43,10 @@ public class NatsProducer extends AbstractProducer {
 			return;
 		}
 
-		String value = r.toJSON(outputConfig);
+		byte[] messageBytes = serializeBytes(r);
 		String natsSubject = new TopicInterpolator(this.natsSubjectTemplate).generateFromRowMapAndCleanUpIllegalCharacters(r);
 
 		long maxPayloadSize = natsConnection.getMaxPayload();
-		byte[] messageBytes = value.getBytes(StandardCharsets.UTF_8);
 
 		if (messageBytes.length > maxPayloadSize) {
 			LOGGER.error("->  nats message size (" + messageBytes.length + ") > max payload size (" + maxPayloadSize + ")");
@@ -59,7 +58,7 @@ public class NatsProducer extends AbstractProducer {
 			context.setPosition(r.getNextPosition());
 		}
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("->  nats subject:{}, message:{}", natsSubject, value);
+			LOGGER.debug("->  nats subject:{}, message:{}", natsSubject, new String(messageBytes, StandardCharsets.UTF_8));
 		}
 	}
 }
@@ -13,8 +13,10 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 public class RabbitmqProducer extends AbstractProducer {
@@ -85,15 +87,41 @@ public class RabbitmqProducer extends AbstractProducer {
 			return;
 		}
 
-		String value = r.toJSON(outputConfig);
-		String routingKey = getRoutingKeyFromTemplate(r);
-
-		channel.basicPublish(exchangeName, routingKey, props, value.getBytes());
+		publish(r);
 		if ( r.isTXCommit() ) {
 			context.setPosition(r.getNextPosition());
 		}
+	}
+
+	/*
+	   publish the whole batch, then move the position once, to the last
+	   commit in it.  A row that isn't output still moves it, as in push().
+	 */
+	@Override
+	public void pushBatch(List<RowMap> rows) throws Exception {
+		RowMap last = null;
+		for ( RowMap r : rows ) {
+			if ( !r.shouldOutput(outputConfig) ) {
+				last = r;
+				continue;
+			}
+
+			publish(r);
+			if ( r.isTXCommit() )
+				last = r;
+		}
+
+		if ( last != null )
+			context.setPosition(last.getNextPosition());
+	}
+
+	private void publish(RowMap r) throws Exception {
+		byte[] value = serializeBytes(r);
+		String routingKey = getRoutingKeyFromTemplate(r);
+
+		channel.basicPublish(exchangeName, routingKey, props, value);
 		if ( LOGGER.isDebugEnabled()) {
-			LOGGER.debug("->  routing key:{}, partition:{}", routingKey, value);
+			LOGGER.debug("->  routing key:{}, partition:{}", routingKey, new String(value, StandardCharsets.UTF_8));
 		}
 	}
 
@@ -12,7 +12,7 @@ public class StdoutProducer extends AbstractProducer {
 
 	@Override
 	public void push(RowMap r) throws Exception {
-		String output = r.toJSON(outputConfig);
+		String output = serialize(r);
 
 		if ( output != null && r.shouldOutput(outputConfig) )
 			System.out.println(output);
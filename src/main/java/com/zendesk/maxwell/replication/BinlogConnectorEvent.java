@@ -2,6 +2,7 @@ package com.zendesk.maxwell.replication;
 
 import com.github.shyiko.mysql.binlog.event.*;
 import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.row.LazyRowData;
 import com.zendesk.maxwell.row.RowMap;
 import com.zendesk.maxwell.schema.Table;
 import com.zendesk.maxwell.schema.columndef.ColumnDef;
@@ -151,8 +152,8 @@ public class BinlogConnectorEvent {
 		}
 	}
 
-	private RowMap buildRowMap(String type, Position position, Position nextPosition, Serializable[] data, Table table, BitSet includedColumns, String rowQuery) throws ColumnDefCastException {
-		RowMap map = new RowMap(
+	private RowMap newRowMap(String type, Position position, Position nextPosition, Table table, String rowQuery) {
+		return new RowMap(
 			type,
 			table.getDatabase(),
 			table.getName(),
@@ -162,8 +163,15 @@ public class BinlogConnectorEvent {
 			nextPosition,
 			rowQuery
 		);
+	}
 
-		writeData(table, map, data, includedColumns);
+	private RowMap buildRowMap(String type, Position position, Position nextPosition, Serializable[] data, Table table, BitSet includedColumns, String rowQuery) throws ColumnDefCastException {
+		RowMap map = newRowMap(type, position, nextPosition, table, rowQuery);
+
+		if ( outputConfig.lazyColumnDecoding )
+			map.setLazyData(new LazyRowData(table, data, includedColumns, outputConfig));
+		else
+			writeData(table, map, data, includedColumns);
 		return map;
 	}
 
@@ -192,9 +200,18 @@ public class BinlogConnectorEvent {
 					Serializable[] data = e.getValue();
 					Serializable[] oldData = e.getKey();
 
-					RowMap r = buildRowMap("update", position, nextPosition, data, table, updateRowsData().getIncludedColumns(), rowQuery);
-					writeOldData(table, r, oldData, updateRowsData().getIncludedColumnsBeforeUpdate());
-					list.add(r);
+					if ( outputConfig.lazyColumnDecoding ) {
+						LazyRowData lazyData = new LazyRowData(table, data, updateRowsData().getIncludedColumns(), outputConfig);
+						lazyData.setOldData(oldData, updateRowsData().getIncludedColumnsBeforeUpdate());
+
+						RowMap r = newRowMap("update", position, nextPosition, table, rowQuery);
+						r.setLazyData(lazyData);
+						list.add(r);
+					} else {
+						RowMap r = buildRowMap("update", position, nextPosition, data, table, updateRowsData().getIncludedColumns(), rowQuery);
+						writeOldData(table, r, oldData, updateRowsData().getIncludedColumnsBeforeUpdate());
+						list.add(r);
+					}
 				}
 				break;
 		}
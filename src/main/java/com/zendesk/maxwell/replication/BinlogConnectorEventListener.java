@@ -9,17 +9,17 @@ import com.github.shyiko.mysql.binlog.event.GtidEventData;
 import com.github.shyiko.mysql.binlog.event.MariadbGtidEventData;
 import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.util.RingBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 class BinlogConnectorEventListener implements BinaryLogClient.EventListener {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BinlogConnectorEventListener.class);
 
-	private final BlockingQueue<BinlogConnectorEvent> queue;
+	private final RingBuffer<BinlogConnectorEvent> queue;
 	private final Timer queueTimer;
 	protected final AtomicBoolean mustStop = new AtomicBoolean(false);
 	private final BinaryLogClient client;
@@ -29,7 +29,7 @@ class BinlogConnectorEventListener implements BinaryLogClient.EventListener {
 
 	public BinlogConnectorEventListener(
 		BinaryLogClient client,
-		BlockingQueue<BinlogConnectorEvent> q,
+		RingBuffer<BinlogConnectorEvent> q,
 		Metrics metrics,
 		MaxwellOutputConfig outputConfig
 	) {
@@ -51,6 +51,9 @@ class BinlogConnectorEventListener implements BinaryLogClient.EventListener {
 		long eventSeenAt = 0;
 		boolean trackMetrics = false;
 
+		if ( event.getData() instanceof FilteringEventDataDeserializers.SkippedRowsEventData )
+			return;
+
 		EventType eventType = event.getHeader().getEventType();
 
 		if ( eventType == EventType.GTID) {
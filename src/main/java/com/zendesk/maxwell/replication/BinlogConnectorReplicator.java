@@ -15,26 +15,30 @@ import com.github.shyiko.mysql.binlog.network.ServerException;
 import com.zendesk.maxwell.MaxwellMysqlConfig;
 import com.zendesk.maxwell.bootstrap.BootstrapController;
 import com.zendesk.maxwell.filtering.Filter;
+import com.zendesk.maxwell.filtering.FilterDecision;
 import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.producer.AbstractProducer;
 import com.zendesk.maxwell.producer.MaxwellOutputConfig;
 import com.zendesk.maxwell.row.HeartbeatRowMap;
 import com.zendesk.maxwell.row.RowMap;
 import com.zendesk.maxwell.row.RowMapBuffer;
+import com.zendesk.maxwell.row.RowOutputPlan;
 import com.zendesk.maxwell.schema.*;
 import com.zendesk.maxwell.schema.columndef.ColumnDefCastException;
 import com.zendesk.maxwell.schema.ddl.DDLMap;
 import com.zendesk.maxwell.schema.ddl.ResolvedSchemaChange;
 import com.zendesk.maxwell.scripting.Scripting;
+import com.zendesk.maxwell.util.RingBuffer;
 import com.zendesk.maxwell.util.RunLoopProcess;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
@@ -43,6 +47,7 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	static final Logger LOGGER = LoggerFactory.getLogger(BinlogConnectorReplicator.class);
 	private static final long MAX_TX_ELEMENTS = 10000;
 	public static int BINLOG_QUEUE_SIZE = 5000;
+	private static final int EVENT_DRAIN_BATCH = 256;
 	public static final int BAD_BINLOG_ERROR_CODE = 1236;
 	public static final int ACCESS_DENIED_ERROR_CODE = 1227;
 
@@ -53,7 +58,9 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	private final int replicationReconnectionRetries;
 	private BinlogConnectorEventListener binlogEventListener;
 	private BinlogConnectorLivenessMonitor binlogLivenessMonitor;
-	private final LinkedBlockingDeque<BinlogConnectorEvent> queue;
+	private final RingBuffer<BinlogConnectorEvent> queue;
+	// events drained from `queue` in a batch, plus any event pushed back by getRow()
+	private final ArrayDeque<BinlogConnectorEvent> drainedEvents;
 	private final TableCache tableCache;
 	private final Scripting scripting;
 	private ServerException lastCommError;
@@ -71,6 +78,13 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	private final AbstractProducer producer;
 	private RowMapBuffer rowBuffer;
 	private final float bufferMemoryUsage;
+	private final boolean bufferSpillCompression;
+	private final boolean streamTransactions;
+	// with streamTransactions, the transaction that `rowBuffer` is still being filled from
+	private OpenTransaction openTransaction;
+	private final int producerBatchSize;
+	private final Metrics metrics;
+	private final ParallelRowDecoder rowDecoder;
 
 	private final Counter rowCounter;
 	private final Meter rowMeter;
@@ -123,8 +137,13 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 				false,
 				outputConfig,
 				bufferMemoryUsage,
+				false,
+				false,
+				1,
 				replicationReconnectionRetries,
-				BINLOG_QUEUE_SIZE
+				BINLOG_QUEUE_SIZE,
+				RingBuffer.WaitStrategy.PARK,
+				0
 		);
 	}
 
@@ -145,8 +164,13 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		boolean ignoreMissingSchema,
 		MaxwellOutputConfig outputConfig,
 		float bufferMemoryUsage,
+		boolean bufferSpillCompression,
+		boolean streamTransactions,
+		int producerBatchSize,
 		int replicationReconnectionRetries,
-		int binlogEventQueueSize
+		int binlogEventQueueSize,
+		RingBuffer.WaitStrategy binlogEventQueueWaitStrategy,
+		int binlogDecodeThreads
 	) {
 		this.clientID = clientID;
 		this.bootstrapper = bootstrapper;
@@ -157,12 +181,17 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		this.stopOnEOF = stopOnEOF;
 		this.scripting = scripting;
 		this.schemaStore = schemaStore;
-		this.tableCache = new TableCache(maxwellSchemaDatabaseName);
+		this.tableCache = new TableCache(maxwellSchemaDatabaseName, outputConfig);
 		this.filter = filter;
 		this.ignoreMissingSchema = ignoreMissingSchema;
 		this.lastCommError = null;
 		this.bufferMemoryUsage = bufferMemoryUsage;
-		this.queue = new LinkedBlockingDeque<>(binlogEventQueueSize);
+		this.bufferSpillCompression = bufferSpillCompression;
+		this.streamTransactions = streamTransactions;
+		this.producerBatchSize = producerBatchSize;
+		this.metrics = metrics;
+		this.queue = new RingBuffer<>(binlogEventQueueSize, binlogEventQueueWaitStrategy);
+		this.drainedEvents = new ArrayDeque<>(EVENT_DRAIN_BATCH);
 
 		/* setup metrics */
 		rowCounter = metrics.getRegistry().counter(
@@ -176,6 +205,14 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		transactionRowCount = metrics.getRegistry().histogram(metrics.metricName("transaction", "row_count"));
 		transactionExecutionTime = metrics.getRegistry().histogram(metrics.metricName("transaction", "execution_time"));
 
+		/* optionally decode rows off of the replicator thread */
+		if ( binlogDecodeThreads > 0 ) {
+			LOGGER.info("decoding rows with " + binlogDecodeThreads + " threads");
+			this.rowDecoder = new ParallelRowDecoder(binlogDecodeThreads, metrics);
+		} else {
+			this.rowDecoder = null;
+		}
+
 		/* setup binlog client */
 		this.client = new BinaryLogClient(mysqlConfig.host, mysqlConfig.port, mysqlConfig.user, mysqlConfig.password);
 		this.client.setSSLMode(mysqlConfig.sslMode);
@@ -214,6 +251,8 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 			EventDeserializer.CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY,
 			EventDeserializer.CompatibilityMode.INVALID_DATE_AND_TIME_AS_MIN_VALUE
 		);
+		if ( filter != null )
+			new FilteringEventDataDeserializers(filter, metrics).install(eventDeserializer);
 		this.client.setEventDeserializer(eventDeserializer);
 		this.client.setTransparentlyDecompressTransactions(true);
 		this.binlogEventListener = new BinlogConnectorEventListener(client, queue, metrics, outputConfig);
@@ -227,6 +266,9 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 
 	/**
 	 * get a single row from the replicator and pass it to the producer or bootstrapper.
+	 * With a producerBatchSize over 1, the rest of the rows already read from the
+	 * current transaction go along with it, up to producerBatchSize, in one pushBatch() call.
+	 * Rows whose handling has side effects end the batch so far first; see {@link #isBatchBoundary}.
 	 *
 	 * This is the top-level function in the run-loop.
 	 */
@@ -240,13 +282,61 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		if ( row == null )
 			return;
 
+		if ( producerBatchSize <= 1 ) {
+			prepareRow(row);
+			processRow(row);
+			return;
+		}
+
+		List<RowMap> batch = new ArrayList<>();
+		int rowsRead = 0;
+		do {
+			prepareRow(row);
+			if ( isBatchBoundary(row) && !batch.isEmpty() ) {
+				producer.pushBatch(batch);
+				batch = new ArrayList<>();
+			}
+
+			if ( acceptRow(row) )
+				batch.add(row);
+			rowsRead++;
+		} while ( rowsRead < producerBatchSize && taskState.isRunning() && (row = getBufferedRow()) != null );
+
+		if ( !batch.isEmpty() )
+			producer.pushBatch(batch);
+	}
+
+	/**
+	 * Rows that have to see every row before them reach the producer before
+	 * they're handled: a heartbeat may stop the replicator, a bootstrap
+	 * insert may start a synchronous bootstrap pushing a table's snapshot,
+	 * and a high watermark pushes the rows of a bootstrap chunk.
+	 */
+	private boolean isBatchBoundary(RowMap row) {
+		return row instanceof HeartbeatRowMap || isBootstrapInsert(row) || isWatermark(row);
+	}
+
+	private void prepareRow(RowMap row) throws Exception {
 		rowCounter.inc();
 		rowMeter.mark();
 
 		if ( scripting != null && !isMaxwellRow(row))
 			scripting.invoke(row);
+	}
+
+	/**
+	 * The next row of the transaction being read, if it's already been read
+	 * from the binlog.  Returns null rather than wait on the binlog.
+	 */
+	private RowMap getBufferedRow() throws Exception {
+		if ( rowBuffer == null || rowBuffer.isEmpty() )
+			return null;
+
+		// a streamed transaction's last buffered row is held back until more are read
+		if ( openTransaction != null && rowBuffer.size() <= 1 )
+			return null;
 
-		processRow(row);
+		return getRow();
 	}
 
 	private boolean replicatorStarted = false;
@@ -259,6 +349,8 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	protected void beforeStop() throws Exception {
 		this.binlogEventListener.stop();
 		this.client.disconnect();
+		if ( this.rowDecoder != null )
+			this.rowDecoder.shutdown();
 	}
 
 	/**
@@ -321,9 +413,12 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		return this.binlogLivenessMonitor == null || binlogLivenessMonitor.isAlive();
 	}
 
-	private boolean shouldSkipRow(RowMap row) throws IOException {
-		if ( isMaxwellRow(row) && !isBootstrapInsert(row))
+	private boolean shouldSkipRow(RowMap row) throws Exception {
+		if ( isMaxwellRow(row) && !isBootstrapInsert(row)) {
+			if ( bootstrapper != null && isWatermark(row) )
+				bootstrapper.processWatermark(row);
 			return true;
+		}
 
 		/* NOTE: bootstrapper.shouldSkip will block us if
 		   we're in synchronous bootstrapping mode.  It also
@@ -336,8 +431,15 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	}
 
 	protected void processRow(RowMap row) throws Exception {
-		if ( row instanceof HeartbeatRowMap) {
+		if ( acceptRow(row) )
 			producer.push(row);
+	}
+
+	/**
+	 * Should the row go to the producer?  Sees to stopAtHeartbeat as a side effect.
+	 */
+	private boolean acceptRow(RowMap row) throws Exception {
+		if ( row instanceof HeartbeatRowMap) {
 			if (stopAtHeartbeat != null) {
 				long thisHeartbeat = row.getPosition().getLastHeartbeatRead();
 				if (thisHeartbeat >= stopAtHeartbeat) {
@@ -346,8 +448,9 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 					this.taskState.stopped();
 				}
 			}
-		} else if ( !shouldSkipRow(row) )
-			producer.push(row);
+			return true;
+		} else
+			return !shouldSkipRow(row);
 	}
 
 
@@ -419,7 +522,7 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	 * Should we output a batch of rows for the given database and table?
 	 *
 	 * First against a whitelist/blacklist/filter.  The whitelist
-	 * ensures events that maxwell needs (maxwell.bootstrap, maxwell.heartbeats)
+	 * ensures events that maxwell needs (maxwell.bootstrap, maxwell.heartbeats, maxwell.bootstrap_watermarks)
 	 * are always passed along.
 	 *
 	 * The system the blacklist gets rid of the
@@ -431,29 +534,35 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	 * Finally, if we decide to exclude a table we check the filter to
 	 * see if it's possible that a column-value filter could reverse this decision
 	 *
-	 * @param database The database of the DML
-	 * @param table The table of the DML
-	 * @param filter A table-filter, or null
+	 * All of this is resolved once per table, see {@link TableCache#getFilterDecision}.
+	 *
+	 * @param decision The filter's decision for the table of the DML
 	 * @param columnNames Names of the columns this table contains
 	 * @return Whether we should write the event to the producer
 	 */
-	private boolean shouldOutputEvent(String database, String table, Filter filter, Set<String> columnNames) {
-		if ( Filter.isSystemBlacklisted(database, table) )
+	private boolean shouldOutputEvent(FilterDecision decision, Set<String> columnNames) {
+		if ( decision.isSystemBlacklisted() )
 			return false;
-		else if ( filter.isSystemWhitelisted(database, table) )
+		else if ( decision.isSystemWhitelisted() )
 			return true;
 		else {
-			if ( Filter.includes(filter, database, table) )
+			if ( decision.includes() )
 				return true;
 			else
-				return Filter.couldIncludeFromColumnFilters(filter, database, table, columnNames);
+				return decision.couldIncludeFromColumnFilters(columnNames);
 		}
 	}
 
 
-	private boolean shouldOutputRowMap(String database, String table, RowMap rowMap, Filter filter) {
-		return filter.isSystemWhitelisted(database, table) ||
-			filter.includes(database, table, rowMap.getData());
+	private boolean shouldOutputRowMap(FilterDecision decision, RowMap rowMap) {
+		if ( decision.isSystemWhitelisted() )
+			return true;
+
+		// only column-value rules need to look at the row
+		if ( !decision.hasValueRules() )
+			return decision.includes();
+
+		return decision.includes(rowMap.getDataView());
 	}
 
 	/**
@@ -475,6 +584,11 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 			&& row.getTable().equals("bootstrap");
 	}
 
+	private boolean isWatermark(RowMap row) {
+		return row.getDatabase().equals(this.maxwellSchemaDatabaseName)
+			&& row.getTable().equals("bootstrap_watermarks");
+	}
+
 	private void ensureReplicatorThread() throws Exception {
 		checkCommErrors();
 		if (!this.isConnected && stopOnEOF) {
@@ -531,15 +645,54 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	 * and turn them into RowMap objects.  We do this because mysql attaches the
 	 * transaction-id (xid) to the COMMIT event (at the end of the transaction),
 	 * so we process the entire transaction in order to assign each row the same xid.
+	 *
+	 * With streamTransactions, we instead return as soon as there's a row that
+	 * definitely isn't the transaction's last, and leave the transaction open;
+	 * see {@link #continueTransactionRows()}.
 
 	 * @return A RowMapBuffer of rows; either in-memory or on disk.
 	 */
 
 	private RowMapBuffer getTransactionRows(BinlogConnectorEvent beginEvent) throws Exception {
-		BinlogConnectorEvent event;
-		RowMapBuffer buffer = new RowMapBuffer(MAX_TX_ELEMENTS, this.bufferMemoryUsage);
+		RowMapBuffer buffer = new RowMapBuffer(MAX_TX_ELEMENTS, this.bufferMemoryUsage, this.bufferSpillCompression, this.metrics);
+		OpenTransaction tx = new OpenTransaction(beginEvent, buffer);
 
-		String currentQuery = null;
+		// anything left over is from a transaction we bailed out of (eg. a reconnect)
+		if ( rowDecoder != null )
+			rowDecoder.clear();
+
+		openTransaction = null;
+		if ( !readTransactionRows(tx) )
+			openTransaction = tx;
+
+		return tx.buffer;
+	}
+
+	/**
+	 * Read more of a streamed transaction into `rowBuffer`.  The newest row
+	 * is always held back, as it may turn out to be the one that gets the
+	 * commit flag (and the xid).
+	 */
+	private void continueTransactionRows() throws Exception {
+		OpenTransaction tx = openTransaction;
+		openTransaction = null;
+
+		try {
+			if ( !readTransactionRows(tx) )
+				openTransaction = tx;
+			rowBuffer = tx.buffer;
+		} catch ( ClientReconnectedException e ) {
+			// we'll replay the transaction from its start
+			rowBuffer = null;
+		}
+	}
+
+	/**
+	 * @return true once the transaction is over, false if we stopped early to stream out rows
+	 */
+	private boolean readTransactionRows(OpenTransaction tx) throws Exception {
+		BinlogConnectorEvent event;
+		RowMapBuffer buffer = tx.buffer;
 
 		while ( true ) {
 			event = pollEvent();
@@ -551,16 +704,19 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 
 			EventType eventType = event.getEvent().getHeader().getEventType();
 			if (event.isCommitEvent()) {
+				if ( rowDecoder != null )
+					drainDecodedRows(buffer, false);
+
 				if (!buffer.isEmpty()) {
 					buffer.getLast().setTXCommit();
-					long timeSpent = buffer.getLast().getTimestampMillis() - beginEvent.getEvent().getHeader().getTimestamp();
+					long timeSpent = buffer.getLast().getTimestampMillis() - tx.beginEvent.getEvent().getHeader().getTimestamp();
 					transactionExecutionTime.update(timeSpent);
-					transactionRowCount.update(buffer.size());
+					transactionRowCount.update(buffer.size() + buffer.getXoffset());
 				}
 				if(eventType == EventType.XID) {
 					buffer.setXid(event.xidData().getXid());
 				}
-				return buffer;
+				return true;
 			}
 
 			switch(eventType) {
@@ -572,33 +728,39 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 				case EXT_DELETE_ROWS:
 					Table table = tableCache.getTable(event.getTableID());
 
-					if ( table != null && shouldOutputEvent(table.getDatabase(), table.getName(), filter, table.getColumnNames()) ) {
-						List<RowMap> rows;
-						try {
-							rows = event.jsonMaps(table, getLastHeartbeatRead(), currentQuery);
-						} catch ( ColumnDefCastException e ) {
-							logColumnDefCastException(table, e);
+					if ( table != null && shouldOutputEvent(tableCache.getFilterDecision(filter, table), table.getColumnNames()) ) {
+						if ( rowDecoder != null ) {
+							rowDecoder.submit(event, table, getLastHeartbeatRead(), tx.currentQuery);
+							drainDecodedRows(buffer, true);
+						} else {
+							List<RowMap> rows;
+							try {
+								rows = event.jsonMaps(table, getLastHeartbeatRead(), tx.currentQuery);
+							} catch ( ColumnDefCastException e ) {
+								logColumnDefCastException(table, e);
+
+								throw(e);
+							}
 
-							throw(e);
+							bufferRows(buffer, table, rows);
 						}
 
-						for ( RowMap r : rows )
-							if (shouldOutputRowMap(table.getDatabase(), table.getName(), r, filter)) {
-								buffer.add(r);
-							}
+						if ( streamTransactions && buffer.size() > 1 )
+							return false;
 					}
 					break;
+
 				case TABLE_MAP:
 					TableMapEventData data = event.tableMapData();
 					tableCache.processEvent(getSchema(), this.filter, this.ignoreMissingSchema, data.getTableId(), data.getDatabase(), data.getTable());
 					break;
 				case ROWS_QUERY:
 					RowsQueryEventData rqed = event.getEvent().getData();
-					currentQuery = rqed.getQuery();
+					tx.currentQuery = rqed.getQuery();
 					break;
 				case ANNOTATE_ROWS:
 					AnnotateRowsEventData ared = event.getEvent().getData();
-					currentQuery = ared.getRowsQuery();
+					tx.currentQuery = ared.getRowsQuery();
 					break;
 				case QUERY:
 					QueryEventData qe = event.queryData();
@@ -628,7 +790,22 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 						// MariaDB injected event
 					} else if ( upperCaseSql.equals("ROLLBACK") ) {
 						LOGGER.debug("rolling back transaction inside binlog.");
-						return new RowMapBuffer(0);
+						if ( buffer.getXoffset() > 0 ) {
+							// part of it is already out.  A ROLLBACK only makes it to the binlog when
+							// non-transactional changes stuck, so finish it off as if it committed.
+							LOGGER.warn("ROLLBACK @ {} in a streamed transaction; {} rows were already output, closing it with the rows read since",
+								event.getPosition().fullPosition(), buffer.getXoffset());
+							if ( rowDecoder != null )
+								drainDecodedRows(buffer, false);
+							if ( !buffer.isEmpty() )
+								buffer.getLast().setTXCommit();
+							return true;
+						}
+
+						if ( rowDecoder != null )
+							rowDecoder.clear();
+						tx.buffer = new RowMapBuffer(0);
+						return true;
 					} else {
 						LOGGER.warn("Unhandled QueryEvent @ {} inside transaction: {}", event.getPosition().fullPosition(), qe);
 					}
@@ -639,6 +816,50 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		}
 	}
 
+	private static class OpenTransaction {
+		final BinlogConnectorEvent beginEvent;
+		RowMapBuffer buffer;
+		String currentQuery;
+
+		OpenTransaction(BinlogConnectorEvent beginEvent, RowMapBuffer buffer) {
+			this.beginEvent = beginEvent;
+			this.buffer = buffer;
+		}
+	}
+
+	private void bufferRows(RowMapBuffer buffer, Table table, List<RowMap> rows) throws IOException {
+		RowOutputPlan outputPlan = tableCache.getOutputPlan(table);
+		FilterDecision decision = tableCache.getFilterDecision(filter, table);
+
+		for ( RowMap r : rows )
+			if (shouldOutputRowMap(decision, r)) {
+				r.setOutputPlan(outputPlan);
+				buffer.add(r);
+			}
+	}
+
+	/**
+	 * Move decoded rows from the parallel decoder into the transaction buffer, in binlog order.
+	 *
+	 * @param buffer the transaction buffer
+	 * @param onlyWhileFull if true, only drain enough to make room for the next event;
+	 *                      otherwise wait for every outstanding event.
+	 */
+	private void drainDecodedRows(RowMapBuffer buffer, boolean onlyWhileFull) throws Exception {
+		while ( onlyWhileFull ? rowDecoder.isFull() : !rowDecoder.isEmpty() ) {
+			ParallelRowDecoder.DecodedRows decoded = rowDecoder.takeNext();
+			List<RowMap> rows;
+			try {
+				rows = decoded.getRows();
+			} catch ( ColumnDefCastException e ) {
+				logColumnDefCastException(decoded.table, e);
+				throw(e);
+			}
+
+			bufferRows(buffer, decoded.table, rows);
+		}
+	}
+
 	private void logColumnDefCastException(Table table, ColumnDefCastException e) {
 		String castInfo = String.format(
 				"Unable to cast %s (%s) into column %s.%s.%s (type '%s')",
@@ -678,6 +899,9 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 		}
 
 		while (true) {
+			if ( openTransaction != null && rowBuffer.size() <= 1 )
+				continueTransactionRows();
+
 			if (rowBuffer != null && !rowBuffer.isEmpty()) {
 				RowMap row = rowBuffer.removeFirst();
 
@@ -713,7 +937,7 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 					LOGGER.warn("Started replication stream inside a transaction.  This shouldn't normally happen.");
 					LOGGER.warn("Assuming new transaction at unexpected event:" + event);
 
-					queue.offerFirst(event);
+					drainedEvents.addFirst(event);
 					rowBuffer = getTransactionRows(event);
 					break;
 				case TABLE_MAP:
@@ -772,7 +996,10 @@ public class BinlogConnectorReplicator extends RunLoopProcess implements Replica
 	}
 
 	protected BinlogConnectorEvent pollEvent() throws InterruptedException {
-		return queue.poll(100, TimeUnit.MILLISECONDS);
+		if ( drainedEvents.isEmpty() )
+			queue.drainTo(drainedEvents, EVENT_DRAIN_BATCH, 100, TimeUnit.MILLISECONDS);
+
+		return drainedEvents.poll();
 	}
 
 	public Schema getSchema() throws SchemaStoreException {
@@ -0,0 +1,174 @@
+package com.zendesk.maxwell.replication;
+
+import com.codahale.metrics.Counter;
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDataDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import com.zendesk.maxwell.filtering.Filter;
+import com.zendesk.maxwell.monitoring.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+/*
+   keeps the binlog client from decoding rows we're going to throw away.
+
+   every TABLE_MAP event is checked against the filter, and the decision
+   is remembered by table id.  Row events for a table that the filter
+   excludes outright are not decoded at all; we read the table id, hand
+   back a SkippedRowsEventData and let the EventDeserializer discard the
+   rest of the event's bytes.  Events we keep are handed to the real
+   deserializer with the table id put back in front of the unread stream.
+
+   all of this runs on the binlog client's thread.
+ */
+class FilteringEventDataDeserializers {
+	private static final int TABLE_ID_LENGTH = 6;
+	private static final EventType[] ROWS_EVENT_TYPES = {
+		EventType.WRITE_ROWS, EventType.EXT_WRITE_ROWS,
+		EventType.UPDATE_ROWS, EventType.EXT_UPDATE_ROWS,
+		EventType.DELETE_ROWS, EventType.EXT_DELETE_ROWS
+	};
+
+	static class SkippedRowsEventData implements EventData {
+		private final long tableId;
+
+		SkippedRowsEventData(long tableId) {
+			this.tableId = tableId;
+		}
+
+		public long getTableId() {
+			return tableId;
+		}
+
+		@Override
+		public String toString() {
+			return "SkippedRowsEventData{tableId=" + tableId + "}";
+		}
+	}
+
+	private final Filter filter;
+	private final HashMap<Long, Boolean> skipTableIds = new HashMap<>();
+	private final Counter skippedEvents;
+	private final Counter skippedBytes;
+
+	FilteringEventDataDeserializers(Filter filter, Metrics metrics) {
+		this.filter = filter;
+		this.skippedEvents = metrics.getRegistry().counter(metrics.metricName("replication", "skipped", "events"));
+		this.skippedBytes = metrics.getRegistry().counter(metrics.metricName("replication", "skipped", "bytes"));
+	}
+
+	/**
+	 * Wrap the TABLE_MAP and row deserializers of an EventDeserializer.
+	 * Must be called after the deserializer's compatibility mode is set.
+	 */
+	void install(EventDeserializer eventDeserializer) {
+		eventDeserializer.setEventDataDeserializer(
+			EventType.TABLE_MAP,
+			new TableMapObserver(eventDeserializer.getEventDataDeserializer(EventType.TABLE_MAP))
+		);
+
+		for ( EventType type : ROWS_EVENT_TYPES ) {
+			eventDeserializer.setEventDataDeserializer(
+				type,
+				new SkippingRowsDeserializer(eventDeserializer.getEventDataDeserializer(type))
+			);
+		}
+	}
+
+	boolean shouldSkip(long tableId) {
+		Boolean skip = skipTableIds.get(tableId);
+		return skip != null && skip;
+	}
+
+	private class TableMapObserver implements EventDataDeserializer<EventData> {
+		private final EventDataDeserializer<?> delegate;
+
+		TableMapObserver(EventDataDeserializer<?> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public EventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+			EventData data = delegate.deserialize(inputStream);
+
+			if ( data instanceof TableMapEventData ) {
+				TableMapEventData tableMap = (TableMapEventData) data;
+				// re-evaluated on every map; table ids get reused and the filter can change at runtime
+				skipTableIds.put(tableMap.getTableId(), filter.excludesAllRows(tableMap.getDatabase(), tableMap.getTable()));
+			}
+			return data;
+		}
+	}
+
+	private class SkippingRowsDeserializer implements EventDataDeserializer<EventData> {
+		private final EventDataDeserializer<?> delegate;
+
+		SkippingRowsDeserializer(EventDataDeserializer<?> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public EventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+			long tableId = inputStream.readLong(TABLE_ID_LENGTH);
+
+			if ( shouldSkip(tableId) ) {
+				skippedEvents.inc();
+				skippedBytes.inc(TABLE_ID_LENGTH + inputStream.available());
+				return new SkippedRowsEventData(tableId);
+			}
+
+			return delegate.deserialize(new ByteArrayInputStream(new TableIdPrefixedStream(tableId, inputStream)));
+		}
+	}
+
+	/*
+	   the table id we've already read, as the little-endian bytes it came as,
+	   followed by the rest of the event, read straight from the client's stream.
+	 */
+	static class TableIdPrefixedStream extends InputStream {
+		private final long tableId;
+		private final InputStream rest;
+		private int prefixRead = 0;
+
+		TableIdPrefixedStream(long tableId, InputStream rest) {
+			this.tableId = tableId;
+			this.rest = rest;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if ( prefixRead < TABLE_ID_LENGTH )
+				return (int) (tableId >>> (prefixRead++ << 3)) & 0xFF;
+			return rest.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if ( len == 0 )
+				return 0;
+
+			int n = 0;
+			while ( prefixRead < TABLE_ID_LENGTH && n < len )
+				b[off + n++] = (byte) read();
+
+			if ( n == len )
+				return n;
+
+			int r = rest.read(b, off + n, len - n);
+			if ( r == -1 )
+				return n == 0 ? -1 : n;
+			return n + r;
+		}
+
+		@Override
+		public int available() throws IOException {
+			// row deserializers read rows while there's anything left
+			return (TABLE_ID_LENGTH - prefixRead) + rest.available();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.zendesk.maxwell.replication;
+
+import com.codahale.metrics.Gauge;
+import com.zendesk.maxwell.monitoring.Metrics;
+import com.zendesk.maxwell.row.RowMap;
+import com.zendesk.maxwell.schema.Table;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+   turns row events into RowMaps on a pool of worker threads.
+
+   the replicator thread submits events in binlog order; completed
+   decodes are handed back strictly in that same order (a small
+   reorder buffer of futures), so downstream producers never observe
+   rows out of sequence no matter which worker finishes first.
+ */
+public class ParallelRowDecoder {
+	public static class DecodedRows {
+		public final Table table;
+		private final Future<List<RowMap>> future;
+
+		DecodedRows(Table table, Future<List<RowMap>> future) {
+			this.table = table;
+			this.future = future;
+		}
+
+		/**
+		 * Block until the rows are decoded.
+		 * @throws Exception whatever the decode threw, unwrapped (typically a ColumnDefCastException)
+		 */
+		public List<RowMap> getRows() throws Exception {
+			try {
+				return future.get();
+			} catch ( ExecutionException e ) {
+				if ( e.getCause() instanceof Exception )
+					throw (Exception) e.getCause();
+				throw e;
+			}
+		}
+	}
+
+	private final ThreadPoolExecutor executor;
+	private final ArrayDeque<DecodedRows> pending;
+	private final int maxPending;
+	private final AtomicInteger pendingCount = new AtomicInteger(0);
+
+	public ParallelRowDecoder(int nThreads, Metrics metrics) {
+		this(nThreads, nThreads * 16, metrics);
+	}
+
+	public ParallelRowDecoder(int nThreads, int maxPending, Metrics metrics) {
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(nThreads, r -> {
+			Thread t = new Thread(r, "maxwell-row-decoder-" + threadCounter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.pending = new ArrayDeque<>(maxPending);
+		this.maxPending = maxPending;
+
+		metrics.register(metrics.metricName("replication", "decode", "occupancy"), (Gauge<Double>) () ->
+			(double) executor.getActiveCount() / executor.getMaximumPoolSize()
+		);
+		metrics.register(metrics.metricName("replication", "decode", "reorder_buffer", "depth"), (Gauge<Integer>) pendingCount::get);
+	}
+
+	/**
+	 * Queue a row event for decoding.  The table must be resolved by the caller,
+	 * as the table cache is owned by the replicator thread.
+	 */
+	public void submit(BinlogConnectorEvent event, Table table, long lastHeartbeatRead, String rowQuery) {
+		Future<List<RowMap>> future = executor.submit(() -> event.jsonMaps(table, lastHeartbeatRead, rowQuery));
+		pending.add(new DecodedRows(table, future));
+		pendingCount.incrementAndGet();
+	}
+
+	public boolean isFull() {
+		return pending.size() >= maxPending;
+	}
+
+	public boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	/**
+	 * Remove the oldest outstanding event from the reorder buffer.
+	 * Call {@link DecodedRows#getRows()} on the result to wait for its rows.
+	 *
+	 * @return the oldest outstanding decode, or null if nothing is outstanding
+	 */
+	public DecodedRows takeNext() {
+		DecodedRows next = pending.poll();
+		if ( next != null )
+			pendingCount.decrementAndGet();
+		return next;
+	}
+
+	/**
+	 * Throw away any outstanding work, eg. on rollback or reconnect.
+	 */
+	public void clear() {
+		DecodedRows p;
+		while ( (p = pending.poll()) != null )
+			p.future.cancel(false);
+		pendingCount.set(0);
+	}
+
+	public void shutdown() {
+		clear();
+		executor.shutdownNow();
+	}
+}
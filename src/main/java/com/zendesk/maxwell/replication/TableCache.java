@@ -1,19 +1,32 @@
 package com.zendesk.maxwell.replication;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 
 import com.zendesk.maxwell.filtering.Filter;
+import com.zendesk.maxwell.filtering.FilterDecision;
+import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.row.RowOutputPlan;
 import com.zendesk.maxwell.schema.Database;
 import com.zendesk.maxwell.schema.Schema;
 import com.zendesk.maxwell.schema.Table;
 
 public class TableCache {
 	private final String maxwellDB;
+	private final MaxwellOutputConfig outputConfig;
 
 	public TableCache(String maxwellDB) {
+		this(maxwellDB, new MaxwellOutputConfig());
+	}
+
+	public TableCache(String maxwellDB, MaxwellOutputConfig outputConfig) {
 		this.maxwellDB = maxwellDB;
+		this.outputConfig = outputConfig;
 	}
 	private final HashMap<Long, Table> tableMapCache = new HashMap<>();
+	// Table objects are replaced on DDL, and we're cleared on DDL, so identity is as good as (table, schema id)
+	private final IdentityHashMap<Table, RowOutputPlan> outputPlans = new IdentityHashMap<>();
+	private final IdentityHashMap<Table, FilterDecision> filterDecisions = new IdentityHashMap<>();
 
 	public void processEvent(Schema schema, Filter filter, Boolean ignoreMissingSchema, Long tableId, String dbName, String tblName) {
 		if ( !tableMapCache.containsKey(tableId)) {
@@ -46,7 +59,27 @@ public class TableCache {
 		return tableMapCache.get(tableId);
 	}
 
+	public RowOutputPlan getOutputPlan(Table table) {
+		RowOutputPlan plan = outputPlans.get(table);
+		if ( plan == null ) {
+			plan = RowOutputPlan.compile(outputConfig, table);
+			outputPlans.put(table, plan);
+		}
+		return plan;
+	}
+
+	public FilterDecision getFilterDecision(Filter filter, Table table) {
+		FilterDecision decision = filterDecisions.get(table);
+		if ( decision == null || !filter.isCurrent(decision) ) {
+			decision = filter.decisionFor(table.getDatabase(), table.getName());
+			filterDecisions.put(table, decision);
+		}
+		return decision;
+	}
+
 	public void clear() {
 		tableMapCache.clear();
+		outputPlans.clear();
+		filterDecisions.clear();
 	}
 }
@@ -29,6 +29,11 @@ public class HeartbeatRowMap extends RowMap {
 		return null;
 	}
 
+	@Override
+	public byte[] toJSONBytes(MaxwellOutputConfig outputConfig) {
+		return null;
+	}
+
 	@Override
 	public boolean isTXCommit() {
 		return true;
@@ -0,0 +1,193 @@
+package com.zendesk.maxwell.row;
+
+import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import com.zendesk.maxwell.schema.columndef.ColumnDefCastException;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/*
+   the raw, not-yet-converted column values of a binlog row.
+
+   a RowMap in lazy mode holds one of these instead of a filled-in data map.
+   single columns can be pulled out (and converted) on their own, which is
+   all that filters, the bootstrapper and partitioning usually need; the
+   full data/old maps are only built once something asks for them.
+ */
+public class LazyRowData {
+	private final Table table;
+	private final List<ColumnDef> columns;
+	private final MaxwellOutputConfig outputConfig;
+	private final Serializable[] data;
+	private final BitSet includedColumns;
+	private Serializable[] oldData;
+	private BitSet oldIncludedColumns;
+
+	// column position -> position in the row image (-1 if absent), worked out on the first single-column lookup
+	private int[] imagePositions;
+	private int[] oldImagePositions;
+
+	public LazyRowData(Table table, Serializable[] data, BitSet includedColumns, MaxwellOutputConfig outputConfig) {
+		this.table = table;
+		this.columns = table.getColumnList();
+		this.data = data;
+		this.includedColumns = includedColumns;
+		this.outputConfig = outputConfig;
+	}
+
+	/**
+	 * Attach the before-image of an update
+	 */
+	public void setOldData(Serializable[] oldData, BitSet oldIncludedColumns) {
+		this.oldData = oldData;
+		this.oldIncludedColumns = oldIncludedColumns;
+	}
+
+	private int findColumn(String name) {
+		if ( table.getColumnList() == columns ) {
+			int colIdx = table.findColumnIndex(name);
+			// the table's index ignores case; the data map doesn't
+			if ( colIdx < 0 || colIdx >= columns.size() || !columns.get(colIdx).getName().equals(name) )
+				return -1;
+			return colIdx;
+		}
+
+		// the table has been altered since this row was read; its index no longer matches our columns
+		for ( int i = 0; i < columns.size(); i++ ) {
+			if ( columns.get(i).getName().equals(name) )
+				return i;
+		}
+		return -1;
+	}
+
+	// where each column's value sits in a row image that only carries the included columns
+	private int[] imagePositions(BitSet included) {
+		int[] positions = new int[columns.size()];
+		int idx = 0;
+		for ( int i = 0; i < positions.length; i++ )
+			positions[i] = included.get(i) ? idx++ : -1;
+		return positions;
+	}
+
+	private Object convert(ColumnDef cd, Serializable value) throws ColumnDefCastException {
+		if ( value == null )
+			return null;
+		return cd.asJSON(value, outputConfig);
+	}
+
+	public boolean hasData(String name) {
+		int colIdx = findColumn(name);
+		if ( colIdx < 0 )
+			return false;
+
+		return includedColumns.get(colIdx) || ( oldIncludedColumns != null && oldIncludedColumns.get(colIdx) );
+	}
+
+	/**
+	 * Convert a single column, as it would appear in the row's data map.
+	 */
+	public Object getData(String name) throws ColumnDefCastException {
+		int colIdx = findColumn(name);
+		if ( colIdx < 0 )
+			return null;
+
+		ColumnDef cd = columns.get(colIdx);
+		if ( includedColumns.get(colIdx) ) {
+			if ( imagePositions == null )
+				imagePositions = imagePositions(includedColumns);
+			return convert(cd, data[imagePositions[colIdx]]);
+		} else if ( oldIncludedColumns != null && oldIncludedColumns.get(colIdx) ) {
+			if ( oldImagePositions == null )
+				oldImagePositions = imagePositions(oldIncludedColumns);
+			return convert(cd, oldData[oldImagePositions[colIdx]]);
+		} else {
+			return null;
+		}
+	}
+
+	private static boolean isExcluded(String name, List<Pattern> excludeColumns) {
+		if ( excludeColumns == null )
+			return false;
+
+		for ( Pattern p : excludeColumns ) {
+			if ( p.matcher(name).matches() )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Convert every column into the row's data (and old data) maps.
+	 *
+	 * @param row the row to fill
+	 * @param excludeColumns columns that are never converted, or null
+	 */
+	public void materialize(RowMap row, List<Pattern> excludeColumns) throws ColumnDefCastException {
+		int dataIdx = 0, colIdx = 0;
+
+		for ( ColumnDef cd : columns ) {
+			if ( includedColumns.get(colIdx) ) {
+				if ( !isExcluded(cd.getName(), excludeColumns) )
+					row.putData(cd.getName(), convert(cd, data[dataIdx]));
+				dataIdx++;
+			}
+			colIdx++;
+		}
+
+		if ( oldData == null )
+			return;
+
+		dataIdx = 0;
+		colIdx = 0;
+		for ( ColumnDef cd : columns ) {
+			if ( oldIncludedColumns.get(colIdx) ) {
+				if ( !isExcluded(cd.getName(), excludeColumns) ) {
+					Object json = convert(cd, oldData[dataIdx]);
+
+					if ( !includedColumns.get(colIdx) ) {
+						// binlog_row_image = MINIMAL; see BinlogConnectorEvent#writeOldData
+						row.putData(cd.getName(), json);
+					} else if ( !Objects.equals(row.getData(cd.getName()), json) ) {
+						row.putOldData(cd.getName(), json);
+					}
+				}
+				dataIdx++;
+			}
+			colIdx++;
+		}
+	}
+
+	/**
+	 * A guess at the memory the row will take once materialized, without converting anything.
+	 */
+	public long approximateSize() {
+		long size = 0;
+		size += approximateImageSize(data, includedColumns);
+		if ( oldData != null )
+			size += approximateImageSize(oldData, oldIncludedColumns);
+		return size;
+	}
+
+	private long approximateImageSize(Serializable[] image, BitSet included) {
+		long size = 0;
+		int dataIdx = 0;
+
+		for ( int colIdx = included.nextSetBit(0); colIdx >= 0 && colIdx < columns.size(); colIdx = included.nextSetBit(colIdx + 1) ) {
+			Serializable value = image[dataIdx++];
+			size += 40 + columns.get(colIdx).getName().length() * 2;
+
+			if ( value instanceof String )
+				size += ((String) value).length() * 2;
+			else if ( value instanceof byte[] )
+				size += ((byte[]) value).length * 2;
+			else
+				size += 64;
+		}
+		return size;
+	}
+}
@@ -2,6 +2,8 @@ package com.zendesk.maxwell.row;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.zendesk.maxwell.scripting.Scripting;
 import org.openjdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.slf4j.Logger;
@@ -62,31 +64,48 @@ public class MaxwellJson {
 		return s;
 	}
 
+	/**
+	 * Like {@link #consume()}, but hand back the generator's UTF-8 output as-is.
+	 */
+	public byte[] consumeBytes() throws IOException {
+		jsonGenerator.flush();
+		byte[] bytes = buffer.toByteArray();
+		buffer.reset();
+		return bytes;
+	}
+
 	public static void writeValueToJSON(JsonGenerator g, boolean includeNullField, String key, Object value) throws IOException {
+		writeValueToJSON(g, includeNullField, new SerializedString(key), value);
+	}
+
+	public static void writeValueToJSON(JsonGenerator g, boolean includeNullField, SerializableString key, Object value) throws IOException {
 		if (value == null && !includeNullField)
 			return;
 
 		if (value instanceof ScriptObjectMirror) {
 			try {
-				String json = Scripting.stringify((ScriptObjectMirror) value);
-				writeValueToJSON(g, includeNullField, key, new RawJSONString(json));
+				value = new RawJSONString(Scripting.stringify((ScriptObjectMirror) value));
 			} catch (ScriptException e) {
 				LOGGER.error("error stringifying json object:", e);
+				return;
 			}
-		} else if (value instanceof List) { // sets come back from .asJSON as lists, and jackson can't deal with lists natively.
+		}
+
+		g.writeFieldName(key);
+
+		if (value instanceof List) { // sets come back from .asJSON as lists, and jackson can't deal with lists natively.
 			List stringList = (List) value;
 
-			g.writeArrayFieldStart(key);
+			g.writeStartArray();
 			for (Object s : stringList) {
 				g.writeObject(s);
 			}
 			g.writeEndArray();
 		} else if (value instanceof RawJSONString) {
 			// JSON column type, using binlog-connector's serializers.
-			g.writeFieldName(key);
 			g.writeRawValue(((RawJSONString) value).json);
 		} else {
-			g.writeObjectField(key, value);
+			g.writeObject(value);
 		}
 	}
 }
@@ -1,18 +1,22 @@
 package com.zendesk.maxwell.row;
 
 import com.zendesk.maxwell.errors.ProtectedAttributeNameException;
+import com.zendesk.maxwell.errors.RowDecodeException;
 import com.zendesk.maxwell.producer.EncryptionMode;
 import com.zendesk.maxwell.replication.BinlogPosition;
 import com.zendesk.maxwell.producer.MaxwellOutputConfig;
 import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.schema.columndef.ColumnDefCastException;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -21,6 +25,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
 
 
 public class RowMap implements Serializable {
@@ -55,6 +60,19 @@ public class RowMap implements Serializable {
 
 	private final LinkedHashMap<String, Object> extraAttributes;
 
+	// in lazy mode, the unconverted row; data and oldData stay empty until this is materialized
+	private transient LazyRowData lazyData;
+	private transient RowOutputPlan outputPlan;
+
+	// the last JSON this row was serialized to, and the plan it was serialized with.
+	// dropped whenever the row changes; see #toJSON
+	private transient RowOutputPlan serializedPlan;
+	private transient String serializedJSON;
+	private transient byte[] serializedBytes;
+
+	// run once the producer has delivered the row; see AbstractProducer#acknowledgesRows
+	private transient volatile Runnable acknowledgeCallback;
+
 	private final List<String> pkColumns;
 	private RowIdentity rowIdentity;
 
@@ -92,7 +110,7 @@ public class RowMap implements Serializable {
 		if (rowIdentity == null) {
 			List<Pair<String, Object>> entries = new ArrayList<>(pkColumns.size());
 			for (String pk: pkColumns) {
-				entries.add(Pair.of(pk, data.get(pk)));
+				entries.add(Pair.of(pk, getData(pk)));
 			}
 			rowIdentity = new RowIdentity(database, table, rowType, entries);
 		}
@@ -108,8 +126,8 @@ public class RowMap implements Serializable {
 		StringBuilder partitionKey= new StringBuilder();
 		for (String pc : partitionColumns) {
 			Object pcValue = null;
-			if (data.containsKey(pc))
-				pcValue = data.get(pc);
+			if (hasData(pc))
+				pcValue = getData(pc);
 			if (pcValue != null)
 				partitionKey.append(pcValue.toString());
 		}
@@ -117,18 +135,17 @@ public class RowMap implements Serializable {
 		return partitionKey.toString();
 	}
 
-	private void writeMapToJSON(FieldNameStrategy fieldNameStrategy,
-			String jsonMapName,
+	private void writeMapToJSON(RowOutputPlan plan,
+			SerializableString jsonMapName,
 			LinkedHashMap<String, Object> data,
 			JsonGenerator g,
 			boolean includeNullField
 	) throws IOException, NoSuchAlgorithmException {
-		g.writeObjectFieldStart(fieldNameStrategy.apply(jsonMapName));
-
-		for (String key : data.keySet()) {
-			Object value = data.get(key);
+		g.writeFieldName(jsonMapName);
+		g.writeStartObject();
 
-			MaxwellJson.writeValueToJSON(g, includeNullField, fieldNameStrategy.apply(key), value);
+		for (Map.Entry<String, Object> entry : data.entrySet()) {
+			MaxwellJson.writeValueToJSON(g, includeNullField, plan.columnName(entry.getKey()), entry.getValue());
 		}
 
 		g.writeEndObject(); // end of 'jsonMapName: { }'
@@ -138,16 +155,99 @@ public class RowMap implements Serializable {
 		return toJSON(new MaxwellOutputConfig());
 	}
 
+	/**
+	 * Use a precompiled output plan (see {@link RowOutputPlan}) when serializing this row.
+	 * The plan is ignored if it was built for a different output config.
+	 */
+	public void setOutputPlan(RowOutputPlan outputPlan) {
+		this.outputPlan = outputPlan;
+	}
+
+	private RowOutputPlan getOutputPlan(MaxwellOutputConfig outputConfig) {
+		RowOutputPlan plan = this.outputPlan;
+		if ( plan != null && plan.isFor(outputConfig) )
+			return plan;
+		return RowOutputPlan.forConfig(outputConfig);
+	}
+
+	/**
+	 * Serialize the row.  The result is kept until the row is next modified,
+	 * so asking again with the same output config doesn't re-encode it.
+	 */
 	public String toJSON(MaxwellOutputConfig outputConfig) throws Exception {
-		FieldNameStrategy fieldNameStrategy = new FieldNameStrategy(outputConfig.namingStrategy);
+		if ( isSerializedFor(outputConfig) ) {
+			if ( serializedJSON == null )
+				serializedJSON = new String(serializedBytes, StandardCharsets.UTF_8);
+			return serializedJSON;
+		}
+
+		MaxwellJson json = MaxwellJson.getInstance();
+		RowOutputPlan plan = getOutputPlan(outputConfig);
+		writeJSON(json, outputConfig, plan);
+		String s = json.consume();
+
+		rememberSerialized(outputConfig, plan, s, null);
+		return s;
+	}
+
+	/**
+	 * Serialize straight to UTF-8, skipping the round trip through a String
+	 * for producers that send bytes.  Shares {@link #toJSON(MaxwellOutputConfig)}'s cache.
+	 *
+	 * @return the UTF-8 encoded JSON, or null if the row has no output
+	 */
+	public byte[] toJSONBytes(MaxwellOutputConfig outputConfig) throws Exception {
+		if ( isSerializedFor(outputConfig) ) {
+			if ( serializedBytes == null )
+				serializedBytes = serializedJSON.getBytes(StandardCharsets.UTF_8);
+			return serializedBytes;
+		}
 
 		MaxwellJson json = MaxwellJson.getInstance();
+		RowOutputPlan plan = getOutputPlan(outputConfig);
+		writeJSON(json, outputConfig, plan);
+		byte[] bytes = json.consumeBytes();
+
+		rememberSerialized(outputConfig, plan, null, bytes);
+		return bytes;
+	}
+
+	/**
+	 * Is there a cached serialization of this row for this output config?
+	 * The config is assumed not to change once rows are being output with it.
+	 */
+	public boolean isSerializedFor(MaxwellOutputConfig outputConfig) {
+		RowOutputPlan plan = this.serializedPlan;
+		return plan != null && !outputConfig.includesPushTimestamp && plan.isFor(outputConfig);
+	}
+
+	private void rememberSerialized(MaxwellOutputConfig outputConfig, RowOutputPlan plan, String s, byte[] bytes) {
+		// push_timestamp is the time of output, it can't be reused
+		if ( outputConfig.includesPushTimestamp ) {
+			forgetSerialized();
+			return;
+		}
+
+		this.serializedPlan = plan;
+		this.serializedJSON = s;
+		this.serializedBytes = bytes;
+	}
+
+	private void forgetSerialized() {
+		this.serializedPlan = null;
+		this.serializedJSON = null;
+		this.serializedBytes = null;
+	}
+
+	private void writeJSON(MaxwellJson json, MaxwellOutputConfig outputConfig, RowOutputPlan plan) throws Exception {
 		JsonGenerator g = json.reset();
 
 		g.writeStartObject(); // start of row {
 
-		g.writeStringField(fieldNameStrategy.apply(FieldNames.DATABASE), this.database);
-		g.writeStringField(fieldNameStrategy.apply(FieldNames.TABLE), this.table);
+		g.writeFieldName(plan.database);
+		g.writeString(this.database);
+		g.writeFieldName(plan.table);
+		g.writeString(this.table);
 
 		if ( outputConfig.includesRowQuery && this.rowQuery != null) {
 			String outputQuery;
@@ -156,42 +256,58 @@ public class RowMap implements Serializable {
 			}else{
 				outputQuery = this.rowQuery;
 			}
-			g.writeStringField(fieldNameStrategy.apply(FieldNames.QUERY), outputQuery);
+			g.writeFieldName(plan.query);
+			g.writeString(outputQuery);
 		}
 
-		g.writeStringField(fieldNameStrategy.apply(FieldNames.TYPE), this.rowType);
-		g.writeNumberField(fieldNameStrategy.apply(FieldNames.TIMESTAMP), this.timestampSeconds);
+		g.writeFieldName(plan.type);
+		g.writeString(this.rowType);
+		g.writeFieldName(plan.timestamp);
+		g.writeNumber(this.timestampSeconds);
 
 		if ( outputConfig.includesCommitInfo ) {
-			if ( this.xid != null )
-				g.writeNumberField(fieldNameStrategy.apply(FieldNames.TRANSACTION_ID), this.xid);
+			if ( this.xid != null ) {
+				g.writeFieldName(plan.transactionId);
+				g.writeNumber(this.xid);
+			}
 
-			if ( outputConfig.includesXOffset && this.xoffset != null && !this.txCommit )
-				g.writeNumberField(fieldNameStrategy.apply(FieldNames.TRANSACTION_OFFSET), this.xoffset);
+			if ( outputConfig.includesXOffset && this.xoffset != null && !this.txCommit ) {
+				g.writeFieldName(plan.transactionOffset);
+				g.writeNumber(this.xoffset);
+			}
 
-			if ( this.txCommit )
-				g.writeBooleanField(fieldNameStrategy.apply(FieldNames.COMMIT), true);
+			if ( this.txCommit ) {
+				g.writeFieldName(plan.commit);
+				g.writeBoolean(true);
+			}
 		}
 
 		if ( this.position != null ) {
 			BinlogPosition binlogPosition = this.position.getBinlogPosition();
-			if ( outputConfig.includesBinlogPosition )
-				g.writeStringField(fieldNameStrategy.apply(FieldNames.POSITION), binlogPosition.getFile() + ":" + binlogPosition.getOffset());
+			if ( outputConfig.includesBinlogPosition ) {
+				g.writeFieldName(plan.position);
+				g.writeString(binlogPosition.getFile() + ":" + binlogPosition.getOffset());
+			}
 
-			if ( outputConfig.includesGtidPosition)
-				g.writeStringField(fieldNameStrategy.apply(FieldNames.GTID), binlogPosition.getGtid());
+			if ( outputConfig.includesGtidPosition) {
+				g.writeFieldName(plan.gtid);
+				g.writeString(binlogPosition.getGtid());
+			}
 		}
 
 		if ( outputConfig.includesServerId && this.serverId != null ) {
-			g.writeNumberField(fieldNameStrategy.apply(FieldNames.SERVER_ID), this.serverId);
+			g.writeFieldName(plan.serverId);
+			g.writeNumber(this.serverId);
 		}
 
 		if ( outputConfig.includesThreadId && this.threadId != null ) {
-			g.writeNumberField(fieldNameStrategy.apply(FieldNames.THREAD_ID), this.threadId);
+			g.writeFieldName(plan.threadId);
+			g.writeNumber(this.threadId);
 		}
 
 		if ( outputConfig.includesSchemaId && this.schemaId != null ) {
-			g.writeNumberField(fieldNameStrategy.apply(FieldNames.SCHEMA_ID), this.schemaId);
+			g.writeFieldName(plan.schemaId);
+			g.writeNumber(this.schemaId);
 		}
 
 		if ( outputConfig.includesPushTimestamp ) {
@@ -199,7 +315,8 @@ public class RowMap implements Serializable {
 			BigDecimal bd = BigDecimal.valueOf(pushTS.getEpochSecond());
 
 			bd = bd.add(BigDecimal.valueOf((double) pushTS.getNano() / 1_000_000_000d));
-			g.writeNumberField(fieldNameStrategy.apply(FieldNames.PUSH_TS), bd);
+			g.writeFieldName(plan.pushTimestamp);
+			g.writeNumber(bd);
 		}
 
 		if ( this.comment != null ) {
@@ -222,38 +339,30 @@ public class RowMap implements Serializable {
 		JsonGenerator dataGenerator = dataWriter.begin();
 		if ( outputConfig.includesPrimaryKeys ) {
 			List<Object> pkValues = new ArrayList<>();
-			pkColumns.forEach(pkColumn -> pkValues.add(this.data.get(pkColumn)));
-			MaxwellJson.writeValueToJSON(g, outputConfig.includesNulls, fieldNameStrategy.apply(FieldNames.PRIMARY_KEY), pkValues);
+			pkColumns.forEach(pkColumn -> pkValues.add(getData(pkColumn)));
+			MaxwellJson.writeValueToJSON(g, outputConfig.includesNulls, plan.primaryKey, pkValues);
 		}
 
 		if ( outputConfig.includesPrimaryKeyColumns ) {
-			MaxwellJson.writeValueToJSON(g, outputConfig.includesNulls, fieldNameStrategy.apply(FieldNames.PRIMARY_KEY_COLUMNS), pkColumns);
+			MaxwellJson.writeValueToJSON(g, outputConfig.includesNulls, plan.primaryKeyColumns, pkColumns);
 		}
 
-		if ( outputConfig.excludeColumns.size() > 0 ) {
-			// NOTE: to avoid concurrent modification.
-			Set<String> keys = new HashSet<>();
-			keys.addAll(this.data.keySet());
-			keys.addAll(this.oldData.keySet());
-
-			for ( Pattern p : outputConfig.excludeColumns ) {
-				for ( String key : keys ) {
-					if ( p.matcher(key).matches() ) {
-						this.data.remove(key);
-						this.oldData.remove(key);
-					}
-				}
-			}
+		// columns we're about to exclude never need to be converted
+		materializeLazyData(outputConfig.excludeColumns);
+
+		if ( plan.hasExcludedColumns() ) {
+			this.data.keySet().removeIf(plan::isExcluded);
+			this.oldData.keySet().removeIf(plan::isExcluded);
 		}
 
-		writeMapToJSON(fieldNameStrategy,
-						FieldNames.DATA, 
-						this.data, 
-						dataGenerator, 
+		writeMapToJSON(plan,
+						plan.data,
+						this.data,
+						dataGenerator,
 						outputConfig.includesNulls);
 		if( !this.oldData.isEmpty() ){
-			writeMapToJSON(	fieldNameStrategy,
-							FieldNames.OLD,
+			writeMapToJSON(	plan,
+							plan.old,
 							this.oldData,
 							dataGenerator,
 							outputConfig.includesNulls);
@@ -266,11 +375,55 @@ public class RowMap implements Serializable {
 			String plaintext = json.consume();
 			json.getEncryptingGenerator().writeEncryptedObject(plaintext, encryptionContext);
 		}
+	}
+
+	/**
+	 * Defer converting a row's column values until they're asked for.
+	 * Any method that reads or writes the data maps wholesale will materialize them.
+	 */
+	public void setLazyData(LazyRowData lazyData) {
+		forgetSerialized();
+		this.lazyData = lazyData;
+		this.approximateSize += lazyData.approximateSize();
+	}
+
+	public boolean isLazy() {
+		return lazyData != null;
+	}
+
+	private void materializeLazyData(List<Pattern> excludeColumns) {
+		if ( lazyData == null )
+			return;
 
-		return json.consume();
+		LazyRowData pending = lazyData;
+		long size = this.approximateSize; // already accounted for in setLazyData
+		this.lazyData = null;
+
+		try {
+			pending.materialize(this, excludeColumns);
+		} catch ( ColumnDefCastException e ) {
+			throw new RowDecodeException(database, table, e);
+		}
+		this.approximateSize = size;
+	}
+
+	private void materializeLazyData() {
+		materializeLazyData(null);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		materializeLazyData();
+		out.defaultWriteObject();
 	}
 
 	public Object getData(String key) {
+		if ( lazyData != null ) {
+			try {
+				return lazyData.getData(key);
+			} catch ( ColumnDefCastException e ) {
+				throw new RowDecodeException(database, table, e);
+			}
+		}
 		return this.data.get(key);
 	}
 
@@ -297,6 +450,8 @@ public class RowMap implements Serializable {
 	}
 
 	public void putData(String key, Object value) {
+		materializeLazyData();
+		forgetSerialized();
 		this.data.put(key, value);
 
 		this.approximateSize += approximateKVSize(key, value);
@@ -308,16 +463,20 @@ public class RowMap implements Serializable {
 					"a protected name. Must not be any of: " +
 					String.join(", ", FieldNames.getFieldnames()));
 		}
+		forgetSerialized();
 		this.extraAttributes.put(key, value);
 
 		this.approximateSize += approximateKVSize(key, value);
 	}
 
 	public Object getOldData(String key) {
+		materializeLazyData();
 		return this.oldData.get(key);
 	}
 
 	public void putOldData(String key, Object value) {
+		materializeLazyData();
+		forgetSerialized();
 		this.oldData.put(key, value);
 
 		this.approximateSize += approximateKVSize(key, value);
@@ -331,6 +490,7 @@ public class RowMap implements Serializable {
 	}
 
 	public void setXid(Long xid) {
+		forgetSerialized();
 		this.xid = xid;
 	}
 
@@ -339,10 +499,12 @@ public class RowMap implements Serializable {
 	}
 
 	public void setXoffset(Long xoffset) {
+		forgetSerialized();
 		this.xoffset = xoffset;
 	}
 
 	public void setTXCommit() {
+		forgetSerialized();
 		this.txCommit = true;
 	}
 
@@ -350,11 +512,33 @@ public class RowMap implements Serializable {
 		return this.txCommit;
 	}
 
+	public void setAcknowledgeCallback(Runnable callback) {
+		this.acknowledgeCallback = callback;
+	}
+
+	public boolean hasAcknowledgeCallback() {
+		return this.acknowledgeCallback != null;
+	}
+
+	/**
+	 * Called by a producer once the row is delivered (or given up on).  Runs
+	 * the acknowledge callback, if there's one, at most once.
+	 */
+	public void acknowledge() {
+		Runnable callback = this.acknowledgeCallback;
+		if ( callback == null )
+			return;
+
+		this.acknowledgeCallback = null;
+		callback.run();
+	}
+
 	public Long getServerId() {
 		return serverId;
 	}
 
 	public void setServerId(Long serverId) {
+		forgetSerialized();
 		this.serverId = serverId;
 	}
 
@@ -363,6 +547,7 @@ public class RowMap implements Serializable {
 	}
 
 	public void setThreadId(Long threadId) {
+		forgetSerialized();
 		this.threadId = threadId;
 	}
 
@@ -371,6 +556,7 @@ public class RowMap implements Serializable {
 	}
 
 	public void setSchemaId(Long schemaId) {
+		forgetSerialized();
 		this.schemaId = schemaId;
 	}
 
@@ -391,6 +577,8 @@ public class RowMap implements Serializable {
 	}
 
 	public boolean hasData(String name) {
+		if ( lazyData != null )
+			return lazyData.hasData(name);
 		return this.data.containsKey(name);
 	}
 
@@ -399,6 +587,7 @@ public class RowMap implements Serializable {
 	}
 
 	public void setRowQuery(String query) {
+		forgetSerialized();
 		this.rowQuery = query;
 	}
 
@@ -415,20 +604,54 @@ public class RowMap implements Serializable {
 
 	public LinkedHashMap<String, Object> getData()
 	{
+		materializeLazyData();
+		// the caller may modify the map
+		forgetSerialized();
 		return data;
 	}
 
+	/**
+	 * A read-only view of the row's data for code that only looks up a few keys;
+	 * in lazy mode, only the columns looked up get converted.
+	 */
+	public Map<String, Object> getDataView()
+	{
+		if ( lazyData == null )
+			return Collections.unmodifiableMap(data);
+
+		return new AbstractMap<String, Object>() {
+			@Override
+			public boolean containsKey(Object key) {
+				return key instanceof String && hasData((String) key);
+			}
+
+			@Override
+			public Object get(Object key) {
+				return key instanceof String ? getData((String) key) : null;
+			}
+
+			@Override
+			public Set<Entry<String, Object>> entrySet() {
+				return Collections.unmodifiableMap(getData()).entrySet();
+			}
+		};
+	}
+
 	public LinkedHashMap<String, Object> getExtraAttributes()
 	{
+		forgetSerialized();
 		return extraAttributes;
 	}
 
 	public LinkedHashMap<String, Object> getOldData()
 	{
+		materializeLazyData();
+		forgetSerialized();
 		return oldData;
 	}
 
 	public void suppress() {
+		forgetSerialized();
 		this.suppressed = true;
 	}
 
@@ -452,6 +675,7 @@ public class RowMap implements Serializable {
 	}
 
 	public void setComment(String comment) {
+		forgetSerialized();
 		this.comment = comment;
 	}
 
@@ -461,13 +685,13 @@ public class RowMap implements Serializable {
 
 	public List<Object> getPrimaryKeyValues() {
 		List<Object> values = new ArrayList<>();
-		pkColumns.forEach(pkColumn -> values.add(this.data.get(pkColumn)));
+		pkColumns.forEach(pkColumn -> values.add(getData(pkColumn)));
 		return Collections.unmodifiableList(values);
 	}
 
 	public Map<String, Object> getPrimaryKeyMap() {
 		return pkColumns.stream()
-				.filter(v -> this.data.get(v) != null)
-				.collect(Collectors.toMap(k -> k, v -> this.data.get(v)));
+				.filter(v -> getData(v) != null)
+				.collect(Collectors.toMap(k -> k, v -> getData(v)));
 	}
 }
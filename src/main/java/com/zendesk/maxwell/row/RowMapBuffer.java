@@ -1,5 +1,7 @@
 package com.zendesk.maxwell.row;
 
+import com.codahale.metrics.Meter;
+import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.util.ListWithDiskBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,29 +10,49 @@ import java.io.IOException;
 
 public class RowMapBuffer extends ListWithDiskBuffer<RowMap> {
 	static final Logger LOGGER = LoggerFactory.getLogger(RowMapBuffer.class);
-	private static long FlushOutputStreamBytes = 10000000;
 	private Long xid;
 	private Long xoffset = 0L;
 	private Long serverId;
 	private Long threadId;
 	private Long schemaId;
 	private long memorySize = 0;
-	private long outputStreamCacheSize = 0;
 	private final long maxMemory;
 
+	private final Meter spilledRows, spilledBytes, unspilledRows, unspilledBytes;
+	private long spilledBytesMarked = 0, unspilledBytesMarked = 0;
+
 	public RowMapBuffer(long maxInMemoryElements) {
-		super(maxInMemoryElements);
-		this.maxMemory = (long) (Runtime.getRuntime().maxMemory() * 0.25);
+		this(maxInMemoryElements, (long) (Runtime.getRuntime().maxMemory() * 0.25));
 	}
 
 	public RowMapBuffer(long maxInMemoryElements, long maxMemory) {
-		super(maxInMemoryElements);
-		this.maxMemory = maxMemory;
+		this(maxInMemoryElements, maxMemory, false, null);
 	}
 
 	public RowMapBuffer(long maxInMemoryElements, float bufferMemoryUsage) {
-		super(maxInMemoryElements);
-		this.maxMemory = (long) (Runtime.getRuntime().maxMemory() * bufferMemoryUsage);
+		this(maxInMemoryElements, bufferMemoryUsage, false, null);
+	}
+
+	/**
+	 * @param compressSpill LZ4 compress rows spilled to disk
+	 * @param metrics where to report spill throughput, or null
+	 */
+	public RowMapBuffer(long maxInMemoryElements, float bufferMemoryUsage, boolean compressSpill, Metrics metrics) {
+		this(maxInMemoryElements, (long) (Runtime.getRuntime().maxMemory() * bufferMemoryUsage), compressSpill, metrics);
+	}
+
+	private RowMapBuffer(long maxInMemoryElements, long maxMemory, boolean compressSpill, Metrics metrics) {
+		super(maxInMemoryElements, new RowMapSpillCodec(), compressSpill);
+		this.maxMemory = maxMemory;
+
+		if ( metrics != null ) {
+			this.spilledRows = metrics.getRegistry().meter(metrics.metricName("buffer", "spill", "rows"));
+			this.spilledBytes = metrics.getRegistry().meter(metrics.metricName("buffer", "spill", "bytes"));
+			this.unspilledRows = metrics.getRegistry().meter(metrics.metricName("buffer", "unspill", "rows"));
+			this.unspilledBytes = metrics.getRegistry().meter(metrics.metricName("buffer", "unspill", "bytes"));
+		} else {
+			this.spilledRows = this.spilledBytes = this.unspilledRows = this.unspilledBytes = null;
+		}
 	}
 
 	@Override
@@ -49,21 +71,27 @@ public class RowMapBuffer extends ListWithDiskBuffer<RowMap> {
 		RowMap r = super.evict();
 		this.memorySize -= r.getApproximateSize();
 
-		/* For performance reasons, the output stream will hold on to cached objects.
-		 * There's probably a smarter thing to do (write our own serdes, maybe?), but
-		 * for now we forcibly flush its cache when it gets too big. */
-		this.outputStreamCacheSize += r.getApproximateSize();
-		if ( this.outputStreamCacheSize > FlushOutputStreamBytes ) {
-			resetOutputStreamCaches();
-			LOGGER.debug("outputStreamCacheSize: {}, memorySize: {}", this.outputStreamCacheSize, this.memorySize);
-			this.outputStreamCacheSize = 0;
+		if ( spilledRows != null ) {
+			spilledRows.mark();
+			long written = getBytesWritten();
+			spilledBytes.mark(written - spilledBytesMarked);
+			spilledBytesMarked = written;
 		}
 
 		return r;
 	}
 
 	public RowMap removeFirst() throws IOException, ClassNotFoundException {
+		boolean fromDisk = size() > inMemorySize();
 		RowMap r = super.removeFirst(RowMap.class);
+
+		if ( fromDisk && unspilledRows != null ) {
+			unspilledRows.mark();
+			long read = getBytesRead();
+			unspilledBytes.mark(read - unspilledBytesMarked);
+			unspilledBytesMarked = read;
+		}
+
 		r.setXid(this.xid);
 		r.setXoffset(this.xoffset++);
 		r.setServerId(this.serverId);
@@ -73,6 +101,13 @@ public class RowMapBuffer extends ListWithDiskBuffer<RowMap> {
 		return r;
 	}
 
+	/**
+	 * @return the xoffset of the next row out, ie. how many rows have been removed
+	 */
+	public long getXoffset() {
+		return this.xoffset;
+	}
+
 	public void setXid(Long xid) {
 		this.xid = xid;
 	}
@@ -0,0 +1,428 @@
+package com.zendesk.maxwell.row;
+
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.util.ListWithDiskBuffer;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+   the on-disk format of rows spilled out of a RowMapBuffer.
+
+   each row is a flat run of tagged, length-prefixed fields.  Names that
+   repeat from row to row -- databases, tables, column names, binlog files --
+   are written once and then referred to by a dictionary id, and a position
+   that's the same as the previous row's is written as a back-reference.
+
+   column values of the types ColumnDef produces get compact encodings;
+   anything else (say, an object a script stuck in there) falls back to java
+   serialization, as does any subclass of RowMap.
+
+   a codec is stateful: one instance writes, and a second one reads, exactly
+   one spill file, in order.
+ */
+public class RowMapSpillCodec implements ListWithDiskBuffer.ElementCodec<RowMap> {
+	private static final int MAX_DICTIONARY_SIZE = 65536;
+
+	private static final byte ROW_PLAIN = 1;
+	private static final byte ROW_SERIALIZED = 2;
+
+	private static final byte POSITION_NULL = 0;
+	private static final byte POSITION_SAME = 1;
+	private static final byte POSITION_NEW = 2;
+	private static final byte POSITION_CURRENT = 3;
+
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_STRING = 1;
+	private static final byte VALUE_LONG = 2;
+	private static final byte VALUE_INT = 3;
+	private static final byte VALUE_DOUBLE = 4;
+	private static final byte VALUE_FLOAT = 5;
+	private static final byte VALUE_TRUE = 6;
+	private static final byte VALUE_FALSE = 7;
+	private static final byte VALUE_BIG_DECIMAL = 8;
+	private static final byte VALUE_BIG_INTEGER = 9;
+	private static final byte VALUE_BYTES = 10;
+	private static final byte VALUE_LIST = 11;
+	private static final byte VALUE_RAW_JSON = 12;
+	private static final byte VALUE_SERIALIZED = 13;
+
+	private static final int FLAG_SUPPRESSED = 1;
+	private static final int FLAG_TX_COMMIT = 2;
+
+	// name references: 0 is an inline name, 1 a name that's also added to the dictionary,
+	// anything else a dictionary id + 2
+	private final HashMap<String, Integer> writeDictionary = new HashMap<>();
+	private final List<String> readDictionary = new ArrayList<>();
+
+	private Position lastWrittenPosition;
+	private Position lastReadPosition;
+
+	@Override
+	public void write(DataOutputStream out, RowMap r) throws IOException {
+		if ( r.getClass() != RowMap.class ) {
+			out.writeByte(ROW_SERIALIZED);
+			writeSerialized(out, r);
+			return;
+		}
+
+		out.writeByte(ROW_PLAIN);
+		writeName(out, r.getRowType());
+		writeName(out, r.getDatabase());
+		writeName(out, r.getTable());
+		writeVarLong(out, r.getTimestampMillis());
+
+		List<String> pkColumns = r.getPrimaryKeyColumns();
+		writeVarLong(out, pkColumns.size());
+		for ( String pk : pkColumns )
+			writeName(out, pk);
+
+		writePosition(out, r.getPosition(), null);
+		writePosition(out, r.getNextPosition(), r.getPosition());
+
+		int flags = 0;
+		if ( r.suppressed )
+			flags |= FLAG_SUPPRESSED;
+		if ( r.isTXCommit() )
+			flags |= FLAG_TX_COMMIT;
+		out.writeByte(flags);
+
+		writeNullableString(out, r.getRowQuery());
+		writeNullableString(out, r.getKafkaTopic());
+		writeNullableString(out, r.getPartitionString());
+		writeNullableString(out, r.getComment());
+
+		writeValue(out, r.getXid());
+		writeValue(out, r.getXoffset());
+		writeValue(out, r.getServerId());
+		writeValue(out, r.getThreadId());
+		writeValue(out, r.getSchemaId());
+
+		writeMap(out, r.getData());
+		writeMap(out, r.getOldData());
+		writeMap(out, r.getExtraAttributes());
+	}
+
+	@Override
+	public RowMap read(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		if ( kind == ROW_SERIALIZED )
+			return (RowMap) readSerialized(in);
+		else if ( kind != ROW_PLAIN )
+			throw new StreamCorruptedException("unknown spilled row type: " + kind);
+
+		String rowType = readName(in);
+		String database = readName(in);
+		String table = readName(in);
+		long timestampMillis = readVarLong(in);
+
+		int nPK = (int) readVarLong(in);
+		List<String> pkColumns = new ArrayList<>(nPK);
+		for ( int i = 0; i < nPK; i++ )
+			pkColumns.add(readName(in));
+
+		Position position = readPosition(in, null);
+		Position nextPosition = readPosition(in, position);
+
+		int flags = in.readByte();
+		String rowQuery = readNullableString(in);
+
+		RowMap r = new RowMap(rowType, database, table, timestampMillis, pkColumns, position, nextPosition, rowQuery);
+		if ( (flags & FLAG_SUPPRESSED) != 0 )
+			r.suppress();
+		if ( (flags & FLAG_TX_COMMIT) != 0 )
+			r.setTXCommit();
+
+		r.setKafkaTopic(readNullableString(in));
+		r.setPartitionString(readNullableString(in));
+		r.setComment(readNullableString(in));
+
+		r.setXid((Long) readValue(in));
+		r.setXoffset((Long) readValue(in));
+		r.setServerId((Long) readValue(in));
+		r.setThreadId((Long) readValue(in));
+		r.setSchemaId((Long) readValue(in));
+
+		int n = (int) readVarLong(in);
+		for ( int i = 0; i < n; i++ )
+			r.putData(readName(in), readValue(in));
+
+		n = (int) readVarLong(in);
+		for ( int i = 0; i < n; i++ )
+			r.putOldData(readName(in), readValue(in));
+
+		n = (int) readVarLong(in);
+		for ( int i = 0; i < n; i++ )
+			r.putExtraAttribute(readName(in), readValue(in));
+
+		return r;
+	}
+
+	private void writeMap(DataOutputStream out, Map<String, Object> map) throws IOException {
+		writeVarLong(out, map.size());
+		for ( Map.Entry<String, Object> e : map.entrySet() ) {
+			writeName(out, e.getKey());
+			writeValue(out, e.getValue());
+		}
+	}
+
+	private static boolean samePosition(Position a, Position b) {
+		return a.equals(b) && Objects.equals(a.getBinlogPosition().getGtid(), b.getBinlogPosition().getGtid());
+	}
+
+	/*
+	   @param current the row's position, when writing its next position
+	 */
+	private void writePosition(DataOutputStream out, Position p, Position current) throws IOException {
+		if ( p == null ) {
+			out.writeByte(POSITION_NULL);
+			return;
+		}
+
+		if ( p == current ) {
+			out.writeByte(POSITION_CURRENT);
+			return;
+		}
+
+		if ( lastWrittenPosition != null && samePosition(p, lastWrittenPosition) ) {
+			out.writeByte(POSITION_SAME);
+			return;
+		}
+
+		BinlogPosition bp = p.getBinlogPosition();
+		out.writeByte(POSITION_NEW);
+		writeVarLong(out, p.getLastHeartbeatRead());
+		writeName(out, bp.getFile());
+		writeVarLong(out, bp.getOffset());
+		writeNullableString(out, bp.getGtid());
+		writeNullableString(out, bp.getGtidSetStr());
+		lastWrittenPosition = p;
+	}
+
+	private Position readPosition(DataInputStream in, Position current) throws IOException {
+		byte kind = in.readByte();
+		switch ( kind ) {
+			case POSITION_NULL:
+				return null;
+			case POSITION_CURRENT:
+				return current;
+			case POSITION_SAME:
+				return lastReadPosition;
+			case POSITION_NEW:
+				long lastHeartbeat = readVarLong(in);
+				String file = readName(in);
+				long offset = readVarLong(in);
+				String gtid = readNullableString(in);
+				String gtidSetStr = readNullableString(in);
+				lastReadPosition = new Position(new BinlogPosition(gtidSetStr, gtid, offset, file), lastHeartbeat);
+				return lastReadPosition;
+			default:
+				throw new StreamCorruptedException("unknown spilled position type: " + kind);
+		}
+	}
+
+	private void writeName(DataOutputStream out, String name) throws IOException {
+		Integer id = writeDictionary.get(name);
+		if ( id != null ) {
+			writeVarLong(out, id + 2);
+		} else if ( writeDictionary.size() < MAX_DICTIONARY_SIZE ) {
+			writeDictionary.put(name, writeDictionary.size());
+			writeVarLong(out, 1);
+			writeString(out, name);
+		} else {
+			writeVarLong(out, 0);
+			writeString(out, name);
+		}
+	}
+
+	private String readName(DataInputStream in) throws IOException {
+		long ref = readVarLong(in);
+		if ( ref == 0 )
+			return readString(in);
+
+		if ( ref == 1 ) {
+			String name = readString(in);
+			readDictionary.add(name);
+			return name;
+		}
+
+		return readDictionary.get((int) (ref - 2));
+	}
+
+	private void writeValue(DataOutputStream out, Object value) throws IOException {
+		if ( value == null ) {
+			out.writeByte(VALUE_NULL);
+		} else if ( value instanceof String ) {
+			out.writeByte(VALUE_STRING);
+			writeString(out, (String) value);
+		} else if ( value instanceof Long ) {
+			out.writeByte(VALUE_LONG);
+			writeVarLong(out, zigZag((Long) value));
+		} else if ( value instanceof Integer ) {
+			out.writeByte(VALUE_INT);
+			writeVarLong(out, zigZag((Integer) value));
+		} else if ( value instanceof Double ) {
+			out.writeByte(VALUE_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if ( value instanceof Float ) {
+			out.writeByte(VALUE_FLOAT);
+			out.writeFloat((Float) value);
+		} else if ( value instanceof Boolean ) {
+			out.writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+		} else if ( value instanceof BigDecimal ) {
+			BigDecimal d = (BigDecimal) value;
+			out.writeByte(VALUE_BIG_DECIMAL);
+			writeVarLong(out, zigZag(d.scale()));
+			writeBytes(out, d.unscaledValue().toByteArray());
+		} else if ( value instanceof BigInteger ) {
+			out.writeByte(VALUE_BIG_INTEGER);
+			writeBytes(out, ((BigInteger) value).toByteArray());
+		} else if ( value instanceof byte[] ) {
+			out.writeByte(VALUE_BYTES);
+			writeBytes(out, (byte[]) value);
+		} else if ( value instanceof RawJSONString ) {
+			out.writeByte(VALUE_RAW_JSON);
+			writeString(out, ((RawJSONString) value).json);
+		} else if ( value.getClass() == ArrayList.class ) {
+			List<?> list = (List<?>) value;
+			out.writeByte(VALUE_LIST);
+			writeVarLong(out, list.size());
+			for ( Object o : list )
+				writeValue(out, o);
+		} else {
+			out.writeByte(VALUE_SERIALIZED);
+			writeSerialized(out, value);
+		}
+	}
+
+	private Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch ( type ) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_STRING:
+				return readString(in);
+			case VALUE_LONG:
+				return unZigZag(readVarLong(in));
+			case VALUE_INT:
+				return (int) unZigZag(readVarLong(in));
+			case VALUE_DOUBLE:
+				return in.readDouble();
+			case VALUE_FLOAT:
+				return in.readFloat();
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			case VALUE_BIG_DECIMAL:
+				int scale = (int) unZigZag(readVarLong(in));
+				return new BigDecimal(new BigInteger(readBytes(in)), scale);
+			case VALUE_BIG_INTEGER:
+				return new BigInteger(readBytes(in));
+			case VALUE_BYTES:
+				return readBytes(in);
+			case VALUE_RAW_JSON:
+				return new RawJSONString(readString(in));
+			case VALUE_LIST:
+				int n = (int) readVarLong(in);
+				ArrayList<Object> list = new ArrayList<>(n);
+				for ( int i = 0; i < n; i++ )
+					list.add(readValue(in));
+				return list;
+			case VALUE_SERIALIZED:
+				return readSerialized(in);
+			default:
+				throw new StreamCorruptedException("unknown spilled value type: " + type);
+		}
+	}
+
+	private static void writeSerialized(DataOutputStream out, Object o) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try ( ObjectOutputStream os = new ObjectOutputStream(bytes) ) {
+			os.writeObject(o);
+		}
+		writeBytes(out, bytes.toByteArray());
+	}
+
+	private static Object readSerialized(DataInputStream in) throws IOException {
+		try ( ObjectInputStream is = new ObjectInputStream(new ByteArrayInputStream(readBytes(in))) ) {
+			return is.readObject();
+		} catch ( ClassNotFoundException e ) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void writeNullableString(DataOutputStream out, String s) throws IOException {
+		if ( s == null ) {
+			writeVarLong(out, 0);
+		} else {
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(out, b.length + 1);
+			out.write(b);
+		}
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		int len = (int) readVarLong(in);
+		if ( len == 0 )
+			return null;
+
+		byte[] b = new byte[len - 1];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return new String(readBytes(in), StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+		writeVarLong(out, b.length);
+		out.write(b);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] b = new byte[(int) readVarLong(in)];
+		in.readFully(b);
+		return b;
+	}
+
+	private static long zigZag(long l) {
+		return (l << 1) ^ (l >> 63);
+	}
+
+	private static long unZigZag(long l) {
+		return (l >>> 1) ^ -(l & 1);
+	}
+
+	static void writeVarLong(DataOutputStream out, long l) throws IOException {
+		while ( (l & ~0x7FL) != 0 ) {
+			out.writeByte((int) ((l & 0x7F) | 0x80));
+			l >>>= 7;
+		}
+		out.writeByte((int) l);
+	}
+
+	static long readVarLong(DataInputStream in) throws IOException {
+		long l = 0;
+		for ( int shift = 0; shift < 64; shift += 7 ) {
+			byte b = in.readByte();
+			l |= (long) (b & 0x7F) << shift;
+			if ( (b & 0x80) == 0 )
+				return l;
+		}
+		throw new StreamCorruptedException("malformed varint");
+	}
+}
@@ -0,0 +1,154 @@
+package com.zendesk.maxwell.row;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+   everything RowMap#toJSON works out from the output config and the
+   table's columns, worked out once: field names run through the naming
+   strategy and pre-encoded for jackson, and the set of columns that
+   exclude_columns removes.
+
+   plans for binlog rows live in the TableCache and are dropped along
+   with it on DDL.  A plan is immutable once built, and may be shared
+   between producer threads.
+ */
+public class RowOutputPlan {
+	private static volatile RowOutputPlan lastTablelessPlan;
+
+	private final MaxwellOutputConfig outputConfig;
+	private final String namingStrategy;
+	private final List<Pattern> excludeColumns;
+	private final int excludeColumnsSize;
+	private final FieldNameStrategy fieldNameStrategy;
+
+	final SerializableString database, table, query, type, timestamp;
+	final SerializableString transactionId, transactionOffset, commit;
+	final SerializableString position, gtid, serverId, threadId, schemaId, pushTimestamp;
+	final SerializableString primaryKey, primaryKeyColumns, data, old;
+
+	private final Map<String, SerializableString> columnNames;
+	private final Set<String> excludedColumns;
+
+	private RowOutputPlan(MaxwellOutputConfig outputConfig, Table t) {
+		this.outputConfig = outputConfig;
+		this.namingStrategy = outputConfig.namingStrategy;
+		this.excludeColumns = outputConfig.excludeColumns;
+		this.excludeColumnsSize = outputConfig.excludeColumns.size();
+		this.fieldNameStrategy = new FieldNameStrategy(outputConfig.namingStrategy);
+
+		this.database = name(FieldNames.DATABASE);
+		this.table = name(FieldNames.TABLE);
+		this.query = name(FieldNames.QUERY);
+		this.type = name(FieldNames.TYPE);
+		this.timestamp = name(FieldNames.TIMESTAMP);
+		this.transactionId = name(FieldNames.TRANSACTION_ID);
+		this.transactionOffset = name(FieldNames.TRANSACTION_OFFSET);
+		this.commit = name(FieldNames.COMMIT);
+		this.position = name(FieldNames.POSITION);
+		this.gtid = name(FieldNames.GTID);
+		this.serverId = name(FieldNames.SERVER_ID);
+		this.threadId = name(FieldNames.THREAD_ID);
+		this.schemaId = name(FieldNames.SCHEMA_ID);
+		this.pushTimestamp = name(FieldNames.PUSH_TS);
+		this.primaryKey = name(FieldNames.PRIMARY_KEY);
+		this.primaryKeyColumns = name(FieldNames.PRIMARY_KEY_COLUMNS);
+		this.data = name(FieldNames.DATA);
+		this.old = name(FieldNames.OLD);
+
+		this.columnNames = new HashMap<>();
+		this.excludedColumns = new HashSet<>();
+		if ( t != null ) {
+			for ( ColumnDef cd : t.getColumnList() ) {
+				columnNames.put(cd.getName(), name(cd.getName()));
+				if ( matchesExcludePattern(cd.getName()) )
+					excludedColumns.add(cd.getName());
+			}
+		}
+	}
+
+	/**
+	 * Compile a plan for rows of the given table
+	 */
+	public static RowOutputPlan compile(MaxwellOutputConfig outputConfig, Table table) {
+		return new RowOutputPlan(outputConfig, table);
+	}
+
+	/**
+	 * A plan that knows no columns, for rows built outside of the replicator.
+	 * The most recent one is reused while the output config stays the same.
+	 */
+	public static RowOutputPlan forConfig(MaxwellOutputConfig outputConfig) {
+		RowOutputPlan plan = lastTablelessPlan;
+		if ( plan == null || !plan.isFor(outputConfig) ) {
+			plan = new RowOutputPlan(outputConfig, null);
+			lastTablelessPlan = plan;
+		}
+		return plan;
+	}
+
+	/**
+	 * Was this plan compiled from this output config, as it is now?
+	 */
+	public boolean isFor(MaxwellOutputConfig config) {
+		return config == outputConfig
+			&& Objects.equals(config.namingStrategy, namingStrategy)
+			&& config.excludeColumns == excludeColumns
+			&& config.excludeColumns.size() == excludeColumnsSize;
+	}
+
+	private SerializableString name(String fieldName) {
+		return new SerializedString(fieldNameStrategy.apply(fieldName));
+	}
+
+	/**
+	 * The output name of a data key.
+	 */
+	public SerializableString columnName(String key) {
+		SerializableString s = columnNames.get(key);
+		if ( s != null )
+			return s;
+
+		// a key the table doesn't know about, eg. one added by a script.
+		// FieldNameStrategy's cache isn't thread-safe.
+		synchronized ( fieldNameStrategy ) {
+			return name(key);
+		}
+	}
+
+	private boolean matchesExcludePattern(String key) {
+		for ( Pattern p : excludeColumns ) {
+			if ( p.matcher(key).matches() )
+				return true;
+		}
+		return false;
+	}
+
+	public boolean hasExcludedColumns() {
+		return excludeColumnsSize > 0;
+	}
+
+	/**
+	 * Does exclude_columns remove this data key from the output?
+	 */
+	public boolean isExcluded(String key) {
+		if ( excludeColumnsSize == 0 )
+			return false;
+
+		if ( columnNames.containsKey(key) )
+			return excludedColumns.contains(key);
+
+		return matchesExcludePattern(key);
+	}
+}
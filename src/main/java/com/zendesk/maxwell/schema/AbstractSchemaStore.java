@@ -7,12 +7,14 @@ import java.util.ArrayList;
 
 import com.zendesk.maxwell.CaseSensitivity;
 import com.zendesk.maxwell.filtering.Filter;
+import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.util.ConnectionPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.zendesk.maxwell.MaxwellContext;
 import com.zendesk.maxwell.schema.ddl.SchemaChange;
+import com.zendesk.maxwell.schema.ddl.SchemaChangeCache;
 import com.zendesk.maxwell.schema.ddl.ResolvedSchemaChange;
 import com.zendesk.maxwell.schema.ddl.InvalidSchemaError;
 
@@ -23,6 +25,11 @@ public abstract class AbstractSchemaStore {
 	protected final CaseSensitivity caseSensitivity;
 	private final Filter filter;
 
+	private int captureThreads = 1;
+	private int captureDatabasesPerQuery = 1;
+	private Metrics metrics;
+	private SchemaChangeCache parseCache;
+
 	protected AbstractSchemaStore(ConnectionPool replicationConnectionPool,
 								  ConnectionPool schemaConnectionPool,
 								  CaseSensitivity caseSensitivity,
@@ -37,16 +44,38 @@ public abstract class AbstractSchemaStore {
 		this(context.getReplicationConnectionPool(), context.getSchemaConnectionPool(), context.getCaseSensitivity(), context.getFilter());
 	}
 
+	protected void setCaptureOptions(int threads, int databasesPerQuery, Metrics metrics) {
+		this.captureThreads = threads;
+		this.captureDatabasesPerQuery = databasesPerQuery;
+		this.metrics = metrics;
+	}
+
+	protected void setParseCache(SchemaChangeCache parseCache) {
+		this.parseCache = parseCache;
+	}
+
 	protected Schema captureSchema() throws SQLException {
 		LOGGER.info("Maxwell is capturing initial schema");
+		long startTime = System.currentTimeMillis();
 		try(Connection connection = schemaConnectionPool.getConnection();
 			SchemaCapturer capturer = new SchemaCapturer(connection, caseSensitivity)) {
-			return capturer.capture();
+			capturer.setParallelism(schemaConnectionPool, captureThreads);
+			capturer.setDatabasesPerQuery(captureDatabasesPerQuery);
+			if ( metrics != null )
+				capturer.setMetrics(metrics);
+
+			Schema schema = capturer.capture();
+			LOGGER.info("captured schema in " + (System.currentTimeMillis() - startTime) + "ms");
+			return schema;
 		}
 	}
 
 	protected List<ResolvedSchemaChange> resolveSQL(Schema schema, String sql, String currentDatabase) throws InvalidSchemaError {
-		List<SchemaChange> changes = SchemaChange.parse(currentDatabase, sql);
+		List<SchemaChange> changes;
+		if ( parseCache != null )
+			changes = parseCache.parse(currentDatabase, sql);
+		else
+			changes = SchemaChange.parse(currentDatabase, sql);
 
 		if ( changes == null || changes.size() == 0 )
 			return new ArrayList<>();
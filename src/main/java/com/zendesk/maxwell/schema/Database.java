@@ -1,6 +1,8 @@
 package com.zendesk.maxwell.schema;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 import com.zendesk.maxwell.CaseSensitivity;
@@ -10,16 +12,25 @@ import com.zendesk.maxwell.schema.ddl.InvalidSchemaError;
 public class Database {
 	private final String name;
 	private final List<Table> tableList;
+	/*
+	   index into tableList, keyed by table name as normalized for the
+	   server's case sensitivity.  Names that normalize alike (say, tables
+	   captured before the sensitivity was known) stay in the list, and the
+	   first of them is the one found, as a scan of the list would.
+	 */
+	private HashMap<String, Table> tableMap;
 	private String charset;
 	private CaseSensitivity sensitivity;
 
 	public Database(String name, List<Table> tables, String charset) {
 		this.name = name;
-		if ( tables == null )
-			this.tableList = new ArrayList<>();
-		else
-			this.tableList = tables;
+		this.tableList = new ArrayList<>();
+		this.tableMap = new HashMap<>();
 		this.charset = charset;
+		if ( tables != null ) {
+			for ( Table t : tables )
+				addTable(t);
+		}
 	}
 
 	public Database(String name, String charset) {
@@ -27,26 +38,22 @@ public class Database {
 	}
 
 	public List<String> getTableNames() {
-		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<String> names = new ArrayList<String>(this.tableList.size());
 		for ( Table t : this.tableList ) {
 			names.add(t.getName());
 		}
 		return names;
 	}
 
-	private boolean compareTableNames(String a, String b) {
-		if ( sensitivity == CaseSensitivity.CASE_SENSITIVE )
-			return a.equals(b);
+	private String getNormalizedTableName(String tableName) {
+		if ( tableName == null || sensitivity == CaseSensitivity.CASE_SENSITIVE )
+			return tableName;
 		else
-			return a.toLowerCase().equals(b.toLowerCase());
+			return tableName.toLowerCase();
 	}
 
 	public Table findTable(String name) {
-		for ( Table t: this.tableList ) {
-			if ( compareTableNames(name, t.getName()))
-				return t;
-		}
-		return null;
+		return this.tableMap.get(getNormalizedTableName(name));
 	}
 
 	public Table findTableOrThrow(String table) throws InvalidSchemaError {
@@ -62,13 +69,23 @@ public class Database {
 	}
 
 	public void removeTable(String name) {
-		Table t = findTable(name);
-		if ( t != null )
-			tableList.remove(t);
+		String key = getNormalizedTableName(name);
+		Table t = this.tableMap.remove(key);
+		if ( t == null )
+			return;
+
+		this.tableList.remove(t);
+		for ( Table other : this.tableList ) {
+			if ( key.equals(getNormalizedTableName(other.getName())) ) {
+				this.tableMap.put(key, other);
+				break;
+			}
+		}
 	}
 
 	public Database copy() {
 		Database d = new Database(this.name, this.charset);
+		d.setSensitivity(this.sensitivity);
 		for ( Table t: this.tableList ) {
 			d.addTable(t.copy());
 		}
@@ -113,12 +130,22 @@ public class Database {
 	}
 
 	public List<Table> getTableList() {
-		return tableList;
+		return Collections.unmodifiableList(this.tableList);
 	}
 
+	/*
+	  tables are indexed by name as they're added; a table that's already
+	  in the database must not be renamed in place.  Remove it and add the
+	  renamed copy instead, as ALTER TABLE ... RENAME does.
+	 */
 	public void addTable(Table table) {
 		table.setDatabase(this.name);
+		indexTable(table);
+	}
+
+	private void indexTable(Table table) {
 		this.tableList.add(table);
+		this.tableMap.putIfAbsent(getNormalizedTableName(table.getName()), table);
 	}
 
 	public Table buildTable(String name, String charset, List<ColumnDef> list, List<String> pks) {
@@ -129,7 +156,7 @@ public class Database {
 			name = name.toLowerCase();
 
 		Table t = new Table(this.name, name, charset, list, pks);
-		this.tableList.add(t);
+		indexTable(t);
 		return t;
 	}
 
@@ -138,6 +165,13 @@ public class Database {
 	}
 
 	public void setSensitivity(CaseSensitivity sensitivity) {
+		if ( sensitivity == this.sensitivity )
+			return;
+
+		// tables may have been added before the database joined a schema; re-key them.
 		this.sensitivity = sensitivity;
+		this.tableMap = new HashMap<>(Math.max(16, this.tableList.size() * 2));
+		for ( Table t : this.tableList )
+			this.tableMap.putIfAbsent(getNormalizedTableName(t.getName()), t);
 	}
 }
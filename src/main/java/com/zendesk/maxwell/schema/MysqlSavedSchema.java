@@ -4,6 +4,7 @@ import java.sql.*;
 import java.util.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import com.github.shyiko.mysql.binlog.GtidSet;
 
@@ -51,6 +52,7 @@ public class MysqlSavedSchema {
 	private final Long serverID;
 
 	private boolean shouldSnapshotNextSchema = false;
+	private boolean binarySnapshots = false;
 
 	public MysqlSavedSchema(Long serverID, CaseSensitivity sensitivity) throws SQLException {
 		this.serverID = serverID;
@@ -76,10 +78,24 @@ public class MysqlSavedSchema {
 	}
 
 	public MysqlSavedSchema createDerivedSchema(Schema newSchema, Position position, List<ResolvedSchemaChange> deltas) throws SQLException {
+		MysqlSavedSchema derived;
 		if ( this.shouldSnapshotNextSchema )
-			return new MysqlSavedSchema(this.serverID, this.sensitivity, newSchema, position);
+			derived = new MysqlSavedSchema(this.serverID, this.sensitivity, newSchema, position);
 		else
-			return new MysqlSavedSchema(this.serverID, this.sensitivity, newSchema, position, this.schemaID, deltas);
+			derived = new MysqlSavedSchema(this.serverID, this.sensitivity, newSchema, position, this.schemaID, deltas);
+
+		derived.setBinarySnapshots(this.binarySnapshots);
+		return derived;
+	}
+
+	/**
+	 * Save full schemas as one compressed blob in `schema_snapshots`
+	 * instead of rows in `databases`, `tables` and `columns`.
+	 * Restores read either format.
+	 * @param binarySnapshots whether to write binary snapshots
+	 */
+	public void setBinarySnapshots(boolean binarySnapshots) {
+		this.binarySnapshots = binarySnapshots;
 	}
 
 	public Long getSchemaID() {
@@ -197,6 +213,10 @@ public class MysqlSavedSchema {
 	}
 
 	public void saveFullSchema(Connection conn, Long schemaId) throws SQLException {
+		if ( this.binarySnapshots ) {
+			saveSchemaSnapshot(conn, schemaId);
+			return;
+		}
 
 		try ( PreparedStatement databaseInsert = conn.prepareStatement(
 				"INSERT INTO `databases` SET schema_id = ?, name = ?, charset=?",
@@ -268,6 +288,23 @@ public class MysqlSavedSchema {
 		}
 	}
 
+	private void saveSchemaSnapshot(Connection conn, Long schemaId) throws SQLException {
+		long startTime = System.currentTimeMillis();
+		byte[] data;
+		try {
+			data = SchemaSnapshot.toBytes(schema);
+		} catch ( IOException e ) {
+			throw new SQLException(e);
+		}
+
+		try ( PreparedStatement insert = conn.prepareStatement("INSERT INTO `schema_snapshots` SET schema_id = ?, data = ?") ) {
+			insert.setLong(1, schemaId);
+			insert.setBytes(2, data);
+			insert.executeUpdate();
+		}
+		LOGGER.info("saved schema snapshot for schema id " + schemaId + " (" + data.length + " bytes) in " + (System.currentTimeMillis() - startTime) + "ms");
+	}
+
 	private void executeColumnInsert(Connection conn, ArrayList<Object> columnData) throws SQLException {
 		String insertColumnSQL = this.columnInsertSQL;
 
@@ -441,7 +478,30 @@ public class MysqlSavedSchema {
 	}
 
 
+	/* returns false if the schema was saved as rows, not as a snapshot */
+	private boolean restoreSchemaSnapshot(Connection conn) throws SQLException {
+		try ( PreparedStatement p = conn.prepareStatement("SELECT data from `schema_snapshots` where schema_id = ?") ) {
+			p.setLong(1, this.schemaID);
+			try ( ResultSet rs = p.executeQuery() ) {
+				if ( !rs.next() )
+					return false;
+
+				long startTime = System.currentTimeMillis();
+				try ( InputStream in = rs.getBinaryStream("data") ) {
+					SchemaSnapshot.readInto(in, this.schema);
+				} catch ( IOException e ) {
+					throw new SQLException("couldn't read schema snapshot for schema id " + this.schemaID, e);
+				}
+				LOGGER.info("restored schema snapshot in " + (System.currentTimeMillis() - startTime) + "ms");
+				return true;
+			}
+		}
+	}
+
 	private void restoreFullSchema(Connection conn, Long schemaID) throws SQLException, InvalidSchemaError {
+		if ( restoreSchemaSnapshot(conn) )
+			return;
+
 		String sql =
 				"SELECT " +
 						"d.id AS dbId," +
@@ -22,6 +22,7 @@ public class MysqlSchemaCompactor extends RunLoopProcess {
 	private final Long serverID;
 	private final CaseSensitivity sensitivity;
 	private final int maxDeltas;
+	private final boolean binarySnapshots;
 
 	public MysqlSchemaCompactor(
 			int maxDeltas,
@@ -29,12 +30,24 @@ public class MysqlSchemaCompactor extends RunLoopProcess {
 			String clientID,
 			Long serverID,
 			CaseSensitivity sensitivity
+	) {
+		this(maxDeltas, maxwellConnectionPool, clientID, serverID, sensitivity, false);
+	}
+
+	public MysqlSchemaCompactor(
+			int maxDeltas,
+			ConnectionPool maxwellConnectionPool,
+			String clientID,
+			Long serverID,
+			CaseSensitivity sensitivity,
+			boolean binarySnapshots
 	) {
 		this.maxDeltas = maxDeltas;
 		this.maxwellConnectionPool = maxwellConnectionPool;
 		this.clientID = clientID;
 		this.serverID = serverID;
 		this.sensitivity = sensitivity;
+		this.binarySnapshots = binarySnapshots;
 	}
 
 	@Override
@@ -151,6 +164,7 @@ public class MysqlSchemaCompactor extends RunLoopProcess {
 			begin.execute("BEGIN");
 
 			MysqlSavedSchema savedSchema = MysqlSavedSchema.restoreFromSchemaID(schemaID, cx, this.sensitivity);
+			savedSchema.setBinarySnapshots(this.binarySnapshots);
 			savedSchema.saveFullSchema(cx, schemaID);
 			update.executeUpdate("update `schemas` set `base_schema_id` = null, `deltas` = null where `id` = " + schemaID);
 
@@ -183,6 +197,7 @@ public class MysqlSchemaCompactor extends RunLoopProcess {
 		slowDeleteFrom("columns", cx, schemaID);
 		slowDeleteFrom("tables", cx, schemaID);
 		slowDeleteFrom("databases", cx, schemaID);
+		slowDeleteFrom("schema_snapshots", cx, schemaID);
 		try ( Statement s = cx.createStatement() ) {
 			s.executeUpdate("delete from `schemas` where id = " + schemaID);
 		}
@@ -6,6 +6,7 @@ import com.zendesk.maxwell.filtering.Filter;
 import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.schema.ddl.InvalidSchemaError;
 import com.zendesk.maxwell.schema.ddl.ResolvedSchemaChange;
+import com.zendesk.maxwell.schema.ddl.SchemaChangeCache;
 import com.zendesk.maxwell.util.ConnectionPool;
 
 import java.sql.Connection;
@@ -20,6 +21,7 @@ public class MysqlSchemaStore extends AbstractSchemaStore implements SchemaStore
 	private final Position initialPosition;
 	private final boolean readOnly;
 	private Long serverID;
+	private boolean binarySnapshots = false;
 
 	private MysqlSavedSchema savedSchema;
 
@@ -49,6 +51,15 @@ public class MysqlSchemaStore extends AbstractSchemaStore implements SchemaStore
 			context.getFilter(),
 			context.getReplayMode()
 		);
+		this.binarySnapshots = context.getConfig().binarySchemaSnapshots;
+		setCaptureOptions(
+			context.getConfig().schemaCaptureThreads,
+			context.getConfig().schemaCaptureDatabasesPerQuery,
+			context.getMetrics()
+		);
+
+		if ( context.getConfig().ddlParseCacheSize > 0 )
+			setParseCache(new SchemaChangeCache(context.getConfig().ddlParseCacheSize, context.getMetrics()));
 	}
 
 	public Schema getSchema() throws SchemaStoreException {
@@ -69,6 +80,8 @@ public class MysqlSchemaStore extends AbstractSchemaStore implements SchemaStore
 
 			if ( savedSchema == null ) {
 				savedSchema = captureAndSaveSchema();
+			} else {
+				savedSchema.setBinarySnapshots(binarySnapshots);
 			}
 
 			return savedSchema;
@@ -82,6 +95,7 @@ public class MysqlSchemaStore extends AbstractSchemaStore implements SchemaStore
 	public MysqlSavedSchema captureAndSaveSchema() throws SQLException {
 		try ( Connection conn = maxwellConnectionPool.getConnection() ) {
 			MysqlSavedSchema savedSchema = new MysqlSavedSchema(serverID, caseSensitivity, captureSchema(), initialPosition);
+			savedSchema.setBinarySnapshots(binarySnapshots);
 			if (!readOnly)
 				if (conn.isValid(30)) {
 					savedSchema.save(conn);
@@ -1,10 +1,16 @@
 package com.zendesk.maxwell.schema;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
 import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.monitoring.Metrics;
 import com.zendesk.maxwell.schema.columndef.ColumnDef;
 import com.zendesk.maxwell.schema.columndef.JsonColumnDef;
 import com.zendesk.maxwell.schema.columndef.StringColumnDef;
 import com.zendesk.maxwell.schema.ddl.InvalidSchemaError;
+import com.zendesk.maxwell.util.ConnectionPool;
 import com.zendesk.maxwell.util.Sql;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +22,12 @@ import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,10 +44,15 @@ public class SchemaCapturer implements AutoCloseable {
 
 	private final CaseSensitivity sensitivity;
 	private final boolean isMySQLAtLeast56;
-	private final PreparedStatement tablePreparedStatement;
-	private final PreparedStatement columnPreparedStatement;
-	private final PreparedStatement pkPreparedStatement;
+	private final String dateTimePrecision;
 
+	private ConnectionPool connectionPool;
+	private int threads = 1;
+	private int databasesPerQuery = 1;
+
+	private Counter capturedDatabases;
+	private Counter capturedTables;
+	private Timer captureTime;
 
 	public SchemaCapturer(Connection c, CaseSensitivity sensitivity) throws SQLException {
 		this(c, sensitivity, Collections.emptySet(), Collections.emptySet());
@@ -48,43 +65,7 @@ public class SchemaCapturer implements AutoCloseable {
 		this.sensitivity = sensitivity;
 
 		this.isMySQLAtLeast56 = isMySQLAtLeast56();
-		String dateTimePrecision = "";
-		if (isMySQLAtLeast56) {
-			dateTimePrecision = "DATETIME_PRECISION, ";
-		}
-
-		String tblSql = "SELECT TABLES.TABLE_NAME, CCSA.CHARACTER_SET_NAME "
-				+ "FROM INFORMATION_SCHEMA.TABLES "
-				+ "LEFT JOIN information_schema.COLLATION_CHARACTER_SET_APPLICABILITY AS CCSA"
-				+ " ON TABLES.TABLE_COLLATION = CCSA.COLLATION_NAME WHERE TABLES.TABLE_SCHEMA = ? ";
-
-		if (!includeTables.isEmpty()) {
-			tblSql += " AND TABLES.TABLE_NAME IN " + Sql.inListSQL(includeTables.size());
-		}
-		tablePreparedStatement = connection.prepareStatement(tblSql);
-
-		String columnSql = "SELECT " +
-				"TABLE_NAME," +
-				"COLUMN_NAME, " +
-				"DATA_TYPE, " +
-				"CHARACTER_SET_NAME, " +
-				"ORDINAL_POSITION, " +
-				"COLUMN_TYPE, " +
-				dateTimePrecision +
-				"COLUMN_KEY " +
-				"FROM `information_schema`.`COLUMNS` WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, ORDINAL_POSITION";
-
-		columnPreparedStatement = connection.prepareStatement(columnSql);
-
-		String pkSQl = "SELECT " +
-				"TABLE_NAME, " +
-				"COLUMN_NAME, " +
-				"ORDINAL_POSITION " +
-				"FROM information_schema.KEY_COLUMN_USAGE " +
-				"WHERE CONSTRAINT_NAME = 'PRIMARY' AND TABLE_SCHEMA = ? " +
-				"ORDER BY TABLE_NAME, ORDINAL_POSITION";
-
-		pkPreparedStatement = connection.prepareStatement(pkSQl);
+		this.dateTimePrecision = isMySQLAtLeast56 ? "DATETIME_PRECISION, " : "";
 	}
 
 	public SchemaCapturer(Connection c, CaseSensitivity sensitivity, String dbName) throws SQLException {
@@ -95,8 +76,36 @@ public class SchemaCapturer implements AutoCloseable {
 		this(c, sensitivity, Collections.singleton(dbName), Collections.singleton(tblName));
 	}
 
+	/**
+	 * Capture databases on up to `threads` connections at once: the one this
+	 * capturer was built with, plus connections borrowed from `pool`.
+	 * @param pool where to get the extra connections
+	 * @param threads how many databases (or batches of them) to capture at once
+	 */
+	public void setParallelism(ConnectionPool pool, int threads) {
+		this.connectionPool = pool;
+		this.threads = threads;
+	}
+
+	/**
+	 * Capture this many databases with each set of information_schema queries,
+	 * instead of querying tables, columns and primary keys once per database.
+	 * @param databasesPerQuery databases per query; 1 is a query per database
+	 */
+	public void setDatabasesPerQuery(int databasesPerQuery) {
+		this.databasesPerQuery = databasesPerQuery;
+	}
+
+	public void setMetrics(Metrics metrics) {
+		MetricRegistry registry = metrics.getRegistry();
+		this.capturedDatabases = registry.counter(metrics.metricName("schema", "capture", "databases"));
+		this.capturedTables = registry.counter(metrics.metricName("schema", "capture", "tables"));
+		this.captureTime = registry.timer(metrics.metricName("schema", "capture", "time"));
+	}
+
 	public Schema capture() throws SQLException {
 		LOGGER.debug("Capturing schemas...");
+		long startTime = System.nanoTime();
 		ArrayList<Database> databases = new ArrayList<>();
 
 		String dbCaptureQuery =
@@ -125,15 +134,19 @@ public class SchemaCapturer implements AutoCloseable {
 			}
 		}
 
-		int size = databases.size();
-		LOGGER.debug("Starting schema capture of {} databases...", size);
-		int counter = 1;
-		for (Database db : databases) {
-			LOGGER.debug("{}/{} Capturing {}...", counter, size, db.getName());
-			captureDatabase(db);
-			counter++;
+		// each batch fills in only its own databases, so the result doesn't
+		// depend on which connection captured what, or in which order.
+		List<List<Database>> batches = Lists.partition(databases, Math.max(databasesPerQuery, 1));
+		CaptureProgress progress = new CaptureProgress(databases.size());
+
+		LOGGER.debug("Starting schema capture of {} databases...", databases.size());
+		if ( threads > 1 && connectionPool != null && batches.size() > 1 ) {
+			captureInParallel(batches, progress);
+		} else {
+			for ( List<Database> batch : batches )
+				captureDatabases(connection, batch, progress);
 		}
-		LOGGER.debug("{} database schemas captured!", size);
+		LOGGER.debug("{} database schemas captured!", databases.size());
 
 
 		Schema s = new Schema(databases, captureDefaultCharset(), this.sensitivity);
@@ -144,9 +157,58 @@ public class SchemaCapturer implements AutoCloseable {
 		} catch ( InvalidSchemaError e ) {
 			e.printStackTrace();
 		}
+
+		if ( captureTime != null )
+			captureTime.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
 		return s;
 	}
 
+	private void captureInParallel(List<List<Database>> batches, CaptureProgress progress) throws SQLException {
+		int nThreads = Math.min(threads, batches.size());
+		LOGGER.info("capturing schema on {} connections", nThreads);
+
+		AtomicInteger nextBatch = new AtomicInteger();
+		AtomicInteger threadCounter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads, r -> {
+			Thread t = new Thread(r, "maxwell-schema-capture-" + threadCounter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		try {
+			List<Future<Void>> workers = new ArrayList<>();
+			for ( int i = 0; i < nThreads; i++ ) {
+				// the first worker reuses our own connection; the rest borrow one
+				boolean borrowConnection = i > 0;
+				workers.add(executor.submit(() -> {
+					try ( Connection c = borrowConnection ? connectionPool.getConnection() : null ) {
+						Connection cx = borrowConnection ? c : connection;
+						int batch;
+						while ( (batch = nextBatch.getAndIncrement()) < batches.size() )
+							captureDatabases(cx, batches.get(batch), progress);
+					} catch ( SQLException e ) {
+						// stop the other workers at their next batch
+						nextBatch.set(batches.size());
+						throw e;
+					}
+					return null;
+				}));
+			}
+
+			for ( Future<Void> worker : workers )
+				worker.get();
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("interrupted while capturing schema", e);
+		} catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof SQLException )
+				throw (SQLException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private String captureDefaultCharset() throws SQLException {
 		LOGGER.debug("Capturing Default Charset");
 		try (Statement stmt = connection.createStatement();
@@ -157,23 +219,47 @@ public class SchemaCapturer implements AutoCloseable {
 	}
 
 
-	private void captureDatabase(Database db) throws SQLException {
-		tablePreparedStatement.setString(1, db.getName());
-		Sql.prepareInList(tablePreparedStatement, 2, includeTables);
+	private void captureDatabases(Connection c, List<Database> databases, CaptureProgress progress) throws SQLException {
+		HashMap<String, HashMap<String, Table>> tables = new HashMap<>();
+		for ( Database db : databases )
+			tables.put(db.getName(), new HashMap<>());
+
+		String tblSql = "SELECT TABLES.TABLE_SCHEMA, TABLES.TABLE_NAME, CCSA.CHARACTER_SET_NAME "
+				+ "FROM INFORMATION_SCHEMA.TABLES "
+				+ "LEFT JOIN information_schema.COLLATION_CHARACTER_SET_APPLICABILITY AS CCSA"
+				+ " ON TABLES.TABLE_COLLATION = CCSA.COLLATION_NAME WHERE TABLES.TABLE_SCHEMA IN " + Sql.inListSQL(databases.size());
+
+		if (!includeTables.isEmpty()) {
+			tblSql += " AND TABLES.TABLE_NAME IN " + Sql.inListSQL(includeTables.size());
+		}
+		tblSql += " ORDER BY TABLES.TABLE_SCHEMA, TABLES.TABLE_NAME";
+
+		try ( PreparedStatement p = c.prepareStatement(tblSql) ) {
+			Sql.prepareInList(p, 1, tables.keySet());
+			Sql.prepareInList(p, 1 + tables.size(), includeTables);
 
-		HashMap<String, Table> tables = new HashMap<>();
-		try (ResultSet rs = tablePreparedStatement.executeQuery()) {
-			while (rs.next()) {
-				String tableName = rs.getString("TABLE_NAME");
-				String characterSetName = rs.getString("CHARACTER_SET_NAME");
-				Table t = db.buildTable(tableName, characterSetName);
-				tables.put(tableName, t);
+			try ( ResultSet rs = p.executeQuery() ) {
+				HashMap<String, Database> byName = new HashMap<>();
+				for ( Database db : databases )
+					byName.put(db.getName(), db);
+
+				while (rs.next()) {
+					String dbName = rs.getString("TABLE_SCHEMA");
+					String tableName = rs.getString("TABLE_NAME");
+					String characterSetName = rs.getString("CHARACTER_SET_NAME");
+					Database db = byName.get(dbName);
+					if ( db == null )
+						continue;
+
+					Table t = db.buildTable(tableName, characterSetName);
+					tables.get(dbName).put(tableName, t);
+				}
 			}
 		}
-		captureTables(db, tables);
+		captureTables(c, tables);
+		progress.captured(databases, tables);
 	}
 
-
 	private boolean isMySQLAtLeast56() throws SQLException {
 		if ( isMariaDB() )
 			return true;
@@ -206,77 +292,98 @@ public class SchemaCapturer implements AutoCloseable {
 		}
 	}
 
-	private void captureTables(Database db, HashMap<String, Table> tables) throws SQLException {
-		columnPreparedStatement.setString(1, db.getName());
+	private void captureTables(Connection c, HashMap<String, HashMap<String, Table>> tables) throws SQLException {
+		String columnSql = "SELECT " +
+				"TABLE_SCHEMA," +
+				"TABLE_NAME," +
+				"COLUMN_NAME, " +
+				"DATA_TYPE, " +
+				"CHARACTER_SET_NAME, " +
+				"ORDINAL_POSITION, " +
+				"COLUMN_TYPE, " +
+				dateTimePrecision +
+				"COLUMN_KEY " +
+				"FROM `information_schema`.`COLUMNS` WHERE TABLE_SCHEMA IN " + Sql.inListSQL(tables.size()) +
+				" ORDER BY TABLE_SCHEMA, TABLE_NAME, ORDINAL_POSITION";
 
-		try (ResultSet r = columnPreparedStatement.executeQuery()) {
+		try ( PreparedStatement p = c.prepareStatement(columnSql) ) {
+			Sql.prepareInList(p, 1, tables.keySet());
 
-			HashMap<String, Integer> pkIndexCounters = new HashMap<>();
-			for (String tableName : tables.keySet()) {
-				pkIndexCounters.put(tableName, 0);
-			}
+			try ( ResultSet r = p.executeQuery() ) {
+				HashMap<Table, Integer> pkIndexCounters = new HashMap<>();
 
-			while (r.next()) {
-				String[] enumValues = null;
-				String tableName = r.getString("TABLE_NAME");
+				while (r.next()) {
+					String[] enumValues = null;
+					HashMap<String, Table> dbTables = tables.get(r.getString("TABLE_SCHEMA"));
+					Table t = dbTables == null ? null : dbTables.get(r.getString("TABLE_NAME"));
 
-				if (tables.containsKey(tableName)) {
-					Table t = tables.get(tableName);
-					String colName = r.getString("COLUMN_NAME");
-					String colType = r.getString("DATA_TYPE");
-					String colEnc = r.getString("CHARACTER_SET_NAME");
-					short colPos = (short) (r.getInt("ORDINAL_POSITION") - 1);
-					boolean colSigned = !r.getString("COLUMN_TYPE").matches(".* unsigned$");
-					Long columnLength = null;
+					if (t != null) {
+						String colName = r.getString("COLUMN_NAME");
+						String colType = r.getString("DATA_TYPE");
+						String colEnc = r.getString("CHARACTER_SET_NAME");
+						short colPos = (short) (r.getInt("ORDINAL_POSITION") - 1);
+						boolean colSigned = !r.getString("COLUMN_TYPE").matches(".* unsigned$");
+						Long columnLength = null;
 
-					if (isMySQLAtLeast56)
-						columnLength = r.getLong("DATETIME_PRECISION");
+						if (isMySQLAtLeast56)
+							columnLength = r.getLong("DATETIME_PRECISION");
 
-					if (r.getString("COLUMN_KEY").equals("PRI"))
-						t.pkIndex = pkIndexCounters.get(tableName);
+						int pkIndexCounter = pkIndexCounters.getOrDefault(t, 0);
+						if (r.getString("COLUMN_KEY").equals("PRI"))
+							t.pkIndex = pkIndexCounter;
 
-					if (colType.equals("enum") || colType.equals("set")) {
-						String expandedType = r.getString("COLUMN_TYPE");
+						if (colType.equals("enum") || colType.equals("set")) {
+							String expandedType = r.getString("COLUMN_TYPE");
 
-						enumValues = extractEnumValues(expandedType);
-					}
+							enumValues = extractEnumValues(expandedType);
+						}
 
-					t.addColumn(ColumnDef.build(colName, colEnc, colType, colPos, colSigned, enumValues, columnLength));
+						t.addColumn(ColumnDef.build(colName, colEnc, colType, colPos, colSigned, enumValues, columnLength));
 
-					pkIndexCounters.put(tableName, pkIndexCounters.get(tableName) + 1);
+						pkIndexCounters.put(t, pkIndexCounter + 1);
+					}
 				}
 			}
 		}
 
-		captureTablesPK(db, tables);
+		captureTablesPK(c, tables);
 	}
 
-	private void captureTablesPK(Database db, HashMap<String, Table> tables) throws SQLException {
-		pkPreparedStatement.setString(1, db.getName());
-
-		HashMap<String, ArrayList<String>> tablePKMap = new HashMap<>();
+	private void captureTablesPK(Connection c, HashMap<String, HashMap<String, Table>> tables) throws SQLException {
+		String pkSQl = "SELECT " +
+				"TABLE_SCHEMA, " +
+				"TABLE_NAME, " +
+				"COLUMN_NAME, " +
+				"ORDINAL_POSITION " +
+				"FROM information_schema.KEY_COLUMN_USAGE " +
+				"WHERE CONSTRAINT_NAME = 'PRIMARY' AND TABLE_SCHEMA IN " + Sql.inListSQL(tables.size()) + " " +
+				"ORDER BY TABLE_SCHEMA, TABLE_NAME, ORDINAL_POSITION";
 
-		try (ResultSet rs = pkPreparedStatement.executeQuery()) {
-			for (String tableName : tables.keySet()) {
-				tablePKMap.put(tableName, new ArrayList<>());
-			}
+		HashMap<Table, ArrayList<String>> tablePKMap = new HashMap<>();
+		for ( HashMap<String, Table> dbTables : tables.values() ) {
+			for ( Table t : dbTables.values() )
+				tablePKMap.put(t, new ArrayList<>());
+		}
 
-			while (rs.next()) {
-				int ordinalPosition = rs.getInt("ORDINAL_POSITION");
-				String tableName = rs.getString("TABLE_NAME");
-				String columnName = rs.getString("COLUMN_NAME");
+		try ( PreparedStatement p = c.prepareStatement(pkSQl) ) {
+			Sql.prepareInList(p, 1, tables.keySet());
 
-				ArrayList<String> pkList = tablePKMap.get(tableName);
-				if ( pkList != null )
-					pkList.add(ordinalPosition - 1, columnName);
+			try ( ResultSet rs = p.executeQuery() ) {
+				while (rs.next()) {
+					int ordinalPosition = rs.getInt("ORDINAL_POSITION");
+					HashMap<String, Table> dbTables = tables.get(rs.getString("TABLE_SCHEMA"));
+					Table t = dbTables == null ? null : dbTables.get(rs.getString("TABLE_NAME"));
+					String columnName = rs.getString("COLUMN_NAME");
+
+					ArrayList<String> pkList = tablePKMap.get(t);
+					if ( pkList != null )
+						pkList.add(ordinalPosition - 1, columnName);
+				}
 			}
 		}
 
-		for (Map.Entry<String, Table> entry : tables.entrySet()) {
-			String key = entry.getKey();
-			Table table = entry.getValue();
-
-			table.setPKList(tablePKMap.get(key));
+		for (Map.Entry<Table, ArrayList<String>> entry : tablePKMap.entrySet()) {
+			entry.getKey().setPKList(entry.getValue());
 		}
 	}
 
@@ -308,10 +415,38 @@ public class SchemaCapturer implements AutoCloseable {
 
 	@Override
 	public void close() throws SQLException {
-		try (PreparedStatement p1 = tablePreparedStatement;
-			 PreparedStatement p2 = columnPreparedStatement;
-			 PreparedStatement p3 = pkPreparedStatement) {
-			// auto-close shared prepared statements
+		// statements are opened and closed per capture; the connection belongs to the caller
+	}
+
+	/* logs and counts captured databases, from whichever thread captured them */
+	private class CaptureProgress {
+		private final int total;
+		private final long startTime = System.currentTimeMillis();
+		private int captured = 0;
+		private int lastLoggedPercent = 0;
+
+		CaptureProgress(int total) {
+			this.total = total;
+		}
+
+		synchronized void captured(List<Database> databases, HashMap<String, HashMap<String, Table>> tables) {
+			int nTables = 0;
+			for ( HashMap<String, Table> dbTables : tables.values() )
+				nTables += dbTables.size();
+
+			if ( capturedDatabases != null ) {
+				capturedDatabases.inc(databases.size());
+				capturedTables.inc(nTables);
+			}
+
+			captured += databases.size();
+			LOGGER.debug("{}/{} Captured {}...", captured, total, databases.get(databases.size() - 1).getName());
+
+			int percent = captured * 100 / total;
+			if ( total >= 100 && percent / 10 > lastLoggedPercent / 10 ) {
+				lastLoggedPercent = percent;
+				LOGGER.info("captured {}/{} databases in {}ms", captured, total, System.currentTimeMillis() - startTime);
+			}
 		}
 	}
 
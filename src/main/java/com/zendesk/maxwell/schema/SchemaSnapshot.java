@@ -0,0 +1,301 @@
+package com.zendesk.maxwell.schema;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.zendesk.maxwell.schema.columndef.*;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+/*
+   a whole schema as one compact, LZ4-compressed binary blob, stored in
+   `schema_snapshots` in place of a row per database, table and column.
+
+   layout: a 5 byte uncompressed header (magic, format version), then an
+   LZ4 frame holding
+
+     databases: count, then per database its name, charset, and tables
+     tables:    name, charset, layout reference
+     layouts:   column count, columns, pk column count, pk column names
+
+   strings are written once and referred to by index afterwards, and so are
+   table layouts: a schema of thousands of identically-shaped tenant tables
+   stores each shape once.  A reference one past the last seen entry means
+   "new, definition follows"; a string reference of 0 is null.
+
+   restoring streams: it never holds the decompressed blob.
+ */
+public class SchemaSnapshot {
+	private static final int MAGIC = 0x4d585353; // "MXSS"
+	private static final byte FORMAT_VERSION = 1;
+
+	private static final int SIGNED = 1;
+	private static final int HAS_LENGTH = 2;
+	private static final int HAS_ENUM_VALUES = 4;
+
+	public static byte[] toBytes(Schema schema) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(FORMAT_VERSION);
+		header.flush();
+
+		try ( LZ4FrameOutputStream lz4 = new LZ4FrameOutputStream(
+			out,
+			LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB,
+			LZ4FrameOutputStream.FLG.Bits.BLOCK_INDEPENDENCE,
+			LZ4FrameOutputStream.FLG.Bits.CONTENT_CHECKSUM
+		) ) {
+			new SnapshotWriter(new DataOutputStream(new BufferedOutputStream(lz4, 65536))).writeSchema(schema);
+		}
+		return out.toByteArray();
+	}
+
+	/* read a snapshot's databases into `schema`, which supplies the charset and case sensitivity */
+	public static void readInto(InputStream in, Schema schema) throws IOException {
+		DataInputStream header = new DataInputStream(in);
+		if ( header.readInt() != MAGIC )
+			throw new IOException("not a schema snapshot");
+
+		byte version = header.readByte();
+		if ( version != FORMAT_VERSION )
+			throw new IOException("unsupported schema snapshot version: " + version);
+
+		InputStream lz4 = new LZ4FrameInputStream(in);
+		new SnapshotReader(new DataInputStream(new BufferedInputStream(lz4, 65536))).readSchema(schema);
+	}
+
+	private static class SnapshotWriter {
+		private final DataOutputStream out;
+		private final HashMap<String, Integer> strings = new HashMap<>();
+		private final IdentityHashMap<TableLayout, Integer> layouts = new IdentityHashMap<>();
+
+		SnapshotWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		void writeSchema(Schema schema) throws IOException {
+			writeVarInt(schema.getDatabases().size());
+			for ( Database d : schema.getDatabases() ) {
+				writeString(d.getName());
+				writeString(d.getCharset());
+				writeVarInt(d.getTableList().size());
+				for ( Table t : d.getTableList() )
+					writeTable(t);
+			}
+			out.writeInt(MAGIC); // trailer, catches a truncated blob
+			out.flush();
+		}
+
+		private void writeTable(Table t) throws IOException {
+			writeString(t.getName());
+			writeString(t.getCharset());
+
+			// layouts are interned, so identity is equality
+			TableLayout layout = t.getLayout();
+			Integer ref = layouts.get(layout);
+			if ( ref != null ) {
+				writeVarInt(ref);
+				return;
+			}
+
+			ref = layouts.size();
+			layouts.put(layout, ref);
+			writeVarInt(ref);
+
+			List<ColumnDef> columns = layout.getColumns();
+			writeVarInt(columns.size());
+			for ( ColumnDef c : columns )
+				writeColumn(c);
+
+			List<String> pks = layout.getPKColumnNames();
+			writeVarInt(pks.size());
+			for ( String pk : pks )
+				writeString(pk);
+		}
+
+		private void writeColumn(ColumnDef c) throws IOException {
+			String charset = null;
+			boolean signed = false;
+			Long columnLength = null;
+			List<String> enumValues = null;
+
+			// the same attributes `columns` rows hold, and what ColumnDef.build() takes back
+			if ( c instanceof StringColumnDef )
+				charset = ((StringColumnDef) c).getCharset();
+
+			if ( c instanceof IntColumnDef )
+				signed = ((IntColumnDef) c).isSigned();
+			else if ( c instanceof BigIntColumnDef )
+				signed = ((BigIntColumnDef) c).isSigned();
+
+			if ( c instanceof EnumeratedColumnDef )
+				enumValues = ((EnumeratedColumnDef) c).getEnumValues();
+
+			if ( c instanceof ColumnDefWithLength )
+				columnLength = ((ColumnDefWithLength) c).getColumnLength();
+
+			int flags = 0;
+			if ( signed ) flags |= SIGNED;
+			if ( columnLength != null ) flags |= HAS_LENGTH;
+			if ( enumValues != null ) flags |= HAS_ENUM_VALUES;
+
+			writeString(c.getName());
+			writeString(c.getType());
+			writeString(charset);
+			out.writeByte(flags);
+
+			if ( columnLength != null )
+				writeVarLong(columnLength);
+
+			if ( enumValues != null ) {
+				writeVarInt(enumValues.size());
+				for ( String v : enumValues )
+					writeString(v);
+			}
+		}
+
+		private void writeString(String s) throws IOException {
+			if ( s == null ) {
+				writeVarInt(0);
+				return;
+			}
+
+			Integer ref = strings.get(s);
+			if ( ref != null ) {
+				writeVarInt(ref);
+				return;
+			}
+
+			ref = strings.size() + 1;
+			strings.put(s, ref);
+			writeVarInt(ref);
+
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void writeVarInt(int i) throws IOException {
+			writeVarLong(i);
+		}
+
+		private void writeVarLong(long l) throws IOException {
+			while ( (l & ~0x7FL) != 0 ) {
+				out.writeByte((int) ((l & 0x7F) | 0x80));
+				l >>>= 7;
+			}
+			out.writeByte((int) l);
+		}
+	}
+
+	private static class SnapshotReader {
+		private final DataInputStream in;
+		private final ArrayList<String> strings = new ArrayList<>();
+		private final ArrayList<TableLayout> layouts = new ArrayList<>();
+
+		SnapshotReader(DataInputStream in) {
+			this.in = in;
+		}
+
+		void readSchema(Schema schema) throws IOException {
+			int nDatabases = readVarInt();
+			for ( int i = 0; i < nDatabases; i++ ) {
+				Database d = new Database(readString(), readString());
+				schema.addDatabase(d);
+
+				int nTables = readVarInt();
+				for ( int j = 0; j < nTables; j++ )
+					readTable(d);
+			}
+
+			if ( in.readInt() != MAGIC )
+				throw new IOException("corrupt schema snapshot: missing trailer");
+		}
+
+		private void readTable(Database d) throws IOException {
+			String name = readString();
+			String charset = readString();
+
+			int ref = readVarInt();
+			if ( ref < layouts.size() ) {
+				d.buildTable(name, charset).setLayout(layouts.get(ref));
+				return;
+			} else if ( ref > layouts.size() ) {
+				throw new IOException("corrupt schema snapshot: bad table layout reference " + ref);
+			}
+
+			int nColumns = readVarInt();
+			List<ColumnDef> columns = new ArrayList<>(nColumns);
+			for ( short i = 0; i < nColumns; i++ )
+				columns.add(readColumn(i));
+
+			int nPKs = readVarInt();
+			List<String> pks = new ArrayList<>(nPKs);
+			for ( int i = 0; i < nPKs; i++ )
+				pks.add(readString());
+
+			layouts.add(d.buildTable(name, charset, columns, pks).getLayout());
+		}
+
+		private ColumnDef readColumn(short pos) throws IOException {
+			String name = readString();
+			String type = readString();
+			String charset = readString();
+			int flags = in.readUnsignedByte();
+
+			Long columnLength = null;
+			if ( (flags & HAS_LENGTH) != 0 )
+				columnLength = readVarLong();
+
+			String[] enumValues = null;
+			if ( (flags & HAS_ENUM_VALUES) != 0 ) {
+				enumValues = new String[readVarInt()];
+				for ( int i = 0; i < enumValues.length; i++ )
+					enumValues[i] = readString();
+			}
+
+			return ColumnDef.build(name, charset, type, pos, (flags & SIGNED) != 0, enumValues, columnLength);
+		}
+
+		private String readString() throws IOException {
+			int ref = readVarInt();
+			if ( ref == 0 )
+				return null;
+
+			if ( ref <= strings.size() )
+				return strings.get(ref - 1);
+
+			if ( ref != strings.size() + 1 )
+				throw new IOException("corrupt schema snapshot: bad string reference " + ref);
+
+			byte[] bytes = new byte[readVarInt()];
+			in.readFully(bytes);
+			String s = new String(bytes, StandardCharsets.UTF_8).intern();
+			strings.add(s);
+			return s;
+		}
+
+		private int readVarInt() throws IOException {
+			long l = readVarLong();
+			if ( l < 0 || l > Integer.MAX_VALUE )
+				throw new IOException("corrupt schema snapshot: varint out of range");
+			return (int) l;
+		}
+
+		private long readVarLong() throws IOException {
+			long l = 0;
+			for ( int shift = 0; shift < 64; shift += 7 ) {
+				int b = in.readUnsignedByte();
+				l |= (long) (b & 0x7F) << shift;
+				if ( (b & 0x80) == 0 )
+					return l;
+			}
+			throw new IOException("corrupt schema snapshot: varint too long");
+		}
+	}
+}
@@ -75,6 +75,7 @@ public class SchemaStoreSchema {
 		executeSQLInputStream(connection, SchemaStoreSchema.class.getResourceAsStream("/sql/maxwell_schema.sql"), schemaDatabaseName);
 		executeSQLInputStream(connection, SchemaStoreSchema.class.getResourceAsStream("/sql/maxwell_schema_bootstrap.sql"), schemaDatabaseName);
 		executeSQLInputStream(connection, SchemaStoreSchema.class.getResourceAsStream("/sql/maxwell_schema_heartbeats.sql"), schemaDatabaseName);
+		executeSQLInputStream(connection, SchemaStoreSchema.class.getResourceAsStream("/sql/maxwell_schema_snapshots.sql"), schemaDatabaseName);
 	}
 
 	private static HashMap<String, String> getTableColumns(String table, Connection c) throws SQLException {
@@ -183,6 +184,12 @@ public class SchemaStoreSchema {
 			executeSQLInputStream(c, is, null);
 		}
 
+		if ( !maxwellTables.contains("schema_snapshots") )  {
+			LOGGER.info("adding schema_snapshots table to the maxwell schema.");
+			InputStream is = MysqlSavedSchema.class.getResourceAsStream("/sql/maxwell_schema_snapshots.sql");
+			executeSQLInputStream(c, is, null);
+		}
+
 		if ( !schemaColumns.containsKey("last_heartbeat_read") ) {
 			// default 0 makes sorting easier (rows before this migration are older than those after)
 			performAlter(c, "alter table `schemas` add column `last_heartbeat_read` bigint null default 0");
@@ -200,6 +207,12 @@ public class SchemaStoreSchema {
 			performAlter(c, "alter table `bootstrap` modify where_clause text default null");
 		}
 
+		if ( !maxwellTables.contains("bootstrap_chunks") || !maxwellTables.contains("bootstrap_watermarks") )  {
+			LOGGER.info("adding bootstrap_chunks and bootstrap_watermarks tables to the maxwell schema.");
+			InputStream is = MysqlSavedSchema.class.getResourceAsStream("/sql/maxwell_schema_bootstrap.sql");
+			executeSQLInputStream(c, is, null);
+		}
+
 		// bigint conversions
 		HashMap<String, String> columnsColumns = getTableColumns("columns", c);
 		if ( !columnsColumns.get("id").startsWith("bigint")
@@ -1,7 +1,6 @@
 package com.zendesk.maxwell.schema;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import com.zendesk.maxwell.schema.ddl.DeferredPositionUpdate;
 import com.zendesk.maxwell.schema.ddl.InvalidSchemaError;
@@ -22,10 +21,9 @@ public class Table {
 	public String database;
 	@JsonProperty("table")
 	public String name;
-	private TableColumnList columns;
 	public String charset;
-	private List<String> pkColumnNames;
-	private List<String> normalizedPKColumnNames;
+	// columns and primary key, shared with every identically-defined table
+	private volatile TableLayout layout = TableLayout.EMPTY;
 
 	@JsonIgnore
 	public int pkIndex;
@@ -46,6 +44,13 @@ public class Table {
 		this.setPKList(pks);
 	}
 
+	private Table(String database, String name, String charset, TableLayout layout) {
+		this.database = database;
+		this.name = name;
+		this.charset = charset;
+		this.layout = layout;
+	}
+
 	@JsonProperty("table")
 	public void setTable(String name) {
 		this.name = name.intern();
@@ -53,23 +58,23 @@ public class Table {
 
 	@JsonProperty("columns")
 	public List<ColumnDef> getColumnList() {
-		return columns.getList();
+		return layout.getColumns();
 	}
 
 	@JsonIgnore
 	public Set<String> getColumnNames() {
-		return columns.columnNames();
+		return layout.getColumnNames();
 	}
 
 	@JsonProperty("columns")
-	public void setColumnList(List<ColumnDef> list) {
-		this.columns = new TableColumnList(list);
+	public synchronized void setColumnList(List<ColumnDef> list) {
+		this.layout = layout.withColumns(list);
 	}
 
 	@JsonIgnore
 	public List<StringColumnDef> getStringColumns() {
 		ArrayList<StringColumnDef> list = new ArrayList<>();
-		for ( ColumnDef c : columns ) {
+		for ( ColumnDef c : layout.getColumns() ) {
 			if ( c instanceof StringColumnDef )
 				list.add((StringColumnDef) c);
 		}
@@ -81,16 +86,21 @@ public class Table {
 	}
 
 	public short findColumnIndex(String name) {
-		return (short) columns.indexOf(name);
+		return (short) layout.indexOf(name);
 	}
 
 
 	public ColumnDef findColumn(String name) {
-		return columns.findByName(name);
+		TableLayout l = this.layout;
+		int index = l.indexOf(name);
+		if ( index == -1 )
+			return null;
+		else
+			return l.getColumns().get(index);
 	}
 
 	public ColumnDef findColumn(int index) {
-		return columns.get(index);
+		return layout.getColumns().get(index);
 	}
 
 	@JsonIgnore
@@ -102,19 +112,17 @@ public class Table {
 		return database;
 	}
 
-	public Table copy() {
-		ArrayList<ColumnDef> list = new ArrayList<>();
-		ArrayList<String> pkList = new ArrayList<>();
-
-		for ( ColumnDef c : columns ) {
-			list.add(c);
-		}
+	TableLayout getLayout() {
+		return layout;
+	}
 
-		for ( String s : pkColumnNames ) {
-			pkList.add(s);
-		}
+	synchronized void setLayout(TableLayout layout) {
+		this.layout = layout;
+	}
 
-		return new Table(database, name, charset, list, pkList);
+	public Table copy() {
+		// the layout is immutable; the copy gets its own as soon as either table changes
+		return new Table(database, name, charset, layout);
 	}
 
 	public void rename(String tableName) {
@@ -227,51 +235,78 @@ public class Table {
 		diffColumnList(diffs, other, this, nameB, nameA);
 	}
 
-	public void setDefaultColumnCharsets() {
+	public synchronized void setDefaultColumnCharsets() {
 		String newCharset = this.getCharset();
+		ArrayList<ColumnDef> list = new ArrayList<>(layout.getColumns());
 		for ( StringColumnDef c : getStringColumns() ) {
 			int index = c.getPos();
-			columns.replace(index, c.withDefaultCharset(newCharset));
+			list.set(index, c.withDefaultCharset(newCharset));
 		}
+		setColumnList(list);
+	}
+
+	/*
+	   column changes are copy-on-write: each builds a new list and swaps in
+	   the layout for it, leaving the old layout to any table sharing it.
+	 */
+	private synchronized void insertColumn(int index, ColumnDef definition) {
+		List<ColumnDef> columns = layout.getColumns();
+		ArrayList<ColumnDef> tempList = new ArrayList<>(columns.size() + 1);
+		tempList.addAll(columns);
+		tempList.add(index, definition);
+		setColumnList(tempList);
+	}
+
+	private synchronized void setColumn(int index, ColumnDef definition) {
+		ArrayList<ColumnDef> tempList = new ArrayList<>(layout.getColumns());
+		tempList.set(index, definition);
+		setColumnList(tempList);
+	}
+
+	private synchronized ColumnDef deleteColumn(int index) {
+		ArrayList<ColumnDef> tempList = new ArrayList<>(layout.getColumns());
+		ColumnDef c = tempList.remove(index);
+		setColumnList(tempList);
+		return c;
 	}
 
 	public void addColumn(int index, ColumnDef definition) {
-		columns.add(index, definition);
+		insertColumn(index, definition);
 	}
 
-	public void addColumn(ColumnDef definition) {
-		columns.add(columns.size(), definition);
+	public synchronized void addColumn(ColumnDef definition) {
+		insertColumn(layout.getColumns().size(), definition);
 	}
 
 	public void addColumns(List<ColumnDef> definitions) {
-		columns.addAll(definitions);
+		setColumnList(definitions);
 	}
 
-	public void removeColumn(int idx) {
-		ColumnDef toRemove = columns.get(idx);
+	public synchronized void removeColumn(int idx) {
+		ColumnDef toRemove = findColumn(idx);
 		removePKColumn(toRemove.getName());
-		columns.remove(idx);
+		deleteColumn(idx);
 	}
 
-	public void renameColumn(int idx, String name) throws InvalidSchemaError {
-		ColumnDef oldColumn = columns.get(idx);
+	public synchronized void renameColumn(int idx, String name) throws InvalidSchemaError {
+		ColumnDef oldColumn = findColumn(idx);
 		renamePKColumn(oldColumn.getName(), name);
 
-		ColumnDef column = columns.get(idx).withName(name);
-		columns.replace(idx, column);
+		ColumnDef column = findColumn(idx).withName(name);
+		setColumn(idx, column);
 	}
 
 	public void replaceColumn(int idx, ColumnDef definition) throws InvalidSchemaError {
-		columns.replace(idx, definition);
+		setColumn(idx, definition);
 	}
 
-	public void changeColumn(int idx, ColumnPosition position, ColumnDef definition, List<DeferredPositionUpdate> deferred) throws InvalidSchemaError {
+	public synchronized void changeColumn(int idx, ColumnPosition position, ColumnDef definition, List<DeferredPositionUpdate> deferred) throws InvalidSchemaError {
 		// when we go to rename the PK column, we need to make sure the old column name
 		// is still there for (for normalization of pk-columns).
-		ColumnDef oldColumn = columns.get(idx);
+		ColumnDef oldColumn = findColumn(idx);
 		renamePKColumn(oldColumn.getName(), definition.getName());
 
-		columns.remove(idx);
+		deleteColumn(idx);
 
 		int index = position.index(this, idx);
 		if ( index == ColumnPosition.AFTER_NOT_FOUND) {
@@ -279,18 +314,18 @@ public class Table {
 			index = 0;
 		}
 
-		columns.add(index, definition);
+		insertColumn(index, definition);
 	}
 
-	public void moveColumn(String name, ColumnPosition position) throws InvalidSchemaError {
-		int idx = columns.indexOf(name);
-		ColumnDef def = columns.remove(idx);
+	public synchronized void moveColumn(String name, ColumnPosition position) throws InvalidSchemaError {
+		int idx = layout.indexOf(name);
+		ColumnDef def = deleteColumn(idx);
 		int newIndex = position.index(this, idx);
 
 		if ( newIndex == ColumnPosition.AFTER_NOT_FOUND)
 			throw new InvalidSchemaError("Couldn't find column " + position.afterColumn + " to place after");
 
-		columns.add(newIndex, def);
+		insertColumn(newIndex, def);
 	}
 
 	public void setDatabase(String database) {
@@ -309,59 +344,34 @@ public class Table {
 
 	@JsonProperty("primary-key")
 	public List<String> getPKList() {
-		return normalizedColumnNames();
+		return layout.getNormalizedPKColumnNames();
 	}
 
 	@JsonIgnore
 	public String getPKString() {
-		if ( this.pkColumnNames != null )
-			return StringUtils.join(pkColumnNames.iterator(), ",");
-		else
-			return null;
+		return StringUtils.join(layout.getPKColumnNames().iterator(), ",");
 	}
 
 	@JsonProperty("primary-key")
 	public synchronized void setPKList(List<String> pkColumnNames) {
-		this.pkColumnNames = pkColumnNames.stream().map((n) -> n.intern()).collect(Collectors.toList());
-		this.normalizedPKColumnNames = null;
+		this.layout = layout.withPKColumnNames(pkColumnNames);
 	}
 
 	private synchronized void removePKColumn(String name) {
 		int pkIndex = getPKList().indexOf(name);
 		if ( pkIndex != -1 ) {
-			this.pkColumnNames.remove(pkIndex);
-			this.normalizedPKColumnNames = null;
+			ArrayList<String> pkList = new ArrayList<>(layout.getPKColumnNames());
+			pkList.remove(pkIndex);
+			setPKList(pkList);
 		}
 	}
 
 	private synchronized void renamePKColumn(String oldName, String newName) {
 		int pkIndex = getPKList().indexOf(oldName);
 		if ( pkIndex != -1 ) {
-			this.pkColumnNames.set(pkIndex, newName);
-			this.normalizedPKColumnNames = null;
-		}
-	}
-	private synchronized List<String> normalizedColumnNames() {
-		/*
-		   primary keys may come in with different casing than the column names.
-		   convert the list of primary keys to match the column casing.
-
-		   we do this normalization lazily, as when a Table object is being deserialized
-		   from JSON, there may be no column definitions present when the setPKList() function is called.
-		   ugly!
-		 */
-		if ( this.normalizedPKColumnNames == null ) {
-			this.normalizedPKColumnNames = new ArrayList<>(this.pkColumnNames.size());
-
-			for (String name : pkColumnNames) {
-				ColumnDef cd = findColumn(name);
-
-				if ( cd == null )
-					throw new RuntimeException("Couldn't find column for primary-key: " + name);
-
-				this.normalizedPKColumnNames.add(cd.getName());
-			}
+			ArrayList<String> pkList = new ArrayList<>(layout.getPKColumnNames());
+			pkList.set(pkIndex, newName);
+			setPKList(pkList);
 		}
-		return this.normalizedPKColumnNames;
 	}
 }
@@ -0,0 +1,129 @@
+package com.zendesk.maxwell.schema;
+
+import java.util.*;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+
+/*
+   the shape of a table: its columns and primary key.
+
+   Layouts are immutable and interned, so every table with the same
+   definition -- thousands of them, on a sharded multi-tenant server --
+   shares one layout, along with everything derived from it.  A table that
+   changes is given a new layout (copy-on-write); the old one stays as it
+   was for any table still using it.
+ */
+final class TableLayout {
+	private static final Interner<TableLayout> INTERNER = Interners.newWeakInterner();
+	static final TableLayout EMPTY = INTERNER.intern(new TableLayout(ImmutableList.of(), ImmutableList.of()));
+
+	private final ImmutableList<ColumnDef> columns;
+	private final ImmutableList<String> pkColumnNames;
+
+	// derived lazily and not part of equals.  each is immutable, so racing to build one is harmless.
+	private Set<String> columnNames;
+	private Map<String, Integer> columnIndexes; // lower-cased name -> position
+	private List<String> normalizedPKColumnNames;
+
+	private TableLayout(ImmutableList<ColumnDef> columns, ImmutableList<String> pkColumnNames) {
+		this.columns = columns;
+		this.pkColumnNames = pkColumnNames;
+	}
+
+	private static TableLayout intern(ImmutableList<ColumnDef> columns, ImmutableList<String> pkColumnNames) {
+		return INTERNER.intern(new TableLayout(columns, pkColumnNames));
+	}
+
+	TableLayout withColumns(List<ColumnDef> columns) {
+		ImmutableList.Builder<ColumnDef> builder = ImmutableList.builderWithExpectedSize(columns.size());
+		int i = 0;
+		for ( ColumnDef column : columns ) {
+			builder.add(column.withPos((short) i++));
+		}
+		return intern(builder.build(), pkColumnNames);
+	}
+
+	TableLayout withPKColumnNames(List<String> pkColumnNames) {
+		ImmutableList.Builder<String> builder = ImmutableList.builderWithExpectedSize(pkColumnNames.size());
+		for ( String name : pkColumnNames ) {
+			builder.add(name.intern());
+		}
+		return intern(columns, builder.build());
+	}
+
+	List<ColumnDef> getColumns() {
+		return columns;
+	}
+
+	List<String> getPKColumnNames() {
+		return pkColumnNames;
+	}
+
+	Set<String> getColumnNames() {
+		if ( columnNames == null ) {
+			ImmutableSet.Builder<String> setBuilder = ImmutableSet.builderWithExpectedSize(columns.size());
+			for ( ColumnDef cf : columns ) {
+				setBuilder.add(cf.getName().toLowerCase().intern());
+			}
+			columnNames = setBuilder.build();
+		}
+		return columnNames;
+	}
+
+	int indexOf(String name) {
+		if ( columnIndexes == null ) {
+			HashMap<String, Integer> indexes = new HashMap<>(columns.size() * 2);
+			for ( int i = 0 ; i < columns.size(); i++ ) {
+				// first match wins, as it did when we scanned the list
+				indexes.putIfAbsent(columns.get(i).getName().toLowerCase(), i);
+			}
+			columnIndexes = ImmutableMap.copyOf(indexes);
+		}
+		// column names are case-insensitive regardless of the server's table name setting
+		Integer index = columnIndexes.get(name.toLowerCase());
+		return index == null ? -1 : index;
+	}
+
+	/*
+	   primary keys may come in with different casing than the column names.
+	   convert the list of primary keys to match the column casing.
+
+	   we do this normalization lazily, as when a Table object is being deserialized
+	   from JSON, there may be no column definitions present when the setPKList() function is called.
+	   ugly!
+	 */
+	List<String> getNormalizedPKColumnNames() {
+		if ( normalizedPKColumnNames == null ) {
+			ImmutableList.Builder<String> builder = ImmutableList.builderWithExpectedSize(pkColumnNames.size());
+			for ( String name : pkColumnNames ) {
+				int index = indexOf(name);
+
+				if ( index == -1 )
+					throw new RuntimeException("Couldn't find column for primary-key: " + name);
+
+				builder.add(columns.get(index).getName());
+			}
+			normalizedPKColumnNames = builder.build();
+		}
+		return normalizedPKColumnNames;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if ( o instanceof TableLayout ) {
+			TableLayout other = (TableLayout) o;
+			return columns.equals(other.columns) && pkColumnNames.equals(other.pkColumnNames);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * columns.hashCode() + pkColumnNames.hashCode();
+	}
+}
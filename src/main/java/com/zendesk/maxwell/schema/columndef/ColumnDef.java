@@ -225,8 +225,9 @@ public abstract class ColumnDef implements Cloneable {
 	}
 
 	public ColumnDef withName(String name) {
+		String internedName = name.intern();
 		return cloneSelfAndSet(clone -> {
-			clone.name = name;
+			clone.name = internedName;
 		});
 	}
 
@@ -43,15 +43,17 @@ public class StringColumnDef extends ColumnDef {
 	}
 
 	public StringColumnDef withCharset(String charset) {
+		String internedCharset = charset == null ? null : charset.intern();
 		return cloneSelfAndSet(clone -> {
-			clone.charset = charset;
+			clone.charset = internedCharset;
 		});
 	}
 
 	public StringColumnDef withDefaultCharset(String charset) {
 		if ( this.charset == null ) {
+			String internedCharset = charset == null ? null : charset.intern();
 			return cloneSelfAndSet(clone -> {
-				clone.charset = charset;
+				clone.charset = internedCharset;
 			});
 		} else {
 			return this;
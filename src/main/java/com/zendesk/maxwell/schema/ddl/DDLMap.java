@@ -51,6 +51,18 @@ public class DDLMap extends RowMap {
 		if(!outputConfig.outputDDL)
 			return null;
 
+		return new ObjectMapper().writeValueAsString(getOutputMap(outputConfig));
+	}
+
+	@Override
+	public byte[] toJSONBytes(MaxwellOutputConfig outputConfig) throws IOException {
+		if(!outputConfig.outputDDL)
+			return null;
+
+		return new ObjectMapper().writeValueAsBytes(getOutputMap(outputConfig));
+	}
+
+	private Map<String, Object> getOutputMap(MaxwellOutputConfig outputConfig) {
 		Map<String, Object> map = getChangeMap();
 		map.put("ts", timestamp);
 		map.put("sql", sql);
@@ -67,7 +79,7 @@ public class DDLMap extends RowMap {
 		if ( outputConfig.includesSchemaId) {
 			map.put(FieldNames.SCHEMA_ID, this.schemaId);
 		}
-		return new ObjectMapper().writeValueAsString(map);
+		return map;
 	}
 
 	@Override
@@ -0,0 +1,136 @@
+package com.zendesk.maxwell.schema.ddl;
+
+/*
+   a quick look at the start of a QUERY event, so that only statements that
+   might change the schema pay for the blacklist regexes and an ANTLR parse.
+
+   skips whitespace, C-style, `#` and `--` comments and a MariaDB
+   `SET STATEMENT ... FOR` prefix, then looks at the first keyword.
+   Executable comments (`/*!50003 DROP ...`) are read as SQL, as the lexer does.
+
+   it errs towards SCHEMA_CHANGE: anything it can't make sense of goes on to
+   the full parse.  The SQL is never copied or rewritten.
+ */
+final class DDLScanner {
+	enum Statement { SCHEMA_CHANGE, DELETE, OTHER }
+
+	private final String sql;
+	private final int length;
+	private int pos;
+
+	private DDLScanner(String sql) {
+		this.sql = sql;
+		this.length = sql.length();
+	}
+
+	static Statement classify(String sql) {
+		return new DDLScanner(sql).classify();
+	}
+
+	private Statement classify() {
+		if ( !skipSpaceAndComments() )
+			return Statement.SCHEMA_CHANGE;
+
+		if ( keyword("SET") && keyword("STATEMENT") ) {
+			if ( !skipSetStatementVariables() )
+				return Statement.OTHER;
+		} else {
+			pos = 0;
+			skipSpaceAndComments();
+		}
+
+		if ( keyword("CREATE") || keyword("ALTER") || keyword("DROP") || keyword("RENAME") )
+			return Statement.SCHEMA_CHANGE;
+		else if ( keyword("DELETE") )
+			return Statement.DELETE;
+		else
+			return Statement.OTHER;
+	}
+
+	/* false on an unterminated comment */
+	private boolean skipSpaceAndComments() {
+		while ( pos < length ) {
+			char c = sql.charAt(pos);
+			if ( c <= ' ' ) {
+				pos++;
+			} else if ( c == '#' || (c == '-' && peek(1) == '-') ) {
+				int eol = sql.indexOf('\n', pos);
+				pos = eol == -1 ? length : eol + 1;
+			} else if ( c == '/' && peek(1) == '*' ) {
+				int p = pos + 2;
+				if ( peekAt(p) == 'M' && peekAt(p + 1) == '!' )
+					p++;
+
+				if ( peekAt(p) == '!' ) {
+					// executable comment: drop the marker and version, keep the contents
+					p++;
+					while ( p < length && Character.isDigit(sql.charAt(p)) )
+						p++;
+					pos = p;
+				} else {
+					int end = sql.indexOf("*/", p);
+					if ( end == -1 )
+						return false;
+					pos = end + 2;
+				}
+			} else if ( c == '*' && peek(1) == '/' ) {
+				// the end of an executable comment
+				pos += 2;
+			} else {
+				return true;
+			}
+		}
+		return true;
+	}
+
+	/*
+	   SET STATEMENT var=value [, var=value ...] FOR <statement>.
+	   leaves pos at <statement>, or returns false if there's no FOR.
+	 */
+	private boolean skipSetStatementVariables() {
+		while ( pos < length ) {
+			char c = sql.charAt(pos);
+			if ( c == '\'' || c == '"' || c == '`' ) {
+				int end = sql.indexOf(c, pos + 1);
+				if ( end == -1 )
+					return false;
+				pos = end + 1;
+			} else if ( isIdentifierChar(c) ) {
+				if ( keyword("FOR") )
+					return true;
+				while ( pos < length && isIdentifierChar(sql.charAt(pos)) )
+					pos++;
+			} else {
+				pos++;
+			}
+			skipSpaceAndComments();
+		}
+		return false;
+	}
+
+	/* consume `word` (and any whitespace and comments after it) if it's next */
+	private boolean keyword(String word) {
+		int n = word.length();
+		if ( !sql.regionMatches(true, pos, word, 0, n) )
+			return false;
+
+		if ( pos + n < length && isIdentifierChar(sql.charAt(pos + n)) )
+			return false;
+
+		pos += n;
+		skipSpaceAndComments();
+		return true;
+	}
+
+	private char peek(int offset) {
+		return peekAt(pos + offset);
+	}
+
+	private char peekAt(int p) {
+		return p < length ? sql.charAt(p) : 0;
+	}
+
+	private static boolean isIdentifierChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+	}
+}
@@ -16,6 +16,13 @@ public class DatabaseAlter extends SchemaChange {
 		return new ResolvedDatabaseAlter(this.database, this.charset);
 	}
 
+	@Override
+	DatabaseAlter bindDatabase(String placeholder, String database) {
+		DatabaseAlter alter = new DatabaseAlter(bindDatabase(this.database, placeholder, database));
+		alter.charset = this.charset;
+		return alter;
+	}
+
 	@Override
 	public boolean isBlacklisted(Filter filter) {
 		if ( filter == null ) {
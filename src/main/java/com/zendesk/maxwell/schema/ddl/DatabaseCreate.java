@@ -28,6 +28,11 @@ public class DatabaseCreate extends SchemaChange {
 		return new ResolvedDatabaseCreate(database, chset);
 	}
 
+	@Override
+	DatabaseCreate bindDatabase(String placeholder, String database) {
+		return new DatabaseCreate(bindDatabase(this.database, placeholder, database), this.ifNotExists, this.charset);
+	}
+
 	@Override
 	public boolean isBlacklisted(Filter filter) {
 		if ( filter == null ) {
@@ -20,6 +20,11 @@ public class DatabaseDrop extends SchemaChange {
 		return new ResolvedDatabaseDrop(this.database);
 	}
 
+	@Override
+	DatabaseDrop bindDatabase(String placeholder, String database) {
+		return new DatabaseDrop(bindDatabase(this.database, placeholder, database), this.ifExists);
+	}
+
 	@Override
 	public boolean isBlacklisted(Filter filter) {
 		if ( filter == null ) {
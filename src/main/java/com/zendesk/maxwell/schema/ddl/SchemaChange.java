@@ -7,6 +7,7 @@ import java.util.regex.Pattern;
 
 import com.zendesk.maxwell.filtering.Filter;
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
@@ -74,15 +75,19 @@ public abstract class SchemaChange {
 		}
 
 		if ( DELETE_BLACKLIST.matcher(sql).find() ) {
-			LOGGER.info("Ignoring DELETE statement: " + sql);
-			LOGGER.info("You may ignore this warning if this is a MEMORY table.");
-			LOGGER.info("Otherwise you should make sure your binlog_format setting is correct, and that your clients have all reconnected.");
+			logIgnoredDelete(sql);
 			return true;
 		}
 
 		return false;
 	}
 
+	private static void logIgnoredDelete(String sql) {
+		LOGGER.info("Ignoring DELETE statement: " + sql);
+		LOGGER.info("You may ignore this warning if this is a MEMORY table.");
+		LOGGER.info("Otherwise you should make sure your binlog_format setting is correct, and that your clients have all reconnected.");
+	}
+
 	private static List<SchemaChange> parseSQL(String currentDB, String sql) {
 		ANTLRInputStream input = new ANTLRInputStream(sql);
 		mysqlLexer lexer = new mysqlLexer(input);
@@ -96,7 +101,20 @@ public abstract class SchemaChange {
 
 		MysqlParserListener listener = new MysqlParserListener(currentDB, tokens);
 
-		ParseTree tree = parser.parse();
+		// SLL prediction is much cheaper and gets nearly every statement right.
+		// When it can't, start over with full LL, which also gives us the usual
+		// error recovery and MaxwellSQLSyntaxError on bad SQL.
+		ParseTree tree;
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		parser.setErrorHandler(new BailErrorStrategy());
+		try {
+			tree = parser.parse();
+		} catch ( ParseCancellationException e ) {
+			parser.reset();
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+			parser.setErrorHandler(new DefaultErrorStrategy());
+			tree = parser.parse();
+		}
 
 		ParseTreeWalker.DEFAULT.walk(listener, tree);
 		if (LOGGER.isDebugEnabled()) {
@@ -106,6 +124,15 @@ public abstract class SchemaChange {
 	}
 
 	public static List<SchemaChange> parse(String currentDB, String sql) {
+		switch ( DDLScanner.classify(sql) ) {
+			case DELETE:
+				logIgnoredDelete(sql);
+				return null;
+			case OTHER:
+				LOGGER.debug("ignoring sql: {}", sql);
+				return null;
+		}
+
 		if ( matchesBlacklist(sql) ) {
 			return null;
 		}
@@ -132,4 +159,16 @@ public abstract class SchemaChange {
 	}
 
 	public abstract boolean isBlacklisted(Filter filter);
+
+	/**
+	 * A copy of this change with every database name that is `placeholder`
+	 * (by identity) replaced by `database`.  Used to reuse a change parsed
+	 * with a stand-in for the current database.
+	 * @see SchemaChangeCache
+	 */
+	abstract SchemaChange bindDatabase(String placeholder, String database);
+
+	static String bindDatabase(String name, String placeholder, String database) {
+		return name == placeholder ? database : name;
+	}
 }
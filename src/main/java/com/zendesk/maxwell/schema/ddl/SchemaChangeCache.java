@@ -0,0 +1,98 @@
+package com.zendesk.maxwell.schema.ddl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.zendesk.maxwell.monitoring.Metrics;
+
+/*
+   the most recently parsed DDL statements, so that a statement seen again --
+   the same migration run against every shard database -- is only resolved,
+   not parsed.
+
+   statements are parsed with a stand-in for the current database and cached
+   by their SQL text, so `USE shard_1; ALTER TABLE foo ...` and
+   `USE shard_2; ALTER TABLE foo ...` share an entry.  Each lookup hands back
+   fresh copies with the real database filled in, which can be resolved like
+   any other parse result.
+ */
+public class SchemaChangeCache {
+	// compared by identity, so no database named in the SQL can be mistaken for it
+	private static final String CURRENT_DATABASE = new String("<current database>");
+
+	// statements that parse to null (blacklisted, views, ...)
+	private static final List<SchemaChange> IGNORED = Collections.unmodifiableList(new ArrayList<>());
+
+	private final LinkedHashMap<String, List<SchemaChange>> cache;
+	private final Counter hits;
+	private final Counter misses;
+
+	public SchemaChangeCache(final int maxSize, Metrics metrics) {
+		this.cache = new LinkedHashMap<String, List<SchemaChange>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<SchemaChange>> eldest) {
+				return size() > maxSize;
+			}
+		};
+
+		MetricRegistry registry = metrics.getRegistry();
+		this.hits = registry.counter(metrics.metricName("schema", "ddl", "cache", "hits"));
+		this.misses = registry.counter(metrics.metricName("schema", "ddl", "cache", "misses"));
+		registry.gauge(metrics.metricName("schema", "ddl", "cache", "hit_ratio"), () -> new RatioGauge() {
+			@Override
+			protected Ratio getRatio() {
+				return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+			}
+		});
+	}
+
+	/**
+	 * Same as {@link SchemaChange#parse(String, String)}.
+	 */
+	public List<SchemaChange> parse(String currentDB, String sql) {
+		// the parser would unquote a current database that starts with a quote
+		boolean quotedDB = currentDB != null && (currentDB.startsWith("`") || currentDB.startsWith("\""));
+
+		// not worth hashing statements the scanner turns away
+		if ( quotedDB || DDLScanner.classify(sql) != DDLScanner.Statement.SCHEMA_CHANGE )
+			return SchemaChange.parse(currentDB, sql);
+
+		List<SchemaChange> templates;
+		synchronized ( cache ) {
+			templates = cache.get(sql);
+		}
+
+		if ( templates != null ) {
+			hits.inc();
+		} else {
+			misses.inc();
+			templates = SchemaChange.parse(CURRENT_DATABASE, sql);
+			if ( templates == null )
+				templates = IGNORED;
+
+			synchronized ( cache ) {
+				cache.put(sql, templates);
+			}
+		}
+
+		if ( templates == IGNORED )
+			return null;
+
+		List<SchemaChange> changes = new ArrayList<>(templates.size());
+		for ( SchemaChange template : templates )
+			changes.add(template.bindDatabase(CURRENT_DATABASE, currentDB));
+		return changes;
+	}
+
+	int size() {
+		synchronized ( cache ) {
+			return cache.size();
+		}
+	}
+}
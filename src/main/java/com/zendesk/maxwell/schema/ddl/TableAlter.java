@@ -77,6 +77,18 @@ public class TableAlter extends SchemaChange {
 		return new ResolvedTableAlter(this.database, this.table, oldTable, table);
 	}
 
+	@Override
+	TableAlter bindDatabase(String placeholder, String database) {
+		TableAlter alter = new TableAlter(bindDatabase(this.database, placeholder, database), this.table);
+		alter.columnMods = new ArrayList<>(this.columnMods);
+		alter.newTableName = this.newTableName;
+		alter.newDatabase = bindDatabase(this.newDatabase, placeholder, database);
+		alter.convertCharset = this.convertCharset;
+		alter.defaultCharset = this.defaultCharset;
+		alter.pks = this.pks == null ? null : new ArrayList<>(this.pks);
+		return alter;
+	}
+
 	@Override
 	public boolean isBlacklisted(Filter filter) {
 		if ( filter == null ) {
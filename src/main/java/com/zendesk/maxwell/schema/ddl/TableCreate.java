@@ -62,14 +62,25 @@ public class TableCreate extends SchemaChange {
 
 	private void resolveCharsets(String dbCharset, Table resolved) {
 		if ( this.charset != null )
-			resolved.charset = this.charset;
+			resolved.setCharset(this.charset);
 		else
 			// inherit charset from database
-			resolved.charset = dbCharset;
+			resolved.setCharset(dbCharset);
 
 		resolved.setDefaultColumnCharsets();
 	}
 
+	@Override
+	TableCreate bindDatabase(String placeholder, String database) {
+		TableCreate create = new TableCreate(bindDatabase(this.database, placeholder, database), this.table, this.ifNotExists);
+		create.columns = new ArrayList<>(this.columns);
+		create.pks = this.pks == null ? null : new ArrayList<>(this.pks);
+		create.charset = this.charset;
+		create.likeDB = bindDatabase(this.likeDB, placeholder, database);
+		create.likeTable = this.likeTable;
+		return create;
+	}
+
 	@Override
 	public boolean isBlacklisted(Filter filter) {
 		if ( filter == null ) {
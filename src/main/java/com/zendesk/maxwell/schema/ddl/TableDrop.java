@@ -25,6 +25,11 @@ public class TableDrop extends SchemaChange {
 		return new ResolvedTableDrop(database, table);
 	}
 
+	@Override
+	TableDrop bindDatabase(String placeholder, String database) {
+		return new TableDrop(bindDatabase(this.database, placeholder, database), this.table, this.ifExists);
+	}
+
 	@Override
 	public boolean isBlacklisted(Filter filter) {
 		if ( filter == null ) {
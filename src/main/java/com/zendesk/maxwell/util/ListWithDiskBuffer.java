@@ -1,26 +1,71 @@
 package com.zendesk.maxwell.util;
 
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /*
    a wrapper class for a linked list that will keep N tail elements
    in memory, spilling its head onto disk as needed.
+
+   elements are spilled with java serialization, unless an ElementCodec
+   is given; a codec writes straight to a data stream, optionally LZ4
+   compressed, and doesn't need its object caches reset.
  */
 public class ListWithDiskBuffer<T> {
 	static final Logger LOGGER = LoggerFactory.getLogger(ListWithDiskBuffer.class);
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	private static final int READ_BUFFER_SIZE = 1024 * 1024;
+	private static final int LZ4_BLOCK_SIZE = 64 * 1024;
+	// the checksum seed LZ4BlockInputStream expects by default
+	private static final int LZ4_CHECKSUM_SEED = 0x9747b28c;
+
+	/**
+	 * Writes and reads back spilled elements.  A codec instance sees every
+	 * element of one file, in order, and may keep state (dictionaries, etc)
+	 * between elements.
+	 */
+	public interface ElementCodec<T> {
+		void write(DataOutputStream out, T element) throws IOException;
+		T read(DataInputStream in) throws IOException;
+	}
+
 	private final long maxInMemoryElements;
 	private final LinkedList<T> list;
+	private final ElementCodec<T> codec;
+	private final boolean compress;
 	private long elementsInFile = 0;
 	private File file;
 	private ObjectInputStream is;
 	private ObjectOutputStream os;
+	private DataInputStream dataIn;
+	private DataOutputStream dataOut;
+	private boolean unflushed = false;
+	private long bytesWritten = 0;
+	private long bytesRead = 0;
 
 	public ListWithDiskBuffer(long maxInMemoryElements) {
+		this(maxInMemoryElements, null, false);
+	}
+
+	/**
+	 * @param maxInMemoryElements elements to keep in memory before spilling
+	 * @param codec spill format, or null for java serialization
+	 * @param compress LZ4 compress the spill file (codec only)
+	 */
+	public ListWithDiskBuffer(long maxInMemoryElements, ElementCodec<T> codec, boolean compress) {
 		this.maxInMemoryElements = maxInMemoryElements;
+		this.codec = codec;
+		this.compress = compress;
 		list = new LinkedList<>();
 	}
 
@@ -36,6 +81,9 @@ public class ListWithDiskBuffer<T> {
 	}
 
 	protected void resetOutputStreamCaches() throws IOException {
+		if ( os == null )
+			return;
+
 		LOGGER.debug("Resetting OutputStream caches. elementsInFile: {}", elementsInFile);
 		os.reset();
 	}
@@ -43,6 +91,9 @@ public class ListWithDiskBuffer<T> {
 	public void flushToDisk() throws IOException {
 		if ( os != null )
 			os.flush();
+		if ( dataOut != null )
+			dataOut.flush();
+		unflushed = false;
 	}
 
 	public boolean isEmpty() {
@@ -55,13 +106,19 @@ public class ListWithDiskBuffer<T> {
 
 	public T removeFirst(Class<T> clazz) throws IOException, ClassNotFoundException {
 		if ( elementsInFile > 0 ) {
-			if ( is == null ) {
-				os.flush();
-				is = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if ( unflushed )
+				flushToDisk();
+
+			T element;
+			if ( codec != null ) {
+				if ( dataIn == null )
+					dataIn = openDataInput();
+				element = codec.read(dataIn);
+			} else {
+				if ( is == null )
+					is = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+				element = clazz.cast(is.readObject());
 			}
-
-			Object object = is.readObject();
-			T element = clazz.cast(object);
 			elementsInFile--;
 
 			return element;
@@ -78,6 +135,20 @@ public class ListWithDiskBuffer<T> {
 		return Long.valueOf(list.size());
 	}
 
+	/**
+	 * @return bytes written to the spill file so far; exact once flushed
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * @return bytes read back from the spill file so far, including read-ahead
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
 	@Override
 	protected void finalize() throws Throwable {
 		try {
@@ -88,26 +159,95 @@ public class ListWithDiskBuffer<T> {
 		}
 	}
 
+	private DataOutputStream openDataOutput() throws IOException {
+		OutputStream out = new BufferedOutputStream(new CountingOutputStream(new FileOutputStream(file)), WRITE_BUFFER_SIZE);
+		if ( compress ) {
+			// syncFlush, so that flushToDisk() makes everything written so far readable
+			out = new LZ4BlockOutputStream(
+				out,
+				LZ4_BLOCK_SIZE,
+				LZ4Factory.fastestInstance().fastCompressor(),
+				XXHashFactory.fastestInstance().newStreamingHash32(LZ4_CHECKSUM_SEED).asChecksum(),
+				true
+			);
+		}
+		return new DataOutputStream(out);
+	}
+
+	private DataInputStream openDataInput() throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		InputStream in = new BufferedInputStream(new CountingInputStream(Channels.newInputStream(channel)), READ_BUFFER_SIZE);
+		if ( compress )
+			in = new LZ4BlockInputStream(in);
+		return new DataInputStream(in);
+	}
+
 	protected T evict() throws IOException {
 		if ( file == null ) {
 			file = File.createTempFile("maxwell", "events");
 			file.deleteOnExit();
-			os = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			if ( codec != null )
+				dataOut = openDataOutput();
+			else
+				os = new ObjectOutputStream(new BufferedOutputStream(new CountingOutputStream(new FileOutputStream(file))));
 		}
 
 		if ( elementsInFile == 0 ) {
 			LOGGER.info("Overflowed in-memory buffer, spilling over into " + file);
 		}
-		
+
 		T evicted = this.list.removeFirst();
-		os.writeObject(evicted);
+		if ( codec != null )
+			codec.write(dataOut, evicted);
+		else
+			os.writeObject(evicted);
 
 		elementsInFile++;
+		unflushed = true;
 
-		if ( elementsInFile % maxInMemoryElements == 0 )
+		if ( codec == null && elementsInFile % maxInMemoryElements == 0 )
 			resetOutputStreamCaches();
 
 		return evicted;
 	}
 
+	private class CountingOutputStream extends FilterOutputStream {
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			bytesWritten++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			bytesWritten += len;
+		}
+	}
+
+	private class CountingInputStream extends FilterInputStream {
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if ( b >= 0 )
+				bytesRead++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if ( n > 0 )
+				bytesRead += n;
+			return n;
+		}
+	}
 }
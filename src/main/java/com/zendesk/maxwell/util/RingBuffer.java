@@ -0,0 +1,233 @@
+package com.zendesk.maxwell.util;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+   a bounded, lock-free single-producer/single-consumer queue.
+
+   exactly one thread may call the offer methods and exactly one
+   (other) thread may call the poll/drain methods.  Handoff is done
+   with a pair of ever-increasing sequence numbers; each side caches
+   the other's counter and only re-reads it when it looks full/empty.
+
+   with the PARK strategy a waiting side parks until the other side
+   wakes it (or its timeout runs out), so an idle queue costs nothing.
+ */
+public class RingBuffer<T> {
+	public enum WaitStrategy {
+		BUSY_SPIN, YIELD, PARK;
+
+		public static WaitStrategy fromString(String s) {
+			switch ( s.toLowerCase() ) {
+				case "spin":
+				case "busy_spin":
+					return BUSY_SPIN;
+				case "yield":
+					return YIELD;
+				case "park":
+					return PARK;
+				default:
+					throw new IllegalArgumentException("unknown wait strategy: " + s);
+			}
+		}
+	}
+
+	private final Object[] buffer;
+	private final int capacity;
+	private final int mask;
+	private final WaitStrategy waitStrategy;
+
+	// next sequence to read; written only by the consumer
+	private final AtomicLong head = new AtomicLong(0);
+	// next sequence to write; written only by the producer
+	private final AtomicLong tail = new AtomicLong(0);
+
+	private long producerCachedHead = 0;
+	private long consumerCachedTail = 0;
+
+	// PARK only: the side that's parked waiting for the other, if any
+	private volatile Thread parkedProducer;
+	private volatile Thread parkedConsumer;
+
+	public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+		if ( capacity < 1 )
+			throw new IllegalArgumentException("capacity must be positive");
+
+		int size = Integer.highestOneBit(capacity);
+		if ( size < capacity )
+			size <<= 1;
+
+		this.buffer = new Object[size];
+		this.capacity = capacity;
+		this.mask = size - 1;
+		this.waitStrategy = waitStrategy;
+	}
+
+	public boolean offer(T element) {
+		long t = tail.get();
+
+		if ( t - producerCachedHead >= capacity ) {
+			producerCachedHead = head.get();
+			if ( t - producerCachedHead >= capacity )
+				return false;
+		}
+
+		buffer[(int) (t & mask)] = element;
+		publishTail(t + 1);
+		return true;
+	}
+
+	public boolean offer(T element, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		while ( !offer(element) ) {
+			if ( System.nanoTime() - deadline >= 0 )
+				return false;
+			idle(deadline, false);
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T poll() {
+		long h = head.get();
+
+		if ( h >= consumerCachedTail ) {
+			consumerCachedTail = tail.get();
+			if ( h >= consumerCachedTail )
+				return null;
+		}
+
+		int idx = (int) (h & mask);
+		T element = (T) buffer[idx];
+		buffer[idx] = null;
+		publishHead(h + 1);
+		return element;
+	}
+
+	public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		T element;
+
+		while ( (element = poll()) == null ) {
+			if ( System.nanoTime() - deadline >= 0 )
+				return null;
+			idle(deadline, true);
+		}
+		return element;
+	}
+
+	/**
+	 * Move up to maxElements into the given collection, publishing the
+	 * freed slots back to the producer once for the whole batch.
+	 *
+	 * @return number of elements drained
+	 */
+	@SuppressWarnings("unchecked")
+	public int drainTo(Collection<? super T> c, int maxElements) {
+		long h = head.get();
+
+		// a batch is worth one read of the producer's counter; take whatever's been published since
+		if ( consumerCachedTail - h < maxElements ) {
+			consumerCachedTail = tail.get();
+			if ( h >= consumerCachedTail )
+				return 0;
+		}
+
+		int n = (int) Math.min(consumerCachedTail - h, maxElements);
+		for ( int i = 0; i < n; i++ ) {
+			int idx = (int) ((h + i) & mask);
+			c.add((T) buffer[idx]);
+			buffer[idx] = null;
+		}
+
+		publishHead(h + n);
+		return n;
+	}
+
+	/**
+	 * Like {@link #drainTo(Collection, int)}, but wait up to timeout for at least one element.
+	 */
+	public int drainTo(Collection<? super T> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int n;
+
+		while ( (n = drainTo(c, maxElements)) == 0 ) {
+			if ( System.nanoTime() - deadline >= 0 )
+				return 0;
+			idle(deadline, true);
+		}
+		return n;
+	}
+
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/*
+	   with PARK the counter is published with a full volatile write, so that
+	   it can't be reordered with the read of the parked thread that follows:
+	   either the other side sees the new counter before parking, or we see it
+	   parked and wake it.
+	 */
+	private void publishTail(long t) {
+		if ( waitStrategy == WaitStrategy.PARK ) {
+			tail.set(t);
+			unpark(parkedConsumer);
+		} else {
+			tail.lazySet(t);
+		}
+	}
+
+	private void publishHead(long h) {
+		if ( waitStrategy == WaitStrategy.PARK ) {
+			head.set(h);
+			unpark(parkedProducer);
+		} else {
+			head.lazySet(h);
+		}
+	}
+
+	private static void unpark(Thread t) {
+		if ( t != null )
+			LockSupport.unpark(t);
+	}
+
+	private void idle(long deadline, boolean consumer) throws InterruptedException {
+		switch ( waitStrategy ) {
+			case BUSY_SPIN:
+				break;
+			case YIELD:
+				Thread.yield();
+				break;
+			case PARK:
+				Thread self = Thread.currentThread();
+				if ( consumer ) {
+					parkedConsumer = self;
+					if ( isEmpty() )
+						LockSupport.parkNanos(this, deadline - System.nanoTime());
+					parkedConsumer = null;
+				} else {
+					parkedProducer = self;
+					if ( size() >= capacity )
+						LockSupport.parkNanos(this, deadline - System.nanoTime());
+					parkedProducer = null;
+				}
+				break;
+		}
+
+		if ( Thread.interrupted() )
+			throw new InterruptedException();
+	}
+}
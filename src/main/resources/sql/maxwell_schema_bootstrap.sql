@@ -14,3 +14,21 @@ CREATE TABLE IF NOT EXISTS `bootstrap` (
   client_id       varchar(255) charset 'latin1' not null default 'maxwell',
   comment         varchar(255) charset 'utf8' default NULL
 );
+
+CREATE TABLE IF NOT EXISTS `bootstrap_chunks` (
+  bootstrap_id    bigint NOT NULL,
+  chunk           int unsigned NOT NULL,
+  lower_bound     bigint NOT NULL,
+  upper_bound     bigint NOT NULL,
+  high_water_mark bigint default NULL,
+  inserted_rows   bigint unsigned NOT NULL default 0,
+  is_complete     tinyint(1) unsigned NOT NULL default 0,
+  primary key(bootstrap_id, chunk)
+);
+
+CREATE TABLE IF NOT EXISTS `bootstrap_watermarks` (
+  bootstrap_id    bigint NOT NULL,
+  low_watermark   char(36) charset 'latin1' default NULL,
+  high_watermark  char(36) charset 'latin1' default NULL,
+  primary key(bootstrap_id)
+);
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS `schema_snapshots` (
+  schema_id bigint NOT NULL primary key,
+  data      longblob NOT NULL
+);
@@ -36,6 +36,60 @@ public class BootstrapIntegrationTest extends MaxwellTestWithIsolatedServer {
 		runJSON("json/bootstrap-multiple-row-with-whereclause");
 	}
 
+	@Test
+	public void testChunkedBootstrap() throws Exception {
+		runJSON("json/bootstrap-multiple-row", (c) -> {
+			c.bootstrapChunkSize = 1;
+			c.bootstrapThreads = 2;
+		});
+	}
+
+	@Test
+	public void testChunkedBootstrapResumesFromSavedChunks() throws Exception {
+		String input[] = {
+			"CREATE TABLE shard_1.chunked (id int primary key, txt varchar(20))",
+			"INSERT INTO shard_1.chunked VALUES (1, 'one'), (2, 'two'), (3, 'three'), (4, 'four')",
+			// chunk 0 finished, chunk 1 got as far as id 3
+			"INSERT INTO maxwell.bootstrap_chunks VALUES (999, 0, 1, 2, 2, 2, 1), (999, 1, 3, 4, 3, 1, 0)",
+			"INSERT INTO maxwell.bootstrap SET id = 999, database_name = 'shard_1', table_name = 'chunked'"
+		};
+
+		List<RowMap> rows = MaxwellTestSupport.getRowsWithReplicator(server, input, null, (c) -> c.bootstrapChunkSize = 2);
+
+		List<Object> bootstrapped = new ArrayList<>();
+		List<String> types = new ArrayList<>();
+		for ( RowMap r : rows ) {
+			if ( !r.getTable().equals("chunked") || !r.getRowType().startsWith("bootstrap") )
+				continue;
+			types.add(r.getRowType());
+			if ( r.getRowType().equals("bootstrap-insert") )
+				bootstrapped.add(r.getData("id"));
+		}
+
+		assertThat(bootstrapped.toString(), is("[4]"));
+		assertThat(types.contains("bootstrap-start"), is(false));
+		assertThat(types.contains("bootstrap-complete"), is(true));
+	}
+
+	@Test
+	public void testChunkedBootstrapOfSparseKeys() throws Exception {
+		String input[] = {
+			"CREATE TABLE shard_1.sparse (id bigint primary key, txt varchar(20))",
+			"INSERT INTO shard_1.sparse VALUES (1, 'one'), (1000000000000, 'two'), (1000000000000000, 'three')",
+			"INSERT INTO maxwell.bootstrap SET database_name = 'shard_1', table_name = 'sparse'"
+		};
+
+		List<RowMap> rows = MaxwellTestSupport.getRowsWithReplicator(server, input, null, (c) -> c.bootstrapChunkSize = 2);
+
+		List<Object> bootstrapped = new ArrayList<>();
+		for ( RowMap r : rows ) {
+			if ( r.getTable().equals("sparse") && r.getRowType().equals("bootstrap-insert") )
+				bootstrapped.add(r.getData("id"));
+		}
+
+		assertThat(bootstrapped.toString(), is("[1, 1000000000000, 1000000000000000]"));
+	}
+
 	@Test
 	public void testNoPkTableBootstrap() throws Exception {
 		runJSON("json/bootstrap-no-pk");
@@ -464,6 +464,25 @@ public class MaxwellIntegrationTest extends MaxwellTestWithIsolatedServer {
 		assertTrue(list.get(3).isTXCommit());
 	}
 
+	@Test
+	public void testStreamedTransactions() throws Exception {
+		List<RowMap> list = getRowsForSQLTransactional(testTransactions, (config) -> {
+			config.transactionStreaming = true;
+		});
+
+		assertEquals(4, list.size());
+
+		assertNull(list.get(0).getXid());
+		assertEquals(Long.valueOf(0), list.get(0).getXoffset());
+		assertFalse(list.get(0).isTXCommit());
+		assertNotNull(list.get(1).getXid());
+		assertTrue(list.get(1).isTXCommit());
+
+		assertFalse(list.get(2).isTXCommit());
+		assertEquals(Long.valueOf(1), list.get(3).getXoffset());
+		assertTrue(list.get(3).isTXCommit());
+	}
+
 	@Test
 	public void testHeartbeatsWithBlacklist() throws Exception {
 		Filter filter = new Filter("blacklist: maxwell.*");
@@ -98,8 +98,12 @@ public class MaxwellTestWithIsolatedServer extends TestWithNameLogging {
 		}
 	}
 	protected List<RowMap> getRowsForSQLTransactional(final String[] input) throws Exception {
+		return getRowsForSQLTransactional(input, null);
+	}
+
+	protected List<RowMap> getRowsForSQLTransactional(final String[] input, Consumer<MaxwellConfig> configLambda) throws Exception {
 		MaxwellTestSupportTXCallback cb = new MaxwellTestSupportTXCallback(input);
-		return MaxwellTestSupport.getRowsWithReplicator(server, cb, null);
+		return MaxwellTestSupport.getRowsWithReplicator(server, cb, configLambda);
 	}
     protected List<RowMap> getRowsForDDLTransaction(String[] input, Filter filter) throws Exception {
 		MaxwellTestSupportTXCallback cb = new MaxwellTestSupportTXCallback(input);
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -68,6 +69,21 @@ public class MysqlSavedSchemaTest extends MaxwellTestWithIsolatedServer {
 		assertThat(StringUtils.join(diff, "\n"), diff.size(), is(0));
 	}
 
+	@Test
+	public void testSaveBinarySnapshot() throws Exception {
+		Connection c = context.getMaxwellConnection();
+		this.savedSchema.setBinarySnapshots(true);
+		this.savedSchema.save(c);
+
+		ResultSet rs = c.createStatement().executeQuery("select count(*) from `maxwell`.`columns` where schema_id = " + this.savedSchema.getSchemaID());
+		rs.next();
+		assertThat(rs.getInt(1), is(0));
+
+		MysqlSavedSchema restoredSchema = MysqlSavedSchema.restore(context, context.getInitialPosition());
+		List<String> diff = this.schema.diff(restoredSchema.getSchema(), "captured schema", "restored schema");
+		assertThat(StringUtils.join(diff, "\n"), diff.size(), is(0));
+	}
+
 	@Test
 	public void testRestorePK() throws Exception {
 		this.savedSchema.save(context.getMaxwellConnection());
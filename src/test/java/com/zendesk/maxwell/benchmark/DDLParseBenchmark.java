@@ -0,0 +1,118 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.schema.ddl.SchemaChange;
+import com.zendesk.maxwell.schema.ddl.SchemaChangeCache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+   SchemaChange.parse over the kinds of QUERY events a binlog carries:
+
+   - ddl:   the statements of the mysql test suite that maxwell parses
+            (src/test/resources/sql/ddl/mysql-test-fixed.sql)
+   - dml:   statement-based / mixed-format INSERT, UPDATE, DELETE and friends
+   - admin: transaction control, SET, GRANT, FLUSH and other statements
+            maxwell ignores, with and without leading comments
+   - ddl cached: the ddl corpus through a SchemaChangeCache, as when a
+            migration is run against every shard database in turn
+
+   run from the project root, with -Dlog4j.configurationFile=src/main/resources/log4j2.xml:
+   the test configuration logs at debug, which swamps the cheap cases.
+
+   usage: DDLParseBenchmark [ddl-corpus.sql]
+ */
+public class DDLParseBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	private static final String[] DML = {
+		"INSERT INTO `tickets` (`id`, `account_id`, `subject`, `status`) VALUES (1123, 7, 'printer on fire', 1)",
+		"insert into users(name, email, created_at) values ('joe', 'joe@example.com', NOW()), ('ann', 'ann@example.com', NOW())",
+		"UPDATE `tickets` SET `status` = 2, `updated_at` = '2021-03-01 10:00:00' WHERE `id` = 1123",
+		"update counters set value = value + 1 where name = 'logins' and shard_id = 12",
+		"DELETE FROM `sessions` WHERE `expires_at` < '2021-03-01 00:00:00'",
+		"REPLACE INTO `settings` (`account_id`, `name`, `value`) VALUES (7, 'locale', 'en-US')",
+		"INSERT INTO audits SELECT * FROM audits_staging WHERE batch_id = 99",
+		"/* app:web,controller:tickets,action:update */ UPDATE tickets SET priority = 3 WHERE id = 88",
+		"/*!40000 ALTER TABLE `tickets` DISABLE KEYS */",
+		"LOAD DATA INFILE '/tmp/tickets.csv' INTO TABLE tickets FIELDS TERMINATED BY ','",
+		"CALL archive_tickets(7, '2021-01-01')",
+		"SET STATEMENT max_statement_time=60 FOR UPDATE tickets SET status = 3 WHERE id = 1",
+	};
+
+	private static final String[] ADMIN = {
+		"BEGIN",
+		"COMMIT",
+		"SAVEPOINT sp1",
+		"XA START 'xatest'",
+		"SET @@session.sql_mode = 'STRICT_TRANS_TABLES'",
+		"SET PASSWORD FOR 'app'@'%' = 'hunter2'",
+		"GRANT SELECT, INSERT ON app.* TO 'app'@'%'",
+		"FLUSH PRIVILEGES",
+		"ANALYZE TABLE tickets",
+		"# rotated by cron\nOPTIMIZE TABLE sessions",
+		"-- nightly\nTRUNCATE TABLE sessions_staging",
+		"USE app",
+	};
+
+	private static volatile long sink;
+
+	private interface Parser {
+		List<?> parse(String sql);
+	}
+
+	private static void measure(String name, List<String> corpus) {
+		measure(name, corpus, sql -> SchemaChange.parse("app", sql));
+	}
+
+	private static void measure(String name, List<String> corpus, Parser parser) {
+		long best = Long.MAX_VALUE;
+		for ( int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++ ) {
+			long start = System.nanoTime();
+			for ( String sql : corpus ) {
+				try {
+					List<?> changes = parser.parse(sql);
+					sink += changes == null ? 0 : changes.size();
+				} catch ( RuntimeException e ) {
+					sink++;
+				}
+			}
+			long elapsed = System.nanoTime() - start;
+			if ( round >= WARMUP_ROUNDS )
+				best = Math.min(best, elapsed);
+		}
+
+		System.out.printf("%-11s %5d statements %12.0f statements/sec %10.2f us/statement%n",
+			name, corpus.size(), corpus.size() / (best / 1e9), best / 1e3 / corpus.size());
+	}
+
+	private static List<String> repeat(String[] statements, int n) {
+		List<String> list = new ArrayList<>();
+		for ( int i = 0; i < n; i++ )
+			list.addAll(Arrays.asList(statements));
+		return list;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String corpusFile = args.length > 0 ? args[0] : "src/test/resources/sql/ddl/mysql-test-fixed.sql";
+
+		List<String> ddl = new ArrayList<>();
+		for ( String line : Files.readAllLines(Paths.get(corpusFile), StandardCharsets.UTF_8) ) {
+			if ( !line.trim().isEmpty() )
+				ddl.add(line);
+		}
+
+		measure("ddl", ddl);
+		measure("dml", repeat(DML, 100));
+		measure("admin", repeat(ADMIN, 100));
+
+		SchemaChangeCache cache = new SchemaChangeCache(1000, new NoOpMetrics());
+		measure("ddl cached", ddl, sql -> cache.parse("shard_" + (sink & 63), sql));
+	}
+}
@@ -0,0 +1,110 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.util.RingBuffer;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+   compares the binlog event handoff (listener thread -> replicator thread)
+   through the old LinkedBlockingDeque against RingBuffer with each wait strategy.
+
+   usage: EventQueueBenchmark [events] [events/sec, 0 = unthrottled]
+ */
+public class EventQueueBenchmark {
+	private static final int QUEUE_SIZE = 5000;
+	private static final int DRAIN_BATCH = 256;
+
+	interface Handoff {
+		void offer(Long l) throws InterruptedException;
+		Long poll() throws InterruptedException;
+	}
+
+	static class DequeHandoff implements Handoff {
+		private final LinkedBlockingDeque<Long> queue = new LinkedBlockingDeque<>(QUEUE_SIZE);
+
+		public void offer(Long l) throws InterruptedException {
+			while ( !queue.offer(l, 100, TimeUnit.MILLISECONDS) ) { }
+		}
+
+		public Long poll() throws InterruptedException {
+			return queue.poll(100, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	static class RingHandoff implements Handoff {
+		private final RingBuffer<Long> queue;
+		private final ArrayDeque<Long> drained = new ArrayDeque<>(DRAIN_BATCH);
+
+		RingHandoff(RingBuffer.WaitStrategy strategy) {
+			this.queue = new RingBuffer<>(QUEUE_SIZE, strategy);
+		}
+
+		public void offer(Long l) throws InterruptedException {
+			while ( !queue.offer(l, 100, TimeUnit.MILLISECONDS) ) { }
+		}
+
+		public Long poll() throws InterruptedException {
+			if ( drained.isEmpty() )
+				queue.drainTo(drained, DRAIN_BATCH, 100, TimeUnit.MILLISECONDS);
+			return drained.poll();
+		}
+	}
+
+	private static void run(String name, Handoff handoff, int events, int rate) throws Exception {
+		long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+
+		Thread producer = new Thread(() -> {
+			long next = System.nanoTime();
+			try {
+				for ( int i = 0; i < events; i++ ) {
+					if ( intervalNanos > 0 ) {
+						next += intervalNanos;
+						while ( System.nanoTime() < next )
+							LockSupport.parkNanos(1000);
+					}
+					handoff.offer(System.nanoTime());
+				}
+			} catch ( InterruptedException e ) { }
+		});
+
+		long start = System.nanoTime();
+		producer.start();
+
+		long totalLatency = 0, maxLatency = 0;
+		int received = 0;
+		while ( received < events ) {
+			Long sentAt = handoff.poll();
+			if ( sentAt == null )
+				continue;
+
+			long latency = System.nanoTime() - sentAt;
+			totalLatency += latency;
+			maxLatency = Math.max(maxLatency, latency);
+			received++;
+		}
+		long elapsed = System.nanoTime() - start;
+		producer.join();
+
+		System.out.printf("%-24s %10.0f events/sec   mean handoff %8.2f us   max %8.2f us%n",
+			name,
+			events / (elapsed / 1e9),
+			totalLatency / (double) events / 1000.0,
+			maxLatency / 1000.0);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int events = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int rate = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+		for ( int round = 0; round < 2; round++ ) {
+			System.out.println(round == 0 ? "-- warmup" : "-- measured");
+			run("LinkedBlockingDeque", new DequeHandoff(), events, rate);
+			run("RingBuffer(park)", new RingHandoff(RingBuffer.WaitStrategy.PARK), events, rate);
+			run("RingBuffer(yield)", new RingHandoff(RingBuffer.WaitStrategy.YIELD), events, rate);
+			run("RingBuffer(spin)", new RingHandoff(RingBuffer.WaitStrategy.BUSY_SPIN), events, rate);
+		}
+	}
+}
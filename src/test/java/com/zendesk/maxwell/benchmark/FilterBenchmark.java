@@ -0,0 +1,95 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.filtering.Filter;
+import com.zendesk.maxwell.filtering.FilterDecision;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+   cost of the per-row filter checks the replicator makes, with a filter
+   of N rules (mostly table rules, a few column-value rules):
+
+   - resolve:  every rule's regexes, every row -- what each check used to cost
+   - cached:   the filter's (database, table) decision cache
+   - held:     a decision held per table, as TableCache does
+
+   usage: FilterBenchmark [rules] [rows] [tables]
+ */
+public class FilterBenchmark {
+	private static String buildFilter(int nRules) {
+		StringBuilder sb = new StringBuilder("exclude: *.*");
+		for ( int i = 1; i < nRules; i++ ) {
+			sb.append(", ");
+			if ( i % 50 == 0 )
+				sb.append("include: db_").append(i % 10).append(".table_").append(i).append(".status=/^act/");
+			else if ( i % 3 == 0 )
+				sb.append("include: /^db_").append(i % 10).append("$/./^table_").append(i).append("_.*/");
+			else if ( i % 3 == 1 )
+				sb.append("include: db_").append(i % 10).append(".table_").append(i);
+			else
+				sb.append("exclude: db_").append(i % 10).append(".table_").append(i);
+		}
+		return sb.toString();
+	}
+
+	private static volatile int sink;
+
+	private interface Check {
+		boolean shouldOutput(int table, Map<String, Object> row);
+	}
+
+	private static void run(String name, int nRows, int nTables, Check check) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", 1L);
+		row.put("status", "active");
+
+		int included = 0;
+		long start = System.nanoTime();
+		for ( int i = 0; i < nRows; i++ ) {
+			if ( check.shouldOutput(i % nTables, row) )
+				included++;
+		}
+		long elapsed = System.nanoTime() - start;
+		sink = included;
+
+		System.out.printf("%-8s %12.0f rows/sec %8.1f ns/row   %d included%n",
+			name,
+			nRows / (elapsed / 1e9),
+			(double) elapsed / nRows,
+			included);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nRules = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int nRows = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		int nTables = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+		Filter filter = new Filter("maxwell", buildFilter(nRules));
+
+		String[] dbs = new String[nTables];
+		String[] tables = new String[nTables];
+		FilterDecision[] held = new FilterDecision[nTables];
+		for ( int i = 0; i < nTables; i++ ) {
+			dbs[i] = "db_" + (i % 10);
+			tables[i] = "table_" + i;
+			held[i] = filter.decisionFor(dbs[i], tables[i]);
+		}
+
+		System.out.println(nRules + " rules, " + nTables + " tables");
+		for ( int round = 0; round < 2; round++ ) {
+			System.out.println(round == 0 ? "-- warmup" : "-- measured");
+			run("resolve", nRows / 10, nTables, (t, row) -> {
+				FilterDecision d = filter.resolve(dbs[t], tables[t]);
+				return d.includes() || d.includes(row);
+			});
+			run("cached", nRows, nTables, (t, row) ->
+				filter.includes(dbs[t], tables[t]) || filter.includes(dbs[t], tables[t], row)
+			);
+			run("held", nRows, nTables, (t, row) -> {
+				FilterDecision d = held[t];
+				return d.includes() || (d.hasValueRules() && d.includes(row));
+			});
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.MaxwellConfig;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.producer.InflightMessageList;
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+   contention on the inflight message list: one pushing thread adds
+   commit messages, and a pool of callback threads frees their slots and
+   completes them, in whatever order they happen to get to them --
+   the way the kafka / kinesis / sqs / sns callbacks do.
+
+   usage: InflightMessageListBenchmark [messages] [callback threads]
+ */
+public class InflightMessageListBenchmark {
+	private static final int CALLBACK_QUEUE_SIZE = 1024;
+
+	private static class Sent {
+		final InflightMessageList.InflightMessage message;
+		final long messageID;
+
+		Sent(InflightMessageList.InflightMessage message, long messageID) {
+			this.message = message;
+			this.messageID = messageID;
+		}
+	}
+
+	private static final Sent POISON = new Sent(null, -1);
+
+	private static void run(String name, int messages, int nThreads) throws Exception {
+		MaxwellConfig config = new MaxwellConfig();
+		config.producerAckTimeout = 0L;
+		MaxwellContext context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(config);
+
+		InflightMessageList list = new InflightMessageList(context);
+		AtomicLong watermarkAdvances = new AtomicLong(0);
+
+		List<BlockingQueue<Sent>> queues = new ArrayList<>();
+		List<Thread> callbacks = new ArrayList<>();
+		for ( int i = 0; i < nThreads; i++ ) {
+			BlockingQueue<Sent> queue = new ArrayBlockingQueue<>(CALLBACK_QUEUE_SIZE);
+			queues.add(queue);
+			callbacks.add(new Thread(() -> {
+				try {
+					while ( true ) {
+						Sent s = queue.take();
+						if ( s == POISON )
+							return;
+
+						list.freeSlot(s.messageID);
+						if ( list.completeMessage(s.message) != null )
+							watermarkAdvances.incrementAndGet();
+					}
+				} catch ( InterruptedException e ) { }
+			}));
+		}
+
+		for ( Thread t : callbacks )
+			t.start();
+
+		long start = System.nanoTime();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for ( int i = 0; i < messages; i++ ) {
+			Position p = new Position(BinlogPosition.at(i + 4, "mysql-bin.000001"), 0L);
+			long messageID = list.waitForSlot();
+			InflightMessageList.InflightMessage m = list.addMessage(p, 0L, messageID);
+
+			// scatter sends across callback threads, so completions come back out of order
+			queues.get(random.nextInt(nThreads)).put(new Sent(m, messageID));
+		}
+
+		for ( BlockingQueue<Sent> queue : queues )
+			queue.put(POISON);
+		for ( Thread t : callbacks )
+			t.join();
+		long elapsed = System.nanoTime() - start;
+
+		if ( list.size() != 0 )
+			throw new IllegalStateException("inflight list not drained: " + list.size());
+
+		System.out.printf("%-12s %3d threads %12.0f messages/sec   %8d watermark advances%n",
+			name,
+			nThreads,
+			messages / (elapsed / 1e9),
+			watermarkAdvances.get());
+	}
+
+	public static void main(String[] args) throws Exception {
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int nThreads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+		for ( int round = 0; round < 2; round++ ) {
+			System.out.println(round == 0 ? "-- warmup" : "-- measured");
+			run("1 callback", messages, 1);
+			run("callbacks", messages, nThreads);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.MaxwellConfig;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.producer.MaxwellKafkaProducer;
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+   throughput of MaxwellKafkaProducer with 1..N workers, against an in-process
+   kafka that acks every record as soon as it's sent.  What's measured is
+   maxwell's side of the pipeline: partitioning, serialization and
+   inflight-list bookkeeping.
+
+   usage: KafkaProducerBenchmark [rows] [max workers] [columns]
+ */
+public class KafkaProducerBenchmark {
+	private static final int PARTITIONS = 32;
+	private static final int ROWS_PER_TRANSACTION = 10;
+
+	static class InProcessKafka extends MockProducer<String, byte[]> {
+		final AtomicLong records = new AtomicLong(0);
+		final AtomicLong bytes = new AtomicLong(0);
+		private final List<PartitionInfo> partitions = new ArrayList<>();
+
+		InProcessKafka() {
+			super(false, new StringSerializer(), new ByteArraySerializer());
+			Node node = new Node(0, "localhost", 9092);
+			for ( int i = 0; i < PARTITIONS; i++ )
+				partitions.add(new PartitionInfo("maxwell", i, node, new Node[] { node }, new Node[] { node }));
+		}
+
+		@Override
+		public List<PartitionInfo> partitionsFor(String topic) {
+			return partitions;
+		}
+
+		@Override
+		public Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+			records.incrementAndGet();
+			bytes.addAndGet(record.value().length);
+			callback.onCompletion(null, null);
+			return null;
+		}
+
+		@Override
+		public void close() { }
+	}
+
+	private static List<RowMap> buildRows(int nRows, int nColumns) {
+		List<RowMap> rows = new ArrayList<>(nRows);
+		for ( int i = 0; i < nRows; i++ ) {
+			Position position = new Position(new BinlogPosition(4L + i, "mysql-bin.000001"), 0L);
+			RowMap r = new RowMap("insert", "bench_db", "bench_table", 1500000000000L, Arrays.asList("id"), position);
+			r.putData("id", (long) i);
+			for ( int c = 1; c < nColumns; c++ )
+				r.putData("column_number_" + c, "value " + i + " " + c);
+
+			r.setXid((long) (i / ROWS_PER_TRANSACTION));
+			if ( i % ROWS_PER_TRANSACTION == ROWS_PER_TRANSACTION - 1 || i == nRows - 1 )
+				r.setTXCommit();
+			rows.add(r);
+		}
+		return rows;
+	}
+
+	private static void run(int nWorkers, int nRows, int nColumns) throws Exception {
+		MaxwellConfig config = new MaxwellConfig();
+		config.producerPartitionKey = "primary_key";
+		config.kafkaProducerWorkers = nWorkers;
+
+		CountDownLatch committed = new CountDownLatch(1);
+		Position last = new Position(new BinlogPosition(4L + nRows - 1, "mysql-bin.000001"), 0L);
+
+		MaxwellContext context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(config);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		doAnswer(invocation -> {
+			if ( last.equals(invocation.getArgument(0)) )
+				committed.countDown();
+			return null;
+		}).when(context).setPosition(any(Position.class));
+
+		// rows are built fresh each run so no serialized JSON is cached
+		List<RowMap> rows = buildRows(nRows, nColumns);
+		InProcessKafka kafka = new InProcessKafka();
+		MaxwellKafkaProducer producer = new MaxwellKafkaProducer(context, "maxwell", kafka);
+
+		long start = System.nanoTime();
+		for ( RowMap r : rows )
+			producer.push(r);
+		committed.await();
+		long elapsed = System.nanoTime() - start;
+
+		producer.getStoppableTask().requestStop();
+
+		System.out.printf("%2d workers %12.0f rows/sec %10.1f MB/sec%n",
+			nWorkers,
+			kafka.records.get() / (elapsed / 1e9),
+			kafka.bytes.get() / (elapsed / 1e9) / (1024 * 1024));
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nRows = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		int maxWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int nColumns = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		System.out.println(nRows + " rows, " + nColumns + " columns, " + Runtime.getRuntime().availableProcessors() + " cpus");
+		for ( int round = 0; round < 2; round++ ) {
+			System.out.println(round == 0 ? "-- warmup" : "-- measured");
+			for ( int nWorkers = 1; nWorkers <= maxWorkers; nWorkers *= 2 )
+				run(nWorkers, nRows, nColumns);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.FieldNameStrategy;
+import com.zendesk.maxwell.row.RowMap;
+import com.zendesk.maxwell.row.RowOutputPlan;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+   per-row cost of RowMap#toJSON with and without a compiled per-table output plan.
+   without one, every data key goes through the naming strategy and every
+   exclude_columns pattern on each call.
+
+   usage: RowOutputPlanBenchmark [columns] [rows]
+ */
+public class RowOutputPlanBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	private static long run(List<RowMap> rows, MaxwellOutputConfig outputConfig) throws Exception {
+		long bytes = 0;
+		for ( RowMap r : rows )
+			bytes += r.toJSON(outputConfig).length();
+		return bytes;
+	}
+
+	private static void measure(String name, List<RowMap> rows, MaxwellOutputConfig outputConfig) throws Exception {
+		for ( int i = 0; i < WARMUP_ROUNDS; i++ )
+			run(rows, outputConfig);
+
+		long best = Long.MAX_VALUE;
+		for ( int i = 0; i < ROUNDS; i++ ) {
+			long start = System.nanoTime();
+			run(rows, outputConfig);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		System.out.printf("%-12s %8.0f ns/row%n", name, (double) best / rows.size());
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nColumns = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int nRows = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+		List<ColumnDef> columns = new ArrayList<>();
+		for ( int i = 0; i < nColumns; i++ )
+			columns.add(ColumnDef.build("column_number_" + i, "utf8", "varchar", (short) i, false, null, null));
+		Table table = new Table("bench_db", "bench_table", "utf8", columns, Arrays.asList("column_number_0"));
+
+		MaxwellOutputConfig outputConfig = new MaxwellOutputConfig();
+		outputConfig.namingStrategy = FieldNameStrategy.NAME_UNDERSCORE_TO_CAMEL_CASE;
+		outputConfig.excludeColumns = Arrays.asList(Pattern.compile("password_.*"), Pattern.compile("token"));
+
+		Position position = new Position(new BinlogPosition(4L, "mysql-bin.000001"), 0L);
+		RowOutputPlan plan = RowOutputPlan.compile(outputConfig, table);
+
+		List<RowMap> plain = new ArrayList<>(nRows);
+		List<RowMap> planned = new ArrayList<>(nRows);
+		for ( int i = 0; i < nRows; i++ ) {
+			RowMap a = new RowMap("insert", "bench_db", "bench_table", 1500000000000L, table.getPKList(), position);
+			RowMap b = new RowMap("insert", "bench_db", "bench_table", 1500000000000L, table.getPKList(), position);
+			for ( ColumnDef cd : columns ) {
+				a.putData(cd.getName(), "value " + i);
+				b.putData(cd.getName(), "value " + i);
+			}
+			b.setOutputPlan(plan);
+			plain.add(a);
+			planned.add(b);
+		}
+
+		System.out.println(nColumns + " columns, " + nRows + " rows");
+		measure("no plan", plain, outputConfig);
+		measure("table plan", planned, outputConfig);
+	}
+}
@@ -0,0 +1,103 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.schema.Database;
+import com.zendesk.maxwell.schema.Schema;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import com.zendesk.maxwell.schema.ddl.ResolvedSchemaChange;
+import com.zendesk.maxwell.schema.ddl.SchemaChange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+   table/column lookups and DDL resolution against a large schema: N tables
+   spread over sharded, identically-shaped databases.
+
+   - find table:  Database#findTable, as table-map events do
+   - find column: Table#findColumnIndex, by mixed-case name
+   - ddl:         parse, resolve and apply ALTER TABLE ADD / DROP COLUMN pairs
+
+   usage: SchemaLookupBenchmark [tables] [tables-per-database] [columns]
+ */
+public class SchemaLookupBenchmark {
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 3;
+
+	private static volatile long sink;
+
+	private interface Op {
+		void run(int i) throws Exception;
+	}
+
+	private static void measure(String name, int n, Op op) throws Exception {
+		long best = Long.MAX_VALUE;
+		for ( int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++ ) {
+			long start = System.nanoTime();
+			for ( int i = 0; i < n; i++ )
+				op.run(i);
+			long elapsed = System.nanoTime() - start;
+			if ( round >= WARMUP_ROUNDS )
+				best = Math.min(best, elapsed);
+		}
+
+		System.out.printf("%-12s %10.0f ops/sec %10.1f us/op%n", name, n / (best / 1e9), best / 1e3 / n);
+	}
+
+	private static Schema buildSchema(int nTables, int tablesPerDB, int nColumns) {
+		List<ColumnDef> columns = new ArrayList<>();
+		for ( int i = 0; i < nColumns; i++ )
+			columns.add(ColumnDef.build("column_" + i, "utf8", i == 0 ? "bigint" : "varchar", (short) i, false, null, null));
+
+		List<Database> databases = new ArrayList<>();
+		Database db = null;
+		for ( int i = 0; i < nTables; i++ ) {
+			if ( i % tablesPerDB == 0 ) {
+				db = new Database("shard_" + (i / tablesPerDB), "utf8");
+				databases.add(db);
+			}
+			db.addTable(new Table(db.getName(), "table_" + (i % tablesPerDB), "utf8", columns, Arrays.asList("column_0")));
+		}
+		return new Schema(databases, "utf8", CaseSensitivity.CONVERT_ON_COMPARE);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nTables = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int tablesPerDB = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		int nColumns = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+		int nDatabases = (nTables + tablesPerDB - 1) / tablesPerDB;
+
+		long start = System.nanoTime();
+		Schema schema = buildSchema(nTables, tablesPerDB, nColumns);
+		System.out.printf("%d tables in %d databases, %d columns each, built in %d ms%n",
+			nTables, nDatabases, nColumns, (System.nanoTime() - start) / 1_000_000);
+
+		measure("find table", 100_000, i -> {
+			Database db = schema.findDatabase("shard_" + (i % nDatabases));
+			Table t = db.findTable("TABLE_" + ((i * 7919) % tablesPerDB));
+			sink += t.getPKIndex();
+		});
+
+		Table table = schema.findDatabase("shard_0").findTable("table_0");
+		measure("find column", 1_000_000, i -> {
+			sink += table.findColumnIndex("Column_" + (i % nColumns));
+		});
+
+		measure("ddl", 2_000, i -> {
+			String db = "shard_" + (i % nDatabases);
+			String tableName = "table_" + ((i * 7919) % tablesPerDB);
+			for ( String sql : new String[] {
+				"ALTER TABLE " + tableName + " ADD COLUMN bench_col int",
+				"ALTER TABLE " + tableName + " DROP COLUMN bench_col"
+			} ) {
+				for ( SchemaChange change : SchemaChange.parse(db, sql) ) {
+					ResolvedSchemaChange resolved = change.resolve(schema);
+					if ( resolved != null )
+						resolved.apply(schema);
+				}
+			}
+		});
+	}
+}
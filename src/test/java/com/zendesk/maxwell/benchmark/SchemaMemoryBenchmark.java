@@ -0,0 +1,81 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.schema.Database;
+import com.zendesk.maxwell.schema.Schema;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+   retained heap per table of a schema made of many identically-shaped
+   tenant tables, built the way a schema is restored: one table at a time,
+   with freshly built column definitions and primary key lists.
+
+   a few distinct shapes are cycled through, as in a sharded multi-tenant
+   deploy where every shard runs the same migrations.
+
+   usage: SchemaMemoryBenchmark [tables] [tables-per-database] [shapes]
+ */
+public class SchemaMemoryBenchmark {
+	private static final String[] TYPES = { "bigint", "varchar", "int", "datetime", "text", "tinyint", "decimal", "enum" };
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime rt = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for ( int i = 0; i < 5; i++ ) {
+			System.gc();
+			Thread.sleep(100);
+			used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+		}
+		return used;
+	}
+
+	private static void buildTable(Database db, String name, int shape) {
+		// fresh strings and lists for every table, as when read back from the schema store
+		int nColumns = 20 + shape * 3;
+		List<ColumnDef> columns = new ArrayList<>();
+		for ( int i = 0; i < nColumns; i++ ) {
+			String type = TYPES[(i + shape) % TYPES.length];
+			String[] enumValues = type.equals("enum") ? new String[] { new String("open"), new String("closed") } : null;
+			columns.add(ColumnDef.build(new String("column_" + i), new String("utf8mb4"), new String(type), (short) i, false, enumValues, null));
+		}
+
+		Table t = db.buildTable(name, new String("utf8mb4"));
+		t.addColumns(columns);
+		t.setPKList(Arrays.asList(new String("column_0"), new String("column_1")));
+		t.getPKList();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nTables = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int tablesPerDB = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int nShapes = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+		long before = usedHeap();
+
+		List<Database> databases = new ArrayList<>();
+		Database db = null;
+		for ( int i = 0; i < nTables; i++ ) {
+			if ( i % tablesPerDB == 0 ) {
+				db = new Database("tenant_" + (i / tablesPerDB), "utf8mb4");
+				databases.add(db);
+			}
+			buildTable(db, "table_" + (i % tablesPerDB), i % nShapes);
+		}
+		Schema schema = new Schema(databases, "utf8mb4", CaseSensitivity.CASE_SENSITIVE);
+
+		long after = usedHeap();
+		System.out.printf("%d tables in %d databases, %d shapes: %.1f MB retained, %.0f bytes/table%n",
+			nTables, databases.size(), nShapes,
+			(after - before) / 1e6,
+			(double) (after - before) / nTables);
+
+		// keep the schema reachable through the measurement
+		if ( schema.getDatabases().size() != databases.size() )
+			throw new IllegalStateException();
+	}
+}
@@ -0,0 +1,87 @@
+package com.zendesk.maxwell.benchmark;
+
+import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.schema.Database;
+import com.zendesk.maxwell.schema.Schema;
+import com.zendesk.maxwell.schema.SchemaSnapshot;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+   encode and decode a binary schema snapshot of N tables, as saved to and
+   restored from `schema_snapshots`.  The database round trip is not included;
+   compare against the `columns` row count the same schema would need.
+
+   with as many shapes as tables, no two tables share a definition.
+
+   usage: SchemaSnapshotBenchmark [tables] [tables-per-database] [columns] [shapes]
+ */
+public class SchemaSnapshotBenchmark {
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 3;
+	private static final String[] TYPES = { "bigint", "varchar", "int", "datetime", "text", "tinyint", "decimal", "enum" };
+
+	private static Schema buildSchema(int nTables, int tablesPerDB, int nColumns, int nShapes) {
+		List<Database> databases = new ArrayList<>();
+		Database db = null;
+		for ( int i = 0; i < nTables; i++ ) {
+			if ( i % tablesPerDB == 0 ) {
+				db = new Database("tenant_" + (i / tablesPerDB), "utf8mb4");
+				databases.add(db);
+			}
+
+			int shape = i % nShapes;
+			List<ColumnDef> columns = new ArrayList<>();
+			for ( int c = 0; c < nColumns; c++ ) {
+				String type = TYPES[(c + shape) % TYPES.length];
+				String[] enumValues = type.equals("enum") ? new String[] { "open", "closed" } : null;
+				columns.add(ColumnDef.build("s" + shape + "_column_" + c, "utf8mb4", type, (short) c, false, enumValues, null));
+			}
+			db.addTable(new Table(db.getName(), "table_" + (i % tablesPerDB), "utf8mb4", columns, Arrays.asList("s" + shape + "_column_0")));
+		}
+		return new Schema(databases, "utf8mb4", CaseSensitivity.CASE_SENSITIVE);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nTables = args.length > 0 ? Integer.parseInt(args[0]) : 30_000;
+		int tablesPerDB = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int nColumns = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+		int nShapes = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+		Schema schema = buildSchema(nTables, tablesPerDB, nColumns, nShapes);
+		long nColumnRows = 0;
+		for ( Database d : schema.getDatabases() )
+			for ( Table t : d.getTableList() )
+				nColumnRows += t.getColumnList().size();
+
+		long bestEncode = Long.MAX_VALUE, bestDecode = Long.MAX_VALUE;
+		byte[] data = null;
+		for ( int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++ ) {
+			long start = System.nanoTime();
+			data = SchemaSnapshot.toBytes(schema);
+			long encoded = System.nanoTime();
+
+			Schema restored = new Schema(new ArrayList<>(), "utf8mb4", CaseSensitivity.CASE_SENSITIVE);
+			SchemaSnapshot.readInto(new ByteArrayInputStream(data), restored);
+			long decoded = System.nanoTime();
+
+			if ( restored.getDatabases().size() != schema.getDatabases().size() )
+				throw new IllegalStateException();
+
+			if ( round >= WARMUP_ROUNDS ) {
+				bestEncode = Math.min(bestEncode, encoded - start);
+				bestDecode = Math.min(bestDecode, decoded - encoded);
+			}
+		}
+
+		System.out.printf("%d tables, %d columns (rows in `columns`), %d shapes%n", nTables, nColumnRows, nShapes);
+		System.out.printf("snapshot: %d bytes (%.2f bytes/column)%n", data.length, (double) data.length / nColumnRows);
+		System.out.printf("encode:   %8.1f ms%n", bestEncode / 1e6);
+		System.out.printf("decode:   %8.1f ms%n", bestDecode / 1e6);
+	}
+}
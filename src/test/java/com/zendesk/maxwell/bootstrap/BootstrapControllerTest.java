@@ -0,0 +1,120 @@
+package com.zendesk.maxwell.bootstrap;
+
+import com.zendesk.maxwell.producer.AbstractProducer;
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BootstrapControllerTest {
+	private AbstractProducer producer;
+	private SynchronousBootstrapper bootstrapper;
+	private BootstrapController controller;
+	private BootstrapTask task;
+	private List<String> pushed;
+
+	private static RowMap row(String type, String database, String table) {
+		return new RowMap(type, database, table, System.currentTimeMillis(), Collections.singletonList("id"),
+			new Position(new BinlogPosition(3, "mysql.1"), 0L));
+	}
+
+	private static RowMap row(String type, long id) {
+		RowMap row = row(type, "shard_1", "chunked");
+		row.putData("id", id);
+		return row;
+	}
+
+	private static RowMap watermark(String column, String token) {
+		RowMap row = row("update", "maxwell", "bootstrap_watermarks");
+		row.putData(column, token);
+		return row;
+	}
+
+	/* what the replicator does with a row of the table */
+	private void replicate(RowMap row) throws Exception {
+		if ( !controller.shouldSkip(row) )
+			producer.push(row);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		producer = mock(AbstractProducer.class);
+		bootstrapper = mock(SynchronousBootstrapper.class);
+		pushed = new ArrayList<>();
+		doAnswer(i -> {
+			RowMap r = i.getArgument(0);
+			pushed.add(r.getRowType() + " " + r.getData("id"));
+			return null;
+		}).when(producer).push(any(RowMap.class));
+
+		controller = new BootstrapController(null, producer, bootstrapper, "maxwell", false, true, 1L);
+
+		task = new BootstrapTask();
+		task.id = 1L;
+		task.database = "shard_1";
+		task.table = "chunked";
+	}
+
+	@Test(timeout = 10000)
+	public void testChunkRowsChangedInsideTheWindowAreDropped() throws Exception {
+		doAnswer(i -> {
+			replicate(row("insert", 9L)); // before the chunks are planned: buffered
+			controller.streamActiveTask();
+
+			WatermarkWindow window = new WatermarkWindow(new BootstrapChunk(0, 1, 4), "id");
+			controller.openWindow(window);
+			replicate(row("update", 1L)); // read by the chunk; goes first, the chunk's copy is newer
+
+			for ( long id = 1; id <= 4; id++ )
+				window.add(id, row("bootstrap-insert", id));
+
+			controller.processWatermark(watermark("low_watermark", window.token));
+			replicate(row("update", 2L));
+			replicate(row("delete", 3L));
+			replicate(row("insert", 9L)); // outside the chunk
+
+			controller.processWatermark(watermark("high_watermark", "some other run"));
+			assertThat(pushed.contains("bootstrap-insert 1"), is(false));
+
+			controller.processWatermark(watermark("high_watermark", window.token));
+			window.awaitClose();
+			assertThat(window.getSuperseded(), is(2));
+
+			replicate(row("update", 4L));
+			return null;
+		}).when(bootstrapper).startBootstrap(eq(task), eq(producer), anyLong(), eq(controller));
+
+		controller.runTask(task);
+
+		assertThat(pushed.toString(), is(
+			"[insert 9, update 1, update 2, delete 3, insert 9, bootstrap-insert 1, bootstrap-insert 4, update 4]"
+		));
+	}
+
+	@Test
+	public void testRowsAreBufferedWithoutWatermarks() throws Exception {
+		controller = new BootstrapController(null, producer, bootstrapper, "maxwell", false, false, 1L);
+		doAnswer(i -> {
+			replicate(row("update", 1L));
+			replicate(row("insert", 2L));
+			assertThat(pushed.isEmpty(), is(true));
+			return null;
+		}).when(bootstrapper).startBootstrap(eq(task), eq(producer), anyLong(), isNull());
+
+		controller.runTask(task);
+
+		assertThat(pushed.toString(), is("[update 1, insert 2]"));
+	}
+}
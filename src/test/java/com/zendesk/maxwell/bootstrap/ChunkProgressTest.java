@@ -0,0 +1,106 @@
+package com.zendesk.maxwell.bootstrap;
+
+import com.zendesk.maxwell.producer.AbstractProducer;
+import com.zendesk.maxwell.row.RowMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ChunkProgressTest {
+	private static RowMap row(long id) {
+		RowMap row = new RowMap("bootstrap-insert", "shard_1", "chunked", System.currentTimeMillis(), Collections.singletonList("id"), null);
+		row.putData("id", id);
+		return row;
+	}
+
+	private static List<RowMap> track(ChunkProgress progress, long lower, long upper) {
+		List<RowMap> rows = new ArrayList<>();
+		for ( long id = lower; id <= upper; id++ ) {
+			RowMap row = row(id);
+			progress.track(id, row);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	@Test
+	public void testMarkOnlyPassesAcknowledgedRows() {
+		BootstrapChunk chunk = new BootstrapChunk(0, 1, 10);
+		ChunkProgress progress = new ChunkProgress(chunk);
+		List<RowMap> rows = track(progress, 1, 4);
+
+		rows.get(1).acknowledge();
+		rows.get(2).acknowledge();
+		progress.applyTo(chunk);
+		assertThat(chunk.highWaterMark, is(nullValue()));
+		assertThat(chunk.insertedRows, is(0L));
+
+		rows.get(0).acknowledge();
+		progress.applyTo(chunk);
+		assertThat(chunk.highWaterMark, is(3L));
+		assertThat(chunk.insertedRows, is(3L));
+	}
+
+	@Test
+	public void testResumesFromTheSavedMark() throws Exception {
+		BootstrapChunk chunk = new BootstrapChunk(0, 1, 10);
+		chunk.highWaterMark = 4L;
+		chunk.insertedRows = 4;
+		ChunkProgress progress = new ChunkProgress(chunk);
+		List<RowMap> rows = track(progress, 5, 6);
+
+		rows.get(1).acknowledge();
+		rows.get(1).acknowledge(); // only counted once
+		progress.applyTo(chunk);
+		assertThat(chunk.highWaterMark, is(4L));
+
+		rows.get(0).acknowledge();
+		progress.awaitAcknowledged();
+		progress.applyTo(chunk);
+		assertThat(chunk.highWaterMark, is(6L));
+		assertThat(chunk.insertedRows, is(6L));
+	}
+
+	@Test(timeout = 10000)
+	public void testAwaitsTheProducer() throws Exception {
+		AbstractProducer producer = mock(AbstractProducer.class);
+		when(producer.acknowledgesRows()).thenReturn(true);
+		List<RowMap> pushed = Collections.synchronizedList(new ArrayList<>());
+		doAnswer(i -> pushed.add(i.getArgument(0))).when(producer).push(any(RowMap.class));
+
+		BootstrapChunk chunk = new BootstrapChunk(0, 1, 10);
+		ChunkProgress progress = new ChunkProgress(chunk);
+		for ( RowMap row : track(progress, 1, 3) )
+			ChunkProgress.push(producer, row);
+
+		Thread producerThread = new Thread(() -> {
+			for ( int i = pushed.size() - 1; i >= 0; i-- )
+				pushed.get(i).acknowledge();
+		});
+		producerThread.start();
+
+		progress.awaitAcknowledged();
+		progress.applyTo(chunk);
+		assertThat(chunk.highWaterMark, is(3L));
+	}
+
+	@Test
+	public void testRowsOfOtherProducersCountOncePushed() throws Exception {
+		AbstractProducer producer = mock(AbstractProducer.class);
+
+		BootstrapChunk chunk = new BootstrapChunk(0, 1, 10);
+		ChunkProgress progress = new ChunkProgress(chunk);
+		for ( RowMap row : track(progress, 1, 2) )
+			ChunkProgress.push(producer, row);
+
+		progress.applyTo(chunk);
+		assertThat(chunk.highWaterMark, is(2L));
+	}
+}
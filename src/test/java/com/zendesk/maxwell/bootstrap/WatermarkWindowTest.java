@@ -0,0 +1,63 @@
+package com.zendesk.maxwell.bootstrap;
+
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class WatermarkWindowTest {
+	private static RowMap row(String type, long id) {
+		RowMap row = new RowMap(type, "shard_1", "minimal", System.currentTimeMillis(), Collections.singletonList("id"),
+			new Position(new BinlogPosition(3, "mysql.1"), 0L));
+		row.putData("id", id);
+		return row;
+	}
+
+	private static List<Object> ids(List<RowMap> rows) {
+		List<Object> ids = new ArrayList<>();
+		for ( RowMap r : rows )
+			ids.add(r.getData("id"));
+		return ids;
+	}
+
+	private static WatermarkWindow windowWithRows(long lower, long upper) {
+		WatermarkWindow window = new WatermarkWindow(new BootstrapChunk(0, lower, upper), "id");
+		for ( long id = lower; id <= upper; id++ )
+			window.add(id, row("bootstrap-insert", id));
+		return window;
+	}
+
+	@Test
+	public void testRowsChangedInsideTheWindowAreDropped() {
+		WatermarkWindow window = windowWithRows(1, 5);
+
+		window.rowChanged(row("update", 1)); // before the low watermark
+		window.lowWatermark();
+		window.rowChanged(row("update", 2));
+		window.rowChanged(row("delete", 4));
+		window.rowChanged(row("insert", 9)); // outside the chunk
+
+		assertThat(ids(window.highWatermark()).toString(), is("[1, 3, 5]"));
+		assertThat(window.getSuperseded(), is(2));
+		assertThat(window.getSent(), is(3));
+	}
+
+	@Test
+	public void testUpdatedPrimaryKeyDropsTheOldKey() {
+		WatermarkWindow window = windowWithRows(1, 3);
+		window.lowWatermark();
+
+		RowMap update = row("update", 10);
+		update.putOldData("id", 2L);
+		window.rowChanged(update);
+
+		assertThat(ids(window.highWatermark()).toString(), is("[1, 3]"));
+	}
+}
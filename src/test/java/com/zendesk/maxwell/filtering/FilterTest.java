@@ -159,5 +159,47 @@ public class FilterTest {
 		Filter f = new Filter("");
 		assertEquals(f.toString(), "");
 	}
-}
 
+	@Test
+	public void TestExcludesAllRows() throws Exception {
+		Filter f = new Filter("exclude: *.*, include: foo.*, blacklist: bad_db.*, include: bar.baz.col=1");
+
+		assertFalse(f.excludesAllRows("foo", "anything"));
+		assertFalse(f.excludesAllRows("bar", "baz"));
+		assertTrue(f.excludesAllRows("bar", "other"));
+		assertTrue(f.excludesAllRows("bad_db", "t"));
+		assertTrue(f.excludesAllRows("mysql", "ha_health_check"));
+		assertFalse(f.excludesAllRows("maxwell", "heartbeats"));
+		assertFalse(f.excludesAllRows("maxwell", "bootstrap"));
+	}
+
+	@Test
+	public void TestDecisionsFollowRuleChanges() throws Exception {
+		Filter f = new Filter("exclude: foo.*");
+		FilterDecision before = f.decisionFor("foo", "bar");
+		assertFalse(before.includes());
+		assertSame(before, f.decisionFor("foo", "bar"));
+
+		f.addRule("include: foo.bar");
+		assertFalse(f.isCurrent(before));
+		assertTrue(f.decisionFor("foo", "bar").includes());
+
+		f.set("blacklist: foo.bar");
+		assertTrue(f.isTableBlacklisted("foo", "bar"));
+	}
+
+	@Test
+	public void TestTableRulesOverrideEarlierColumnRules() throws Exception {
+		Map<String, Object> map = new HashMap<>();
+		map.put("col", "val");
+
+		Filter f = new Filter("exclude: *.*, include: foo.bar.col=val, exclude: foo.bar");
+		assertFalse(f.includes("foo", "bar", map));
+		assertFalse(f.decisionFor("foo", "bar").hasValueRules());
+
+		f = new Filter("exclude: *.*, include: foo.bar.col=val, exclude: foo.other");
+		assertTrue(f.includes("foo", "bar", map));
+		assertTrue(f.decisionFor("foo", "bar").hasValueRules());
+		assertFalse(f.decisionFor("foo", "other").hasValueRules());
+	}
+}
@@ -20,6 +20,7 @@ import org.json.JSONObject;
 import org.junit.Test;
 import com.zendesk.maxwell.monitoring.NoOpMetrics;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
@@ -41,14 +42,39 @@ public class BigQueryCallbackTest {
         JSONObject record = new JSONObject(r.toJSON(outputConfig));
         jsonArr.put(record);
         AbstractAsyncProducer.CallbackCompleter cc = mock(AbstractAsyncProducer.CallbackCompleter.class);
-        AppendContext appendContext = new AppendContext(jsonArr, 0, r);
+        AppendContext appendContext = new AppendContext("mytable", jsonArr, Arrays.asList(r), Arrays.asList(cc));
         ArrayBlockingQueue<RowMap> queue =  new ArrayBlockingQueue<RowMap>(100);
         MaxwellBigQueryProducerWorker producerWorker = new MaxwellBigQueryProducerWorker(context, queue,"myproject", "mydataset", "mytable");
-        BigQueryCallback callback = new BigQueryCallback(producerWorker, appendContext, cc,
-                new Position(new BinlogPosition(1, "binlog-1"), 0L),
+        BigQueryCallback callback = new BigQueryCallback(producerWorker, appendContext,
                 new Counter(), new Counter(), new Meter(), new Meter(), context);
         Throwable t = new Throwable("error");
         callback.onFailure(t);
         verify(cc).markCompleted();
     }
+
+    @Test
+    public void shouldCompleteEveryRowOfABatch() throws Exception {
+        MaxwellContext context = mock(MaxwellContext.class);
+        when(context.getConfig()).thenReturn(new MaxwellConfig());
+        when(context.getMetrics()).thenReturn(new NoOpMetrics());
+        Position position = new Position(new BinlogPosition(1, "binlog-1"), 0L);
+        JSONArray jsonArr = new JSONArray();
+        ArrayList<RowMap> rows = new ArrayList<>();
+        ArrayList<AbstractAsyncProducer.CallbackCompleter> completers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RowMap r = new RowMap("insert", "MyDatabase", "MyTable", 1234567890L, new ArrayList<String>(), position);
+            jsonArr.put(new JSONObject(r.toJSON()));
+            rows.add(r);
+            completers.add(mock(AbstractAsyncProducer.CallbackCompleter.class));
+        }
+        ArrayBlockingQueue<RowMap> queue =  new ArrayBlockingQueue<RowMap>(100);
+        MaxwellBigQueryProducerWorker producerWorker = new MaxwellBigQueryProducerWorker(context, queue,"myproject", "mydataset", "mytable");
+        Counter succeeded = new Counter();
+        BigQueryCallback callback = new BigQueryCallback(producerWorker, new AppendContext("mytable", jsonArr, rows, completers),
+                succeeded, new Counter(), new Meter(), new Meter(), context);
+        callback.onSuccess(null);
+        for (AbstractAsyncProducer.CallbackCompleter cc : completers)
+            verify(cc).markCompleted();
+        assertEquals(3, succeeded.getCount());
+    }
 }
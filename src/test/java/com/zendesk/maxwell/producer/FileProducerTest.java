@@ -0,0 +1,139 @@
+package com.zendesk.maxwell.producer;
+
+import com.zendesk.maxwell.MaxwellConfig;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static com.zendesk.maxwell.producer.ProducerTestRows.position;
+import static com.zendesk.maxwell.producer.ProducerTestRows.row;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class FileProducerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MaxwellConfig config;
+	private MaxwellContext context;
+	private File output;
+
+	@Before
+	public void setUp() throws Exception {
+		config = new MaxwellConfig();
+		context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(config);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		output = new File(folder.getRoot(), "maxwell.json");
+	}
+
+	private File[] rotatedFiles() {
+		return folder.getRoot().listFiles((dir, name) -> !name.equals("maxwell.json"));
+	}
+
+	@Test
+	public void testWritesRowsAndAdvancesPositionOnCommit() throws Exception {
+		FileProducer producer = new FileProducer(context, output.getPath());
+
+		producer.push(row(1L, false));
+		verify(context, never()).setPosition(any(Position.class));
+
+		producer.push(row(2L, true));
+		verify(context).setPosition(position(2L));
+
+		List<String> lines = Files.readAllLines(output.toPath());
+		assertThat(lines.size(), is(2));
+		assertThat(lines.get(0), is(row(1L, false).toJSON()));
+
+		producer.requestStop();
+	}
+
+	@Test
+	public void testHoldsPositionUntilFlushInterval() throws Exception {
+		config.outputFileFlushMs = 60000L;
+		FileProducer producer = new FileProducer(context, output.getPath());
+
+		producer.pushBatch(Arrays.asList(row(1L, false), row(2L, true)));
+		verify(context, never()).setPosition(any(Position.class));
+		assertThat(output.length(), is(0L));
+
+		producer.requestStop();
+		verify(context).setPosition(position(2L));
+		assertThat(Files.readAllLines(output.toPath()).size(), is(2));
+	}
+
+	@Test
+	public void testAcknowledgesRowsOnceFlushed() throws Exception {
+		config.outputFileFlushMs = 60000L;
+		FileProducer producer = new FileProducer(context, output.getPath());
+		AtomicInteger acknowledged = new AtomicInteger();
+		RowMap r = row(1L, false);
+		r.setAcknowledgeCallback(acknowledged::incrementAndGet);
+
+		producer.push(r);
+		assertThat(acknowledged.get(), is(0));
+
+		producer.requestStop();
+		assertThat(acknowledged.get(), is(1));
+	}
+
+	@Test
+	public void testRotatesBetweenTransactions() throws Exception {
+		config.outputFileRotateBytes = 1L;
+		FileProducer producer = new FileProducer(context, output.getPath());
+
+		producer.pushBatch(Arrays.asList(row(1L, false), row(2L, true)));
+		producer.pushBatch(Arrays.asList(row(3L, true)));
+		producer.requestStop();
+
+		File[] rotated = rotatedFiles();
+		Arrays.sort(rotated);
+		assertThat(rotated.length, is(2));
+		assertThat(Files.readAllLines(rotated[0].toPath()).size(), is(2));
+		assertThat(Files.readAllLines(rotated[1].toPath()).size(), is(1));
+		assertThat(output.length(), is(0L));
+	}
+
+	@Test
+	public void testCompressesRotatedFiles() throws Exception {
+		config.outputFileRotateBytes = 1L;
+		config.outputFileCompression = "gzip";
+		FileProducer producer = new FileProducer(context, output.getPath());
+
+		producer.push(row(1L, true));
+		producer.requestStop();
+		producer.awaitStop(5000L);
+
+		File[] rotated = rotatedFiles();
+		assertThat(rotated.length, is(1));
+		assertThat(rotated[0].getName().endsWith(".gz"), is(true));
+
+		List<String> lines = new ArrayList<>();
+		try ( BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(new FileInputStream(rotated[0])), StandardCharsets.UTF_8)) ) {
+			String line;
+			while ( (line = reader.readLine()) != null )
+				lines.add(line);
+		}
+		assertThat(lines, is(Arrays.asList(row(1L, true).toJSON())));
+	}
+}
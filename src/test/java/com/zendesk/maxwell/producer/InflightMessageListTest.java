@@ -2,8 +2,10 @@ package com.zendesk.maxwell.producer;
 
 import com.zendesk.maxwell.MaxwellConfig;
 import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
 import com.zendesk.maxwell.replication.BinlogPosition;
 import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,6 +13,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
@@ -68,6 +78,23 @@ public class InflightMessageListTest {
 		assertEquals(p3, ret);
 	}
 
+	@Test
+	public void testMessageWithoutPositionHoldsBackCompletion() throws InterruptedException {
+		setupWithInflightRequestTimeout(0);
+
+		InflightMessageList.InflightMessage row = list.addMessage(null, 0L, 4);
+		InflightMessageList.InflightMessage commit = list.addMessage(p4, 0L, 5);
+
+		list.completeMessage(p1);
+		list.completeMessage(p2);
+		assertEquals(p3, list.completeMessage(p3).position);
+
+		InflightMessageList.InflightMessage m = list.completeMessage(commit);
+		assert(m == null);
+		assertEquals(p4, list.completeMessage(row).position);
+		assertEquals(0, list.size());
+	}
+
 	@Test
 	public void testMaxwellWillTerminateWhenHeadOfInflightMsgListIsStuckAndCheckTurnedOn() throws InterruptedException {
 		// Given
@@ -120,6 +147,125 @@ public class InflightMessageListTest {
 		assertThat("Should have waited message to be completed", elapse, greaterThanOrEqualTo(wait));
 	}
 
+	@Test
+	public void testOutOfOrderCompletionFromManyThreads() throws Exception {
+		final int messages = 50000;
+		final int completers = 4;
+
+		context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(new MaxwellConfig());
+		list = new InflightMessageList(context, 64);
+
+		final List<InflightMessageList.InflightMessage> added = new ArrayList<>();
+		final BlockingQueue<InflightMessageList.InflightMessage> sent = new ArrayBlockingQueue<>(messages);
+		final ConcurrentLinkedQueue<InflightMessageList.InflightMessage> passed = new ConcurrentLinkedQueue<>();
+		final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+
+		Thread adder = new Thread(() -> {
+			try {
+				for ( int i = 1; i <= messages; i++ ) {
+					long id = list.waitForSlot();
+					InflightMessageList.InflightMessage m = list.addMessage(new Position(BinlogPosition.at(i, "f"), 0L), 0L, id);
+					synchronized(added) {
+						added.add(m);
+					}
+					sent.put(m);
+				}
+			} catch ( InterruptedException e ) {
+				errors.add(e.toString());
+			}
+		});
+
+		List<Thread> threads = new ArrayList<>();
+		for ( int t = 0; t < completers; t++ ) {
+			threads.add(new Thread(() -> {
+				List<InflightMessageList.InflightMessage> batch = new ArrayList<>();
+				while ( true ) {
+					// acknowledge a few at a time, newest first
+					batch.clear();
+					sent.drainTo(batch, 8);
+					if ( batch.isEmpty() ) {
+						if ( passed.size() > 0 && list.size() == 0 && !adder.isAlive() )
+							return;
+						Thread.yield();
+						continue;
+					}
+
+					for ( int i = batch.size() - 1; i >= 0; i-- ) {
+						InflightMessageList.InflightMessage m = batch.get(i);
+						InflightMessageList.InflightMessage until = list.completeMessage(m);
+						list.freeSlot(m.messageID);
+						if ( until == null )
+							continue;
+
+						passed.add(until);
+						if ( !until.isComplete )
+							errors.add("passed incomplete message " + until.messageID);
+						synchronized(added) {
+							for ( long id = Math.max(1, until.messageID - 64); id < until.messageID; id++ ) {
+								if ( !added.get((int) id - 1).isComplete )
+									errors.add("passed " + until.messageID + " before " + id + " completed");
+							}
+						}
+					}
+				}
+			}));
+		}
+
+		adder.start();
+		for ( Thread t : threads )
+			t.start();
+		adder.join(30000);
+		for ( Thread t : threads )
+			t.join(30000);
+
+		assertThat(errors.toString(), errors.isEmpty(), is(true));
+		assertThat(list.size(), is(0));
+
+		long newest = 0;
+		Set<Long> seen = new HashSet<>();
+		for ( InflightMessageList.InflightMessage m : passed ) {
+			assertThat("message " + m.messageID + " passed twice", seen.add(m.messageID), is(true));
+			newest = Math.max(newest, m.position.getBinlogPosition().getOffset());
+		}
+		assertEquals(messages, newest);
+	}
+
+	@Test
+	public void testPositionCallbackCompleterFindsItsMessage() throws InterruptedException {
+		setupWithInflightRequestTimeout(0);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		AbstractAsyncProducer producer = new AbstractAsyncProducer(context) {
+			@Override
+			public void sendAsync(RowMap r, CallbackCompleter cc) { }
+		};
+
+		producer.new CallbackCompleter(list, p2, true, context, 2).markCompleted();
+		producer.new CallbackCompleter(list, p1, true, context, 1).markCompleted();
+
+		verify(context).setPosition(p2);
+		assertEquals(1, list.size());
+	}
+
+	@Test
+	public void testCompletedRowsAreAcknowledged() throws InterruptedException {
+		setupWithInflightRequestTimeout(0);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		AbstractAsyncProducer producer = new AbstractAsyncProducer(context) {
+			@Override
+			public void sendAsync(RowMap r, CallbackCompleter cc) { }
+		};
+		List<String> acknowledged = new ArrayList<>();
+		RowMap row = new RowMap("bootstrap-insert", "db", "t", 0L, new ArrayList<>(), null);
+		row.setAcknowledgeCallback(() -> acknowledged.add("row"));
+
+		AbstractAsyncProducer.CallbackCompleter cc = producer.track(row);
+		assertThat(acknowledged.isEmpty(), is(true));
+
+		cc.markCompleted();
+		assertThat(acknowledged.size(), is(1));
+	}
+
 	class AddMessage implements Runnable {
 		long start;
 		long end;
@@ -0,0 +1,117 @@
+package com.zendesk.maxwell.producer;
+
+import com.google.common.base.Utf8;
+import com.zendesk.maxwell.MaxwellConfig;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.row.RowMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.zendesk.maxwell.producer.ProducerTestRows.position;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+public class MaxwellBigQueryProducerWorkerTest {
+    private MaxwellContext context;
+    private MaxwellConfig config;
+    private List<AppendContext> appends;
+
+    @Before
+    public void setUp() {
+        context = mock(MaxwellContext.class);
+        config = new MaxwellConfig();
+        config.bigQueryBatchRows = 500;
+        config.bigQueryBatchBytes = 5L * 1024 * 1024;
+        when(context.getConfig()).thenReturn(config);
+        when(context.getMetrics()).thenReturn(new NoOpMetrics());
+        appends = new ArrayList<>();
+    }
+
+    private MaxwellBigQueryProducerWorker worker() throws Exception {
+        return new MaxwellBigQueryProducerWorker(context, new ArrayBlockingQueue<RowMap>(100), "myproject", "mydataset", "%{table}") {
+            @Override
+            void append(AppendContext appendContext) {
+                appends.add(appendContext);
+            }
+        };
+    }
+
+    private static RowMap row(String table, long offset, String value) {
+        RowMap r = new RowMap("insert", "MyDatabase", table, 1496712943447L, Arrays.asList("id"), position(offset));
+        r.putData("id", offset);
+        r.putData("value", value);
+        return r;
+    }
+
+    private void send(MaxwellBigQueryProducerWorker worker, RowMap... rows) throws Exception {
+        List<AbstractAsyncProducer.CallbackCompleter> completers = new ArrayList<>();
+        for (RowMap r : rows) {
+            completers.add(mock(AbstractAsyncProducer.CallbackCompleter.class));
+        }
+        worker.sendAsyncBatch(Arrays.asList(rows), completers);
+    }
+
+    private static List<Object> ids(AppendContext appendContext) {
+        List<Object> ids = new ArrayList<>();
+        for (RowMap r : appendContext.rows) {
+            ids.add(r.getData("id"));
+        }
+        return ids;
+    }
+
+    @Test
+    public void shouldGroupRowsByTableInBinlogOrder() throws Exception {
+        send(worker(), row("a", 1, "x"), row("b", 2, "x"), row("a", 3, "x"), row("b", 4, "x"), row("a", 5, "x"));
+
+        assertEquals(2, appends.size());
+        assertEquals("a", appends.get(0).table);
+        assertEquals(Arrays.asList(1L, 3L, 5L), ids(appends.get(0)));
+        assertEquals(3, appends.get(0).data.length());
+        assertEquals(3, appends.get(0).completers.size());
+        assertEquals("b", appends.get(1).table);
+        assertEquals(Arrays.asList(2L, 4L), ids(appends.get(1)));
+    }
+
+    @Test
+    public void shouldSplitOnBatchRows() throws Exception {
+        config.bigQueryBatchRows = 2;
+        send(worker(), row("a", 1, "x"), row("a", 2, "x"), row("b", 3, "x"), row("a", 4, "x"), row("a", 5, "x"));
+
+        assertEquals(3, appends.size());
+        assertEquals(Arrays.asList(1L, 2L), ids(appends.get(0)));
+        assertEquals(Arrays.asList(4L, 5L), ids(appends.get(1)));
+        assertEquals(Arrays.asList(3L), ids(appends.get(2)));
+    }
+
+    @Test
+    public void shouldSplitOnUtf8BatchBytes() throws Exception {
+        MaxwellBigQueryProducerWorker worker = worker();
+        String value = "\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9";
+        String json = worker.serialize(row("a", 1, value));
+        long bytes = Utf8.encodedLength(json);
+
+        // two rows fit when counting chars, but not when counting bytes
+        config.bigQueryBatchBytes = 2 * bytes - 1;
+        send(worker(), row("a", 1, value), row("a", 2, value), row("a", 3, value));
+
+        assertEquals(3, appends.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Arrays.asList(i + 1L), ids(appends.get(i)));
+        }
+
+        appends.clear();
+        config.bigQueryBatchBytes = 2 * bytes;
+        send(worker(), row("a", 1, value), row("a", 2, value), row("a", 3, value));
+
+        assertEquals(2, appends.size());
+        assertEquals(Arrays.asList(1L, 2L), ids(appends.get(0)));
+        assertEquals(Arrays.asList(3L), ids(appends.get(1)));
+    }
+}
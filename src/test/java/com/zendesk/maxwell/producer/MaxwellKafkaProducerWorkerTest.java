@@ -3,14 +3,22 @@ package com.zendesk.maxwell.producer;
 import com.zendesk.maxwell.MaxwellConfig;
 import com.zendesk.maxwell.MaxwellContext;
 import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
 import com.zendesk.maxwell.row.RowIdentity;
+import com.zendesk.maxwell.schema.PositionStoreThread;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.PartitionInfo;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Properties;
 import java.util.concurrent.TimeoutException;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -36,7 +44,7 @@ public class MaxwellKafkaProducerWorkerTest {
 		when(context.getConfig()).thenReturn(config);
 		config.deadLetterTopic = "maxwell.errors";
 		when(context.getMetrics()).thenReturn(new NoOpMetrics());
-		Producer<String,String> producer = (Producer<String,String>) mock(Producer.class);
+		Producer<String,byte[]> producer = (Producer<String,byte[]>) mock(Producer.class);
 		KafkaCallback callback = mock(KafkaCallback.class);
 		String kafkaTopic = "maxwell";
 		RowIdentity rowId = new RowIdentity("MyDatabase", "MyTable", "insert", Collections.emptyList());
@@ -50,4 +58,51 @@ public class MaxwellKafkaProducerWorkerTest {
 		verify(producer, times(1)).send(any(), any());
 		worker.close();
 	}
+
+	@Test
+	public void diagnosticChecksEveryWorker() throws Exception {
+		MaxwellContext context = mock(MaxwellContext.class);
+		MaxwellConfig config = new MaxwellConfig();
+		when(context.getConfig()).thenReturn(config);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		PositionStoreThread positionStore = mock(PositionStoreThread.class);
+		when(positionStore.getPosition()).thenReturn(new Position(BinlogPosition.at(4, "mysql.1"), 0L));
+
+		Producer<String,byte[]> healthy = (Producer<String,byte[]>) mock(Producer.class);
+		Producer<String,byte[]> failing = (Producer<String,byte[]>) mock(Producer.class);
+		for ( Producer<String,byte[]> p : Arrays.asList(healthy, failing) )
+			when(p.partitionsFor(any())).thenReturn(Collections.singletonList(new PartitionInfo("maxwell", 0, null, null, null)));
+
+		doAnswer(i -> { ((Callback) i.getArgument(1)).onCompletion(null, null); return null; }).when(healthy).send(any(), any());
+		doAnswer(i -> { ((Callback) i.getArgument(1)).onCompletion(null, new RuntimeException("down")); return null; }).when(failing).send(any(), any());
+
+		KafkaProducerDiagnostic diagnostic = new KafkaProducerDiagnostic(Arrays.asList(
+			new MaxwellKafkaProducerWorker(context, "maxwell", null, healthy),
+			new MaxwellKafkaProducerWorker(context, "maxwell", null, failing)
+		), config, positionStore);
+
+		assertThat(diagnostic.check().get().isSuccess(), is(false));
+		verify(healthy, times(1)).send(any(), any());
+		verify(failing, times(1)).send(any(), any());
+	}
+
+	@Test
+	public void sharedProducerIsClosedOnceTheWorkersStop() throws Exception {
+		for ( int nWorkers : new int[] { 1, 3 } ) {
+			MaxwellContext context = mock(MaxwellContext.class);
+			MaxwellConfig config = new MaxwellConfig();
+			config.kafkaProducerWorkers = nWorkers;
+			when(context.getConfig()).thenReturn(config);
+			when(context.getMetrics()).thenReturn(new NoOpMetrics());
+			Producer<String,byte[]> kafka = (Producer<String,byte[]>) mock(Producer.class);
+
+			MaxwellKafkaProducer producer = new MaxwellKafkaProducer(context, "maxwell", kafka);
+			Thread.sleep(100); // for the workers to be waiting on their queues
+			producer.getStoppableTask().requestStop();
+			verify(kafka, never()).close();
+
+			producer.getStoppableTask().awaitStop(10L);
+			verify(kafka, times(1)).close();
+		}
+	}
 }
@@ -0,0 +1,322 @@
+package com.zendesk.maxwell.producer;
+
+import com.zendesk.maxwell.MaxwellConfig;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.zendesk.maxwell.producer.ProducerTestRows.position;
+import static com.zendesk.maxwell.producer.ProducerTestRows.row;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MaxwellRedisProducerTest {
+	/*
+	   just enough of the redis protocol to stand in for a server:
+	   reads commands, records everything but PING, and answers each.
+	   It can be told to drop the connection when a command arrives, or
+	   to answer commands with an error.
+	 */
+	private static class StandInRedis implements Runnable {
+		final ServerSocket server;
+		final List<List<String>> commands = Collections.synchronizedList(new ArrayList<>());
+		final AtomicInteger dropAtCommand = new AtomicInteger(-1);
+		final AtomicInteger drops = new AtomicInteger();
+		final AtomicInteger errorReplies = new AtomicInteger();
+
+		StandInRedis() throws IOException {
+			server = new ServerSocket(0);
+			Thread t = new Thread(this, "stand-in-redis");
+			t.setDaemon(true);
+			t.start();
+		}
+
+		int port() {
+			return server.getLocalPort();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while ( true ) {
+					Socket socket = server.accept();
+					Thread t = new Thread(() -> serve(socket));
+					t.setDaemon(true);
+					t.start();
+				}
+			} catch ( IOException e ) { }
+		}
+
+		private void serve(Socket socket) {
+			try {
+				InputStream in = new BufferedInputStream(socket.getInputStream());
+				OutputStream out = socket.getOutputStream();
+				while ( true ) {
+					List<String> command = readCommand(in);
+					if ( command == null )
+						return;
+
+					String name = command.get(0).toUpperCase();
+					if ( !name.equals("PING") ) {
+						commands.add(command);
+						if ( commands.size() == dropAtCommand.get() && drops.getAndDecrement() > 0 ) {
+							dropAtCommand.addAndGet(2); // the replay will repeat this one and the one before
+							socket.close();
+							return;
+						}
+
+						if ( errorReplies.getAndDecrement() > 0 ) {
+							out.write("-ERR stand-in says no\r\n".getBytes(StandardCharsets.UTF_8));
+							out.flush();
+							continue;
+						}
+					}
+
+					switch ( name ) {
+						case "PING":
+							out.write("+PONG\r\n".getBytes(StandardCharsets.UTF_8));
+							break;
+						case "LPUSH":
+						case "RPUSH":
+						case "PUBLISH":
+							out.write(":1\r\n".getBytes(StandardCharsets.UTF_8));
+							break;
+						case "XADD":
+							out.write("$3\r\n1-0\r\n".getBytes(StandardCharsets.UTF_8));
+							break;
+						default:
+							out.write("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+					}
+					out.flush();
+				}
+			} catch ( IOException e ) { }
+		}
+
+		private static String readLine(InputStream in) throws IOException {
+			StringBuilder sb = new StringBuilder();
+			int c;
+			while ( (c = in.read()) != '\r' ) {
+				if ( c < 0 )
+					return null;
+				sb.append((char) c);
+			}
+			in.read(); // \n
+			return sb.toString();
+		}
+
+		private static List<String> readCommand(InputStream in) throws IOException {
+			String header = readLine(in);
+			if ( header == null )
+				return null;
+
+			int n = Integer.parseInt(header.substring(1));
+			List<String> command = new ArrayList<>(n);
+			for ( int i = 0; i < n; i++ ) {
+				int len = Integer.parseInt(readLine(in).substring(1));
+				byte[] bytes = new byte[len];
+				int read = 0;
+				while ( read < len )
+					read += in.read(bytes, read, len - read);
+				in.read(); in.read(); // \r\n
+				command.add(new String(bytes, StandardCharsets.UTF_8));
+			}
+			return command;
+		}
+
+		void close() throws IOException {
+			server.close();
+		}
+	}
+
+	private StandInRedis redis;
+	private MaxwellConfig config;
+	private MaxwellContext context;
+
+	@Before
+	public void setUp() throws Exception {
+		redis = new StandInRedis();
+
+		config = new MaxwellConfig();
+		config.redisHost = "127.0.0.1";
+		config.redisPort = redis.port();
+		config.redisType = "rpush";
+		config.redisKey = "maxwell";
+
+		context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(config);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		redis.close();
+	}
+
+	@Test
+	public void testSendsWithoutPipelining() throws Exception {
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+		producer.push(row(1L, false));
+		producer.push(row(2L, true));
+
+		assertThat(redis.commands.size(), is(2));
+		assertThat(redis.commands.get(0).get(0), is("RPUSH"));
+		assertThat(redis.commands.get(0).get(1), is("maxwell"));
+		verify(context).setPosition(position(2L));
+
+		producer.requestStop();
+	}
+
+	@Test
+	public void testAcknowledgesPositionOnceThePipelineIsSynced() throws Exception {
+		config.redisPipelineSize = 3;
+		config.redisPipelineFlushMs = 60000L;
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+
+		producer.pushBatch(Arrays.asList(row(1L, false), row(2L, true)));
+		verify(context, never()).setPosition(any(Position.class));
+
+		producer.push(row(3L, false));
+		assertThat(redis.commands.size(), is(3));
+		verify(context).setPosition(position(2L));
+
+		// the trailing open transaction goes out on stop, but has no commit to acknowledge
+		producer.requestStop();
+		verify(context, times(1)).setPosition(any(Position.class));
+	}
+
+	@Test
+	public void testSyncsPartialPipelineAfterFlushInterval() throws Exception {
+		config.redisPipelineSize = 100;
+		config.redisPipelineFlushMs = 20L;
+		config.redisType = "xadd";
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+
+		producer.push(row(1L, true));
+		verify(context, timeout(5000)).setPosition(position(1L));
+
+		assertThat(redis.commands.size(), is(1));
+		assertThat(redis.commands.get(0).get(0), is("XADD"));
+		assertThat(redis.commands.get(0).get(3), is("message"));
+
+		producer.requestStop();
+	}
+
+	private static List<String> pushedIds(List<List<String>> commands) {
+		List<String> ids = new ArrayList<>();
+		for ( List<String> c : commands )
+			ids.add(c.get(2).replaceAll(".*\"id\":(\\d+).*", "$1"));
+		return ids;
+	}
+
+	@Test
+	public void testAcknowledgesPipelinedRowsOnceSynced() throws Exception {
+		config.redisPipelineSize = 2;
+		config.redisPipelineFlushMs = 60000L;
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+		AtomicInteger acknowledged = new AtomicInteger();
+		RowMap r = row(1L, false);
+		r.setAcknowledgeCallback(acknowledged::incrementAndGet);
+
+		producer.push(r);
+		assertThat(acknowledged.get(), is(0));
+
+		producer.push(row(2L, true));
+		assertThat(acknowledged.get(), is(1));
+
+		producer.requestStop();
+	}
+
+	@Test
+	public void testReplaysPipelineWhenTheConnectionDrops() throws Exception {
+		config.redisPipelineSize = 3;
+		config.redisPipelineFlushMs = 60000L;
+		redis.dropAtCommand.set(2);
+		redis.drops.set(1);
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+
+		producer.pushBatch(Arrays.asList(row(1L, false), row(2L, false), row(3L, true)));
+
+		// the first two reached the server before it hung up, then all three were replayed
+		assertThat(pushedIds(redis.commands), is(Arrays.asList("1", "2", "1", "2", "3")));
+		verify(context).setPosition(position(3L));
+
+		producer.requestStop();
+	}
+
+	@Test
+	public void testHoldsPositionWhenTheReplayFailsToo() throws Exception {
+		config.redisPipelineSize = 2;
+		config.redisPipelineFlushMs = 60000L;
+		config.ignoreProducerError = false;
+		redis.dropAtCommand.set(1);
+		redis.drops.set(2);
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+
+		try {
+			producer.pushBatch(Arrays.asList(row(1L, false), row(2L, true)));
+			fail("expected the sync to fail");
+		} catch ( RuntimeException e ) {
+			assertThat(e.getMessage(), is("lost connection to redis syncing 2 pipelined commands"));
+		}
+		verify(context, never()).setPosition(any(Position.class));
+
+		// the commands are still held, and go out with the next sync
+		producer.push(row(3L, true));
+		assertThat(pushedIds(redis.commands.subList(redis.commands.size() - 3, redis.commands.size())),
+			is(Arrays.asList("1", "2", "3")));
+		verify(context).setPosition(position(3L));
+
+		producer.requestStop();
+	}
+
+	@Test
+	public void testErrorReplyFailsTheSync() throws Exception {
+		config.redisPipelineSize = 2;
+		config.redisPipelineFlushMs = 60000L;
+		config.ignoreProducerError = false;
+		redis.errorReplies.set(1);
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+
+		try {
+			producer.pushBatch(Arrays.asList(row(1L, false), row(2L, true)));
+			fail("expected the sync to fail");
+		} catch ( RuntimeException e ) {
+			assertThat(e.getMessage(), is("redis rejected 1 of 2 pipelined commands"));
+		}
+		verify(context, never()).setPosition(any(Position.class));
+	}
+
+	@Test
+	public void testErrorReplyIsSkippedWithIgnoreProducerError() throws Exception {
+		config.redisPipelineSize = 2;
+		config.redisPipelineFlushMs = 60000L;
+		config.ignoreProducerError = true;
+		redis.errorReplies.set(1);
+		MaxwellRedisProducer producer = new MaxwellRedisProducer(context);
+
+		producer.pushBatch(Arrays.asList(row(1L, false), row(2L, true)));
+		verify(context).setPosition(position(2L));
+
+		producer.requestStop();
+	}
+}
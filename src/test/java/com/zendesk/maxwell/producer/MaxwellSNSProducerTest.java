@@ -4,9 +4,13 @@ import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.AmazonSNSAsync;
 import com.amazonaws.services.sns.AmazonSNSAsyncClient;
 import com.amazonaws.services.sns.AmazonSNSAsyncClientBuilder;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
 import com.amazonaws.services.sns.model.MessageAttributeValue;
-import com.amazonaws.services.sns.model.PublishRequest;
-import com.amazonaws.services.sns.model.PublishResult;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
+import com.amazonaws.services.sns.model.PublishBatchResultEntry;
 import com.zendesk.maxwell.MaxwellConfig;
 import com.zendesk.maxwell.MaxwellContext;
 import com.zendesk.maxwell.monitoring.NoOpMetrics;
@@ -24,8 +28,8 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Future;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -36,12 +40,11 @@ public class MaxwellSNSProducerTest {
 	private static final String TOPIC = "topic";
 	private static final String FIFO_TOPIC = "topic.fifo";
 	private static final Position POSITION = new Position(new BinlogPosition(1L, "binlog-0001"), 0L);
-	private static final Future<PublishResult> mockedFuture = Mockito.mock(Future.class);
 	@Rule
 	public final EnvironmentVariables environmentVariables
 			= new EnvironmentVariables();
 
-	@Captor ArgumentCaptor<PublishRequest> arguments;
+	@Captor ArgumentCaptor<PublishBatchRequest> arguments;
 	RowMap rowMap = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, new ArrayList<String>(), POSITION);
 
 	@Before
@@ -63,11 +66,10 @@ public class MaxwellSNSProducerTest {
 		producer.setClient(client);
 		String payload = rowMap.toJSON();
 		AbstractAsyncProducer.CallbackCompleter cc = mock(AbstractAsyncProducer.CallbackCompleter.class);
-		when(client.publishAsync(any())).thenReturn(mockedFuture);
 		producer.sendAsync(rowMap, cc);
-		Mockito.verify(client, times(1)).publishAsync(arguments.capture(), any());
+		Mockito.verify(client, timeout(5000)).publishBatchAsync(arguments.capture(), any());
 		Assert.assertEquals(arguments.getValue().getTopicArn(), TOPIC);
-		Assert.assertEquals(arguments.getValue().getMessage(), payload);
+		Assert.assertEquals(arguments.getValue().getPublishBatchRequestEntries().get(0).getMessage(), payload);
 	}
 
 	@Test
@@ -81,10 +83,10 @@ public class MaxwellSNSProducerTest {
 		MaxwellSNSProducer producer = new MaxwellSNSProducer(context, TOPIC, "", "");
 		producer.setClient(client);
 		AbstractAsyncProducer.CallbackCompleter cc = mock(AbstractAsyncProducer.CallbackCompleter.class);
-		when(client.publishAsync(any())).thenReturn(mockedFuture);
 		producer.sendAsync(rowMap, cc);
-		Mockito.verify(client, times(1)).publishAsync(arguments.capture(), any());
-		Map<String, MessageAttributeValue> attributes = arguments.getValue().getMessageAttributes();
+		producer.getStoppableTask().requestStop();
+		Mockito.verify(client, times(1)).publishBatchAsync(arguments.capture(), any());
+		Map<String, MessageAttributeValue> attributes = arguments.getValue().getPublishBatchRequestEntries().get(0).getMessageAttributes();
 		Assert.assertNotNull(attributes.getOrDefault("table", null));
 		Assert.assertEquals("MyTable", attributes.get("table").getStringValue());
 		Assert.assertNotNull(attributes.getOrDefault("database", null));
@@ -100,10 +102,111 @@ public class MaxwellSNSProducerTest {
 		MaxwellSNSProducer producer = new MaxwellSNSProducer(context, FIFO_TOPIC, "", "");
 		producer.setClient(client);
 		AbstractAsyncProducer.CallbackCompleter cc = mock(AbstractAsyncProducer.CallbackCompleter.class);
-		when(client.publishAsync(any())).thenReturn(mockedFuture);
 		producer.sendAsync(rowMap, cc);
-		Mockito.verify(client, times(1)).publishAsync(arguments.capture(), any());
-		Map<String, MessageAttributeValue> attributes = arguments.getValue().getMessageAttributes();
-		Assert.assertEquals("MyDatabase", arguments.getValue().getMessageGroupId());
+		producer.getStoppableTask().requestStop();
+		Mockito.verify(client, times(1)).publishBatchAsync(arguments.capture(), any());
+		Map<String, MessageAttributeValue> attributes = arguments.getValue().getPublishBatchRequestEntries().get(0).getMessageAttributes();
+		Assert.assertEquals("MyDatabase", arguments.getValue().getPublishBatchRequestEntries().get(0).getMessageGroupId());
+	}
+
+	private List<RowMap> rows(int n) {
+		List<RowMap> rows = new ArrayList<>();
+		for ( int i = 0; i < n; i++ ) {
+			RowMap r = new RowMap("insert", "MyDatabase", "MyTable" + (i % 2), TIMESTAMP_MILLISECONDS, new ArrayList<String>(), POSITION);
+			r.putData("id", i);
+			rows.add(r);
+		}
+		return rows;
+	}
+
+	private List<AbstractAsyncProducer.CallbackCompleter> completers(int n) {
+		List<AbstractAsyncProducer.CallbackCompleter> completers = new ArrayList<>();
+		for ( int i = 0; i < n; i++ )
+			completers.add(mock(AbstractAsyncProducer.CallbackCompleter.class));
+		return completers;
+	}
+
+	@Test
+	public void publishesBatchesOfTen() throws Exception {
+		AmazonSNSAsyncClient client = Mockito.mock(AmazonSNSAsyncClient.class);
+		MaxwellContext context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(new MaxwellConfig());
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		MaxwellSNSProducer producer = new MaxwellSNSProducer(context, FIFO_TOPIC, "", "");
+		producer.setClient(client);
+
+		List<RowMap> rows = rows(12);
+		producer.sendAsyncBatch(rows, completers(12));
+		producer.getStoppableTask().requestStop();
+
+		ArgumentCaptor<PublishBatchRequest> batches = ArgumentCaptor.forClass(PublishBatchRequest.class);
+		Mockito.verify(client, times(2)).publishBatchAsync(batches.capture(), any());
+		List<PublishBatchRequestEntry> first = batches.getAllValues().get(0).getPublishBatchRequestEntries();
+		List<PublishBatchRequestEntry> second = batches.getAllValues().get(1).getPublishBatchRequestEntries();
+		Assert.assertEquals(10, first.size());
+		Assert.assertEquals(2, second.size());
+		Assert.assertEquals(FIFO_TOPIC, batches.getAllValues().get(0).getTopicArn());
+		Assert.assertEquals(rows.get(0).toJSON(), first.get(0).getMessage());
+		Assert.assertEquals(rows.get(11).toJSON(), second.get(1).getMessage());
+		Assert.assertEquals("MyDatabase", first.get(3).getMessageGroupId());
+	}
+
+	@Test
+	public void splitsBatchesAtByteLimit() throws Exception {
+		AmazonSNSAsyncClient client = Mockito.mock(AmazonSNSAsyncClient.class);
+		MaxwellContext context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(new MaxwellConfig());
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		MaxwellSNSProducer producer = new MaxwellSNSProducer(context, TOPIC, "", "");
+		producer.setClient(client);
+
+		// three rows of ~100KB can't share one 256KB batch
+		StringBuilder big = new StringBuilder();
+		for ( int i = 0; i < 100 * 1024; i++ )
+			big.append('x');
+		List<RowMap> rows = rows(3);
+		for ( RowMap r : rows )
+			r.putData("blob", big.toString());
+
+		producer.sendAsyncBatch(rows, completers(3));
+		producer.getStoppableTask().requestStop();
+
+		ArgumentCaptor<PublishBatchRequest> batches = ArgumentCaptor.forClass(PublishBatchRequest.class);
+		Mockito.verify(client, times(2)).publishBatchAsync(batches.capture(), any());
+		Assert.assertEquals(2, batches.getAllValues().get(0).getPublishBatchRequestEntries().size());
+		Assert.assertEquals(1, batches.getAllValues().get(1).getPublishBatchRequestEntries().size());
+	}
+
+	@Test
+	public void failsOnlyTheFailedEntriesOfABatch() throws Exception {
+		AmazonSNSAsyncClient client = Mockito.mock(AmazonSNSAsyncClient.class);
+		MaxwellContext context = mock(MaxwellContext.class);
+		MaxwellConfig config = new MaxwellConfig();
+		config.ignoreProducerError = false;
+		when(context.getConfig()).thenReturn(config);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+		MaxwellSNSProducer producer = new MaxwellSNSProducer(context, TOPIC, "", "");
+		producer.setClient(client);
+
+		doAnswer(invocation -> {
+			AsyncHandler<PublishBatchRequest, PublishBatchResult> handler = invocation.getArgument(1);
+			PublishBatchResult result = new PublishBatchResult()
+				.withSuccessful(
+					new PublishBatchResultEntry().withId("0").withMessageId("m-0"),
+					new PublishBatchResultEntry().withId("2").withMessageId("m-2"))
+				.withFailed(
+					new BatchResultErrorEntry().withId("1").withCode("InternalError").withSenderFault(false));
+			handler.onSuccess(invocation.getArgument(0), result);
+			return null;
+		}).when(client).publishBatchAsync(any(), any());
+
+		List<AbstractAsyncProducer.CallbackCompleter> completers = completers(3);
+		producer.sendAsyncBatch(rows(3), completers);
+		producer.getStoppableTask().requestStop();
+
+		verify(completers.get(0)).markCompleted();
+		verify(completers.get(1), never()).markCompleted();
+		verify(completers.get(2)).markCompleted();
+		verify(context, times(1)).terminate(any());
 	}
 }
@@ -0,0 +1,159 @@
+package com.zendesk.maxwell.producer;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+import com.zendesk.maxwell.MaxwellConfig;
+import com.zendesk.maxwell.MaxwellContext;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class MaxwellSQSProducerTest {
+	private static final String QUEUE = "https://sqs.us-west-2.amazonaws.com/123456789012/maxwell";
+	private static final String FIFO_QUEUE = QUEUE + ".fifo";
+	private static final Position POSITION = new Position(new BinlogPosition(1L, "binlog-0001"), 0L);
+
+	private AmazonSQSAsync client;
+	private MaxwellConfig config;
+	private MaxwellContext context;
+
+	@Before
+	public void setUp() {
+		client = mock(AmazonSQSAsync.class);
+		config = new MaxwellConfig();
+		context = mock(MaxwellContext.class);
+		when(context.getConfig()).thenReturn(config);
+		when(context.getMetrics()).thenReturn(new NoOpMetrics());
+	}
+
+	/* sends the rows, then whatever's left in the batch */
+	private void send(MaxwellSQSProducer producer, List<RowMap> rows, List<AbstractAsyncProducer.CallbackCompleter> completers) throws Exception {
+		producer.sendAsyncBatch(rows, completers);
+		producer.getStoppableTask().requestStop();
+	}
+
+	private MaxwellSQSProducer producer(String queue) {
+		MaxwellSQSProducer producer = new MaxwellSQSProducer(context, queue, "http://localhost:4566", "us-west-2");
+		producer.setClient(client);
+		return producer;
+	}
+
+	private List<RowMap> rows(int n) {
+		List<RowMap> rows = new ArrayList<>();
+		for ( int i = 0; i < n; i++ ) {
+			RowMap r = new RowMap("insert", "db" + (i % 3), "MyTable", 1496712943447L, new ArrayList<String>(), POSITION);
+			r.putData("id", i);
+			rows.add(r);
+		}
+		return rows;
+	}
+
+	private List<AbstractAsyncProducer.CallbackCompleter> completers(int n) {
+		List<AbstractAsyncProducer.CallbackCompleter> completers = new ArrayList<>();
+		for ( int i = 0; i < n; i++ )
+			completers.add(mock(AbstractAsyncProducer.CallbackCompleter.class));
+		return completers;
+	}
+
+	@Test
+	public void sendsBatchesOfTenInOrder() throws Exception {
+		List<RowMap> rows = rows(25);
+		send(producer(FIFO_QUEUE), rows, completers(25));
+
+		ArgumentCaptor<SendMessageBatchRequest> batches = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+		verify(client, times(3)).sendMessageBatchAsync(batches.capture(), any());
+
+		int row = 0;
+		for ( SendMessageBatchRequest batch : batches.getAllValues() ) {
+			Assert.assertEquals(FIFO_QUEUE, batch.getQueueUrl());
+			for ( SendMessageBatchRequestEntry entry : batch.getEntries() ) {
+				Assert.assertEquals(rows.get(row).toJSON(), entry.getMessageBody());
+				Assert.assertEquals(rows.get(row).getDatabase(), entry.getMessageGroupId());
+				row++;
+			}
+		}
+		Assert.assertEquals(25, row);
+		Assert.assertEquals(10, batches.getAllValues().get(0).getEntries().size());
+		Assert.assertEquals(5, batches.getAllValues().get(2).getEntries().size());
+	}
+
+	@Test
+	public void leavesGroupUnsetOnStandardQueue() throws Exception {
+		send(producer(QUEUE), rows(2), completers(2));
+
+		ArgumentCaptor<SendMessageBatchRequest> batch = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+		verify(client).sendMessageBatchAsync(batch.capture(), any());
+		Assert.assertNull(batch.getValue().getEntries().get(0).getMessageGroupId());
+	}
+
+	@Test
+	public void completesEntriesThatFailedWhenIgnoringErrors() throws Exception {
+		config.ignoreProducerError = true;
+
+		doAnswer(invocation -> {
+			AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> handler = invocation.getArgument(1);
+			SendMessageBatchResult result = new SendMessageBatchResult()
+				.withSuccessful(new SendMessageBatchResultEntry().withId("1").withMessageId("m-1"))
+				.withFailed(new BatchResultErrorEntry().withId("0").withCode("InternalError").withSenderFault(false));
+			handler.onSuccess(invocation.getArgument(0), result);
+			return null;
+		}).when(client).sendMessageBatchAsync(any(SendMessageBatchRequest.class), any());
+
+		List<AbstractAsyncProducer.CallbackCompleter> completers = completers(2);
+		send(producer(QUEUE), rows(2), completers);
+
+		verify(completers.get(0)).markCompleted();
+		verify(completers.get(1)).markCompleted();
+		verify(context, never()).terminate(any());
+	}
+
+	@Test
+	public void terminatesWhenAnEntryFails() throws Exception {
+		config.ignoreProducerError = false;
+
+		doAnswer(invocation -> {
+			AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> handler = invocation.getArgument(1);
+			SendMessageBatchResult result = new SendMessageBatchResult()
+				.withSuccessful(new SendMessageBatchResultEntry().withId("0").withMessageId("m-0"))
+				.withFailed(new BatchResultErrorEntry().withId("1").withCode("InvalidMessageContents").withSenderFault(true));
+			handler.onSuccess(invocation.getArgument(0), result);
+			return null;
+		}).when(client).sendMessageBatchAsync(any(SendMessageBatchRequest.class), any());
+
+		List<AbstractAsyncProducer.CallbackCompleter> completers = completers(2);
+		send(producer(QUEUE), rows(2), completers);
+
+		verify(completers.get(0)).markCompleted();
+		verify(completers.get(1), never()).markCompleted();
+		verify(context, times(1)).terminate(any());
+	}
+
+	@Test
+	public void batchesRowsPushedOneAtATime() throws Exception {
+		MaxwellSQSProducer producer = producer(QUEUE);
+		List<RowMap> rows = rows(3);
+		List<AbstractAsyncProducer.CallbackCompleter> completers = completers(3);
+		for ( int i = 0; i < 3; i++ )
+			producer.sendAsync(rows.get(i), completers.get(i));
+
+		ArgumentCaptor<SendMessageBatchRequest> batch = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+		verify(client, timeout(5000)).sendMessageBatchAsync(batch.capture(), any());
+		Assert.assertEquals(3, batch.getValue().getEntries().size());
+		Assert.assertEquals("2", batch.getValue().getEntries().get(2).getId());
+	}
+}
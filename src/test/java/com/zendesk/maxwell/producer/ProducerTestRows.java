@@ -0,0 +1,25 @@
+package com.zendesk.maxwell.producer;
+
+import com.zendesk.maxwell.replication.BinlogPosition;
+import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.row.RowMap;
+
+import java.util.Arrays;
+
+/**
+ * Rows for producer tests, one per binlog offset, so that the position a
+ * producer stores can be checked against the row that carried it.
+ */
+class ProducerTestRows {
+	static Position position(long offset) {
+		return new Position(new BinlogPosition(offset, "binlog-0001"), 0L);
+	}
+
+	static RowMap row(long offset, boolean commit) {
+		RowMap r = new RowMap("insert", "MyDatabase", "MyTable", 1496712943447L, Arrays.asList("id"), position(offset));
+		r.putData("id", offset);
+		if ( commit )
+			r.setTXCommit();
+		return r;
+	}
+}
@@ -0,0 +1,134 @@
+package com.zendesk.maxwell.replication;
+
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDataDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import com.zendesk.maxwell.filtering.Filter;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FilteringEventDataDeserializersTest {
+	private static final long SKIPPED_TABLE_ID = 0x0102030405L;
+	private static final long KEPT_TABLE_ID = 0xA1B2C3D4E5F6L;
+
+	/* stands in for the table map deserializer: table id, then length-prefixed database and table */
+	private static class FakeTableMapDeserializer implements EventDataDeserializer<TableMapEventData> {
+		@Override
+		public TableMapEventData deserialize(ByteArrayInputStream in) throws IOException {
+			TableMapEventData data = new TableMapEventData();
+			data.setTableId(in.readLong(6));
+			data.setDatabase(in.readString(in.readInteger(1)));
+			data.setTable(in.readString(in.readInteger(1)));
+			return data;
+		}
+	}
+
+	/* stands in for a rows deserializer: keeps every byte it was given */
+	private static class RawEventData implements EventData {
+		final byte[] bytes;
+
+		RawEventData(byte[] bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	private static class FakeRowsDeserializer implements EventDataDeserializer<RawEventData> {
+		@Override
+		public RawEventData deserialize(ByteArrayInputStream in) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			while ( in.available() > 0 )
+				out.write(in.read());
+			return new RawEventData(out.toByteArray());
+		}
+	}
+
+	private NoOpMetrics metrics;
+	private EventDeserializer eventDeserializer;
+
+	private static byte[] tableId(long id) {
+		byte[] b = new byte[6];
+		for ( int i = 0; i < 6; i++ )
+			b[i] = (byte) (id >>> (i << 3));
+		return b;
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for ( byte[] p : parts )
+			out.write(p, 0, p.length);
+		return out.toByteArray();
+	}
+
+	private static byte[] lengthPrefixed(String s) {
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		return concat(new byte[] { (byte) b.length }, b);
+	}
+
+	private EventData deserialize(EventType type, byte[] body) throws Exception {
+		return eventDeserializer.getEventDataDeserializer(type).deserialize(new ByteArrayInputStream(body));
+	}
+
+	private void mapTable(long id, String database, String table) throws Exception {
+		deserialize(EventType.TABLE_MAP, concat(tableId(id), lengthPrefixed(database), lengthPrefixed(table)));
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		metrics = new NoOpMetrics();
+		eventDeserializer = new EventDeserializer();
+		eventDeserializer.setEventDataDeserializer(EventType.TABLE_MAP, new FakeTableMapDeserializer());
+		eventDeserializer.setEventDataDeserializer(EventType.EXT_WRITE_ROWS, new FakeRowsDeserializer());
+
+		new FilteringEventDataDeserializers(new Filter("exclude: skipped.*"), metrics).install(eventDeserializer);
+
+		mapTable(SKIPPED_TABLE_ID, "skipped", "foo");
+		mapTable(KEPT_TABLE_ID, "kept", "foo");
+	}
+
+	@Test
+	public void testExcludedTableIsNotDecoded() throws Exception {
+		byte[] rows = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		EventData data = deserialize(EventType.EXT_WRITE_ROWS, concat(tableId(SKIPPED_TABLE_ID), rows));
+
+		assertThat(data, instanceOf(FilteringEventDataDeserializers.SkippedRowsEventData.class));
+		assertThat(((FilteringEventDataDeserializers.SkippedRowsEventData) data).getTableId(), is(SKIPPED_TABLE_ID));
+		assertThat(metrics.getRegistry().counter(metrics.metricName("replication", "skipped", "events")).getCount(), is(1L));
+		assertThat(metrics.getRegistry().counter(metrics.metricName("replication", "skipped", "bytes")).getCount(), is(16L));
+	}
+
+	@Test
+	public void testIncludedTableGetsTheWholeEvent() throws Exception {
+		byte[] body = concat(tableId(KEPT_TABLE_ID), new byte[] { (byte) 0xFF, 0, 42, -1, 7 });
+		EventData data = deserialize(EventType.EXT_WRITE_ROWS, body);
+
+		assertThat(data, instanceOf(RawEventData.class));
+		assertThat(((RawEventData) data).bytes, is(body));
+		assertThat(metrics.getRegistry().counter(metrics.metricName("replication", "skipped", "events")).getCount(), is(0L));
+	}
+
+	@Test
+	public void testTableIdIsReadBackInBulk() throws Exception {
+		byte[] rest = new byte[] { 9, 8, 7 };
+		FilteringEventDataDeserializers.TableIdPrefixedStream in =
+			new FilteringEventDataDeserializers.TableIdPrefixedStream(KEPT_TABLE_ID, new java.io.ByteArrayInputStream(rest));
+
+		assertThat(in.available(), is(9));
+		byte[] b = new byte[9];
+		assertThat(in.read(b, 0, 4), is(4));
+		assertThat(in.read(b, 4, 5), is(5));
+		assertThat(b, is(concat(tableId(KEPT_TABLE_ID), rest)));
+		assertThat(in.available(), is(0));
+	}
+}
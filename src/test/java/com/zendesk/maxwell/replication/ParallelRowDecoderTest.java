@@ -0,0 +1,92 @@
+package com.zendesk.maxwell.replication;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.producer.MaxwellOutputConfig;
+import com.zendesk.maxwell.row.RowMap;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelRowDecoderTest {
+	private static final Table table = new Table(
+		"shard_1",
+		"sharded",
+		"utf8",
+		Arrays.asList(ColumnDef.build("id", null, "int", (short) 0, true, null, null)),
+		Arrays.asList("id")
+	);
+
+	private BinlogConnectorEvent buildEvent(int firstId, int nRows) {
+		EventHeaderV4 header = new EventHeaderV4();
+		header.setEventType(EventType.EXT_WRITE_ROWS);
+		header.setTimestamp(1000L);
+		header.setNextPosition(100L + firstId);
+
+		BitSet included = new BitSet();
+		included.set(0);
+
+		List<Serializable[]> rows = new ArrayList<>();
+		for ( int i = 0; i < nRows; i++ )
+			rows.add(new Serializable[] { firstId + i });
+
+		WriteRowsEventData data = new WriteRowsEventData();
+		data.setTableId(1L);
+		data.setIncludedColumns(included);
+		data.setRows(rows);
+
+		return new BinlogConnectorEvent(new Event(header, data), "mysql-bin.000001", null, null, new MaxwellOutputConfig());
+	}
+
+	@Test
+	public void testRowsComeBackInSubmissionOrder() throws Exception {
+		ParallelRowDecoder decoder = new ParallelRowDecoder(4, 8, new NoOpMetrics());
+		List<Integer> ids = new ArrayList<>();
+
+		int nextId = 0;
+		for ( int i = 0; i < 200; i++ ) {
+			int nRows = (i % 7) + 1;
+			decoder.submit(buildEvent(nextId, nRows), table, 0L, null);
+			nextId += nRows;
+
+			while ( decoder.isFull() )
+				for ( RowMap r : decoder.takeNext().getRows() )
+					ids.add(((Number) r.getData("id")).intValue());
+		}
+
+		while ( !decoder.isEmpty() )
+			for ( RowMap r : decoder.takeNext().getRows() )
+				ids.add(((Number) r.getData("id")).intValue());
+
+		assertEquals(nextId, ids.size());
+		for ( int i = 0; i < ids.size(); i++ )
+			assertEquals(Integer.valueOf(i), ids.get(i));
+
+		decoder.shutdown();
+	}
+
+	@Test
+	public void testClearDropsOutstandingWork() throws Exception {
+		ParallelRowDecoder decoder = new ParallelRowDecoder(2, new NoOpMetrics());
+		decoder.submit(buildEvent(0, 3), table, 0L, null);
+		decoder.submit(buildEvent(3, 3), table, 0L, null);
+		assertFalse(decoder.isEmpty());
+
+		decoder.clear();
+		assertTrue(decoder.isEmpty());
+		assertNull(decoder.takeNext());
+
+		decoder.shutdown();
+	}
+}
@@ -6,7 +6,10 @@ import com.zendesk.maxwell.replication.Position;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -68,4 +71,57 @@ public class RowMapBufferTest extends TestWithNameLogging {
 		assertThat(buffer.removeFirst().getTimestamp(), is(2L));
 		assertThat(buffer.removeFirst().getTimestamp(), is(3L));
 	}
+
+	@Test
+	public void TestSpilledRowsRoundTrip() throws Exception {
+		for ( boolean compress : new boolean[] { false, true } ) {
+			RowMapBuffer buffer = new RowMapBuffer(100, 0f, compress, null); // spill everything
+			Position position = new Position(new BinlogPosition("gtid-set", "gtid:1", 3, "mysql.1"), 5L);
+
+			for ( int i = 0; i < 3; i++ ) {
+				RowMap r = new RowMap("update", "foo", "bar", 1000L * i, Arrays.asList("id"), position, position, "UPDATE bar");
+				r.putData("id", (long) i);
+				r.putData("int", -i);
+				r.putData("text", "héllo " + i);
+				r.putData("null", null);
+				r.putData("decimal", new BigDecimal("-12.3400"));
+				r.putData("unsigned", new BigInteger("18446744073709551615"));
+				r.putData("double", 1.5d);
+				r.putData("bit", true);
+				r.putData("set", new ArrayList<>(Arrays.asList("a", "b")));
+				r.putData("json", new RawJSONString("{\"a\":1}"));
+				r.putOldData("text", "old");
+				r.putExtraAttribute("extra", i);
+				r.setComment("comment");
+				buffer.add(r);
+			}
+
+			assertThat(buffer.inMemorySize(), is(0L));
+
+			for ( int i = 0; i < 3; i++ ) {
+				RowMap r = buffer.removeFirst();
+				assertThat(r.getRowType(), is("update"));
+				assertThat(r.getTimestampMillis(), is(1000L * i));
+				assertThat(r.getRowQuery(), is("UPDATE bar"));
+				assertThat(r.getPrimaryKeyColumns(), is(Arrays.asList("id")));
+				assertThat(r.getPosition(), is(position));
+				assertThat(r.getPosition().getBinlogPosition().getGtid(), is("gtid:1"));
+				assertThat(r.getNextPosition(), is(position));
+				assertThat(r.getData("id"), is((Object) (long) i));
+				assertThat(r.getData("int"), is((Object) (-i)));
+				assertThat(r.getData("text"), is((Object) ("héllo " + i)));
+				assertThat(r.hasData("null"), is(true));
+				assertThat(r.getData("decimal"), is((Object) new BigDecimal("-12.3400")));
+				assertThat(r.getData("unsigned"), is((Object) new BigInteger("18446744073709551615")));
+				assertThat(r.getData("double"), is((Object) 1.5d));
+				assertThat(r.getData("bit"), is((Object) true));
+				assertThat(r.getData("set"), is((Object) Arrays.asList("a", "b")));
+				assertThat(r.getData("json"), is((Object) new RawJSONString("{\"a\":1}")));
+				assertThat(r.getOldData("text"), is((Object) "old"));
+				assertThat(r.getExtraAttribute("extra"), is((Object) i));
+				assertThat(r.getComment(), is("comment"));
+			}
+			assert buffer.isEmpty();
+		}
+	}
 }
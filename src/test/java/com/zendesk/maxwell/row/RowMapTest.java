@@ -5,12 +5,17 @@ import com.zendesk.maxwell.errors.ProtectedAttributeNameException;
 import com.zendesk.maxwell.producer.MaxwellOutputConfig;
 import com.zendesk.maxwell.replication.BinlogPosition;
 import com.zendesk.maxwell.replication.Position;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -357,6 +362,152 @@ public class RowMapTest {
 		outputConfig.namingStrategy = null;
 	}
 
+	private List<ColumnDef> lazyColumns() {
+		return Arrays.asList(
+			ColumnDef.build("id", "", "int", (short) 0, true, null, null),
+			ColumnDef.build("name", "utf8", "varchar", (short) 1, false, null, null),
+			ColumnDef.build("secret", "utf8", "varchar", (short) 2, false, null, null)
+		);
+	}
+
+	private Table lazyTable() {
+		return new Table("MyDatabase", "MyTable", "utf8", lazyColumns(), Arrays.asList("id"));
+	}
+
+	private BitSet allColumns(int n) {
+		BitSet b = new BitSet();
+		b.set(0, n);
+		return b;
+	}
+
+	@Test
+	public void testLazyDataConvertsOnDemand() throws Exception {
+		MaxwellOutputConfig outputConfig = new MaxwellOutputConfig();
+		Serializable[] data = { 1, "bob".getBytes("UTF-8"), "hunter2".getBytes("UTF-8") };
+
+		RowMap rowMap = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		rowMap.setLazyData(new LazyRowData(lazyTable(), data, allColumns(3), outputConfig));
+
+		Assert.assertTrue(rowMap.isLazy());
+		Assert.assertTrue(rowMap.hasData("name"));
+		Assert.assertFalse(rowMap.hasData("nope"));
+		Assert.assertEquals("bob", rowMap.getData("name"));
+		Assert.assertEquals(Arrays.asList(1L), rowMap.getPrimaryKeyValues());
+		Assert.assertTrue(rowMap.isLazy());
+
+		outputConfig.excludeColumns = Arrays.asList(Pattern.compile("secret"));
+		Assert.assertEquals(
+			"{\"database\":\"MyDatabase\",\"table\":\"MyTable\",\"type\":\"insert\",\"ts\":1496712943,\"data\":{\"id\":1,\"name\":\"bob\"}}",
+			rowMap.toJSON(outputConfig)
+		);
+		Assert.assertFalse(rowMap.isLazy());
+	}
+
+	@Test
+	public void testLazyDataWithPartialImageAndAlteredTable() throws Exception {
+		MaxwellOutputConfig outputConfig = new MaxwellOutputConfig();
+		Table table = lazyTable();
+		Serializable[] data = { 1, "hunter2".getBytes("UTF-8") }; // binlog_row_image = MINIMAL: no "name"
+		BitSet included = new BitSet();
+		included.set(0);
+		included.set(2);
+
+		RowMap rowMap = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		rowMap.setLazyData(new LazyRowData(table, data, included, outputConfig));
+
+		// the row was read before this column was added
+		table.addColumn(0, ColumnDef.build("added", "utf8", "varchar", (short) 0, false, null, null));
+
+		Assert.assertEquals("hunter2", rowMap.getData("secret"));
+		Assert.assertEquals(1L, rowMap.getData("id"));
+		Assert.assertFalse(rowMap.hasData("name"));
+		Assert.assertFalse(rowMap.hasData("added"));
+		Assert.assertFalse(rowMap.hasData("ID"));
+	}
+
+	@Test
+	public void testLazyUpdateMatchesEagerUpdate() throws Exception {
+		MaxwellOutputConfig outputConfig = new MaxwellOutputConfig();
+		Serializable[] after = { 1, "alice".getBytes("UTF-8"), "x".getBytes("UTF-8") };
+		Serializable[] before = { 1, "bob".getBytes("UTF-8"), "x".getBytes("UTF-8") };
+
+		LazyRowData lazyData = new LazyRowData(lazyTable(), after, allColumns(3), outputConfig);
+		lazyData.setOldData(before, allColumns(3));
+
+		RowMap rowMap = new RowMap("update", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		rowMap.setLazyData(lazyData);
+
+		Assert.assertEquals("bob", rowMap.getOldData("name"));
+		Assert.assertNull(rowMap.getOldData("secret"));
+		Assert.assertEquals("alice", rowMap.getData("name"));
+		Assert.assertFalse(rowMap.isLazy());
+	}
+
+	@Test
+	public void testOutputPlanMatchesUnplannedOutput() throws Exception {
+		MaxwellOutputConfig outputConfig = getMaxwellOutputConfig(Pattern.compile("secret"));
+		outputConfig.namingStrategy = FieldNameStrategy.NAME_UNDERSCORE_TO_CAMEL_CASE;
+
+		Table table = new Table("MyDatabase", "MyTable", "utf8", lazyColumns(), Arrays.asList("id"));
+		RowOutputPlan plan = RowOutputPlan.compile(outputConfig, table);
+
+		RowMap planned = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		RowMap unplanned = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		for ( RowMap r : Arrays.asList(planned, unplanned) ) {
+			r.putData("id", 1);
+			r.putData("secret", "hunter2");
+			r.putData("added_by_script", true);
+		}
+		planned.setOutputPlan(plan);
+
+		String json = unplanned.toJSON(outputConfig);
+		Assert.assertEquals(json, planned.toJSON(outputConfig));
+		Assert.assertTrue(json.contains("\"addedByScript\":true"));
+		Assert.assertFalse(json.contains("hunter2"));
+
+		Assert.assertTrue(plan.isFor(outputConfig));
+		outputConfig.namingStrategy = null;
+		Assert.assertFalse(plan.isFor(outputConfig));
+	}
+
+	@Test
+	public void testToJSONBytesMatchesToJSON() throws Exception {
+		RowMap rowMap = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		rowMap.putData("id", 1);
+		rowMap.putData("name", "café ☃ 😀");
+
+		MaxwellOutputConfig outputConfig = getMaxwellOutputConfig();
+		String json = rowMap.toJSON(outputConfig);
+
+		Assert.assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), rowMap.toJSONBytes(outputConfig));
+	}
+
+	@Test
+	public void testSerializedJSONIsCachedUntilModified() throws Exception {
+		RowMap rowMap = new RowMap("insert", "MyDatabase", "MyTable", TIMESTAMP_MILLISECONDS, Arrays.asList("id"), POSITION);
+		rowMap.putData("id", 1);
+
+		MaxwellOutputConfig outputConfig = getMaxwellOutputConfig();
+		Assert.assertFalse(rowMap.isSerializedFor(outputConfig));
+
+		String json = rowMap.toJSON(outputConfig);
+		Assert.assertTrue(rowMap.isSerializedFor(outputConfig));
+		Assert.assertSame(json, rowMap.toJSON(outputConfig));
+		Assert.assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), rowMap.toJSONBytes(outputConfig));
+		Assert.assertFalse(rowMap.isSerializedFor(getMaxwellOutputConfig()));
+
+		rowMap.putData("name", "bob");
+		Assert.assertFalse(rowMap.isSerializedFor(outputConfig));
+		Assert.assertTrue(rowMap.toJSON(outputConfig).contains("\"name\":\"bob\""));
+
+		rowMap.getExtraAttributes().put("added", true);
+		Assert.assertTrue(rowMap.toJSON(outputConfig).contains("\"added\":true"));
+
+		outputConfig.includesPushTimestamp = true;
+		rowMap.toJSON(outputConfig);
+		Assert.assertFalse(rowMap.isSerializedFor(outputConfig));
+	}
+
 	private MaxwellOutputConfig getMaxwellOutputConfig(Pattern... patterns) {
 		MaxwellOutputConfig outputConfig = new MaxwellOutputConfig();
 
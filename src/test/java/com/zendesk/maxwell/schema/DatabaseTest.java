@@ -0,0 +1,94 @@
+package com.zendesk.maxwell.schema;
+
+import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DatabaseTest {
+	private static Table table(String name, String... columns) {
+		List<ColumnDef> list = new ArrayList<>();
+		for ( short i = 0; i < columns.length; i++ )
+			list.add(ColumnDef.build(columns[i], "utf8", "varchar", i, false, null, null));
+		return new Table("shard_1", name, "utf8", list, null);
+	}
+
+	@Test
+	public void testFindsTablesByCaseSensitivity() {
+		Database db = new Database("shard_1", "utf8");
+		db.addTable(table("Tickets"));
+		db.addTable(table("users"));
+
+		// not yet part of a schema: compared case-insensitively
+		assertNotNull(db.findTable("TICKETS"));
+
+		db.setSensitivity(CaseSensitivity.CASE_SENSITIVE);
+		assertNotNull(db.findTable("Tickets"));
+		assertNull(db.findTable("tickets"));
+		assertNull(db.findTable("USERS"));
+
+		db.setSensitivity(CaseSensitivity.CONVERT_ON_COMPARE);
+		assertEquals("Tickets", db.findTable("tickets").getName());
+		assertEquals(Arrays.asList("Tickets", "users"), db.getTableNames());
+	}
+
+	@Test
+	public void testRemoveAndRenameKeepIndexCurrent() {
+		Database db = new Database("shard_1", "utf8");
+		db.setSensitivity(CaseSensitivity.CONVERT_ON_COMPARE);
+		db.addTable(table("tickets"));
+		db.addTable(table("users"));
+
+		Table renamed = db.findTable("tickets").copy();
+		renamed.rename("Tickets_Old");
+		db.removeTable("TICKETS");
+		db.addTable(renamed);
+
+		assertFalse(db.hasTable("tickets"));
+		assertSame(renamed, db.findTable("tickets_old"));
+		assertEquals(Arrays.asList("users", "Tickets_Old"), db.getTableNames());
+		assertEquals(2, db.getTableList().size());
+	}
+
+	@Test
+	public void testTablesNamedAlikeAreKept() {
+		// captured before the server's case sensitivity is known
+		Table upper = table("Tickets");
+		Table lower = table("tickets");
+		Database db = new Database("shard_1", new ArrayList<>(Arrays.asList(upper, lower)), "utf8");
+
+		assertEquals(2, db.getTableList().size());
+		assertSame(upper, db.findTable("tickets"));
+
+		db.setSensitivity(CaseSensitivity.CASE_SENSITIVE);
+		assertSame(upper, db.findTable("Tickets"));
+		assertSame(lower, db.findTable("tickets"));
+
+		db.setSensitivity(CaseSensitivity.CONVERT_ON_COMPARE);
+		db.removeTable("TICKETS");
+		assertSame(lower, db.findTable("Tickets"));
+		assertEquals(Arrays.asList("tickets"), db.getTableNames());
+	}
+
+	@Test
+	public void testFindsColumnsCaseInsensitively() throws Exception {
+		Table t = table("tickets", "id", "Subject", "status");
+
+		assertEquals(1, t.findColumnIndex("subject"));
+		assertEquals(2, t.findColumnIndex("STATUS"));
+		assertEquals(-1, t.findColumnIndex("missing"));
+
+		t.addColumn(0, ColumnDef.build("account_id", "utf8", "varchar", (short) 0, false, null, null));
+		assertEquals(2, t.findColumnIndex("subject"));
+		assertEquals("account_id", t.findColumn("Account_ID").getName());
+
+		t.removeColumn(2);
+		assertEquals(-1, t.findColumnIndex("subject"));
+		assertEquals(2, t.findColumnIndex("status"));
+	}
+}
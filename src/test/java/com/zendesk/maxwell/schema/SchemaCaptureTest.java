@@ -14,6 +14,7 @@ import java.util.List;
 
 import com.zendesk.maxwell.CaseSensitivity;
 import com.zendesk.maxwell.MaxwellTestWithIsolatedServer;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -71,6 +72,25 @@ public class SchemaCaptureTest extends MaxwellTestWithIsolatedServer {
 		assertEquals("ints:mediumints:minimal:sharded", StringUtils.join(nameList.iterator(), ":"));
 	}
 
+	@Test
+	public void testParallelCaptureMatchesSerialCapture() throws Exception {
+		Schema serial = capturer.capture();
+
+		NoOpMetrics metrics = new NoOpMetrics();
+		SchemaCapturer sc = new SchemaCapturer(server.getConnection(), CaseSensitivity.CASE_SENSITIVE);
+		sc.setParallelism(buildContext().getReplicationConnectionPool(), 3);
+		sc.setDatabasesPerQuery(2);
+		sc.setMetrics(metrics);
+		Schema parallel = sc.capture();
+
+		assertEquals(serial.getDatabaseNames(), parallel.getDatabaseNames());
+		List<String> diff = serial.diff(parallel, "serial capture", "parallel capture");
+		assertTrue(StringUtils.join(diff, "\n"), diff.isEmpty());
+
+		long databases = metrics.getRegistry().counter(metrics.metricName("schema", "capture", "databases")).getCount();
+		assertEquals(serial.getDatabases().size(), databases);
+	}
+
 	@Test
 	public void testTablefilter() throws Exception {
 		SchemaCapturer sc =
@@ -0,0 +1,75 @@
+package com.zendesk.maxwell.schema;
+
+import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import com.zendesk.maxwell.schema.columndef.DateTimeColumnDef;
+import com.zendesk.maxwell.schema.columndef.EnumColumnDef;
+import com.zendesk.maxwell.schema.columndef.IntColumnDef;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SchemaSnapshotTest {
+	private static List<ColumnDef> columns() {
+		List<ColumnDef> list = new ArrayList<>();
+		list.add(ColumnDef.build("id", null, "int", (short) 0, false, null, null));
+		list.add(ColumnDef.build("account_id", null, "bigint", (short) 1, true, null, null));
+		list.add(ColumnDef.build("Subject", "utf8mb4", "varchar", (short) 2, false, null, null));
+		list.add(ColumnDef.build("status", null, "enum", (short) 3, false, new String[] { "open", "closed", "" }, null));
+		list.add(ColumnDef.build("tags", null, "set", (short) 4, false, new String[] { "a", "b" }, null));
+		list.add(ColumnDef.build("created_at", null, "datetime", (short) 5, false, null, 3L));
+		list.add(ColumnDef.build("body", null, "blob", (short) 6, false, null, null));
+		list.add(ColumnDef.build("amount", null, "decimal", (short) 7, false, null, null));
+		return list;
+	}
+
+	private static Schema buildSchema() {
+		List<Database> databases = new ArrayList<>();
+		for ( int i = 0; i < 3; i++ ) {
+			Database db = new Database("shard_" + i, "utf8");
+			db.addTable(new Table(db.getName(), "tickets", "latin1", columns(), Arrays.asList("ID", "account_id")));
+			db.addTable(new Table(db.getName(), "users", "utf8", columns().subList(0, 3), null));
+			databases.add(db);
+		}
+		databases.add(new Database("empty", "utf8mb4"));
+		return new Schema(databases, "utf8", CaseSensitivity.CASE_SENSITIVE);
+	}
+
+	private static Schema restore(byte[] data) throws IOException {
+		Schema schema = new Schema(new ArrayList<>(), "utf8", CaseSensitivity.CASE_SENSITIVE);
+		SchemaSnapshot.readInto(new ByteArrayInputStream(data), schema);
+		return schema;
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Schema schema = buildSchema();
+		Schema restored = restore(SchemaSnapshot.toBytes(schema));
+
+		List<String> diff = schema.diff(restored, "saved", "restored");
+		assertTrue(StringUtils.join(diff, "\n"), diff.isEmpty());
+		assertEquals(Arrays.asList("shard_0", "shard_1", "shard_2", "empty"), restored.getDatabaseNames());
+
+		Table tickets = restored.findDatabase("shard_1").findTable("tickets");
+		assertEquals(Arrays.asList("id", "account_id"), tickets.getPKList());
+		assertFalse(((IntColumnDef) tickets.findColumn("id")).isSigned());
+		assertEquals(Arrays.asList("open", "closed", ""), ((EnumColumnDef) tickets.findColumn("status")).getEnumValues());
+		assertEquals((Long) 3L, ((DateTimeColumnDef) tickets.findColumn("created_at")).getColumnLength());
+
+		// identically-shaped tables still share one definition
+		assertSame(tickets.getColumnList(), restored.findDatabase("shard_2").findTable("tickets").getColumnList());
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsTruncatedSnapshot() throws Exception {
+		byte[] data = SchemaSnapshot.toBytes(buildSchema());
+		restore(Arrays.copyOf(data, data.length / 2));
+	}
+}
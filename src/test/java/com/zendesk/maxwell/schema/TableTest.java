@@ -0,0 +1,48 @@
+package com.zendesk.maxwell.schema;
+
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TableTest {
+	private static Table table(String database, String name) {
+		List<ColumnDef> list = new ArrayList<>();
+		list.add(ColumnDef.build(new String("id"), null, "bigint", (short) 0, false, null, null));
+		list.add(ColumnDef.build(new String("Subject"), new String("utf8mb4"), "varchar", (short) 1, false, null, null));
+		return new Table(database, name, "utf8mb4", list, Arrays.asList(new String("ID")));
+	}
+
+	@Test
+	public void testIdenticalTablesShareOneDefinition() {
+		Table a = table("tenant_1", "tickets");
+		Table b = table("tenant_2", "tickets");
+
+		assertSame(a.getColumnList(), b.getColumnList());
+		assertSame(a.getPKList(), b.getPKList());
+		assertSame(a.getColumnNames(), b.getColumnNames());
+		assertEquals(Arrays.asList("id"), a.getPKList());
+	}
+
+	@Test
+	public void testChangesAreCopyOnWrite() throws Exception {
+		Table a = table("tenant_1", "tickets");
+		Table b = table("tenant_2", "tickets");
+		Table copy = a.copy();
+
+		a.renameColumn(0, "ticket_id");
+		a.addColumn(ColumnDef.build("status", null, "int", (short) 0, false, null, null));
+
+		assertEquals(Arrays.asList("ticket_id"), a.getPKList());
+		assertEquals(2, a.findColumnIndex("status"));
+
+		assertEquals(Arrays.asList("id"), b.getPKList());
+		assertEquals(2, b.getColumnList().size());
+		assertSame(b.getColumnList(), copy.getColumnList());
+		assertEquals("id", copy.findColumn(0).getName());
+	}
+}
@@ -336,6 +336,31 @@ public class DDLParserTest {
 		}
 	}
 
+	@Test
+	public void testNonDDLIsIgnored() {
+		String testSQL[] = {
+			"INSERT INTO `foo`.`bar` (id) VALUES (1)",
+			"update bar set id = 2 where id = 1",
+			"/* app:web */ SELECT 1",
+			"USE foo",
+			"XA START 'xatest'",
+			"SET @a = 1",
+			"SET STATEMENT max_statement_time=60 FOR UPDATE bar SET id = 2",
+			"-- create table foo (id int)\nCALL create_table()",
+			"",
+		};
+
+		for ( String s : testSQL ) {
+			assertThat(SchemaChange.parse("default_db", s), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void testDDLAfterComments() {
+		assertThat(parseCreate("/* app:migrations */ -- 2021\n# up\nCREATE TABLE foo (id int)").table, is("foo"));
+		assertThat(parseAlter("/*!40000 ALTER TABLE `foo` ADD col1 text */").table, is("foo"));
+	}
+
 	@Test
 	public void testChangeColumn() {
 		TableAlter a = parseAlter("alter table c CHANGE column `foo` bar int(20) unsigned default 'foo' not null");
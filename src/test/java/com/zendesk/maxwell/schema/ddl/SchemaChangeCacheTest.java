@@ -0,0 +1,119 @@
+package com.zendesk.maxwell.schema.ddl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zendesk.maxwell.CaseSensitivity;
+import com.zendesk.maxwell.monitoring.NoOpMetrics;
+import com.zendesk.maxwell.schema.Database;
+import com.zendesk.maxwell.schema.Schema;
+import com.zendesk.maxwell.schema.Table;
+import com.zendesk.maxwell.schema.columndef.ColumnDef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SchemaChangeCacheTest {
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private static Schema buildSchema() {
+		List<Database> databases = new ArrayList<>();
+		for ( String name : new String[] { "shard_1", "shard_2", "other" } ) {
+			Database d = new Database(name, "utf8");
+			List<ColumnDef> columns = Arrays.asList(
+				ColumnDef.build("id", null, "int", (short) 0, true, null, null),
+				ColumnDef.build("shard_1", "utf8", "varchar", (short) 1, false, null, null)
+			);
+			d.addTable(new Table(name, "foo", "utf8", columns, Arrays.asList("id")));
+			databases.add(d);
+		}
+		return new Schema(databases, "utf8", CaseSensitivity.CASE_SENSITIVE);
+	}
+
+	private List<String> apply(Schema schema, List<SchemaChange> changes) throws Exception {
+		List<String> json = new ArrayList<>();
+		if ( changes == null )
+			return null;
+
+		for ( SchemaChange change : changes ) {
+			ResolvedSchemaChange resolved = change.resolve(schema);
+			if ( resolved != null ) {
+				resolved.apply(schema);
+				json.add(mapper.writeValueAsString(resolved));
+			}
+		}
+		return json;
+	}
+
+	@Test
+	public void testCachedParseMatchesUncachedParse() throws Exception {
+		String[] testSQL = {
+			"ALTER TABLE foo ADD COLUMN bar int",
+			"alter table other.foo modify column id bigint after shard_1",
+			"ALTER TABLE foo DROP COLUMN shard_1, CONVERT TO CHARACTER SET latin1",
+			"CREATE TABLE baz (id int primary key, name varchar(10) default 'shard_1')",
+			"CREATE TABLE IF NOT EXISTS baz (id int)",
+			"CREATE TABLE qux LIKE other.foo",
+			"RENAME TABLE baz TO baz2",
+			"ALTER TABLE qux RENAME TO qux2",
+			"ALTER DATABASE CHARACTER SET latin1",
+			"CREATE DATABASE IF NOT EXISTS shard_3",
+			"CREATE INDEX idx_bar ON foo (bar)",
+			"CREATE VIEW v AS SELECT * FROM foo",
+			"DROP TABLE IF EXISTS qux2, missing",
+			"DROP DATABASE IF EXISTS shard_3",
+		};
+
+		SchemaChangeCache cache = new SchemaChangeCache(100, new NoOpMetrics());
+		Schema cachedSchema = buildSchema();
+		Schema uncachedSchema = buildSchema();
+
+		for ( String db : new String[] { "shard_1", "shard_2" } ) {
+			for ( String sql : testSQL ) {
+				List<String> cached = apply(cachedSchema, cache.parse(db, sql));
+				List<String> uncached = apply(uncachedSchema, SchemaChange.parse(db, sql));
+				assertThat(db + ": " + sql, cached, is(uncached));
+			}
+		}
+
+		List<String> diffs = cachedSchema.diff(uncachedSchema, "cached", "uncached");
+		assertThat(diffs.toString(), diffs.isEmpty(), is(true));
+	}
+
+	@Test
+	public void testRepeatedStatementIsParsedOnce() {
+		NoOpMetrics metrics = new NoOpMetrics();
+		SchemaChangeCache cache = new SchemaChangeCache(100, metrics);
+
+		List<SchemaChange> first = cache.parse("shard_1", "ALTER TABLE foo ADD COLUMN bar int");
+		List<SchemaChange> second = cache.parse("shard_2", "ALTER TABLE foo ADD COLUMN bar int");
+		cache.parse("shard_2", "INSERT INTO foo VALUES (1)");
+
+		assertThat(((TableAlter) first.get(0)).database, is("shard_1"));
+		assertThat(((TableAlter) second.get(0)).database, is("shard_2"));
+		assertThat(first.get(0), not(sameInstance(second.get(0))));
+
+		assertThat(metrics.getRegistry().counter(metrics.metricName("schema", "ddl", "cache", "misses")).getCount(), is(1L));
+		assertThat(metrics.getRegistry().counter(metrics.metricName("schema", "ddl", "cache", "hits")).getCount(), is(1L));
+		assertThat(metrics.getRegistry().getGauges().get(metrics.metricName("schema", "ddl", "cache", "hit_ratio")).getValue(), is((Object) 0.5));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		NoOpMetrics metrics = new NoOpMetrics();
+		SchemaChangeCache cache = new SchemaChangeCache(2, metrics);
+
+		cache.parse("shard_1", "DROP TABLE a");
+		cache.parse("shard_1", "DROP TABLE b");
+		cache.parse("shard_1", "DROP TABLE a");
+		cache.parse("shard_1", "DROP TABLE c");
+		assertThat(cache.size(), is(2));
+
+		cache.parse("shard_1", "DROP TABLE a");
+		cache.parse("shard_1", "DROP TABLE b");
+		assertThat(metrics.getRegistry().counter(metrics.metricName("schema", "ddl", "cache", "hits")).getCount(), is(2L));
+	}
+}
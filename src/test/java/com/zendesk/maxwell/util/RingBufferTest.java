@@ -0,0 +1,90 @@
+package com.zendesk.maxwell.util;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+public class RingBufferTest {
+	@Test
+	public void testFifoAndCapacity() throws Exception {
+		RingBuffer<Integer> rb = new RingBuffer<>(3, RingBuffer.WaitStrategy.PARK);
+
+		assertThat(rb.offer(1), equalTo(true));
+		assertThat(rb.offer(2), equalTo(true));
+		assertThat(rb.offer(3), equalTo(true));
+		assertThat(rb.offer(4), equalTo(false));
+		assertThat(rb.offer(4, 1, TimeUnit.MILLISECONDS), equalTo(false));
+		assertThat(rb.size(), equalTo(3));
+
+		assertThat(rb.poll(), equalTo(1));
+		assertThat(rb.offer(4), equalTo(true));
+
+		ArrayDeque<Integer> batch = new ArrayDeque<>();
+		assertThat(rb.drainTo(batch, 10), equalTo(3));
+		assertThat(new ArrayList<>(batch).toString(), equalTo("[2, 3, 4]"));
+
+		assertThat(rb.poll(), nullValue());
+		assertThat(rb.poll(1, TimeUnit.MILLISECONDS), nullValue());
+		assertThat(rb.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void testParkedSidesAreWoken() throws Exception {
+		RingBuffer<Integer> rb = new RingBuffer<>(1, RingBuffer.WaitStrategy.PARK);
+
+		// the consumer parks on an empty queue until the producer offers
+		Thread producer = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+				rb.offer(1);
+				rb.offer(2, 10, TimeUnit.SECONDS); // parks until the consumer makes room
+			} catch ( InterruptedException e ) { }
+		});
+		producer.start();
+
+		long start = System.nanoTime();
+		assertThat(rb.poll(10, TimeUnit.SECONDS), equalTo(1));
+		assertThat(rb.poll(10, TimeUnit.SECONDS), equalTo(2));
+		producer.join();
+
+		assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5, equalTo(true));
+	}
+
+	@Test
+	public void testOrderingAcrossThreads() throws Exception {
+		testOrderingAcrossThreads(RingBuffer.WaitStrategy.YIELD);
+		testOrderingAcrossThreads(RingBuffer.WaitStrategy.PARK);
+	}
+
+	private void testOrderingAcrossThreads(RingBuffer.WaitStrategy strategy) throws Exception {
+		final int count = 200000;
+		RingBuffer<Integer> rb = new RingBuffer<>(64, strategy);
+
+		Thread producer = new Thread(() -> {
+			try {
+				for ( int i = 0; i < count; i++ )
+					while ( !rb.offer(i, 100, TimeUnit.MILLISECONDS) ) { }
+			} catch ( InterruptedException e ) { }
+		});
+		producer.start();
+
+		List<Integer> batch = new ArrayList<>();
+		int expected = 0;
+		while ( expected < count ) {
+			batch.clear();
+			rb.drainTo(batch, 16, 100, TimeUnit.MILLISECONDS);
+			for ( Integer i : batch )
+				assertThat(i, equalTo(expected++));
+		}
+
+		producer.join();
+		assertThat(rb.isEmpty(), equalTo(true));
+	}
+}